@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.fingerprint;
+
+import org.gbif.api.model.registry.Citation;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.Collection;
+import org.gbif.api.model.registry.eml.Project;
+import org.gbif.api.model.registry.eml.ProjectAward;
+import org.gbif.api.model.registry.eml.RelatedProject;
+import org.gbif.api.model.registry.eml.SamplingDescription;
+import org.gbif.api.model.registry.eml.TaxonomicCoverages;
+import org.gbif.api.model.registry.eml.curatorial.CuratorialUnitComposite;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.TemporalCoverage;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriod;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Canonical fingerprint of the metadata of a {@link Dataset}, e.g. to skip re-crawled metadata that did not change.
+ * <p>
+ * Only the metadata content counts: registry bookkeeping like keys, endpoints or modification dates is ignored, so
+ * is the order of coverages, identifiers and keywords and whitespace in descriptive texts. Contacts keep their order
+ * as it is the order of authorship.
+ */
+public final class DatasetFingerprint {
+
+  private DatasetFingerprint() {}
+
+  public static Fingerprint of(Dataset dataset) {
+    Fingerprinter f = new Fingerprinter();
+    f.putString(dataset.getDoi() == null ? null : dataset.getDoi().getDoiName());
+    f.putString(dataset.getVersion());
+    f.putEnum(dataset.getType());
+    f.putEnum(dataset.getSubtype());
+    f.putText(dataset.getTitle());
+    f.putText(dataset.getShortName());
+    f.putText(dataset.getDescription());
+    f.putEnum(dataset.getLanguage());
+    f.putEnum(dataset.getDataLanguage());
+    putUri(f, dataset.getHomepage());
+    putUri(f, dataset.getLogoUrl());
+    f.putOrdered(
+        dataset.getCitation() == null ? null : Collections.singletonList(dataset.getCitation()),
+        DatasetFingerprint::putCitation);
+    f.putText(dataset.getRights());
+    f.putEnum(dataset.getLicense());
+    putContacts(f, dataset.getContacts());
+    f.putUnordered(
+        dataset.getIdentifiers(),
+        (e, identifier) -> e.putString(identifier.getIdentifier()).putEnum(identifier.getType()));
+    f.putUnordered(dataset.getBibliographicCitations(), DatasetFingerprint::putCitation);
+    f.putUnordered(dataset.getCuratorialUnits(), DatasetFingerprint::putCuratorialUnit);
+    f.putUnordered(dataset.getTaxonomicCoverages(), DatasetFingerprint::putTaxonomicCoverages);
+    f.putText(dataset.getGeographicCoverageDescription());
+    f.putUnordered(dataset.getGeographicCoverages(), DatasetFingerprint::putGeospatialCoverage);
+    f.putUnordered(dataset.getTemporalCoverages(), DatasetFingerprint::putTemporalCoverage);
+    f.putUnordered(
+        dataset.getKeywordCollections(),
+        (e, keywords) ->
+            e.putString(keywords.getThesaurus()).putUnorderedStrings(keywords.getKeywords()));
+    putProject(f, dataset.getProject());
+    putSamplingDescription(f, dataset.getSamplingDescription());
+    f.putUnordered(dataset.getCountryCoverage(), Fingerprinter::putEnum);
+    f.putUnordered(dataset.getCollections(), DatasetFingerprint::putCollection);
+    f.putUnordered(
+        dataset.getDataDescriptions(),
+        (e, description) -> {
+          e.putString(description.getName());
+          e.putString(description.getFormat());
+          e.putString(description.getFormatVersion());
+          putUri(e, description.getUrl());
+          e.putString(description.getCharset());
+        });
+    f.putText(dataset.getPurpose());
+    f.putText(dataset.getAdditionalInfo());
+    f.putDate(dataset.getPubDate());
+    f.putEnum(dataset.getMaintenanceUpdateFrequency());
+    f.putText(dataset.getMaintenanceDescription());
+    f.putString(dataset.getPublishingOrganizationName());
+    f.putText(dataset.getIntroduction());
+    f.putText(dataset.getGettingStarted());
+    f.putText(dataset.getAcknowledgements());
+    return f.finish();
+  }
+
+  private static void putUri(Fingerprinter f, URI uri) {
+    f.putString(uri == null ? null : uri.toString());
+  }
+
+  private static void putCitation(Fingerprinter f, Citation citation) {
+    f.putText(citation.getText());
+    f.putString(citation.getIdentifier());
+  }
+
+  private static void putContacts(Fingerprinter f, List<Contact> contacts) {
+    f.putOrdered(
+        contacts,
+        (e, contact) -> {
+          e.putEnum(contact.getType());
+          e.putBoolean(contact.isPrimary());
+          e.putString(contact.getSalutation());
+          e.putString(contact.getFirstName());
+          e.putString(contact.getLastName());
+          e.putStrings(contact.getPosition());
+          e.putString(contact.getOrganization());
+          e.putStrings(contact.getAddress());
+          e.putString(contact.getCity());
+          e.putString(contact.getProvince());
+          e.putEnum(contact.getCountry());
+          e.putString(contact.getPostalCode());
+          e.putUnorderedStrings(contact.getEmail());
+          e.putUnorderedStrings(contact.getPhone());
+          e.putUnordered(contact.getHomepage(), DatasetFingerprint::putUri);
+          e.putUnorderedStrings(contact.getUserId());
+        });
+  }
+
+  private static void putCuratorialUnit(Fingerprinter f, CuratorialUnitComposite unit) {
+    f.putString(unit.getTypeVerbatim());
+    f.putInt(unit.getLower());
+    f.putInt(unit.getUpper());
+    f.putInt(unit.getCount());
+    f.putInt(unit.getDeviation());
+  }
+
+  private static void putTaxonomicCoverages(Fingerprinter f, TaxonomicCoverages coverages) {
+    f.putText(coverages.getDescription());
+    f.putUnordered(
+        coverages.getCoverages(),
+        (e, coverage) -> {
+          e.putString(coverage.getScientificName());
+          e.putString(coverage.getCommonName());
+          e.putString(coverage.getRank() == null ? null : coverage.getRank().getVerbatim());
+        });
+  }
+
+  private static void putGeospatialCoverage(Fingerprinter f, GeospatialCoverage coverage) {
+    f.putText(coverage.getDescription());
+    BoundingBox bbox = coverage.getBoundingBox();
+    if (bbox == null) {
+      f.putDouble(null);
+    } else {
+      f.putDouble(bbox.getMinLatitude());
+      f.putDouble(bbox.getMinLongitude());
+      f.putDouble(bbox.getMaxLatitude());
+      f.putDouble(bbox.getMaxLongitude());
+    }
+  }
+
+  private static void putTemporalCoverage(Fingerprinter f, TemporalCoverage coverage) {
+    f.putString(coverage.getClass().getSimpleName());
+    if (coverage instanceof SingleDate) {
+      f.putDate(((SingleDate) coverage).getDate());
+    } else if (coverage instanceof DateRange) {
+      f.putDate(((DateRange) coverage).getStart());
+      f.putDate(((DateRange) coverage).getEnd());
+    } else if (coverage instanceof VerbatimTimePeriod) {
+      f.putString(((VerbatimTimePeriod) coverage).getPeriod());
+      f.putEnum(((VerbatimTimePeriod) coverage).getType());
+    }
+  }
+
+  private static void putProject(Fingerprinter f, Project project) {
+    if (project == null) {
+      f.putString(null);
+      return;
+    }
+    f.putText(project.getTitle());
+    f.putString(project.getIdentifier());
+    putContacts(f, project.getContacts());
+    f.putText(project.getAbstract());
+    f.putText(project.getFunding());
+    f.putUnordered(project.getAwards(), DatasetFingerprint::putAward);
+    f.putUnordered(project.getRelatedProjects(), DatasetFingerprint::putRelatedProject);
+    f.putText(project.getStudyAreaDescription());
+    f.putText(project.getDesignDescription());
+  }
+
+  private static void putAward(Fingerprinter f, ProjectAward award) {
+    f.putText(award.getTitle());
+    f.putString(award.getFunderName());
+    f.putUnorderedStrings(award.getFunderIdentifiers());
+    f.putString(award.getAwardNumber());
+    f.putString(award.getAwardUrl());
+  }
+
+  private static void putRelatedProject(Fingerprinter f, RelatedProject related) {
+    f.putText(related.getTitle());
+    f.putString(related.getIdentifier());
+    f.putText(related.getAbstract());
+    putContacts(f, related.getContacts());
+  }
+
+  private static void putSamplingDescription(Fingerprinter f, SamplingDescription sampling) {
+    if (sampling == null) {
+      f.putString(null);
+      return;
+    }
+    f.putText(sampling.getStudyExtent());
+    f.putText(sampling.getSampling());
+    f.putText(sampling.getQualityControl());
+    f.putOrdered(sampling.getMethodSteps(), Fingerprinter::putText);
+  }
+
+  private static void putCollection(Fingerprinter f, Collection collection) {
+    f.putString(collection.getName());
+    f.putString(collection.getIdentifier());
+    f.putString(collection.getParentIdentifier());
+    f.putEnum(collection.getSpecimenPreservationMethod());
+    f.putUnordered(collection.getCuratorialUnits(), DatasetFingerprint::putCuratorialUnit);
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.fingerprint;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A 128 bit hash of the content of a metadata document, see {@link Fingerprinter}.
+ */
+public final class Fingerprint implements Serializable {
+
+  private static final long serialVersionUID = 4218853960124357123L;
+
+  private final long high;
+  private final long low;
+
+  public Fingerprint(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  /**
+   * Parses the 32 character hexadecimal form returned by {@link #toString()}.
+   */
+  public static Fingerprint fromString(String hex) {
+    if (hex == null || hex.length() != 32) {
+      throw new IllegalArgumentException("A fingerprint has 32 hexadecimal characters: " + hex);
+    }
+    return new Fingerprint(
+        Long.parseUnsignedLong(hex.substring(0, 16), 16),
+        Long.parseUnsignedLong(hex.substring(16), 16));
+  }
+
+  public long getHigh() {
+    return high;
+  }
+
+  public long getLow() {
+    return low;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Fingerprint that = (Fingerprint) o;
+    return high == that.high && low == that.low;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(high, low);
+  }
+
+  /**
+   * @return the fingerprint as 32 hexadecimal characters
+   */
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
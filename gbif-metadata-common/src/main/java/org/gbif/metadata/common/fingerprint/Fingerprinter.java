@@ -0,0 +1,303 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.fingerprint;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Streams the content of a metadata model into a 128 bit MurmurHash3 (x64 variant) without rendering it.
+ * <p>
+ * Values are fed field by field in a fixed order. Every value is tagged, so a null or an empty list never hashes
+ * like a shifted neighbouring field. Lists whose order carries no meaning are fed with
+ * {@link #putUnordered(Collection, BiConsumer)}, which combines the fingerprints of the elements independent of
+ * their order.
+ * <p>
+ * The fingerprint is meant to detect changed content, not to protect against deliberate collisions. Instances are
+ * not thread safe and produce a single fingerprint.
+ */
+public class Fingerprinter {
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private static final byte NULL = 0;
+  private static final byte VALUE = 1;
+
+  // whitespace around block elements of DocBook and HTML is not significant
+  private static final Pattern BLOCK_WHITESPACE =
+      Pattern.compile(
+          "\\s*(</?(?:para|itemizedlist|orderedlist|listitem|section|title|p|div|ul|ol|li|br)"
+              + "\\b[^>]*>)\\s*",
+          Pattern.CASE_INSENSITIVE);
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+  private long length;
+  private long h1;
+  private long h2;
+
+  public Fingerprinter putString(String value) {
+    if (value == null) {
+      putByte(NULL);
+    } else {
+      putByte(VALUE);
+      putRawInt(value.length());
+      for (int i = 0; i < value.length(); i++) {
+        putRawChar(value.charAt(i));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Feeds text with markup such as DocBook or HTML. Runs of whitespace count as a single space and whitespace
+   * around block elements like paragraphs is ignored, as are leading and trailing whitespace. Blank text counts as
+   * null.
+   */
+  public Fingerprinter putText(String value) {
+    String text = StringUtils.normalizeSpace(value);
+    if (text != null && text.indexOf('<') >= 0) {
+      text = BLOCK_WHITESPACE.matcher(text).replaceAll("$1");
+    }
+    return putString(StringUtils.trimToNull(text));
+  }
+
+  public Fingerprinter putLong(long value) {
+    putByte(VALUE);
+    putRawLong(value);
+    return this;
+  }
+
+  public Fingerprinter putInt(Integer value) {
+    if (value == null) {
+      putByte(NULL);
+    } else {
+      putByte(VALUE);
+      putRawInt(value);
+    }
+    return this;
+  }
+
+  public Fingerprinter putBoolean(boolean value) {
+    return putInt(value ? 1 : 0);
+  }
+
+  public Fingerprinter putDouble(Double value) {
+    if (value == null) {
+      putByte(NULL);
+      return this;
+    }
+    return putLong(Double.doubleToLongBits(value));
+  }
+
+  public Fingerprinter putDate(Date value) {
+    if (value == null) {
+      putByte(NULL);
+      return this;
+    }
+    return putLong(value.getTime());
+  }
+
+  /**
+   * Feeds a number by its value, so 1.0 and 1.00 are the same.
+   */
+  public Fingerprinter putDecimal(BigDecimal value) {
+    return putString(value == null ? null : value.stripTrailingZeros().toPlainString());
+  }
+
+  /**
+   * Feeds an enumeration by its name, which unlike its ordinal survives new constants.
+   */
+  public Fingerprinter putEnum(Enum<?> value) {
+    return putString(value == null ? null : value.name());
+  }
+
+  /**
+   * Feeds a list in its order.
+   */
+  public <T> Fingerprinter putOrdered(
+      Collection<T> values, BiConsumer<Fingerprinter, T> elementFeeder) {
+    if (values == null) {
+      putByte(NULL);
+      return this;
+    }
+    putByte(VALUE);
+    putRawInt(values.size());
+    for (T value : values) {
+      if (value == null) {
+        putByte(NULL);
+      } else {
+        putByte(VALUE);
+        elementFeeder.accept(this, value);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Feeds a list whose order has no meaning. Duplicates still count, so [a, a, b] differs from [a, b].
+   * Null elements and null or empty lists are all ignored.
+   */
+  public <T> Fingerprinter putUnordered(
+      Collection<T> values, BiConsumer<Fingerprinter, T> elementFeeder) {
+    long sumHigh = 0;
+    long sumLow = 0;
+    int count = 0;
+    if (values != null) {
+      for (T value : values) {
+        if (value != null) {
+          Fingerprinter element = new Fingerprinter();
+          elementFeeder.accept(element, value);
+          Fingerprint fingerprint = element.finish();
+          // addition is commutative and unlike xor keeps duplicates
+          sumHigh += fingerprint.getHigh();
+          sumLow += fingerprint.getLow();
+          count++;
+        }
+      }
+    }
+    putByte(VALUE);
+    putRawInt(count);
+    putRawLong(sumHigh);
+    putRawLong(sumLow);
+    return this;
+  }
+
+  public Fingerprinter putStrings(Collection<String> values) {
+    return putOrdered(values, Fingerprinter::putString);
+  }
+
+  public Fingerprinter putUnorderedStrings(Collection<String> values) {
+    return putUnordered(values, Fingerprinter::putString);
+  }
+
+  /**
+   * @return the fingerprint of everything fed so far, the instance must not be used afterwards
+   */
+  public Fingerprint finish() {
+    buffer.flip();
+    int remaining = buffer.remaining();
+    length += remaining;
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = 0; i < remaining; i++) {
+      long b = buffer.get(i) & 0xFFL;
+      if (i < 8) {
+        k1 |= b << (8 * i);
+      } else {
+        k2 |= b << (8 * (i - 8));
+      }
+    }
+    if (remaining > 8) {
+      k2 *= C2;
+      k2 = Long.rotateLeft(k2, 33);
+      k2 *= C1;
+      h2 ^= k2;
+    }
+    if (remaining > 0) {
+      k1 *= C1;
+      k1 = Long.rotateLeft(k1, 31);
+      k1 *= C2;
+      h1 ^= k1;
+    }
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix(h1);
+    h2 = fmix(h2);
+    h1 += h2;
+    h2 += h1;
+    return new Fingerprint(h1, h2);
+  }
+
+  private void putByte(byte value) {
+    buffer.put(value);
+    mixIfFull();
+  }
+
+  private void putRawChar(char value) {
+    if (buffer.remaining() >= 2) {
+      buffer.putChar(value);
+      mixIfFull();
+    } else {
+      putByte((byte) value);
+      putByte((byte) (value >>> 8));
+    }
+  }
+
+  private void putRawInt(int value) {
+    if (buffer.remaining() >= 4) {
+      buffer.putInt(value);
+      mixIfFull();
+    } else {
+      for (int i = 0; i < 4; i++) {
+        putByte((byte) (value >>> (8 * i)));
+      }
+    }
+  }
+
+  private void putRawLong(long value) {
+    if (buffer.remaining() >= 8) {
+      buffer.putLong(value);
+      mixIfFull();
+    } else {
+      for (int i = 0; i < 8; i++) {
+        putByte((byte) (value >>> (8 * i)));
+      }
+    }
+  }
+
+  private void mixIfFull() {
+    if (!buffer.hasRemaining()) {
+      mix(buffer.getLong(0), buffer.getLong(8));
+      buffer.clear();
+      length += 16;
+    }
+  }
+
+  private void mix(long k1, long k2) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    h1 ^= k1;
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    h1 = h1 * 5 + 0x52dce729;
+
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    h2 ^= k2;
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    h2 = h2 * 5 + 0x38495ab5;
+  }
+
+  private static long fmix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
@@ -44,6 +44,7 @@ import org.gbif.common.parsers.RankParser;
 import org.gbif.common.parsers.core.ParseResult;
 import org.gbif.common.parsers.date.DateParsers;
 import org.gbif.metadata.common.util.CleanUtils;
+import org.gbif.metadata.common.util.StringPool;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -88,6 +89,29 @@ public class DatasetWrapper {
   private static final String DISTRIBUTION_INFORMATION = "information";
   private final Dataset target = new Dataset();
   private final ParagraphContainer description = new ParagraphContainer();
+  // deduplicates the values split or derived here, null for none
+  @Nullable private final StringPool pool;
+
+  public DatasetWrapper() {
+    this(null);
+  }
+
+  /**
+   * @param pool deduplicates the text values derived by the wrapper, or null. With a pool,
+   *     contacts describing the same person in different roles also share the strings of their
+   *     position, email, phone, address and user id, while each keeps its own lists.
+   */
+  public DatasetWrapper(@Nullable StringPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * @return the pool deduplicating text values, null if there is none
+   */
+  @Nullable
+  public StringPool getStringPool() {
+    return pool;
+  }
 
   /**
    * Utility to parse an EML calendarDate in a textual format. Can be ISO date or just the year,
@@ -136,10 +160,31 @@ public class DatasetWrapper {
   public void addContact(Contact contact) {
     CleanUtils.removeEmptyStrings(contact);
     if (verifyContact(contact)) {
+      if (pool != null) {
+        poolDetails(contact);
+      }
       target.getContacts().add(contact);
     }
   }
 
+  /**
+   * Pools the strings of the detail lists of a contact. The lists themselves are never shared, as
+   * contacts are edited in place.
+   */
+  private void poolDetails(Contact contact) {
+    poolAll(contact.getPosition());
+    poolAll(contact.getEmail());
+    poolAll(contact.getPhone());
+    poolAll(contact.getAddress());
+    poolAll(contact.getUserId());
+  }
+
+  private void poolAll(@Nullable List<String> values) {
+    if (values != null) {
+      values.replaceAll(this::pooled);
+    }
+  }
+
   /** @return true if the minimal required contact information exists */
   private boolean verifyContact(Contact contact) {
     return contact.getFirstName() != null
@@ -191,6 +236,7 @@ public class DatasetWrapper {
       Arrays.stream(subjects.split("[,;]"))
           .map(org.gbif.utils.text.StringUtils::trim)
           .filter(StringUtils::isNotEmpty)
+          .map(this::pooled)
           .forEach(collection::addKeyword);
 
       target.getKeywordCollections().add(collection);
@@ -200,7 +246,7 @@ public class DatasetWrapper {
   public void addCreator(String creator) {
     if (StringUtils.isNotEmpty(creator)) {
       Contact contact = new Contact();
-      contact.setLastName(creator);
+      contact.setLastName(pooled(creator));
       contact.setType(ContactType.ORIGINATOR);
       addContact(contact);
     }
@@ -245,7 +291,7 @@ public class DatasetWrapper {
   }
 
   public void addPublisher(String publisherId, String publisherName) {
-    target.setPublishingOrganizationName(publisherName);
+    target.setPublishingOrganizationName(pooled(publisherName));
   }
 
   /**
@@ -477,7 +523,7 @@ public class DatasetWrapper {
   }
 
   public void setPublishingOrganizationName(String publishingOrganizationName) {
-    target.setPublishingOrganizationName(publishingOrganizationName);
+    target.setPublishingOrganizationName(pooled(publishingOrganizationName));
   }
 
   public void setPublisher(String publisherId, String publisherName) {
@@ -631,6 +677,10 @@ public class DatasetWrapper {
     }
   }
 
+  private String pooled(String value) {
+    return pool == null ? value : pool.intern(value);
+  }
+
   private void updateTaxonomicCoverageRanks() {
     for (TaxonomicCoverages tc : target.getTaxonomicCoverages()) {
       for (TaxonomicCoverage t : tc.getCoverages()) {
@@ -0,0 +1,879 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * Converts between the HTML subset used for rich text metadata fields and its DocBook equivalent
+ * in EML.
+ *
+ * <p>Each conversion is a single pass over the input: every position is looked at a bounded number
+ * of times, so the cost is linear in the length of the text whatever markup it holds. Output goes
+ * to a caller supplied {@link Appendable}, or to a buffer reused by the calling thread.
+ *
+ * <p>This class is thread safe.
+ */
+public final class DocBookConverter {
+
+  // HTML tags and the DocBook they are replaced with, at the same index
+  private static final String[] HTML_TAGS = {
+    "<div>", "</div>",
+    "<h1>", "</h1>",
+    "<h2>", "</h2>",
+    "<h3>", "</h3>",
+    "<h4>", "</h4>",
+    "<h5>", "</h5>",
+    "<ul>", "</ul>",
+    "<ol>", "</ol>",
+    "<li>", "</li>",
+    "<p>", "</p>",
+    "<b>", "</b>",
+    "<sub>", "</sub>",
+    "<sup>", "</sup>",
+    "<pre>", "</pre>"
+  };
+
+  private static final String[] DOCBOOK_TAGS = {
+    "<section>", "</section>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<para><itemizedlist>", "</itemizedlist></para>",
+    "<para><orderedlist>", "</orderedlist></para>",
+    "<listitem><para>", "</para></listitem>",
+    "<para>", "</para>",
+    "<emphasis>", "</emphasis>",
+    "<subscript>", "</subscript>",
+    "<superscript>", "</superscript>",
+    "<literalLayout>", "</literalLayout>"
+  };
+
+  // DocBook tags kept as they are, compared ignoring case
+  private static final String[] ALLOWED_DOCBOOK_TAGS = {
+    "section",
+    "title",
+    "para",
+    "itemizedlist",
+    "orderedlist",
+    "listitem",
+    "emphasis",
+    "subscript",
+    "superscript",
+    "literalLayout",
+    "ulink",
+    "citetitle"
+  };
+
+  // DocBook tags of parsed documents and the HTML they are replaced with, at the same index
+  private static final String[] PARSED_DOCBOOK_TAGS = {
+    "<section>", "</section>",
+    "<title>", "</title>",
+    "<para><itemizedlist>", "</itemizedlist></para>",
+    "<para><orderedlist>", "</orderedlist></para>",
+    "<listitem><para>", "</para></listitem>",
+    "<itemizedlist>", "</itemizedlist>",
+    "<orderedlist>", "</orderedlist>",
+    "<para>", "</para>",
+    "<emphasis>", "</emphasis>",
+    "<subscript>", "</subscript>",
+    "<superscript>", "</superscript>",
+    "<literalLayout>", "</literalLayout>"
+  };
+
+  private static final String[] PARSED_HTML_TAGS = {
+    "<div>", "</div>",
+    "<h1>", "</h1>",
+    "<ul>", "</ul>",
+    "<ol>", "</ol>",
+    "<li>", "</li>",
+    "<ul>", "</ul>",
+    "<ol>", "</ol>",
+    "<p>", "</p>",
+    "<b>", "</b>",
+    "<sub>", "</sub>",
+    "<sup>", "</sup>",
+    "<pre>", "</pre>"
+  };
+
+  // entities already escaped in the input, kept as they are
+  private static final String[] ENTITIES = {"&amp;", "&lt;", "&gt;", "&quot;", "&apos;"};
+
+  // larger buffers are not kept for reuse, so one huge text does not pin memory
+  private static final int MAX_REUSED_CAPACITY = 64 * 1024;
+
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+  private DocBookConverter() {}
+
+  /**
+   * Converts HTML into DocBook: anchors become ulinks, the supported HTML tags their DocBook
+   * analogues, DocBook tags are kept and any other markup is escaped.
+   *
+   * @param html the HTML text, can be null
+   * @return the DocBook text, null if null
+   */
+  public static String htmlToDocBook(String html) {
+    if (html == null) {
+      return null;
+    }
+    StringBuilder buffer = buffer();
+    try {
+      htmlToDocBook(html, buffer);
+    } catch (IOException e) {
+      // a StringBuilder does not throw
+      throw new UncheckedIOException(e);
+    }
+    return release(buffer);
+  }
+
+  /**
+   * Converts HTML into DocBook as {@link #htmlToDocBook(String)}, appending to the output.
+   *
+   * @param html the HTML text
+   * @param out where the DocBook text is appended
+   * @throws IOException if the output cannot be appended to
+   */
+  public static void htmlToDocBook(CharSequence html, Appendable out) throws IOException {
+    new HtmlScanner(html, 0, html.length(), out, true).run();
+  }
+
+  /**
+   * Converts the DocBook ulinks of a paragraph into HTML anchors, dropping their citetitle.
+   *
+   * @param xml the paragraph, can be null
+   * @return the paragraph with HTML anchors, null if null
+   */
+  public static String ulinksToAnchors(String xml) {
+    if (xml == null || xml.isEmpty()) {
+      return xml;
+    }
+    StringBuilder out = buffer();
+    int run = 0;
+    int i = xml.indexOf('<');
+    while (i >= 0) {
+      String replacement;
+      int length;
+      if (xml.startsWith("<citetitle>", i)) {
+        replacement = "";
+        length = 11;
+      } else if (xml.startsWith("</citetitle>", i)) {
+        replacement = "";
+        length = 12;
+      } else if (xml.startsWith("<ulink url=", i)) {
+        replacement = "<a href=";
+        length = 11;
+      } else if (xml.startsWith("</ulink>", i)) {
+        replacement = "</a>";
+        length = 8;
+      } else {
+        i = xml.indexOf('<', i + 1);
+        continue;
+      }
+      out.append(xml, run, i).append(replacement);
+      run = i + length;
+      i = xml.indexOf('<', run);
+    }
+    out.append(xml, run, xml.length());
+    return release(out);
+  }
+
+  /**
+   * Converts the HTML anchors of a paragraph into DocBook ulinks, the anchor text becoming their
+   * citetitle. The reverse of {@link #ulinksToAnchors(String)}.
+   *
+   * @param html the paragraph, can be null
+   * @return the paragraph with DocBook ulinks, null if null
+   */
+  public static String anchorsToUlinks(String html) {
+    if (html == null || html.isEmpty()) {
+      return html;
+    }
+    StringBuilder out = buffer();
+    int run = 0;
+    for (int i = 0; i < html.length(); i++) {
+      String replacement;
+      int length;
+      char c = html.charAt(i);
+      if (c == '"' && html.startsWith("\">", i)) {
+        replacement = "\"><citetitle>";
+        length = 2;
+      } else if (c == '<' && html.startsWith("<a href=", i)) {
+        replacement = "<ulink url=";
+        length = 8;
+      } else if (c == '<' && html.startsWith("</a>", i)) {
+        replacement = "</citetitle></ulink>";
+        length = 4;
+      } else {
+        continue;
+      }
+      out.append(html, run, i).append(replacement);
+      run = i + length;
+      i = run - 1;
+    }
+    out.append(html, run, html.length());
+    return release(out);
+  }
+
+  /**
+   * Converts the DocBook content of a parsed EML element into HTML, as the EML parsers set it: the element is
+   * serialized without its own tags, ulinks become anchors and the DocBook tags their HTML analogues. Whitespace is
+   * kept as it is in the document.
+   *
+   * @param element the element holding the DocBook content
+   * @param wrapperElement the name of the element, e.g. abstract
+   * @return the HTML
+   */
+  public static String docBookToHtml(Element element, String wrapperElement) {
+    StringBuilder out = buffer();
+    new DocBookWriter(out, wrapperElement).write(element);
+    return release(out);
+  }
+
+  /**
+   * Converts DocBook content to HTML like {@link #docBookToHtml(Element, String)} does once it is parsed wrapped in
+   * the given element. Used to derive a model from another one holding DocBook without writing a whole document.
+   *
+   * @param docBook the content of the wrapper element as it would appear in the document
+   * @param wrapperElement the name of the wrapper element, e.g. abstract
+   * @return the HTML the parsers would set
+   * @throws IllegalArgumentException if the content is not well-formed XML
+   */
+  public static String docBookToHtml(String docBook, String wrapperElement) {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      Document doc =
+          factory
+              .newDocumentBuilder()
+              .parse(
+                  new InputSource(
+                      new StringReader(
+                          "<" + wrapperElement + ">" + docBook + "</" + wrapperElement + ">")));
+      return docBookToHtml(doc.getDocumentElement(), wrapperElement);
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid DocBook content of " + wrapperElement, e);
+    }
+  }
+
+  private static StringBuilder buffer() {
+    StringBuilder buffer = BUFFER.get();
+    buffer.setLength(0);
+    return buffer;
+  }
+
+  private static String release(StringBuilder buffer) {
+    String result = buffer.toString();
+    if (buffer.capacity() > MAX_REUSED_CAPACITY) {
+      BUFFER.remove();
+    }
+    return result;
+  }
+
+  /**
+   * Scans a range of HTML once, copying plain text in runs and deciding at each {@code <}, {@code
+   * >} and {@code &} what to write.
+   *
+   * <p>A {@code <} starts a tag only if a {@code >} follows with no other tag start in between;
+   * otherwise it is text. The positions of the next {@code <}, {@code >}, {@code ">}, {@code </a>}
+   * and line break are searched for lazily and only ever move forward, which keeps the scan linear.
+   */
+  private static final class HtmlScanner {
+    private final CharSequence in;
+    private final int end;
+    private final Appendable out;
+    private final boolean links;
+    private int position;
+
+    private int nextLt = -1;
+    private int nextGt = -1;
+    private int nextQuoteGt = -1;
+    private int nextCloseAnchor = -1;
+    // separate caches, as href and anchor text lookups interleave with each other and with tags
+    private int nextHrefStop = -1;
+    private int nextTextBreak = -1;
+    // the end of an href whose anchor turned out not to be a link
+    private int failedHrefEnd = -1;
+
+    private HtmlScanner(CharSequence in, int start, int end, Appendable out, boolean links) {
+      this.in = in;
+      this.end = end;
+      this.out = out;
+      this.links = links;
+      this.position = start;
+    }
+
+    private void run() throws IOException {
+      int run = position;
+      while (position < end) {
+        char c = in.charAt(position);
+        if (c != '<' && c != '>' && c != '&') {
+          position++;
+          continue;
+        }
+        out.append(in, run, position);
+        if (c == '>') {
+          out.append("&gt;");
+          position++;
+        } else if (c == '&') {
+          entity();
+        } else {
+          tag();
+        }
+        run = position;
+      }
+      out.append(in, run, end);
+    }
+
+    private void entity() throws IOException {
+      if (startsWith(position, "&nbsp;")) {
+        out.append("&#160;");
+        position += 6;
+        return;
+      }
+      for (String entity : ENTITIES) {
+        if (startsWith(position, entity)) {
+          out.append(entity);
+          position += entity.length();
+          return;
+        }
+      }
+      out.append("&amp;");
+      position++;
+    }
+
+    private void tag() throws IOException {
+      if (links && link()) {
+        return;
+      }
+      for (int t = 0; t < HTML_TAGS.length; t++) {
+        if (startsWith(position, HTML_TAGS[t])) {
+          out.append(DOCBOOK_TAGS[t]);
+          position += HTML_TAGS[t].length();
+          return;
+        }
+      }
+      int close = nextGt(position + 1);
+      if (close < end && close > position + 1 && nextLt(position + 1) >= close - 1) {
+        if (isAllowed(position + 1, close)) {
+          out.append(in, position, close + 1);
+          position = close + 1;
+          return;
+        }
+      }
+      // text, or a tag which is not allowed and whose remaining characters are escaped as text
+      out.append("&lt;");
+      position++;
+    }
+
+    /**
+     * Converts {@code <a href="url">text</a>} into {@code
+     * <ulink url="url"><citetitle>text</citetitle></ulink>}, trimming the text. The text must be on
+     * a single line, as must the url, which cannot hold angle brackets either.
+     */
+    private boolean link() throws IOException {
+      if (!startsWith(position, "<a") || position + 2 >= end || !isSpace(in.charAt(position + 2))) {
+        return false;
+      }
+      int hrefStart = position + 3;
+      while (hrefStart < end && isSpace(in.charAt(hrefStart))) {
+        hrefStart++;
+      }
+      if (!startsWith(hrefStart, "href=\"")) {
+        return false;
+      }
+      hrefStart += 6;
+      int hrefEnd = nextQuoteGt(hrefStart);
+      if (hrefEnd == end || hrefEnd == failedHrefEnd || nextHrefStop(hrefStart) < hrefEnd) {
+        return false;
+      }
+      int textStart = hrefEnd + 2;
+      while (textStart < end && isSpace(in.charAt(textStart))) {
+        textStart++;
+      }
+      int close = nextCloseAnchor(textStart);
+      int textEnd = close;
+      while (textEnd > textStart && isSpace(in.charAt(textEnd - 1))) {
+        textEnd--;
+      }
+      if (close == end || nextTextBreak(textStart) < textEnd) {
+        failedHrefEnd = hrefEnd;
+        return false;
+      }
+      out.append("<ulink url=\"").append(in, hrefStart, hrefEnd).append("\"><citetitle>");
+      new HtmlScanner(in, textStart, textEnd, out, false).run();
+      out.append("</citetitle></ulink>");
+      position = close + 4;
+      return true;
+    }
+
+    /**
+     * Whether the tag name is an allowed DocBook tag, the name being the start of the tag up to
+     * the first whitespace, ignoring slashes.
+     */
+    private boolean isAllowed(int from, int close) {
+      for (String name : ALLOWED_DOCBOOK_TAGS) {
+        if (isNamed(from, close, name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean isNamed(int from, int close, String name) {
+      int matched = 0;
+      for (int i = from; i < close; i++) {
+        char c = in.charAt(i);
+        if (c == '/' || c == '<') {
+          continue;
+        }
+        if (isSpace(c)) {
+          break;
+        }
+        if (matched == name.length() || !equalsIgnoreCase(c, name.charAt(matched))) {
+          return false;
+        }
+        matched++;
+      }
+      return matched == name.length();
+    }
+
+    private int nextLt(int from) {
+      if (nextLt < from) {
+        nextLt = indexOf('<', from);
+      }
+      return nextLt;
+    }
+
+    private int nextGt(int from) {
+      if (nextGt < from) {
+        nextGt = indexOf('>', from);
+      }
+      return nextGt;
+    }
+
+    private int nextQuoteGt(int from) {
+      if (nextQuoteGt < from) {
+        nextQuoteGt = indexOf("\">", from);
+      }
+      return nextQuoteGt;
+    }
+
+    private int nextCloseAnchor(int from) {
+      if (nextCloseAnchor < from) {
+        nextCloseAnchor = indexOf("</a>", from);
+      }
+      return nextCloseAnchor;
+    }
+
+    private int nextHrefStop(int from) {
+      if (nextHrefStop < from) {
+        nextHrefStop = indexOfHrefStop(from);
+      }
+      return nextHrefStop;
+    }
+
+    private int nextTextBreak(int from) {
+      if (nextTextBreak < from) {
+        nextTextBreak = indexOfLineBreak(from);
+      }
+      return nextTextBreak;
+    }
+
+    /** @return index of the character from the given position, the end if none */
+    private int indexOf(char c, int from) {
+      for (int i = from; i < end; i++) {
+        if (in.charAt(i) == c) {
+          return i;
+        }
+      }
+      return end;
+    }
+
+    /** @return index of the string from the given position, the end if none */
+    private int indexOf(String s, int from) {
+      char first = s.charAt(0);
+      for (int i = indexOf(first, from); i < end; i = indexOf(first, i + 1)) {
+        if (startsWith(i, s)) {
+          return i;
+        }
+      }
+      return end;
+    }
+
+    private int indexOfLineBreak(int from) {
+      for (int i = from; i < end; i++) {
+        if (isLineBreak(in.charAt(i))) {
+          return i;
+        }
+      }
+      return end;
+    }
+
+    /** @return index of the next line break or angle bracket, which cannot be part of an url */
+    private int indexOfHrefStop(int from) {
+      for (int i = from; i < end; i++) {
+        char c = in.charAt(i);
+        if (c == '<' || c == '>' || isLineBreak(c)) {
+          return i;
+        }
+      }
+      return end;
+    }
+
+    private boolean startsWith(int from, String s) {
+      if (from + s.length() > end) {
+        return false;
+      }
+      for (int i = 0; i < s.length(); i++) {
+        if (in.charAt(from + i) != s.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean isLineBreak(char c) {
+      return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isSpace(char c) {
+      return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean equalsIgnoreCase(char a, char b) {
+      return a == b
+          || Character.toUpperCase(a) == Character.toUpperCase(b)
+          || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+  }
+
+  /**
+   * Writes the HTML for parsed DocBook in a single walk over the nodes. Nodes are serialized as the
+   * XML transformer of the JDK serializes them, except that namespace declarations are written as
+   * the nodes carry them, and the DocBook tags are replaced by their HTML analogues on the way. A
+   * tag which can be the first of a pair, such as {@code <para>} of {@code
+   * <para><itemizedlist>}, is held back until the next tag shows which replacement applies.
+   *
+   * <p>A ulink becomes an anchor if its only attribute is the url and its content a citetitle on a
+   * single line, with nothing but whitespace around it. A pre element on a single line gets line
+   * breaks inside its tags. The content of these two is looked at once more to check it is on a
+   * single line.
+   */
+  private static final class DocBookWriter {
+    private static final String LINE_BREAKS = "\n\r\u0085\u2028\u2029";
+    // the line breaks left unescaped in text and in attribute values
+    private static final String TEXT_BREAKS = "\n\u2028\u2029";
+    private static final String ATTRIBUTE_BREAKS = "\u0085\u2028\u2029";
+
+    private final StringBuilder out;
+    private final String wrapperElement;
+    // a tag which can be the first of a pair, not written yet
+    private String pending;
+    private boolean inLink;
+
+    private DocBookWriter(StringBuilder out, String wrapperElement) {
+      this.out = out;
+      this.wrapperElement = wrapperElement;
+    }
+
+    private void write(Element element) {
+      node(element);
+      flush();
+    }
+
+    private void node(Node node) {
+      switch (node.getNodeType()) {
+        case Node.ELEMENT_NODE:
+          element((Element) node);
+          break;
+        case Node.TEXT_NODE:
+          if (!node.getNodeValue().isEmpty()) {
+            flush();
+            escape(out, node.getNodeValue(), false);
+          }
+          break;
+        case Node.CDATA_SECTION_NODE:
+          flush();
+          out.append("<![CDATA[")
+              .append(node.getNodeValue().replace("]]>", "]]]]><![CDATA[>"))
+              .append("]]>");
+          break;
+        case Node.COMMENT_NODE:
+          flush();
+          out.append("<!--").append(node.getNodeValue()).append("-->");
+          break;
+        case Node.PROCESSING_INSTRUCTION_NODE:
+          flush();
+          out.append("<?").append(node.getNodeName());
+          if (!node.getNodeValue().isEmpty()) {
+            out.append(' ').append(node.getNodeValue());
+          }
+          out.append("?>");
+          break;
+        case Node.ENTITY_REFERENCE_NODE:
+          children(node);
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void children(Node node) {
+      for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+        node(child);
+      }
+    }
+
+    private void element(Element element) {
+      if (!element.hasChildNodes()) {
+        tag(startTag(element, "/>"));
+        return;
+      }
+      Element title = inLink ? null : linkTitle(element);
+      if (title != null) {
+        flush();
+        out.append("<a href=\"");
+        escape(out, element.getAttributes().item(0).getNodeValue(), true);
+        out.append("\">");
+        inLink = true;
+        children(title);
+        flush();
+        inLink = false;
+        out.append("</a>");
+        return;
+      }
+      String name = element.getTagName();
+      // the tags of the wrapper element are dropped, unless it has attributes
+      boolean wrapper = name.equals(wrapperElement);
+      if (!wrapper || element.hasAttributes()) {
+        tag(startTag(element, ">"));
+      }
+      boolean preformatted = isPreformatted(element) && isSingleLine(element);
+      if (preformatted) {
+        flush();
+        out.append('\n');
+      }
+      children(element);
+      if (preformatted) {
+        flush();
+        out.append('\n');
+      }
+      if (!wrapper) {
+        tag("</" + name + ">");
+      }
+    }
+
+    /** Writes a tag, or its HTML analogue once known. */
+    private void tag(String tag) {
+      if (pending != null) {
+        int pair = indexOf(PARSED_DOCBOOK_TAGS, pending + tag);
+        if (pair >= 0) {
+          out.append(PARSED_HTML_TAGS[pair]);
+          pending = null;
+          return;
+        }
+        flush();
+      }
+      if (startsPair(tag)) {
+        pending = tag;
+        return;
+      }
+      int single = indexOf(PARSED_DOCBOOK_TAGS, tag);
+      out.append(single < 0 ? tag : PARSED_HTML_TAGS[single]);
+    }
+
+    private void flush() {
+      if (pending != null) {
+        int single = indexOf(PARSED_DOCBOOK_TAGS, pending);
+        out.append(single < 0 ? pending : PARSED_HTML_TAGS[single]);
+        pending = null;
+      }
+    }
+
+    private static String startTag(Element element, String close) {
+      StringBuilder tag = new StringBuilder("<").append(element.getTagName());
+      NamedNodeMap attributes = element.getAttributes();
+      for (int i = 0; i < attributes.getLength(); i++) {
+        Node attribute = attributes.item(i);
+        tag.append(' ').append(attribute.getNodeName()).append("=\"");
+        escape(tag, attribute.getNodeValue(), true);
+        tag.append('"');
+      }
+      return tag.append(close).toString();
+    }
+
+    /**
+     * @return the citetitle of a ulink to write as an anchor, null if the element is none
+     */
+    private static Element linkTitle(Element element) {
+      NamedNodeMap attributes = element.getAttributes();
+      if (!"ulink".equals(element.getTagName())
+          || attributes.getLength() != 1
+          || !"url".equals(attributes.item(0).getNodeName())
+          || hasLineBreak(attributes.item(0).getNodeValue(), ATTRIBUTE_BREAKS)) {
+        return null;
+      }
+      Element title = null;
+      for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+        if (child.getNodeType() == Node.TEXT_NODE && isSpace(child.getNodeValue())) {
+          continue;
+        }
+        if (title != null
+            || child.getNodeType() != Node.ELEMENT_NODE
+            || !"citetitle".equals(((Element) child).getTagName())
+            || child.hasAttributes()
+            || !child.hasChildNodes()) {
+          return null;
+        }
+        title = (Element) child;
+      }
+      return title != null && isSingleLine(title) ? title : null;
+    }
+
+    private static boolean isPreformatted(Node node) {
+      return node.getNodeType() == Node.ELEMENT_NODE
+          && "pre".equals(((Element) node).getTagName())
+          && !node.hasAttributes()
+          && node.hasChildNodes();
+    }
+
+    /** Whether the content of the node is serialized without line breaks. */
+    private static boolean isSingleLine(Node node) {
+      for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+        switch (child.getNodeType()) {
+          case Node.ELEMENT_NODE:
+            if (isPreformatted(child)) {
+              // gets line breaks itself
+              return false;
+            }
+            NamedNodeMap attributes = child.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+              if (hasLineBreak(attributes.item(i).getNodeValue(), ATTRIBUTE_BREAKS)) {
+                return false;
+              }
+            }
+            if (!isSingleLine(child)) {
+              return false;
+            }
+            break;
+          case Node.TEXT_NODE:
+            if (hasLineBreak(child.getNodeValue(), TEXT_BREAKS)) {
+              return false;
+            }
+            break;
+          case Node.ENTITY_REFERENCE_NODE:
+            if (!isSingleLine(child)) {
+              return false;
+            }
+            break;
+          default:
+            // comments, CDATA sections and processing instructions are written as they are
+            if (hasLineBreak(child.getNodeValue(), LINE_BREAKS)) {
+              return false;
+            }
+            break;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Whether the value holds one of the line breaks, as the regular expressions the tags were
+     * replaced with before did not match across line breaks.
+     */
+    private static boolean hasLineBreak(String value, String lineBreaks) {
+      for (int i = 0; i < value.length(); i++) {
+        if (lineBreaks.indexOf(value.charAt(i)) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean isSpace(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c != ' ' && c != '\t' && c != '\n') {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean isC1(char c) {
+      return c >= 0x7F && c <= 0x9F;
+    }
+
+    private static boolean startsPair(String tag) {
+      for (String docBook : PARSED_DOCBOOK_TAGS) {
+        if (docBook.length() > tag.length()
+            && docBook.startsWith(tag)
+            && docBook.charAt(tag.length()) == '<') {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static int indexOf(String[] tags, String tag) {
+      for (int i = 0; i < tags.length; i++) {
+        if (tags[i].equals(tag)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Escapes text or an attribute value like the XML transformer of the JDK: markup characters,
+     * control characters and characters outside the basic multilingual plane become references.
+     */
+    private static void escape(StringBuilder to, String value, boolean attribute) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '&') {
+          to.append("&amp;");
+        } else if (c == '<') {
+          to.append("&lt;");
+        } else if (c == '>') {
+          to.append("&gt;");
+        } else if (c == '"' && attribute) {
+          to.append("&quot;");
+        } else if (c < 0x20 ? attribute || (c != '\t' && c != '\n') : !attribute && isC1(c)) {
+          to.append("&#").append((int) c).append(';');
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < value.length()
+            && Character.isLowSurrogate(value.charAt(i + 1))) {
+          to.append("&#").append(Character.toCodePoint(c, value.charAt(++i))).append(';');
+        } else {
+          to.append(c);
+        }
+      }
+    }
+  }
+}
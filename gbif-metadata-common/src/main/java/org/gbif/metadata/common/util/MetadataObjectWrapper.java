@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import freemarker.ext.beans.BeansWrapper;
+import freemarker.ext.beans.StringModel;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.Version;
+
+/**
+ * A Freemarker {@link DefaultObjectWrapper} for the metadata models rendered by the templates,
+ * producing the same output with less work per value.
+ *
+ * <ul>
+ *   <li>Properties of the GBIF model classes are read through method handles resolved once per
+ *       class, instead of being looked up in the introspection data and invoked reflectively on
+ *       every access. Anything else, such as method calls, falls back to the usual bean model.
+ *   <li>Enum constants are wrapped once and their models reused.
+ * </ul>
+ *
+ * <p>Lists and maps are wrapped as the incompatible improvements version of the wrapper defines.
+ *
+ * <p>This class is thread safe.
+ */
+public class MetadataObjectWrapper extends DefaultObjectWrapper {
+
+  private static final String MODEL_PACKAGE = "org.gbif.";
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private final ClassValue<Map<String, MethodHandle>> getters =
+      new ClassValue<Map<String, MethodHandle>>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+          return findGetters(type);
+        }
+      };
+
+  private final ClassValue<TemplateModel[]> enumModels =
+      new ClassValue<TemplateModel[]>() {
+        @Override
+        protected TemplateModel[] computeValue(Class<?> type) {
+          return new TemplateModel[type.getEnumConstants().length];
+        }
+      };
+
+  /**
+   * @param incompatibleImprovements the Freemarker version whose wrapping rules to follow, usually
+   *     the one of the configuration
+   */
+  public MetadataObjectWrapper(Version incompatibleImprovements) {
+    super(incompatibleImprovements);
+  }
+
+  @Override
+  protected TemplateModel handleUnknownType(Object obj) throws TemplateModelException {
+    if (obj instanceof Enum) {
+      return wrapEnum((Enum<?>) obj);
+    }
+    if (isModel(obj)) {
+      Map<String, MethodHandle> properties = getters.get(obj.getClass());
+      if (!properties.isEmpty()) {
+        return new PropertyModel(obj, this, properties);
+      }
+    }
+    return super.handleUnknownType(obj);
+  }
+
+  private TemplateModel wrapEnum(Enum<?> constant) throws TemplateModelException {
+    TemplateModel[] models = enumModels.get(constant.getDeclaringClass());
+    TemplateModel model = models[constant.ordinal()];
+    if (model == null) {
+      // models are immutable, so a race only creates one more
+      model = super.handleUnknownType(constant);
+      models[constant.ordinal()] = model;
+    }
+    return model;
+  }
+
+  private static boolean isModel(Object obj) {
+    return obj.getClass().getName().startsWith(MODEL_PACKAGE)
+        && !(obj instanceof Iterable
+            || obj instanceof Map
+            || obj instanceof Iterator
+            || obj instanceof Enumeration
+            || obj instanceof ResourceBundle
+            || obj instanceof TemplateModel);
+  }
+
+  /**
+   * Finds the bean properties of a class with a public getter, as handles taking and returning an
+   * Object. Properties whose getter cannot be called directly, or shadowed by a method of the same
+   * name as the bean model does, are left to the bean model.
+   */
+  private static Map<String, MethodHandle> findGetters(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return Collections.emptyMap();
+    }
+    BeanInfo info;
+    try {
+      info = Introspector.getBeanInfo(type, Object.class);
+    } catch (IntrospectionException e) {
+      return Collections.emptyMap();
+    }
+    Set<String> methods = new HashSet<>();
+    for (Method method : type.getMethods()) {
+      methods.add(method.getName());
+    }
+    MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    Map<String, MethodHandle> getters = new HashMap<>();
+    for (PropertyDescriptor property : info.getPropertyDescriptors()) {
+      Method getter = property.getReadMethod();
+      if (getter == null
+          || methods.contains(property.getName())
+          || !Modifier.isPublic(getter.getDeclaringClass().getModifiers())
+          || Modifier.isStatic(getter.getModifiers())) {
+        continue;
+      }
+      try {
+        getters.put(property.getName(), lookup.unreflect(getter).asType(GETTER_TYPE));
+      } catch (IllegalAccessException e) {
+        // not accessible from here, the bean model finds an accessible variant
+      }
+    }
+    return getters.isEmpty() ? Collections.emptyMap() : getters;
+  }
+
+  /**
+   * A bean model reading the properties it knows a getter for directly, and everything else as
+   * usual.
+   */
+  private static final class PropertyModel extends StringModel {
+    private final Map<String, MethodHandle> getters;
+
+    private PropertyModel(Object object, BeansWrapper wrapper, Map<String, MethodHandle> getters) {
+      super(object, wrapper);
+      this.getters = getters;
+    }
+
+    @Override
+    public TemplateModel get(String key) throws TemplateModelException {
+      MethodHandle getter = getters.get(key);
+      if (getter == null) {
+        return super.get(key);
+      }
+      Object value;
+      try {
+        value = (Object) getter.invokeExact(object);
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new TemplateModelException(
+            "Getter of property \"" + key + "\" failed on " + object.getClass().getName(), e);
+      }
+      return wrapper.wrap(value);
+    }
+  }
+}
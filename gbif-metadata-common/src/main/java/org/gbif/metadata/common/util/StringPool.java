@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of strings for deduplicating the values of parsed metadata, such as organisation names, cities,
+ * roles, thesauri or licences, so a corpus of parsed documents holds one instance of each common value.
+ * <p>
+ * The pool is a fixed size, two way set associative table: a value is looked up in two slots chosen by its hash and
+ * replaces one of them if not found. Memory is therefore bounded by the capacity and the maximum length, and values
+ * seen often stay while rare ones are evicted. Unlike {@link String#intern()} nothing is kept beyond the pool, which
+ * can be dropped with the corpus it served.
+ * <p>
+ * This class is thread safe and lock free. Concurrent misses on the same value may both be kept for a while, which
+ * only costs a duplicate.
+ */
+public class StringPool {
+
+  public static final int DEFAULT_CAPACITY = 16 * 1024;
+  public static final int DEFAULT_MAX_LENGTH = 256;
+
+  private final AtomicReferenceArray<String> table;
+  private final int mask;
+  private final int maxLength;
+
+  private final LongAdder lookups = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder savedBytes = new LongAdder();
+
+  public StringPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+  }
+
+  /**
+   * @param capacity maximum number of values held, rounded up to a power of two
+   * @param maxLength longest value pooled, longer values being unlikely to repeat
+   */
+  public StringPool(int capacity, int maxLength) {
+    if (capacity < 2 || capacity > 1 << 29) {
+      throw new IllegalArgumentException("Capacity out of range: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity * 2 - 1);
+    this.table = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.maxLength = maxLength;
+  }
+
+  /**
+   * @param value the value to deduplicate, can be null
+   * @return the pooled instance equal to the value, or the value itself
+   */
+  public String intern(String value) {
+    if (value == null || value.isEmpty() || value.length() > maxLength) {
+      return value;
+    }
+    lookups.increment();
+    int hash = value.hashCode();
+    int first = (hash ^ (hash >>> 16)) & mask;
+    int second = first ^ 1;
+    String pooled = table.get(first);
+    if (value.equals(pooled)) {
+      return hit(pooled);
+    }
+    String other = table.get(second);
+    if (value.equals(other)) {
+      return hit(other);
+    }
+    // fill a free slot, else displace the first one
+    table.lazySet(pooled != null && other == null ? second : first, value);
+    return value;
+  }
+
+  /**
+   * @return counters of the use of the pool so far
+   */
+  public Stats stats() {
+    int size = 0;
+    for (int i = 0; i < table.length(); i++) {
+      if (table.get(i) != null) {
+        size++;
+      }
+    }
+    return new Stats(lookups.sum(), hits.sum(), savedBytes.sum(), size);
+  }
+
+  private String hit(String pooled) {
+    hits.increment();
+    savedBytes.add(retainedSize(pooled));
+    return pooled;
+  }
+
+  /**
+   * Estimates the heap used by a string: the String object and its byte array, assuming compact Latin-1 storage.
+   */
+  private static long retainedSize(String value) {
+    return 24 + ((16 + value.length() + 7) & ~7);
+  }
+
+  /**
+   * A snapshot of the counters of a {@link StringPool}.
+   */
+  public static class Stats {
+    private final long lookups;
+    private final long hits;
+    private final long savedBytes;
+    private final int size;
+
+    Stats(long lookups, long hits, long savedBytes, int size) {
+      this.lookups = lookups;
+      this.hits = hits;
+      this.savedBytes = savedBytes;
+      this.size = size;
+    }
+
+    /**
+     * @return number of values looked up
+     */
+    public long getLookups() {
+      return lookups;
+    }
+
+    /**
+     * @return number of values replaced by a pooled instance
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /**
+     * @return estimated heap not retained thanks to the values replaced by a pooled instance
+     */
+    public long getSavedBytes() {
+      return savedBytes;
+    }
+
+    /**
+     * @return number of values currently pooled
+     */
+    public int getSize() {
+      return size;
+    }
+
+    public double getHitRate() {
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", Stats.class.getSimpleName() + "[", "]")
+          .add("lookups=" + lookups)
+          .add("hits=" + hits)
+          .add("savedBytes=" + savedBytes)
+          .add("size=" + size)
+          .toString();
+    }
+  }
+}
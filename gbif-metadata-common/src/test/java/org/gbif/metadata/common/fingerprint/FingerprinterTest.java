@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.fingerprint;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class FingerprinterTest {
+
+  @Test
+  public void testKnownValue() {
+    // MurmurHash3 x64 128 of the single byte 0 that stands for null, as two big endian longs
+    assertEquals(
+        "4610abe56eff5cb551622daa78f83583",
+        new Fingerprinter().putString(null).finish().toString());
+  }
+
+  @Test
+  public void testText() {
+    assertEquals(
+        fingerprintText("<para>One  two</para><para>three</para>"),
+        fingerprintText("\n  <para>One\n two </para>\n  <para> three</para>\n"));
+    assertEquals(fingerprintText(null), fingerprintText("  "));
+    assertNotEquals(fingerprintText("One two"), fingerprintText("Onetwo"));
+  }
+
+  @Test
+  public void testUnordered() {
+    assertEquals(
+        new Fingerprinter().putUnorderedStrings(Arrays.asList("a", "b", "c")).finish(),
+        new Fingerprinter().putUnorderedStrings(Arrays.asList("c", "a", "b")).finish());
+    assertNotEquals(
+        new Fingerprinter().putUnorderedStrings(Arrays.asList("a", "b")).finish(),
+        new Fingerprinter().putUnorderedStrings(Arrays.asList("a", "a", "b")).finish());
+    assertNotEquals(
+        new Fingerprinter().putStrings(Arrays.asList("a", "b")).finish(),
+        new Fingerprinter().putStrings(Arrays.asList("b", "a")).finish());
+  }
+
+  @Test
+  public void testNullsDoNotShift() {
+    assertNotEquals(
+        new Fingerprinter().putString("a").putString(null).finish(),
+        new Fingerprinter().putString(null).putString("a").finish());
+    assertNotEquals(
+        new Fingerprinter().putStrings(Collections.emptyList()).putString("a").finish(),
+        new Fingerprinter().putStrings(null).putString("a").finish());
+  }
+
+  @Test
+  public void testToString() {
+    Fingerprint fingerprint = new Fingerprinter().putLong(42).finish();
+    assertEquals(32, fingerprint.toString().length());
+    assertEquals(fingerprint, Fingerprint.fromString(fingerprint.toString()));
+  }
+
+  private static Fingerprint fingerprintText(String text) {
+    return new Fingerprinter().putText(text).finish();
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DocBookConverterTest {
+
+  @Test
+  public void testHtmlToDocBook() {
+    assertNull(DocBookConverter.htmlToDocBook(null));
+    assertEquals("", DocBookConverter.htmlToDocBook(""));
+    assertEquals(
+        "<para>One <emphasis>two</emphasis></para><para><itemizedlist><listitem><para>three"
+            + "</para></listitem></itemizedlist></para>",
+        DocBookConverter.htmlToDocBook("<p>One <b>two</b></p><ul><li>three</li></ul>"));
+    assertEquals(
+        "<section><title>T</title><literalLayout>x<subscript>2</subscript></literalLayout>"
+            + "</section>",
+        DocBookConverter.htmlToDocBook("<div><h2>T</h2><pre>x<sub>2</sub></pre></div>"));
+    // DocBook is kept, ignoring case
+    assertEquals(
+        "<para>a</para><LiteralLayout>b</LiteralLayout>",
+        DocBookConverter.htmlToDocBook("<para>a</para><LiteralLayout>b</LiteralLayout>"));
+  }
+
+  @Test
+  public void testLinks() {
+    assertEquals(
+        "See <ulink url=\"https://gbif.org\"><citetitle>GBIF <emphasis>now</emphasis>"
+            + "</citetitle></ulink>.",
+        DocBookConverter.htmlToDocBook(
+            "See <a href=\"https://gbif.org\">\n GBIF <b>now</b> </a>."));
+    assertEquals(
+        "<ulink url=\"https://gbif.org\"><citetitle></citetitle></ulink>",
+        DocBookConverter.htmlToDocBook("<a  href=\"https://gbif.org\"></a>"));
+    // not links: text on several lines, unclosed, markup in the url
+    assertEquals(
+        "&lt;a href=\"u\"&gt;a\nb&lt;/a&gt;",
+        DocBookConverter.htmlToDocBook("<a href=\"u\">a\nb</a>"));
+    assertEquals("&lt;a href=\"u\"&gt;a", DocBookConverter.htmlToDocBook("<a href=\"u\">a"));
+    assertEquals(
+        "&lt;a href=\"&lt;b\"&gt;a&lt;/a&gt;",
+        DocBookConverter.htmlToDocBook("<a href=\"<b\">a</a>"));
+  }
+
+  @Test
+  public void testEscaping() {
+    assertEquals(
+        "Test &amp; <para>more</para> \" &lt;go&gt; 1 &lt; 2 &gt; 0 &lt;<para>",
+        DocBookConverter.htmlToDocBook("Test & <p>more</p> \" <go> 1 < 2 > 0 <<para>"));
+    assertEquals("&lt; &gt;&lt;br/&gt;", DocBookConverter.htmlToDocBook("< ><br/>"));
+    // entities are kept, the characters following them escaped
+    assertEquals(
+        "&amp;&lt;&amp;&#160;&quot;&apos;&amp;amp",
+        DocBookConverter.htmlToDocBook("&amp;<&&nbsp;&quot;&apos;&amp"));
+    assertEquals("&lt;&lt;3", DocBookConverter.htmlToDocBook("&lt;<3"));
+  }
+
+  @Test
+  public void testHtmlToDocBookAppendable() throws Exception {
+    StringWriter out = new StringWriter();
+    DocBookConverter.htmlToDocBook("<p>a & b</p>", out);
+    assertEquals("<para>a &amp; b</para>", out.toString());
+  }
+
+  @Test
+  public void testLinearTime() {
+    // inputs which made the former regular expressions backtrack
+    StringBuilder html = new StringBuilder();
+    StringBuilder docBook = new StringBuilder();
+    while (html.length() < 1_000_000) {
+      html.append("<a href=\"x\">y\n");
+      docBook.append("&lt;a href=\"x\"&gt;y\n");
+    }
+    assertEquals(docBook.toString(), DocBookConverter.htmlToDocBook(html.toString()));
+  }
+
+  @Test
+  public void testDocBookToHtml() {
+    assertEquals(
+        "<p>CC-BY <a href=\"u\">Creative Commons</a> <b>4.0</b></p>",
+        DocBookConverter.docBookToHtml(
+            "<para>CC-BY <ulink url=\"u\"><citetitle>Creative Commons</citetitle></ulink> "
+                + "<emphasis>4.0</emphasis></para>",
+            "abstract"));
+    assertEquals(
+        "<ul><li>a</li></ul><pre>  b</pre>",
+        DocBookConverter.docBookToHtml(
+            "<itemizedlist><listitem><para>a</para></listitem></itemizedlist>"
+                + "<literalLayout>  b</literalLayout>",
+            "purpose"));
+    assertThrows(
+        IllegalArgumentException.class, () -> DocBookConverter.docBookToHtml("<para>", "purpose"));
+  }
+
+  @Test
+  public void testDocBookToHtmlLinks() {
+    // a ulink without a citetitle is kept, rather than matched up with the title of the next one
+    assertEquals(
+        "<ulink url=\"u\">x</ulink> <a href=\"v\">y</a>",
+        DocBookConverter.docBookToHtml(
+            "<ulink url=\"u\">x</ulink> <ulink url=\"v\"><citetitle>y</citetitle></ulink>",
+            "abstract"));
+    // inputs which made the former regular expressions backtrack
+    StringBuilder docBook = new StringBuilder();
+    StringBuilder html = new StringBuilder();
+    while (docBook.length() < 1_000_000) {
+      docBook.append("<ulink url=\"x\">y</ulink>");
+      html.append("<ulink url=\"x\">y</ulink>");
+    }
+    assertEquals(html.toString(), DocBookConverter.docBookToHtml(docBook.toString(), "abstract"));
+  }
+
+  @Test
+  public void testDocBookToHtmlSameAsLegacy() throws Exception {
+    String[] elements = {
+      "para", "itemizedlist", "orderedlist", "listitem", "emphasis", "subscript", "superscript",
+      "literalLayout", "section", "title", "pre", "abstract", "x"
+    };
+    String[] texts = {
+      "a", " ", "\n", "\t", "&amp;", "&lt;", ">", "\"", "&#13;", "&#133;", "&#x2028;", "&#x1F600;",
+      "\u00e9", "]]&gt;", "<![CDATA[c<d]]>", "<!--c-->", "<?p d?>"
+    };
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    DocumentBuilder builder = factory.newDocumentBuilder();
+    Random random = new Random(11);
+    for (int n = 0; n < 5_000; n++) {
+      StringBuilder xml = new StringBuilder("<abstract>");
+      randomDocBook(random, elements, texts, xml, 4, false);
+      xml.append("</abstract>");
+      Element element =
+          builder.parse(new InputSource(new StringReader(xml.toString()))).getDocumentElement();
+      assertEquals(
+          LegacyDocBookConverter.docBookToHtml(element, "abstract"),
+          DocBookConverter.docBookToHtml(element, "abstract"),
+          xml.toString());
+    }
+  }
+
+  @Test
+  public void testUlinksAndAnchors() {
+    String xml =
+        "<para>CC-BY <ulink url=\"http://creativecommons.org/licenses/by/4.0/legalcode\">"
+            + "<citetitle>Creative Commons</citetitle></ulink> 4.0</para>";
+    String html =
+        "<para>CC-BY <a href=\"http://creativecommons.org/licenses/by/4.0/legalcode\">"
+            + "Creative Commons</a> 4.0</para>";
+    assertEquals(html, DocBookConverter.ulinksToAnchors(xml));
+    assertEquals(xml, DocBookConverter.anchorsToUlinks(html));
+    assertNull(DocBookConverter.ulinksToAnchors(null));
+    assertNull(DocBookConverter.anchorsToUlinks(null));
+    assertEquals("", DocBookConverter.anchorsToUlinks(""));
+  }
+
+  @Test
+  public void testSameAsLegacyConverter() {
+    String[] fragments = {
+      "a", " ", "\n", "<", ">", "&", "&amp;", "&lt;", "&nbsp;", "&quot;", "<p>", "</p>", "<b>",
+      "<ul>", "<li>", "</li>", "<a href=\"", "\">", "</a>", "<a  href=\"http://x?a=1&b=2\">",
+      "link", "<para>", "</Para>", "<x>", "<ulink url=\"u\">", "</ulink>", "/", "\"", "<br/>",
+      "<div>", "<h1>", "<title x>", "< para>", "<<", ">>", "&gt;x", "<pre>", "\u00e9"
+    };
+    Pattern link = Pattern.compile("<a\\s+href=\"(.*?)\">\\s*(.*?)\\s*</a>");
+    Random random = new Random(42);
+    int compared = 0;
+    for (int n = 0; n < 50_000; n++) {
+      String html = randomText(random, fragments, 12);
+      String expected;
+      try {
+        expected = LegacyDocBookConverter.replaceDocBookElements(html);
+      } catch (RuntimeException e) {
+        // tags such as "< >" made the former code throw
+        continue;
+      }
+      if (hasMarkupInHref(link.matcher(html))) {
+        // such anchors are now escaped as text instead of half converted
+        continue;
+      }
+      assertEquals(expected, DocBookConverter.htmlToDocBook(html), html);
+      compared++;
+    }
+    assertTrue(compared > 40_000, "compared " + compared);
+  }
+
+  @Test
+  public void testUlinksAndAnchorsSameAsLegacy() {
+    String[] fragments = {
+      "a", "<", "\"", ">", "\">", "<citetitle>", "</citetitle>", "<ulink url=", "</ulink>",
+      "<a href=", "</a>", "<citet", "itle>", "<para>"
+    };
+    Random random = new Random(7);
+    for (int n = 0; n < 50_000; n++) {
+      String text = randomText(random, fragments, 10);
+      assertEquals(
+          LegacyDocBookConverter.paraXmlToHtml(text), DocBookConverter.ulinksToAnchors(text), text);
+      assertEquals(
+          LegacyDocBookConverter.paraHtmToXml(text), DocBookConverter.anchorsToUlinks(text), text);
+    }
+  }
+
+  /**
+   * Appends random DocBook content. Links are always a ulink holding a non-empty citetitle, as
+   * the former regular expression matched others across the following content.
+   */
+  private static void randomDocBook(
+      Random random,
+      String[] elements,
+      String[] texts,
+      StringBuilder xml,
+      int depth,
+      boolean link) {
+    String[] urls = {"u", "u", "u&#10;&quot;", "u&#x2028;"};
+    String[] spaces = {"", "", " \n", "\t"};
+    for (int i = random.nextInt(4); i > 0; i--) {
+      int choice = random.nextInt(10);
+      if (choice < 4 || depth == 0) {
+        xml.append(texts[random.nextInt(texts.length)]);
+      } else if (choice == 4 && !link) {
+        xml.append("<ulink url=\"").append(urls[random.nextInt(urls.length)]).append("\">");
+        xml.append(spaces[random.nextInt(spaces.length)]).append("<citetitle>a");
+        randomDocBook(random, elements, texts, xml, depth - 1, true);
+        xml.append("</citetitle>");
+        xml.append(spaces[random.nextInt(spaces.length)]).append("</ulink>");
+      } else {
+        String name = elements[random.nextInt(elements.length)];
+        if (name.equals("pre") && (depth < 4 || link)) {
+          // the former regular expression ended preformatted text at the first end tag of any
+          name = "x";
+        }
+        xml.append('<').append(name).append(random.nextInt(8) == 0 ? " b=\"&lt;\">" : ">");
+        randomDocBook(random, elements, texts, xml, depth - 1, link);
+        xml.append("</").append(name).append('>');
+      }
+    }
+  }
+
+  private static String randomText(Random random, String[] fragments, int maxFragments) {
+    StringBuilder text = new StringBuilder();
+    for (int i = random.nextInt(maxFragments); i > 0; i--) {
+      text.append(fragments[random.nextInt(fragments.length)]);
+    }
+    return text.toString();
+  }
+
+  private static boolean hasMarkupInHref(Matcher links) {
+    while (links.find()) {
+      if (links.group(1).indexOf('<') >= 0 || links.group(1).indexOf('>') >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import java.io.StringWriter;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * The regular expression and transformer based conversions which {@link DocBookConverter} replaced,
+ * kept to check that the converter produces the same output.
+ *
+ * <p>Copied from the IPT Eml model, except that an already escaped entity such as {@code &lt;} is
+ * copied on its own. The original copied the five following characters, leaving the ones after the
+ * entity unescaped.
+ */
+final class LegacyDocBookConverter {
+
+  // Define pairs of DocBook tags. MUST MATCH HTML tags!
+  private static final String[] DOCBOOK_TAGS = {
+    "<section>", "</section>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<title>", "</title>",
+    "<para><itemizedlist>", "</itemizedlist></para>",
+    "<para><orderedlist>", "</orderedlist></para>",
+    "<listitem><para>", "</para></listitem>",
+    "<para>", "</para>",
+    "<emphasis>", "</emphasis>",
+    "<subscript>", "</subscript>",
+    "<superscript>", "</superscript>",
+    "<literalLayout>", "</literalLayout>"
+  };
+
+  // Define pairs of HTML tags. MUST MATCH DocBook tags!
+  private static final String[] HTML_TAGS = {
+    "<div>", "</div>",
+    "<h1>", "</h1>",
+    "<h2>", "</h2>",
+    "<h3>", "</h3>",
+    "<h4>", "</h4>",
+    "<h5>", "</h5>",
+    "<ul>", "</ul>",
+    "<ol>", "</ol>",
+    "<li>", "</li>",
+    "<p>", "</p>",
+    "<b>", "</b>",
+    "<sub>", "</sub>",
+    "<sup>", "</sup>",
+    "<pre>", "</pre>"
+  };
+
+  // List of allowed DocBook tags
+  private static final String[] ALLOWED_DOCBOOK_TAGS = {
+    "section",
+    "title",
+    "para",
+    "itemizedlist",
+    "orderedlist",
+    "listitem",
+    "emphasis",
+    "subscript",
+    "superscript",
+    "literalLayout",
+    "ulink",
+    "citetitle"
+  };
+
+  // DocBook tags of parsed documents and the HTML they are replaced with, at the same index
+  private static final String[] PARSED_DOCBOOK_TAGS = {
+    "<section>", "</section>",
+    "<title>", "</title>",
+    "<para><itemizedlist>", "</itemizedlist></para>",
+    "<para><orderedlist>", "</orderedlist></para>",
+    "<listitem><para>", "</para></listitem>",
+    "<itemizedlist>", "</itemizedlist>",
+    "<orderedlist>", "</orderedlist>",
+    "<para>", "</para>",
+    "<emphasis>", "</emphasis>",
+    "<subscript>", "</subscript>",
+    "<superscript>", "</superscript>",
+    "<literalLayout>", "</literalLayout>"
+  };
+
+  private static final String[] PARSED_HTML_TAGS = {
+    "<div>", "</div>",
+    "<h1>", "</h1>",
+    "<ul>", "</ul>",
+    "<ol>", "</ol>",
+    "<li>", "</li>",
+    "<ul>", "</ul>",
+    "<ol>", "</ol>",
+    "<p>", "</p>",
+    "<b>", "</b>",
+    "<sub>", "</sub>",
+    "<sup>", "</sup>",
+    "<pre>", "</pre>"
+  };
+
+  private LegacyDocBookConverter() {}
+
+  static String docBookToHtml(Element element, String wrapperElement) throws Exception {
+    // serialize the element alone, in a document of its own
+    Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    Element imported = (Element) doc.importNode(element, true);
+    doc.appendChild(imported);
+
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.INDENT, "no");
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+    transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+    transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+    StringWriter writer = new StringWriter();
+    transformer.transform(new DOMSource(imported), new StreamResult(writer));
+
+    // preserve the line breaks around preformatted text
+    String xml = writer.toString().replaceAll("(<pre>)(.*?)(</pre>)", "$1\n$2\n$3");
+    String unwrapped =
+        StringUtils.replaceEach(
+            xml,
+            new String[] {"<" + wrapperElement + ">", "</" + wrapperElement + ">"},
+            new String[] {"", ""});
+    String withLinks =
+        unwrapped.replaceAll(
+            "<ulink\\s+url=\"(.*?)\">\\s*<citetitle>(.*?)</citetitle>\\s*</ulink>",
+            "<a href=\"$1\">$2</a>");
+    return StringUtils.replaceEach(withLinks, PARSED_DOCBOOK_TAGS, PARSED_HTML_TAGS);
+  }
+
+  static String replaceDocBookElements(String value) {
+    // Handle <a> to <ulink> conversion
+    String htmlStringWithLinksReplaced =
+        value.replaceAll(
+            "<a\\s+href=\"(.*?)\">\\s*(.*?)\\s*</a>",
+            "<ulink url=\"$1\"><citetitle>$2</citetitle></ulink>");
+
+    // Perform replacements
+    String docBookString =
+        StringUtils.replaceEach(htmlStringWithLinksReplaced, HTML_TAGS, DOCBOOK_TAGS);
+
+    // Escape special characters except for allowed DocBook tags
+    return escapeExceptAllowedTags(docBookString);
+  }
+
+  static String paraXmlToHtml(String xml) {
+    if (StringUtils.isNotEmpty(xml)) {
+      return xml.replaceAll("<citetitle>", "")
+          .replaceAll("</citetitle>", "")
+          .replaceAll("<ulink url=", "<a href=")
+          .replaceAll("</ulink>", "</a>");
+    }
+    return xml;
+  }
+
+  static String paraHtmToXml(String html) {
+    if (StringUtils.isNotEmpty(html)) {
+      return html.replaceAll("\">", "\"><citetitle>")
+          .replaceAll("<a href=", "<ulink url=")
+          .replaceAll("</a>", "</citetitle></ulink>");
+    }
+    return html;
+  }
+
+  private static String escapeExceptAllowedTags(String input) {
+    StringBuilder output = new StringBuilder();
+
+    // Use regex to split input into tags and text segments
+    String[] parts = input.split("(?=<[^>]+>)|(?<=>)");
+
+    for (String part : parts) {
+      // No need to trim whitespace here to preserve leading/trailing spaces
+      if (part.matches("^<[^>]+>$")) {
+        // If it's a tag, check if it's an allowed HTML tag
+        String tagName = getTagName(part);
+        if (isAllowedDocBookTag(tagName) || isDocBookLink(part)) {
+          // Preserve allowed tags as-is
+          output.append(part);
+        } else {
+          // Escape non-allowed tags
+          output.append(customEscape(part));
+        }
+      } else {
+        // Escape special characters in text
+        output.append(customEscape(part));
+      }
+    }
+
+    return output.toString();
+  }
+
+  // Helper method to extract the tag name (without <>)
+  private static String getTagName(String tag) {
+    return tag.replaceAll("[<>/]", "").split("\\s+")[0];
+  }
+
+  // Helper method to check if a tag is an allowed DocBook tag
+  private static boolean isAllowedDocBookTag(String tagName) {
+    for (String allowedTag : ALLOWED_DOCBOOK_TAGS) {
+      if (allowedTag.equalsIgnoreCase(tagName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Helper method to check if a tag is an DocBook ulink
+  private static boolean isDocBookLink(String tag) {
+    return tag.matches("^<ulink\\s+url=\".*?\">.*?</ulink>$");
+  }
+
+  private static String customEscape(String input) {
+    StringBuilder escaped = new StringBuilder();
+    int length = input.length();
+
+    for (int i = 0; i < length; i++) {
+      char c = input.charAt(i);
+
+      // Check for '&' to identify potential escaped entities
+      if (c == '&' && i + 3 < length) {
+        // Extract the next few characters after '&' to check if it's a known escaped entity
+        String potentialEntity =
+            input.substring(i, Math.min(i + 6, length)); // "&nbsp;" is 6 characters
+
+        if (potentialEntity.startsWith("&nbsp;")) {
+          // Replace &nbsp; with &#160;
+          escaped.append("&#160;");
+          i += 5; // Skip the characters of "&nbsp;"
+          continue;
+        } else if (potentialEntity.startsWith("&amp;")
+            || potentialEntity.startsWith("&lt;")
+            || potentialEntity.startsWith("&gt;")
+            || potentialEntity.startsWith("&quot;")
+            || potentialEntity.startsWith("&apos;")) {
+          // If it's an already escaped entity, append it as-is and skip ahead
+          String entity = potentialEntity.substring(0, potentialEntity.indexOf(';') + 1);
+          escaped.append(entity);
+          i += entity.length() - 1; // Skip the already escaped entity
+          continue;
+        }
+      }
+
+      // Now escape only unescaped characters
+      switch (c) {
+        case '&':
+          escaped.append("&amp;");
+          break;
+        case '<':
+          escaped.append("&lt;");
+          break;
+        case '>':
+          escaped.append("&gt;");
+          break;
+        default:
+          // Preserve other characters (including Unicode characters)
+          escaped.append(c);
+      }
+    }
+
+    return escaped.toString();
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import org.gbif.api.model.registry.Citation;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateModel;
+import freemarker.template.Version;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class MetadataObjectWrapperTest {
+
+  private static final String TEMPLATE =
+      "${c.firstName!\"-\"} ${c.lastName!\"-\"} ${c.getFirstName()!\"-\"} ${c.type!\"-\"}"
+          + " ${(c.type.name())!\"-\"} ${c.country!\"-\"} ${c.primary?string}"
+          + " <#list c.email as e>[${e}]</#list> ${c.position?size} ${c.userId?has_content?string}"
+          + " ${c.address?has_content?string} ${(c.organization?length)!\"-\"}"
+          + " ${(citation.text)!\"-\"} ${(citation.identifier)!\"-\"} ${map.key!\"-\"}";
+
+  private static Map<String, Object> model(Contact contact) {
+    Citation citation = new Citation();
+    citation.setText("Citation & text");
+    Map<String, Object> model = new HashMap<>();
+    model.put("c", contact);
+    model.put("citation", citation);
+    model.put("map", Collections.singletonMap("key", ContactType.ORIGINATOR));
+    return model;
+  }
+
+  private static String render(Configuration cfg, Map<String, Object> model) throws Exception {
+    StringWriter out = new StringWriter();
+    new Template("test", TEMPLATE, cfg).process(model, out);
+    return out.toString();
+  }
+
+  @Test
+  public void testSameOutputAsDefaultWrapper() throws Exception {
+    Contact full = new Contact();
+    full.setFirstName("Tim");
+    full.setLastName("Robertson");
+    full.setType(ContactType.ADMINISTRATIVE_POINT_OF_CONTACT);
+    full.setCountry(Country.DENMARK);
+    full.setPrimary(true);
+    full.addEmail("a@gbif.org");
+    full.addEmail("b@gbif.org");
+    full.addPosition("Developer");
+    full.setOrganization("GBIF");
+
+    Version[] versions = {Configuration.VERSION_2_3_0, Configuration.VERSION_2_3_31};
+    for (Version version : versions) {
+      Configuration defaults = new Configuration(version);
+      Configuration metadata = new Configuration(version);
+      metadata.setObjectWrapper(new MetadataObjectWrapper(version));
+      for (Contact contact : new Contact[] {full, new Contact()}) {
+        assertEquals(
+            render(defaults, model(contact)), render(metadata, model(contact)), version.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testEnumModelsAreCached() throws Exception {
+    ObjectWrapper wrapper = new MetadataObjectWrapper(Configuration.VERSION_2_3_0);
+    TemplateModel model = wrapper.wrap(ContactType.ORIGINATOR);
+    assertSame(model, wrapper.wrap(ContactType.ORIGINATOR));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StringPoolTest {
+
+  @Test
+  public void testIntern() {
+    StringPool pool = new StringPool();
+    String first = new String("Copenhagen");
+    String second = new String("Copenhagen");
+    assertNotSame(first, second);
+
+    assertSame(first, pool.intern(first));
+    assertSame(first, pool.intern(second));
+    assertNull(pool.intern(null));
+    assertEquals("", pool.intern(""));
+
+    StringPool.Stats stats = pool.stats();
+    assertEquals(2, stats.getLookups());
+    assertEquals(1, stats.getHits());
+    assertEquals(1, stats.getSize());
+    assertTrue(stats.getSavedBytes() > "Copenhagen".length());
+  }
+
+  @Test
+  public void testLongValuesNotPooled() {
+    StringPool pool = new StringPool(16, 5);
+    String value = new String("Natural History Museum");
+    assertSame(value, pool.intern(value));
+    assertNotSame(value, pool.intern(new String(value)));
+    assertEquals(0, pool.stats().getLookups());
+  }
+
+  @Test
+  public void testBounded() {
+    StringPool pool = new StringPool(64, StringPool.DEFAULT_MAX_LENGTH);
+    for (int i = 0; i < 10_000; i++) {
+      pool.intern("value " + i);
+    }
+    assertTrue(pool.stats().getSize() <= 64);
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    StringPool pool = new StringPool();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 10_000; i++) {
+                    String value = "role " + (i % 100);
+                    assertEquals(value, pool.intern(value));
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    StringPool.Stats stats = pool.stats();
+    assertEquals(40_000, stats.getLookups());
+    assertTrue(stats.getHitRate() > 0.9, stats.toString());
+  }
+}
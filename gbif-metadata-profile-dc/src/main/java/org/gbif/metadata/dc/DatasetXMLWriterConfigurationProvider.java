@@ -13,6 +13,9 @@
  */
 package org.gbif.metadata.dc;
 
+import org.gbif.metadata.common.util.MetadataObjectWrapper;
+
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.ChoiceFormat;
 
@@ -20,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import freemarker.cache.ClassTemplateLoader;
+import freemarker.cache.StrongCacheStorage;
 import freemarker.cache.TemplateLoader;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateModelException;
@@ -31,7 +35,7 @@ import freemarker.template.TemplateModelException;
 public class DatasetXMLWriterConfigurationProvider {
 
   public static final String FM_UTILS_NAME = "fmUtil";
-  private static final String TEMPLATE_PATH = "/";
+  static final String TEMPLATE_PATH = "/";
   private static final Logger LOG =
       LoggerFactory.getLogger(DatasetXMLWriterConfigurationProvider.class);
 
@@ -54,18 +58,17 @@ public class DatasetXMLWriterConfigurationProvider {
     TemplateLoader tl =
         new ClassTemplateLoader(DatasetXMLWriterConfigurationProvider.class, templatePath);
 
-    // Using deprecated constructor
     // From Freemarker documentation:
     // Configuration cfg = new Configuration(VERSION_X_Y_Z));
     // Where X, Y, Z enables the not-100%-backward-compatible fixes introduced in
     // FreeMarker version X.Y.Z  and earlier (see Configuration(Version)).
-    // To be safe, we do not use any of the new features but it would be useful to have a minimum
-    // version
-    // of Freemarker to use.
-    Configuration fm = new Configuration();
+    // To be safe, we do not use any of the new features: 2.3.0 is what the deprecated default
+    // constructor used.
+    Configuration fm = new Configuration(Configuration.VERSION_2_3_0);
 
     fm.setDefaultEncoding(StandardCharsets.UTF_8.toString());
     fm.setTemplateLoader(tl);
+    fm.setObjectWrapper(new MetadataObjectWrapper(fm.getIncompatibleImprovements()));
     try {
       fm.setSharedVariable(FM_UTILS_NAME, new FreemarkerUtils());
     } catch (TemplateModelException e) {
@@ -74,6 +77,30 @@ public class DatasetXMLWriterConfigurationProvider {
     return fm;
   }
 
+  /**
+   * Provides a Freemarker configuration for production use, meant to be created once and shared by
+   * all writers. Templates are never checked for updates and are held strongly once loaded, and the
+   * given templates are loaded and parsed up front.
+   *
+   * @param templatePath Freemarker base package path
+   * @param templates names of the templates to load eagerly
+   * @throws IllegalStateException if one of the templates cannot be loaded or parsed
+   */
+  public static Configuration provideProductionFreemarker(
+      String templatePath, String... templates) {
+    Configuration fm = provideFreemarker(templatePath);
+    fm.setTemplateUpdateDelayMilliseconds(Long.MAX_VALUE);
+    fm.setCacheStorage(new StrongCacheStorage());
+    for (String template : templates) {
+      try {
+        fm.getTemplate(template);
+      } catch (IOException e) {
+        throw new IllegalStateException("Can't load Freemarker template " + template, e);
+      }
+    }
+    return fm;
+  }
+
   /**
    * Nested class to expose some Java utilities to Freemarker template. This class requires to be
    * public to be visible by the Freemarker template.
@@ -36,13 +36,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.io.output.NullWriter;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.apache.commons.lang3.time.FastDateFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import freemarker.template.Configuration;
 import freemarker.template.TemplateException;
@@ -54,6 +58,7 @@ public class DublinCoreWriter {
   public static final String ADDITIONAL_PROPERTY_DC_FORMAT = "dublincore_format";
 
   private static final String DC_TEMPLATE = "oai-dc-profile-template/dc-dataset.ftl";
+  private static final Logger LOG = LoggerFactory.getLogger(DublinCoreWriter.class);
   private final Configuration freemarkerConfig;
 
   // We should probably use @Named("portal.url") but it would be more appropriate to wait
@@ -73,12 +78,27 @@ public class DublinCoreWriter {
   }
 
   /**
-   * Get a new instance of DublinCoreWriter with default Freemarker configuration.
+   * Get a new instance of DublinCoreWriter with the shared Freemarker configuration.
    *
    * @return new instance
    */
   public static DublinCoreWriter newInstance() {
-    return new DublinCoreWriter(DatasetXMLWriterConfigurationProvider.provideFreemarker());
+    return new DublinCoreWriter(Production.CONFIG);
+  }
+
+  /**
+   * Loads the shared Freemarker configuration with the DublinCore template, and renders an empty
+   * dataset with it so the classes used by the template are introspected too. Call at startup to
+   * make the first write as fast as the following ones.
+   */
+  public static void warmUp() {
+    Dataset dataset = new Dataset();
+    dataset.setKey(new UUID(0, 0));
+    try {
+      newInstance().writeTo(null, dataset, null, NullWriter.NULL_WRITER);
+    } catch (IOException e) {
+      LOG.warn("Failed to warm up the DublinCore template", e);
+    }
   }
 
   /**
@@ -116,6 +136,13 @@ public class DublinCoreWriter {
     }
   }
 
+  /** Holds the configuration shared by all writers, created on first use. */
+  private static final class Production {
+    private static final Configuration CONFIG =
+        DatasetXMLWriterConfigurationProvider.provideProductionFreemarker(
+            DatasetXMLWriterConfigurationProvider.TEMPLATE_PATH, DC_TEMPLATE);
+  }
+
   /** This class requires to be public to be used in the Freemarker template. */
   public static class DcDatasetWrapper {
     private final Dataset dataset;
@@ -42,6 +42,7 @@ import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test class for DublinCoreWriter.
@@ -148,4 +149,15 @@ public class DublinCoreWriterTest {
     XMLValidator.assertXMLAgainstXSD(
         writer.toString(), org.gbif.utils.file.FileUtils.classpath2Filepath(OAI_2_0_DC_SCHEMA));
   }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    DublinCoreWriter.warmUp();
+    Dataset d = new Dataset();
+    d.setKey(UUID.fromString("bdd601cc-00a7-431c-9724-d5b03170fcb2"));
+    d.setTitle("This is a keyboard dataset");
+    StringWriter writer = new StringWriter();
+    DublinCoreWriter.newInstance().writeTo(null, d, null, writer);
+    assertTrue(writer.toString().contains("<dc:title>This is a keyboard dataset</dc:title>"));
+  }
 }
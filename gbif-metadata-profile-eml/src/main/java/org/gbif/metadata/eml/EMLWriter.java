@@ -23,20 +23,28 @@ import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriodType;
 import org.gbif.api.util.ContactAdapter;
 import org.gbif.api.vocabulary.ContactType;
 import org.gbif.metadata.common.parse.ParagraphContainer;
+import org.gbif.metadata.common.util.DocBookConverter;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.apache.commons.beanutils.BeanUtils;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.output.NullWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,101 +60,60 @@ public class EMLWriter {
 
   private static final Logger LOG = LoggerFactory.getLogger(EMLWriter.class);
 
-  // Define pairs of DocBook tags. MUST MATCH HTML tags!
-  private static final String[] DOCBOOK_TAGS = {
-    "<section>", "</section>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<para><itemizedlist>", "</itemizedlist></para>",
-    "<para><orderedlist>", "</orderedlist></para>",
-    "<listitem><para>", "</para></listitem>",
-    "<para>", "</para>",
-    "<emphasis>", "</emphasis>",
-    "<subscript>", "</subscript>",
-    "<superscript>", "</superscript>",
-    "<literalLayout>", "</literalLayout>"
-  };
-
-  // Define pairs of HTML tags. MUST MATCH DocBook tags!
-  private static final String[] HTML_TAGS = {
-    "<div>", "</div>",
-    "<h1>", "</h1>",
-    "<h2>", "</h2>",
-    "<h3>", "</h3>",
-    "<h4>", "</h4>",
-    "<h5>", "</h5>",
-    "<ul>", "</ul>",
-    "<ol>", "</ol>",
-    "<li>", "</li>",
-    "<p>", "</p>",
-    "<b>", "</b>",
-    "<sub>", "</sub>",
-    "<sup>", "</sup>",
-    "<pre>", "</pre>"
-  };
-
-  // List of allowed DocBook tags
-  private static final String[] ALLOWED_DOCBOOK_TAGS = {
-    "section",
-    "title",
-    "para",
-    "itemizedlist",
-    "orderedlist",
-    "listitem",
-    "emphasis",
-    "subscript",
-    "superscript",
-    "literalLayout",
-    "ulink",
-    "citetitle"
-  };
-
   private static final String TEMPLATE_PATH = "/gbif-eml-profile-template";
   private final Configuration freemarkerConfig;
   private final boolean useDoiAsIdentifier;
   private final boolean omitXmlDeclaration;
+  private final Engine engine;
+
+  /** How documents are generated. */
+  public enum Engine {
+    /** Freemarker templates, available for all profile versions. */
+    TEMPLATE,
+    /**
+     * A hand written serializer producing the same output as the template without Freemarker's
+     * reflective bean model, for the latest profile version only. Other versions fall back to the
+     * template.
+     */
+    STREAMING
+  }
 
   /**
    * Private constructor, use {@link #newInstance()}
    *
    * @param cfg
    */
-  private EMLWriter(Configuration cfg, boolean useDoiAsIdentifier, boolean omitXmlDeclaration) {
+  private EMLWriter(
+      Configuration cfg, boolean useDoiAsIdentifier, boolean omitXmlDeclaration, Engine engine) {
     this.freemarkerConfig = cfg;
     this.useDoiAsIdentifier = useDoiAsIdentifier;
     this.omitXmlDeclaration = omitXmlDeclaration;
+    this.engine = Objects.requireNonNull(engine, "engine");
   }
 
   /**
-   * Get a new instance of EMLWriter with default Freemarker configuration. Same as calling {@link
-   * #newInstance(boolean)} method with useDoiAsIdentifier = false
+   * Get a new instance of EMLWriter with the shared Freemarker configuration. Same as calling
+   * {@link #newInstance(boolean)} method with useDoiAsIdentifier = false
    *
    * @return new instance
    */
   public static EMLWriter newInstance() {
-    return new EMLWriter(
-        DatasetXMLWriterConfigurationProvider.provideFreemarker(TEMPLATE_PATH), false, false);
+    return new EMLWriter(Production.CONFIG, false, false, Engine.TEMPLATE);
   }
 
   /**
-   * Get a new instance of EMLWriter with default Freemarker configuration.
+   * Get a new instance of EMLWriter with the shared Freemarker configuration.
    *
    * @param useDoiAsIdentifier should the packageId be the dataset.doi? If true, the dataset.doi
    *     won't be included in the list of alternate identifiers
    * @return
    */
   public static EMLWriter newInstance(boolean useDoiAsIdentifier) {
-    return new EMLWriter(
-        DatasetXMLWriterConfigurationProvider.provideFreemarker(TEMPLATE_PATH),
-        useDoiAsIdentifier,
-        false);
+    return new EMLWriter(Production.CONFIG, useDoiAsIdentifier, false, Engine.TEMPLATE);
   }
 
   /**
-   * Get a new instance of EMLWriter with default Freemarker configuration.
+   * Get a new instance of EMLWriter with the shared Freemarker configuration.
    *
    * @param useDoiAsIdentifier should the packageId be the dataset.doi? If true, the dataset.doi
    *     won't be included in the list of alternate identifiers
@@ -154,10 +121,39 @@ public class EMLWriter {
    * @return
    */
   public static EMLWriter newInstance(boolean useDoiAsIdentifier, boolean omitXmlDeclaration) {
-    return new EMLWriter(
-        DatasetXMLWriterConfigurationProvider.provideFreemarker(TEMPLATE_PATH),
-        useDoiAsIdentifier,
-        omitXmlDeclaration);
+    return newInstance(useDoiAsIdentifier, omitXmlDeclaration, Engine.TEMPLATE);
+  }
+
+  /**
+   * Get a new instance of EMLWriter using the given engine.
+   *
+   * @param useDoiAsIdentifier should the packageId be the dataset.doi? If true, the dataset.doi
+   *     won't be included in the list of alternate identifiers
+   * @param omitXmlDeclaration should the XML declaration be omitted in the generated document
+   * @param engine how documents are generated
+   * @return new instance
+   */
+  public static EMLWriter newInstance(
+      boolean useDoiAsIdentifier, boolean omitXmlDeclaration, Engine engine) {
+    return new EMLWriter(Production.CONFIG, useDoiAsIdentifier, omitXmlDeclaration, engine);
+  }
+
+  /**
+   * Loads the shared Freemarker configuration with the templates of all profile versions, and
+   * renders an empty dataset with each of them so the classes used by the templates are
+   * introspected too. Call at startup to make the first write as fast as the following ones.
+   */
+  public static void warmUp() {
+    EMLWriter writer = newInstance();
+    Dataset dataset = new Dataset();
+    dataset.setKey(new UUID(0, 0));
+    for (EMLProfileVersion version : EMLProfileVersion.values()) {
+      try {
+        writer.writeTo(dataset, NullWriter.NULL_WRITER, version);
+      } catch (IOException e) {
+        LOG.warn("Failed to warm up the EML {} template", version.getVersion(), e);
+      }
+    }
   }
 
   /**
@@ -168,7 +164,7 @@ public class EMLWriter {
    * @throws IOException if an error occurs while processing the template
    */
   public void writeTo(Dataset dataset, Writer writer) throws IOException {
-    innerWrite(dataset, writer, EMLProfileVersion.GBIF_1_3);
+    writeTo(dataset, writer, EMLProfileVersion.GBIF_1_3);
   }
 
   /**
@@ -181,20 +177,118 @@ public class EMLWriter {
    */
   public void writeTo(Dataset dataset, Writer writer, EMLProfileVersion emlProfileVersion)
       throws IOException {
-    innerWrite(dataset, writer, emlProfileVersion);
+    Objects.requireNonNull(dataset, "Dataset can't be null");
+    innerWrite(dataset, new EmlDatasetWrapper(dataset), writer, emlProfileVersion);
   }
 
-  private void innerWrite(Dataset dataset, Writer writer, EMLProfileVersion emlProfileVersion)
+  /**
+   * Write a document from the render model of a dataset for a specific EML version.
+   *
+   * @param model render model of the dataset, see {@link EmlRenderModel#of(Dataset)}
+   * @param writer where the output document will go. The writer is not closed by this method.
+   * @param emlProfileVersion EML profile version
+   * @throws IOException if an error occurs while processing the template
+   */
+  public void writeTo(EmlRenderModel model, Writer writer, EMLProfileVersion emlProfileVersion)
       throws IOException {
-    Objects.requireNonNull(dataset, "Dataset can't be null");
+    innerWrite(model.getDataset(), model, writer, emlProfileVersion);
+  }
+
+  /**
+   * Write documents from the render model of a dataset for several EML versions, each into its own
+   * writer.
+   *
+   * @param model render model of the dataset, see {@link EmlRenderModel#of(Dataset)}
+   * @param writers where the document of each EML profile version will go. The writers are not
+   *     closed by this method.
+   * @param executor runs the versions concurrently, or null to write them one after the other in
+   *     the calling thread
+   * @throws IOException if an error occurs while processing any of the templates. When writing
+   *     concurrently, all documents are completed first and the failures of the other versions are
+   *     added as suppressed exceptions.
+   */
+  public void writeTo(
+      EmlRenderModel model,
+      Map<EMLProfileVersion, ? extends Writer> writers,
+      @Nullable Executor executor)
+      throws IOException {
+    if (executor == null) {
+      for (Map.Entry<EMLProfileVersion, ? extends Writer> sink : writers.entrySet()) {
+        writeTo(model, sink.getValue(), sink.getKey());
+      }
+      return;
+    }
+
+    List<CompletableFuture<Void>> pending = new ArrayList<>(writers.size());
+    for (Map.Entry<EMLProfileVersion, ? extends Writer> sink : writers.entrySet()) {
+      pending.add(
+          CompletableFuture.runAsync(
+              () -> writeUnchecked(model, sink.getValue(), sink.getKey()), executor));
+    }
+    // let every version finish before reporting a failure, so none is left running
+    CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+        .exceptionally(e -> null)
+        .join();
+    Throwable failure = null;
+    for (CompletableFuture<Void> future : pending) {
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        Throwable cause = unwrap(e);
+        if (failure == null) {
+          failure = cause;
+        } else {
+          failure.addSuppressed(cause);
+        }
+      }
+    }
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
+  private void writeUnchecked(
+      EmlRenderModel model, Writer writer, EMLProfileVersion emlProfileVersion) {
+    try {
+      writeTo(model, writer, emlProfileVersion);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Throwable unwrap(CompletionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof UncheckedIOException) {
+      return cause.getCause();
+    }
+    return cause == null ? e : cause;
+  }
+
+  private void innerWrite(
+      Dataset dataset,
+      EmlDatasetWrapper eml,
+      Writer writer,
+      EMLProfileVersion emlProfileVersion)
+      throws IOException {
+    if (engine == Engine.STREAMING && emlProfileVersion == EMLProfileVersion.GBIF_1_3) {
+      new EmlStreamingSerializer(writer, useDoiAsIdentifier, omitXmlDeclaration)
+          .write(dataset, eml);
+      return;
+    }
 
     Map<String, Object> map = new HashMap<>();
     map.put("dataset", dataset);
-    map.put("eml", new EmlDatasetWrapper(dataset));
+    map.put("eml", eml);
     map.put("useDoiAsIdentifier", useDoiAsIdentifier);
     map.put("omitXmlDeclaration", omitXmlDeclaration);
 
-    String emlTemplate = String.format("eml-dataset-%s.ftl", emlProfileVersion.getVersion());
+    String emlTemplate = templateName(emlProfileVersion);
 
     try {
       freemarkerConfig.getTemplate(emlTemplate).process(Collections.unmodifiableMap(map), writer);
@@ -204,6 +298,20 @@ public class EMLWriter {
     }
   }
 
+  private static String templateName(EMLProfileVersion emlProfileVersion) {
+    return String.format("eml-dataset-%s.ftl", emlProfileVersion.getVersion());
+  }
+
+  /** Holds the configuration shared by all writers, created on first use. */
+  private static final class Production {
+    private static final Configuration CONFIG =
+        DatasetXMLWriterConfigurationProvider.provideProductionFreemarker(
+            TEMPLATE_PATH,
+            Arrays.stream(EMLProfileVersion.values())
+                .map(EMLWriter::templateName)
+                .toArray(String[]::new));
+  }
+
   /**
    * Wrapper for a dataset instance that exposes some EML specific methods. Mostly used for
    * generating EML, see EMLWriter. This class requires to be public to be used in the Freemarker
@@ -250,11 +358,7 @@ public class EMLWriter {
       String result = null;
 
       try {
-        String value = BeanUtils.getProperty(dataset, fieldName);
-
-        if (value != null) {
-          result = replaceDocBookElements(value.trim());
-        }
+        result = toDocBook(getField(fieldName));
       } catch (Exception e) {
         LOG.error("Error getting document field", e);
       }
@@ -262,116 +366,27 @@ public class EMLWriter {
       return result;
     }
 
-    private String replaceDocBookElements(String value) {
-      // Handle <a> to <ulink> conversion
-      String htmlStringWithLinksReplaced =
-          value.replaceAll(
-              "<a\\s+href=\"(.*?)\">\\s*(.*?)\\s*</a>",
-              "<ulink url=\"$1\"><citetitle>$2</citetitle></ulink>");
-
-      // Perform replacements
-      String docBookString =
-          StringUtils.replaceEach(htmlStringWithLinksReplaced, HTML_TAGS, DOCBOOK_TAGS);
-
-      // Escape special characters except for allowed DocBook tags
-      return escapeExceptAllowedTags(docBookString);
-    }
-
-    private String escapeExceptAllowedTags(String input) {
-      StringBuilder output = new StringBuilder();
-
-      // Use regex to split input into tags and text segments
-      String[] parts = input.split("(?=<[^>]+>)|(?<=>)");
-
-      for (String part : parts) {
-        // No need to trim whitespace here to preserve leading/trailing spaces
-        if (part.matches("^<[^>]+>$")) {
-          // If it's a tag, check if it's an allowed HTML tag
-          String tagName = getTagName(part);
-          if (isAllowedDocBookTag(tagName) || isDocBookLink(part)) {
-            // Preserve allowed tags as-is
-            output.append(part);
-          } else {
-            // Escape non-allowed tags
-            output.append(customEscape(part));
-          }
-        } else {
-          // Escape special characters in text
-          output.append(customEscape(part));
-        }
+    // the fields used by the templates are read directly, any other through reflection
+    private String getField(String fieldName) throws Exception {
+      switch (fieldName) {
+        case "description":
+          return dataset.getDescription();
+        case "purpose":
+          return dataset.getPurpose();
+        case "introduction":
+          return dataset.getIntroduction();
+        case "gettingStarted":
+          return dataset.getGettingStarted();
+        case "acknowledgements":
+          return dataset.getAcknowledgements();
+        default:
+          return BeanUtils.getProperty(dataset, fieldName);
       }
-
-      return output.toString();
-    }
-
-    // Helper method to extract the tag name (without <>)
-    private String getTagName(String tag) {
-      return tag.replaceAll("[<>/]", "").split("\\s+")[0];
     }
 
-    // Helper method to check if a tag is an allowed DocBook tag
-    private boolean isAllowedDocBookTag(String tagName) {
-      for (String allowedTag : ALLOWED_DOCBOOK_TAGS) {
-        if (allowedTag.equalsIgnoreCase(tagName)) {
-          return true;
-        }
-      }
-      return false;
-    }
-
-    // Helper method to check if a tag is an DocBook ulink
-    private boolean isDocBookLink(String tag) {
-      return tag.matches("^<ulink\\s+url=\".*?\">.*?</ulink>$");
-    }
-
-    private String customEscape(String input) {
-      StringBuilder escaped = new StringBuilder();
-      int length = input.length();
-
-      for (int i = 0; i < length; i++) {
-        char c = input.charAt(i);
-
-        // Check for '&' to identify potential escaped entities
-        if (c == '&' && i + 3 < length) {
-          // Extract the next few characters after '&' to check if it's a known escaped entity
-          String potentialEntity =
-              input.substring(i, Math.min(i + 6, length)); // "&nbsp;" is 6 characters
-
-          if (potentialEntity.startsWith("&nbsp;")) {
-            // Replace &nbsp; with &#160;
-            escaped.append("&#160;");
-            i += 5; // Skip the characters of "&nbsp;"
-            continue;
-          } else if (potentialEntity.startsWith("&amp;")
-              || potentialEntity.startsWith("&lt;")
-              || potentialEntity.startsWith("&gt;")
-              || potentialEntity.startsWith("&quot;")
-              || potentialEntity.startsWith("&apos;")) {
-            // If it's an already escaped entity, append it as-is and skip ahead
-            escaped.append(potentialEntity);
-            i += potentialEntity.length() - 1; // Skip the already escaped entity
-            continue;
-          }
-        }
-
-        // Now escape only unescaped characters
-        switch (c) {
-          case '&':
-            escaped.append("&amp;");
-            break;
-          case '<':
-            escaped.append("&lt;");
-            break;
-          case '>':
-            escaped.append("&gt;");
-            break;
-          default:
-            // Preserve other characters (including Unicode characters)
-            escaped.append(c);
-        }
-      }
-
-      return escaped.toString();
+    /** @return the value with all HTML tags replaced by DocBook analogues, null if null */
+    String toDocBook(String value) {
+      return value == null ? null : DocBookConverter.htmlToDocBook(value.trim());
     }
 
     public Contact getMetadataProvider() {
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml;
+
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.TemporalCoverage;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriod;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriodType;
+import org.gbif.metadata.eml.EMLWriter.EmlDatasetWrapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Everything the EML templates derive from a dataset, computed once.
+ *
+ * <p>{@link EmlDatasetWrapper} filters the contacts and temporal coverages of the dataset again on
+ * every call, and the templates call it several times per document. This model does it when built,
+ * classifying the temporal coverages in a single pass, so a dataset written in several profile
+ * versions with {@link EMLWriter#writeTo(EmlRenderModel, Map, java.util.concurrent.Executor)} is
+ * only prepared once.
+ *
+ * <p>The model is immutable and can be rendered concurrently. The dataset must not be modified
+ * while the model is in use.
+ */
+@ThreadSafe
+public final class EmlRenderModel extends EmlDatasetWrapper {
+
+  // fields the templates convert to DocBook
+  private static final String[] DOCBOOK_FIELDS = {
+    "description", "purpose", "introduction", "gettingStarted", "acknowledgements"
+  };
+
+  private final Dataset dataset;
+  private final List<Contact> associatedParties;
+  private final Contact resourceCreator;
+  private final List<Contact> creators;
+  private final Contact administrativeContact;
+  private final List<Contact> contacts;
+  private final Contact metadataProvider;
+  private final List<Contact> metadataProviders;
+  private final List<String> description;
+  private final Map<String, String> docBookFields;
+  private final List<VerbatimTimePeriod> formationPeriods;
+  private final List<VerbatimTimePeriod> livingTimePeriods;
+  private final List<TemporalCoverage> singleDateAndDateRangeCoverages;
+
+  private EmlRenderModel(Dataset dataset) {
+    super(dataset);
+    this.dataset = dataset;
+    this.associatedParties = immutable(super.getAssociatedParties());
+    this.resourceCreator = super.getResourceCreator();
+    this.creators = immutable(super.getCreators());
+    this.administrativeContact = super.getAdministrativeContact();
+    this.contacts = immutable(super.getContacts());
+    this.metadataProvider = super.getMetadataProvider();
+    this.metadataProviders = immutable(super.getMetadataProviders());
+    this.description = immutable(super.getDescription());
+
+    Map<String, String> docBook = new HashMap<>();
+    for (String field : DOCBOOK_FIELDS) {
+      docBook.put(field, super.getDocBookField(field));
+    }
+    this.docBookFields = Collections.unmodifiableMap(docBook);
+
+    List<VerbatimTimePeriod> formation = new ArrayList<>();
+    List<VerbatimTimePeriod> living = new ArrayList<>();
+    List<TemporalCoverage> singleDateAndDateRange = new ArrayList<>();
+    for (TemporalCoverage tc : dataset.getTemporalCoverages()) {
+      if (tc instanceof DateRange || tc instanceof SingleDate) {
+        singleDateAndDateRange.add(tc);
+      } else if (tc instanceof VerbatimTimePeriod) {
+        VerbatimTimePeriod tp = (VerbatimTimePeriod) tc;
+        if (VerbatimTimePeriodType.FORMATION_PERIOD.equals(tp.getType())) {
+          formation.add(tp);
+        } else if (VerbatimTimePeriodType.LIVING_TIME_PERIOD.equals(tp.getType())) {
+          living.add(tp);
+        }
+      }
+    }
+    this.formationPeriods = immutable(formation);
+    this.livingTimePeriods = immutable(living);
+    this.singleDateAndDateRangeCoverages = immutable(singleDateAndDateRange);
+  }
+
+  /**
+   * Builds the render model of a dataset.
+   *
+   * @param dataset non null dataset object
+   * @return the render model
+   */
+  public static EmlRenderModel of(Dataset dataset) {
+    Objects.requireNonNull(dataset, "Dataset can't be null");
+    return new EmlRenderModel(dataset);
+  }
+
+  private static <T> List<T> immutable(List<T> list) {
+    if (list == null || list.isEmpty()) {
+      return list == null ? null : Collections.emptyList();
+    }
+    return Collections.unmodifiableList(new ArrayList<>(list));
+  }
+
+  Dataset getDataset() {
+    return dataset;
+  }
+
+  @Override
+  public List<Contact> getAssociatedParties() {
+    return associatedParties;
+  }
+
+  @Override
+  public Contact getResourceCreator() {
+    return resourceCreator;
+  }
+
+  @Override
+  public List<Contact> getCreators() {
+    return creators;
+  }
+
+  @Override
+  public Contact getAdministrativeContact() {
+    return administrativeContact;
+  }
+
+  @Override
+  public List<Contact> getContacts() {
+    return contacts;
+  }
+
+  @Override
+  public List<String> getDescription() {
+    return description;
+  }
+
+  @Override
+  public String getDocBookField(String fieldName) {
+    return docBookFields.containsKey(fieldName)
+        ? docBookFields.get(fieldName)
+        : super.getDocBookField(fieldName);
+  }
+
+  @Override
+  public Contact getMetadataProvider() {
+    return metadataProvider;
+  }
+
+  @Override
+  public List<Contact> getMetadataProviders() {
+    return metadataProviders;
+  }
+
+  @Override
+  public List<VerbatimTimePeriod> getFormationPeriods() {
+    return formationPeriods;
+  }
+
+  @Override
+  public List<VerbatimTimePeriod> getLivingTimePeriods() {
+    return livingTimePeriods;
+  }
+
+  @Override
+  public List<TemporalCoverage> getSingleDateAndDateRangeCoverages() {
+    return singleDateAndDateRangeCoverages;
+  }
+}
@@ -0,0 +1,970 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml;
+
+import org.gbif.api.model.common.InterpretedEnum;
+import org.gbif.api.model.registry.Citation;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Endpoint;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.eml.Collection;
+import org.gbif.api.model.registry.eml.DataDescription;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.model.registry.eml.Project;
+import org.gbif.api.model.registry.eml.ProjectAward;
+import org.gbif.api.model.registry.eml.RelatedProject;
+import org.gbif.api.model.registry.eml.SamplingDescription;
+import org.gbif.api.model.registry.eml.TaxonomicCoverage;
+import org.gbif.api.model.registry.eml.TaxonomicCoverages;
+import org.gbif.api.model.registry.eml.curatorial.CuratorialUnitComposite;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.TemporalCoverage;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriod;
+import org.gbif.api.vocabulary.License;
+import org.gbif.api.vocabulary.Rank;
+import org.gbif.metadata.common.util.DocBookConverter;
+import org.gbif.metadata.eml.EMLWriter.EmlDatasetWrapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Hand written serializer of a {@link Dataset} as GBIF Metadata Profile 1.3, producing the same
+ * output as the {@code eml-dataset-1.3.ftl} template without Freemarker's reflective bean model.
+ *
+ * <p>Each method mirrors a section of the template, down to its indentation, its escaping of
+ * interpolated values with {@code ?xml} and its locale dependent formatting of numbers and dates.
+ * Any change to the template must be made here too, which {@code EmlStreamingSerializerTest}
+ * checks on the test corpus. Where the template fails on a missing value it requires, an empty
+ * element is written instead.
+ *
+ * <p>Instances write a single document and are not thread safe.
+ */
+final class EmlStreamingSerializer {
+
+  private static final char[] SPACES = new char[32];
+
+  static {
+    Arrays.fill(SPACES, ' ');
+  }
+
+  // user ID directories recognised by the constructUserID macro, in the order they are tried
+  private static final String[] USER_ID_DIRECTORIES = {
+    "orcid.org/",
+    "researcherid.com/rid/",
+    "scholar.google.com/citations?user=",
+    "linkedin.com/profile/view?id=",
+    "linkedin.com/in/"
+  };
+
+  private final Writer out;
+  private final boolean useDoiAsIdentifier;
+  private final boolean omitXmlDeclaration;
+  // the defaults of the Freemarker configuration
+  private final Locale locale = Locale.getDefault();
+  private final TimeZone timeZone = TimeZone.getDefault();
+
+  // formats are only created when a document needs them
+  private NumberFormat integerFormat;
+  private DecimalFormat coordinateFormat;
+  private SimpleDateFormat yearFormat;
+  private SimpleDateFormat dayFormat;
+
+  EmlStreamingSerializer(Writer out, boolean useDoiAsIdentifier, boolean omitXmlDeclaration) {
+    this.out = out;
+    this.useDoiAsIdentifier = useDoiAsIdentifier;
+    this.omitXmlDeclaration = omitXmlDeclaration;
+  }
+
+  void write(Dataset dataset) throws IOException {
+    write(dataset, new EmlDatasetWrapper(dataset));
+  }
+
+  void write(Dataset dataset, EmlDatasetWrapper eml) throws IOException {
+    if (!omitXmlDeclaration) {
+      line(0, "<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+    }
+    line(
+        0,
+        "<eml:eml xmlns:eml=\"https://eml.ecoinformatics.org/eml-2.2.0\""
+            + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"");
+    line(
+        9,
+        "xsi:schemaLocation=\"https://eml.ecoinformatics.org/eml-2.2.0"
+            + " https://rs.gbif.org/schema/eml-gbif-profile/1.3/eml.xsd\"");
+    out.write("packageId=\"");
+    if (useDoiAsIdentifier && dataset.getDoi() != null) {
+      text(dataset.getDoi().getDoiName());
+    } else {
+      text(dataset.getKey());
+    }
+    out.write("\"  system=\"http://gbif.org\" scope=\"system\"\n");
+    if (dataset.getLanguage() != null) {
+      out.write("xml:lang=\"");
+      text(dataset.getLanguage().getIso2LetterCode());
+      out.write('"');
+    }
+    out.write(">\n");
+
+    line(4, "<dataset>");
+    writeIdentification(dataset);
+    writeParties(eml);
+    writeDescription(dataset, eml);
+    writeLicense(dataset.getLicense());
+    writeDistribution(dataset);
+    writeCoverage(dataset, eml);
+    writeDocBook("purpose", dataset.getPurpose());
+    writeDocBook("introduction", dataset.getIntroduction());
+    writeDocBook("gettingStarted", dataset.getGettingStarted());
+    writeDocBook("acknowledgements", dataset.getAcknowledgements());
+    writeMaintenance(dataset);
+    for (Contact ct : eml.getContacts()) {
+      line(8, "<contact>");
+      writeParty(12, 16, ct, false);
+      line(8, "</contact>");
+    }
+    if (dataset.getPublishingOrganizationKey() != null
+        && dataset.getPublishingOrganizationName() != null) {
+      indent(8);
+      out.write("<publisher id=\"");
+      text(dataset.getPublishingOrganizationKey());
+      out.write("\" scope=\"system\" system=\"http://gbif.org\">\n");
+      element(12, "organizationName", dataset.getPublishingOrganizationName());
+      line(8, "</publisher>");
+    }
+    writeMethods(dataset.getSamplingDescription());
+    out.write('\n');
+    if (dataset.getProject() != null) {
+      writeProject(dataset.getProject());
+    }
+    line(4, "</dataset>");
+    out.write('\n');
+
+    line(4, "<additionalMetadata>");
+    line(8, "<metadata>");
+    line(12, "<gbif>");
+    indent(16);
+    out.write("<dateStamp>");
+    out.write(DateTimeFormatter.ISO_INSTANT.format(Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+    out.write("</dateStamp>\n");
+    writeGbifMetadata(dataset, eml);
+    line(12, "</gbif>");
+    line(8, "</metadata>");
+    line(4, "</additionalMetadata>");
+    line(4, "</eml:eml>");
+  }
+
+  private void writeIdentification(Dataset dataset) throws IOException {
+    if (!useDoiAsIdentifier && dataset.getDoi() != null) {
+      element(8, "alternateIdentifier", dataset.getDoi());
+    }
+    if (dataset.getIdentifiers() != null) {
+      for (Identifier altid : dataset.getIdentifiers()) {
+        if (hasContent(altid.getIdentifier())) {
+          element(8, "alternateIdentifier", altid.getIdentifier());
+        }
+      }
+    }
+    if (hasContent(dataset.getShortName())) {
+      element(8, "shortName", dataset.getShortName());
+    }
+    element(8, "title", dataset.getTitle());
+  }
+
+  private void writeParties(EmlDatasetWrapper eml) throws IOException {
+    for (Contact ct : eml.getCreators()) {
+      line(8, "<creator>");
+      writeParty(12, 16, ct, false);
+      line(8, "</creator>");
+    }
+    for (Contact ct : eml.getMetadataProviders()) {
+      line(8, "<metadataProvider>");
+      writeParty(12, 16, ct, false);
+      line(8, "</metadataProvider>");
+    }
+    for (Contact ct : eml.getAssociatedParties()) {
+      line(8, "<associatedParty>");
+      writeParty(12, 16, ct, true);
+      line(8, "</associatedParty>");
+    }
+  }
+
+  private void writeDescription(Dataset dataset, EmlDatasetWrapper eml) throws IOException {
+    if (dataset.getPubDate() != null) {
+      line(8, "<pubDate>");
+      isoDate(dataset.getPubDate());
+      line(8, "</pubDate>");
+    }
+    element(8, "language", dataset.getDataLanguage() == null ? "en" : dataset.getDataLanguage());
+    if (hasContent(eml.getDescription())) {
+      line(8, "<abstract>");
+      indent(12);
+      docBook(dataset.getDescription());
+      out.write('\n');
+      line(8, "</abstract>");
+    }
+    if (dataset.getKeywordCollections() != null) {
+      for (KeywordCollection ks : dataset.getKeywordCollections()) {
+        if (hasContent(ks.getKeywords())) {
+          line(8, "<keywordSet>");
+          for (String k : ks.getKeywords()) {
+            element(12, "keyword", k);
+          }
+          if (hasContent(ks.getThesaurus())) {
+            element(12, "keywordThesaurus", ks.getThesaurus());
+          }
+          line(8, "</keywordSet>");
+        }
+      }
+    }
+    if (hasContent(dataset.getAdditionalInfo())) {
+      line(8, "<additionalInfo>");
+      element(12, "para", dataset.getAdditionalInfo());
+      line(8, "</additionalInfo>");
+    }
+  }
+
+  private void writeLicense(License license) throws IOException {
+    if (license == null) {
+      return;
+    }
+    String name = license.name();
+    line(8, "<intellectualRights>");
+    if (name.equals("CC0_1_0")) {
+      indent(12);
+      out.write(
+          "<para>To the extent possible under law, the publisher has waived all rights to these"
+              + " data and has dedicated them to the <ulink url=\"");
+      text(license.getLicenseUrl());
+      out.write("\"><citetitle>");
+      text(license.getLicenseTitle());
+      out.write(
+          "</citetitle></ulink>. Users may copy, modify, distribute and use the work, including"
+              + " for commercial purposes, without restriction.</para>\n");
+    } else if (name.equals("CC_BY_4_0") || name.equals("CC_BY_NC_4_0")) {
+      indent(12);
+      out.write("<para>This work is licensed under a <ulink url=\"");
+      text(license.getLicenseUrl());
+      out.write("\"><citetitle>");
+      text(license.getLicenseTitle());
+      out.write(" License</citetitle></ulink>.</para>\n");
+    }
+    line(8, "</intellectualRights>");
+    line(8, "<licensed>");
+    if (name.equals("CC0_1_0")) {
+      line(12, "<licenseName>Creative Commons Zero v1.0 Universal</licenseName>");
+      line(12, "<url>https://spdx.org/licenses/CC0-1.0.html</url>");
+      line(12, "<identifier>CC0-1.0</identifier>");
+    } else if (name.equals("CC_BY_4_0")) {
+      line(12, "<licenseName>Creative Commons Attribution 4.0 International</licenseName>");
+      line(12, "<url>https://spdx.org/licenses/CC-BY-4.0.html</url>");
+      line(12, "<identifier>CC-BY-4.0</identifier>");
+    } else if (name.equals("CC_BY_NC_4_0")) {
+      line(
+          12,
+          "<licenseName>Creative Commons Attribution Non Commercial 4.0 International"
+              + "</licenseName>");
+      line(12, "<url>https://spdx.org/licenses/CC-BY-NC-4.0.html</url>");
+      line(12, "<identifier>CC-BY-NC-4.0</identifier>");
+    }
+    line(8, "</licensed>");
+  }
+
+  private void writeDistribution(Dataset dataset) throws IOException {
+    if (dataset.getHomepage() != null) {
+      writeOnlineUrl(dataset.getHomepage(), "information");
+    }
+    if (dataset.getEndpoints() != null) {
+      for (Endpoint endpoint : dataset.getEndpoints()) {
+        if (endpoint.getType() != null
+            && "DWC_ARCHIVE".equals(endpoint.getType().toString())
+            && endpoint.getUrl() != null) {
+          writeOnlineUrl(endpoint.getUrl(), "download");
+        }
+      }
+    }
+  }
+
+  private void writeOnlineUrl(URI url, String function) throws IOException {
+    line(8, "<distribution scope=\"document\">");
+    line(12, "<online>");
+    indent(16);
+    out.write("<url function=\"");
+    out.write(function);
+    out.write("\">");
+    text(url);
+    out.write("</url>\n");
+    line(12, "</online>");
+    line(8, "</distribution>");
+  }
+
+  private void writeCoverage(Dataset dataset, EmlDatasetWrapper eml) throws IOException {
+    List<TemporalCoverage> temporalCoverages = eml.getSingleDateAndDateRangeCoverages();
+    if (!hasContent(dataset.getGeographicCoverages())
+        && !hasContent(dataset.getTaxonomicCoverages())
+        && !hasContent(temporalCoverages)) {
+      return;
+    }
+    line(8, "<coverage>");
+    if (dataset.getGeographicCoverages() != null) {
+      for (GeospatialCoverage geocoverage : dataset.getGeographicCoverages()) {
+        line(12, "<geographicCoverage>");
+        element(
+            16,
+            "geographicDescription",
+            hasContent(geocoverage.getDescription()) ? geocoverage.getDescription() : "N/A");
+        BoundingBox bbox = geocoverage.getBoundingBox();
+        if (bbox != null) {
+          line(16, "<boundingCoordinates>");
+          coordinate("westBoundingCoordinate", bbox.getMinLongitude());
+          coordinate("eastBoundingCoordinate", bbox.getMaxLongitude());
+          coordinate("northBoundingCoordinate", bbox.getMaxLatitude());
+          coordinate("southBoundingCoordinate", bbox.getMinLatitude());
+          line(16, "</boundingCoordinates>");
+        }
+        line(12, "</geographicCoverage>");
+      }
+    }
+    for (TemporalCoverage tempcoverage : temporalCoverages) {
+      line(12, "<temporalCoverage>");
+      if (tempcoverage instanceof DateRange && ((DateRange) tempcoverage).getStart() != null) {
+        line(16, "<rangeOfDates>");
+        line(20, "<beginDate>");
+        calendarDate(24, ((DateRange) tempcoverage).getStart());
+        line(20, "</beginDate>");
+        line(20, "<endDate>");
+        calendarDate(24, ((DateRange) tempcoverage).getEnd());
+        line(20, "</endDate>");
+        line(16, "</rangeOfDates>");
+      } else if (tempcoverage instanceof SingleDate
+          && ((SingleDate) tempcoverage).getDate() != null) {
+        line(16, "<singleDateTime>");
+        calendarDate(20, ((SingleDate) tempcoverage).getDate());
+        line(16, "</singleDateTime>");
+      }
+      line(12, "</temporalCoverage>");
+    }
+    if (dataset.getTaxonomicCoverages() != null) {
+      for (TaxonomicCoverages taxoncoverage : dataset.getTaxonomicCoverages()) {
+        if (hasContent(taxoncoverage.getCoverages())) {
+          writeTaxonomicCoverage(taxoncoverage);
+        }
+      }
+    }
+    line(8, "</coverage>");
+  }
+
+  private void writeTaxonomicCoverage(TaxonomicCoverages taxoncoverage) throws IOException {
+    line(12, "<taxonomicCoverage>");
+    if (hasContent(taxoncoverage.getDescription())) {
+      element(16, "generalTaxonomicCoverage", taxoncoverage.getDescription());
+    }
+    for (TaxonomicCoverage tk : taxoncoverage.getCoverages()) {
+      line(16, "<taxonomicClassification>");
+      if (tk.getRank() != null) {
+        element(20, "taxonRankName", interpretedEnum(tk.getRank()));
+      }
+      element(20, "taxonRankValue", tk.getScientificName());
+      if (hasContent(tk.getCommonName())) {
+        element(20, "commonName", tk.getCommonName());
+      }
+      line(16, "</taxonomicClassification>");
+    }
+    line(12, "</taxonomicCoverage>");
+  }
+
+  private void writeDocBook(String tag, String value) throws IOException {
+    if (hasContent(value)) {
+      indent(8);
+      out.write('<');
+      out.write(tag);
+      out.write('>');
+      docBook(value);
+      out.write("</");
+      out.write(tag);
+      out.write(">\n");
+    }
+  }
+
+  private void writeMaintenance(Dataset dataset) throws IOException {
+    String frequency = maintenanceUpdateFrequency(dataset.getMaintenanceUpdateFrequency());
+    if (frequency.isEmpty()) {
+      return;
+    }
+    line(8, "<maintenance>");
+    line(12, "<description>");
+    element(
+        16,
+        "para",
+        hasContent(dataset.getMaintenanceDescription())
+            ? dataset.getMaintenanceDescription()
+            : null);
+    line(12, "</description>");
+    element(12, "maintenanceUpdateFrequency", frequency);
+    line(8, "</maintenance>");
+  }
+
+  private void writeMethods(SamplingDescription sampling) throws IOException {
+    if (sampling == null || !hasContent(sampling.getMethodSteps())) {
+      return;
+    }
+    line(8, "<methods>");
+    for (String methodStep : sampling.getMethodSteps()) {
+      line(12, "<methodStep>");
+      line(16, "<description>");
+      element(20, "para", methodStep);
+      line(16, "</description>");
+      line(12, "</methodStep>");
+    }
+    if (hasContent(sampling.getStudyExtent()) && hasContent(sampling.getSampling())) {
+      line(12, "<sampling>");
+      line(16, "<studyExtent>");
+      line(20, "<description>");
+      element(24, "para", sampling.getStudyExtent());
+      line(20, "</description>");
+      line(16, "</studyExtent>");
+      line(16, "<samplingDescription>");
+      element(20, "para", sampling.getSampling());
+      line(16, "</samplingDescription>");
+      line(12, "</sampling>");
+    }
+    if (hasContent(sampling.getQualityControl())) {
+      line(12, "<qualityControl>");
+      line(16, "<description>");
+      element(20, "para", sampling.getQualityControl());
+      line(16, "</description>");
+      line(12, "</qualityControl>");
+    }
+    line(8, "</methods>");
+  }
+
+  private void writeProject(Project project) throws IOException {
+    indent(12);
+    out.write("<project ");
+    if (hasContent(project.getIdentifier())) {
+      out.write("id=\"");
+      text(project.getIdentifier());
+      out.write('"');
+    }
+    out.write(">\n");
+    element(16, "title", project.getTitle());
+    if (project.getContacts() != null) {
+      for (Contact ct : project.getContacts()) {
+        line(16, "<personnel>");
+        // the template does not indent the children of individualName here
+        writeParty(20, 20, ct, true);
+        line(16, "</personnel>");
+      }
+    }
+    line(16, "<abstract>");
+    element(20, "para", project.getAbstract());
+    line(16, "</abstract>");
+    line(16, "<funding>");
+    element(20, "para", project.getFunding());
+    line(16, "</funding>");
+    if (project.getAwards() != null) {
+      for (ProjectAward award : project.getAwards()) {
+        writeAward(award);
+      }
+    }
+    if (hasContent(project.getStudyAreaDescription())) {
+      line(16, "<studyAreaDescription>");
+      line(20, "<descriptor name=\"generic\" citableClassificationSystem=\"false\">");
+      element(24, "descriptorValue", project.getStudyAreaDescription());
+      line(20, "</descriptor>");
+      line(16, "</studyAreaDescription>");
+    }
+    if (hasContent(project.getDesignDescription())) {
+      line(16, "<designDescription>");
+      line(20, "<description>");
+      element(24, "para", project.getDesignDescription());
+      line(20, "</description>");
+      line(16, "</designDescription>");
+    }
+    if (project.getRelatedProjects() != null) {
+      for (RelatedProject relatedProject : project.getRelatedProjects()) {
+        writeRelatedProject(relatedProject);
+      }
+    }
+    line(12, "</project>");
+  }
+
+  private void writeAward(ProjectAward award) throws IOException {
+    line(16, "<award>");
+    element(20, "funderName", award.getFunderName());
+    if (award.getFunderIdentifiers() != null) {
+      for (String fi : award.getFunderIdentifiers()) {
+        indent(20);
+        if (hasContent(fi)) {
+          out.write("<funderIdentifier>");
+          text(fi);
+          out.write("</funderIdentifier>");
+        }
+        out.write('\n');
+      }
+    }
+    if (hasContent(award.getAwardNumber())) {
+      element(20, "awardNumber", award.getAwardNumber());
+    }
+    element(20, "title", award.getTitle());
+    if (hasContent(award.getAwardUrl())) {
+      element(20, "awardUrl", award.getAwardUrl());
+    }
+    line(16, "</award>");
+  }
+
+  private void writeRelatedProject(RelatedProject relatedProject) throws IOException {
+    indent(16);
+    out.write("<relatedProject ");
+    if (hasContent(relatedProject.getIdentifier())) {
+      out.write("id=\"");
+      text(relatedProject.getIdentifier());
+      out.write('"');
+    }
+    out.write(">\n");
+    element(20, "title", relatedProject.getTitle());
+    if (relatedProject.getContacts() != null) {
+      for (Contact ct : relatedProject.getContacts()) {
+        line(20, "<personnel>");
+        writeParty(24, 28, ct, true);
+        line(20, "</personnel>");
+      }
+    }
+    if (hasContent(relatedProject.getAbstract())) {
+      element(20, "abstract", relatedProject.getAbstract());
+    }
+    line(16, "</relatedProject>");
+  }
+
+  private void writeGbifMetadata(Dataset dataset, EmlDatasetWrapper eml) throws IOException {
+    if (dataset.getCitation() != null && hasContent(dataset.getCitation().getText())) {
+      citation(dataset.getCitation());
+    }
+    if (hasContent(dataset.getBibliographicCitations())) {
+      line(16, "<bibliography>");
+      for (Citation bcit : dataset.getBibliographicCitations()) {
+        if (bcit != null) {
+          citation(bcit);
+        }
+      }
+      line(16, "</bibliography>");
+    }
+    if (dataset.getDataDescriptions() != null) {
+      for (DataDescription pdata : dataset.getDataDescriptions()) {
+        if (hasContent(pdata.getName())
+            && hasContent(pdata.getFormat())
+            && pdata.getUrl() != null) {
+          writePhysical(pdata);
+        }
+      }
+    }
+    if (dataset.getLogoUrl() != null) {
+      element(16, "resourceLogoUrl", dataset.getLogoUrl());
+    }
+    List<Collection> collections = dataset.getCollections();
+    if (collections != null) {
+      for (Collection col : collections) {
+        line(16, "<collection>");
+        indent(20);
+        if (hasContent(col.getParentIdentifier())) {
+          out.write("<parentCollectionIdentifier>");
+          text(col.getParentIdentifier());
+          out.write("</parentCollectionIdentifier>");
+        }
+        out.write('\n');
+        indent(20);
+        if (hasContent(col.getIdentifier())) {
+          out.write("<collectionIdentifier>");
+          text(col.getIdentifier());
+          out.write("</collectionIdentifier>");
+        }
+        out.write('\n');
+        element(20, "collectionName", col.getName());
+        line(16, "</collection>");
+      }
+    }
+    for (VerbatimTimePeriod p : eml.getFormationPeriods()) {
+      element(16, "formationPeriod", p.getPeriod());
+    }
+    if (collections != null) {
+      for (Collection col : collections) {
+        if (col.getSpecimenPreservationMethod() != null) {
+          element(16, "specimenPreservationMethod", col.getSpecimenPreservationMethod());
+        }
+      }
+    }
+    for (VerbatimTimePeriod p : eml.getLivingTimePeriods()) {
+      element(16, "livingTimePeriod", p.getPeriod());
+    }
+    if (collections != null) {
+      for (Collection col : collections) {
+        if (col.getCuratorialUnits() != null) {
+          for (CuratorialUnitComposite unit : col.getCuratorialUnits()) {
+            writeCuratorialUnit(unit);
+          }
+        }
+      }
+    }
+  }
+
+  private void writePhysical(DataDescription pdata) throws IOException {
+    line(16, "<physical>");
+    element(20, "objectName", pdata.getName());
+    if (hasContent(pdata.getCharset())) {
+      element(20, "characterEncoding", pdata.getCharset());
+    }
+    line(20, "<dataFormat>");
+    line(24, "<externallyDefinedFormat>");
+    element(28, "formatName", pdata.getFormat());
+    if (hasContent(pdata.getFormatVersion())) {
+      element(28, "formatVersion", pdata.getFormatVersion());
+    }
+    line(24, "</externallyDefinedFormat>");
+    line(20, "</dataFormat>");
+    line(20, "<distribution>");
+    line(24, "<online>");
+    indent(28);
+    out.write("<url function=\"download\">");
+    text(pdata.getUrl());
+    out.write("</url>\n");
+    line(24, "</online>");
+    line(20, "</distribution>");
+    line(16, "</physical>");
+  }
+
+  private void writeCuratorialUnit(CuratorialUnitComposite unit) throws IOException {
+    Object type = unit.getType() != null ? unit.getType() : unit.getTypeVerbatim();
+    if (unit.getCount() > 0) {
+      line(16, "<jgtiCuratorialUnit>");
+      element(20, "jgtiUnitType", type);
+      indent(20);
+      out.write("<jgtiUnits");
+      if (unit.getDeviation() > 0) {
+        out.write(" uncertaintyMeasure=\"");
+        text(integer(unit.getDeviation()));
+        out.write('"');
+      }
+      out.write('>');
+      text(integer(unit.getCount()));
+      out.write("</jgtiUnits>\n");
+      line(16, "</jgtiCuratorialUnit>");
+    }
+    if (unit.getLower() > 0 || unit.getUpper() > 0) {
+      line(16, "<jgtiCuratorialUnit>");
+      element(20, "jgtiUnitType", type);
+      line(20, "<jgtiUnitRange>");
+      element(24, "beginRange", integer(unit.getLower()));
+      element(24, "endRange", integer(unit.getUpper()));
+      line(20, "</jgtiUnitRange>");
+      line(16, "</jgtiCuratorialUnit>");
+    }
+  }
+
+  /**
+   * A creator, metadata provider, associated party, contact or project personnel.
+   *
+   * @param indent indentation of the elements of the party
+   * @param nameIndent indentation of the elements of its individual name
+   * @param withRole whether to write the role of the party
+   */
+  private void writeParty(int indent, int nameIndent, Contact ct, boolean withRole)
+      throws IOException {
+    String completeName = ct.computeCompleteName();
+    if (hasContent(completeName)) {
+      line(indent, "<individualName>");
+      if (hasContent(ct.getSalutation())) {
+        element(nameIndent, "salutation", ct.getSalutation());
+      }
+      if (hasContent(ct.getLastName())) {
+        if (hasContent(ct.getFirstName())) {
+          element(nameIndent, "givenName", ct.getFirstName());
+        }
+        element(nameIndent, "surName", ct.getLastName());
+      } else {
+        // surName is mandatory in EML
+        element(nameIndent, "surName", completeName);
+      }
+      line(indent, "</individualName>");
+    }
+    if (hasContent(ct.getOrganization())) {
+      element(indent, "organizationName", ct.getOrganization());
+    }
+    elements(indent, "positionName", ct.getPosition());
+    if (hasContent(ct.getAddress())
+        || hasContent(ct.getCity())
+        || hasContent(ct.getProvince())
+        || hasContent(ct.getPostalCode())
+        || ct.getCountry() != null) {
+      int nested = indent + 4;
+      line(indent, "<address>");
+      elements(nested, "deliveryPoint", ct.getAddress());
+      if (hasContent(ct.getCity())) {
+        element(nested, "city", ct.getCity());
+      }
+      if (hasContent(ct.getProvince())) {
+        element(nested, "administrativeArea", ct.getProvince());
+      }
+      if (hasContent(ct.getPostalCode())) {
+        element(nested, "postalCode", ct.getPostalCode());
+      }
+      if (ct.getCountry() != null) {
+        element(nested, "country", ct.getCountry());
+      }
+      line(indent, "</address>");
+    }
+    elements(indent, "phone", ct.getPhone());
+    elements(indent, "electronicMailAddress", ct.getEmail());
+    if (ct.getHomepage() != null) {
+      for (URI h : ct.getHomepage()) {
+        if (h != null) {
+          element(indent, "onlineUrl", h);
+        }
+      }
+    }
+    if (ct.getUserId() != null) {
+      for (String uid : ct.getUserId()) {
+        if (uid != null) {
+          userId(uid);
+        }
+      }
+    }
+    if (withRole && ct.getType() != null) {
+      element(indent, "role", ct.getType());
+    }
+  }
+
+  /** The constructUserID macro, which writes nothing for IDs of an unknown directory. */
+  private void userId(String userId) throws IOException {
+    String lowerCase = userId.toLowerCase(locale);
+    for (String directory : USER_ID_DIRECTORIES) {
+      if (lowerCase.contains(directory)) {
+        // like ?keep_after and ?keep_before, which are case sensitive
+        int start = userId.indexOf(directory);
+        String id = start < 0 ? "" : userId.substring(start + directory.length());
+        int end = userId.indexOf(id);
+        String prefix = end < 0 ? userId : userId.substring(0, end);
+        if (!prefix.isEmpty()) {
+          indent(12);
+          out.write("<userId directory=\"");
+          text(prefix);
+          out.write("\">");
+          text(id);
+          out.write("</userId>\n");
+        }
+        return;
+      }
+    }
+  }
+
+  /** The citation macro. */
+  private void citation(Citation cit) throws IOException {
+    indent(16);
+    if (hasContent(cit.getIdentifier())) {
+      out.write("<citation identifier=\"");
+      text(cit.getIdentifier());
+      out.write("\">");
+      text(cit.getText() != null ? cit.getText() : cit.getIdentifier());
+    } else {
+      out.write("<citation>");
+      text(cit.getText());
+    }
+    out.write("</citation>\n");
+  }
+
+  /**
+   * A calendarDate element holding the output of the isodate macro, which keeps its own
+   * indentation and line break.
+   */
+  private void calendarDate(int indent, Date date) throws IOException {
+    indent(indent);
+    out.write("<calendarDate>");
+    isoDate(date);
+    out.write("</calendarDate>\n");
+  }
+
+  /** The isodate macro: the year only for dates flagged with 1 millisecond, the day otherwise. */
+  private void isoDate(Date date) throws IOException {
+    if (date == null) {
+      return;
+    }
+    indent(16);
+    if (Math.floorMod(date.getTime(), 1000L) == 1) {
+      if (yearFormat == null) {
+        yearFormat = dateFormat("yyyy");
+      }
+      text(yearFormat.format(date));
+    } else {
+      if (dayFormat == null) {
+        dayFormat = dateFormat("yyyy-MM-dd");
+      }
+      text(dayFormat.format(date));
+    }
+    out.write('\n');
+  }
+
+  private SimpleDateFormat dateFormat(String pattern) {
+    SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+    format.setTimeZone(timeZone);
+    return format;
+  }
+
+  /** The interpretedEnum macro, e.g. "Infraspecific name" for an interpreted rank. */
+  private String interpretedEnum(InterpretedEnum<String, Rank> value) {
+    if (value.getInterpreted() == null) {
+      return value.getVerbatim();
+    }
+    // ?lower_case?replace("_", " ")?capitalize
+    char[] chars =
+        value.getInterpreted().name().toLowerCase(locale).replace('_', ' ').toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      if (i == 0 || chars[i - 1] == ' ') {
+        chars[i] = Character.toUpperCase(chars[i]);
+      }
+    }
+    return new String(chars);
+  }
+
+  /** The maintenanceUpdateFrequencyToEmlValue function. */
+  private String maintenanceUpdateFrequency(Object frequency) {
+    if (frequency == null) {
+      return "";
+    }
+    String value = frequency.toString();
+    switch (value) {
+      case "AS_NEEDED":
+        return "asNeeded";
+      case "NOT_PLANNED":
+        return "notPlanned";
+      case "OTHER_MAINTENANCE_PERIOD":
+        return "otherMaintenancePeriod";
+      default:
+        return value.toLowerCase(locale).trim();
+    }
+  }
+
+  /** A coordinate formatted with {@code ?string('0.######')?replace(',', '.')}. */
+  private void coordinate(String tag, double value) throws IOException {
+    if (coordinateFormat == null) {
+      coordinateFormat = new DecimalFormat("0.######", DecimalFormatSymbols.getInstance(locale));
+    }
+    element(20, tag, coordinateFormat.format(value).replace(',', '.'));
+  }
+
+  /** An integer formatted like a plain interpolation, i.e. with grouping. */
+  private String integer(int value) {
+    if (integerFormat == null) {
+      integerFormat = NumberFormat.getNumberInstance(locale);
+    }
+    return integerFormat.format(value);
+  }
+
+  private static boolean hasContent(String value) {
+    return value != null && !value.isEmpty();
+  }
+
+  private static boolean hasContent(java.util.Collection<?> values) {
+    return values != null && !values.isEmpty();
+  }
+
+  private void elements(int indent, String tag, List<String> values) throws IOException {
+    if (values != null) {
+      for (String value : values) {
+        if (hasContent(value)) {
+          element(indent, tag, value);
+        }
+      }
+    }
+  }
+
+  /** An element holding an escaped value, or nothing if the value is null. */
+  private void element(int indent, String tag, Object value) throws IOException {
+    indent(indent);
+    out.write('<');
+    out.write(tag);
+    out.write('>');
+    text(value);
+    out.write("</");
+    out.write(tag);
+    out.write(">\n");
+  }
+
+  private void line(int indent, String markup) throws IOException {
+    indent(indent);
+    out.write(markup);
+    out.write('\n');
+  }
+
+  private void indent(int indent) throws IOException {
+    out.write(SPACES, 0, indent);
+  }
+
+  /** Writes HTML converted to DocBook as {@code getDocBookField} does, nothing if null. */
+  private void docBook(String html) throws IOException {
+    if (html != null) {
+      DocBookConverter.htmlToDocBook(html.trim(), out);
+    }
+  }
+
+  /** Writes a value escaped like Freemarker's {@code ?xml}, nothing if null. */
+  private void text(Object value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    String s = value.toString();
+    int start = 0;
+    for (int i = 0; i < s.length(); i++) {
+      String entity;
+      switch (s.charAt(i)) {
+        case '<':
+          entity = "&lt;";
+          break;
+        case '>':
+          entity = "&gt;";
+          break;
+        case '&':
+          entity = "&amp;";
+          break;
+        case '"':
+          entity = "&quot;";
+          break;
+        case '\'':
+          entity = "&apos;";
+          break;
+        default:
+          continue;
+      }
+      out.write(s, start, i - start);
+      out.write(entity);
+      start = i + 1;
+    }
+    out.write(s, start, s.length() - start);
+  }
+}
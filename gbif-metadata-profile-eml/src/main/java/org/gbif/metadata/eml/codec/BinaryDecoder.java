@@ -0,0 +1,256 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.gbif.metadata.eml.codec.BinaryEncoder.BYTES;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.FIXED64;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.NEW_STRING;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.NULL_STRING;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.RECORD;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.STRING;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.STRING_REF_OFFSET;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.VARINT;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.WIRE_TYPE_BITS;
+import static org.gbif.metadata.eml.codec.BinaryEncoder.WIRE_TYPE_MASK;
+
+/**
+ * Reads records written by a {@link BinaryEncoder} from a {@link ByteBuffer}, advancing its position.
+ * <p>
+ * Records are read with a loop over {@link #readField()} until it returns 0. Each returned field must be consumed by
+ * exactly one read method matching its wire type, or by {@link #skip()} if the field is unknown:
+ * <pre>
+ * int field;
+ * while ((field = in.readField()) != 0) {
+ *   switch (field) {
+ *     case 1:
+ *       title = in.readString();
+ *       break;
+ *     default:
+ *       in.skip();
+ *   }
+ * }
+ * </pre>
+ * Malformed input results in an {@link IllegalArgumentException} or a {@link java.nio.BufferUnderflowException}.
+ */
+public class BinaryDecoder {
+
+  private final ByteBuffer buffer;
+  private final List<String> strings = new ArrayList<>();
+  private int wireType = -1;
+
+  public BinaryDecoder(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Reads a message header and verifies magic and type. The fields of the root record follow.
+   *
+   * @return the format version of the message
+   */
+  public int readHeader(int magic, int type) {
+    int actualMagic = buffer.get() & 0xFF;
+    int actualType = buffer.get() & 0xFF;
+    if (actualMagic != magic || actualType != type) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Unexpected message header %02x%02x, expected %02x%02x",
+              actualMagic, actualType, magic, type));
+    }
+    return (int) readRawVarint();
+  }
+
+  /**
+   * @return the number of the next field of the current record, or 0 at the end of the record
+   */
+  public int readField() {
+    long key = readRawVarint();
+    if (key == 0) {
+      wireType = -1;
+      return 0;
+    }
+    wireType = (int) (key & WIRE_TYPE_MASK);
+    return (int) (key >>> WIRE_TYPE_BITS);
+  }
+
+  public long readVarint() {
+    expect(VARINT);
+    return readRawVarint();
+  }
+
+  public long readSignedVarint() {
+    long value = readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  public int readInt() {
+    return (int) readSignedVarint();
+  }
+
+  public boolean readBoolean() {
+    return readVarint() != 0;
+  }
+
+  public double readDouble() {
+    expect(FIXED64);
+    return Double.longBitsToDouble(buffer.getLong());
+  }
+
+  public Date readDate() {
+    return new Date(readSignedVarint());
+  }
+
+  /**
+   * @return the constant with the read ordinal, or null for an ordinal unknown to this version
+   */
+  public <E extends Enum<E>> E readEnum(E[] values) {
+    long ordinal = readVarint();
+    return ordinal < values.length ? values[(int) ordinal] : null;
+  }
+
+  /**
+   * @return the constant with the read name, or null for a name unknown to this version
+   */
+  public <E extends Enum<E>> E readEnumName(Class<E> type) {
+    String name = readString();
+    try {
+      return name == null ? null : Enum.valueOf(type, name);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  public String readString() {
+    expect(STRING);
+    return readRawString();
+  }
+
+  public byte[] readBytes() {
+    expect(BYTES);
+    byte[] bytes = new byte[length()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  public UUID readUuid() {
+    expect(BYTES);
+    if (length() != 16) {
+      throw new IllegalArgumentException("A UUID must have 16 bytes");
+    }
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  /**
+   * Marks the start of a nested record, whose fields are then read until {@link #readField()} returns 0.
+   */
+  public void readRecord() {
+    expect(RECORD);
+    wireType = -1;
+  }
+
+  /**
+   * Skips the value of the current field, including all fields of a nested record.
+   */
+  public void skip() {
+    switch (wireType) {
+      case VARINT:
+        readRawVarint();
+        break;
+      case FIXED64:
+        buffer.position(buffer.position() + 8);
+        break;
+      case STRING:
+        // new strings must still enter the table as later fields may refer to them
+        readRawString();
+        break;
+      case BYTES:
+        int length = length();
+        buffer.position(buffer.position() + length);
+        break;
+      case RECORD:
+        while (readField() != 0) {
+          skip();
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown wire type " + wireType);
+    }
+    wireType = -1;
+  }
+
+  private void expect(int expected) {
+    if (wireType != expected) {
+      throw new IllegalArgumentException(
+          "Field has wire type " + wireType + " but " + expected + " was expected");
+    }
+    wireType = -1;
+  }
+
+  private int length() {
+    long length = readRawVarint();
+    if (length > buffer.remaining()) {
+      throw new IllegalArgumentException("Length " + length + " exceeds the remaining input");
+    }
+    return (int) length;
+  }
+
+  private String readRawString() {
+    long ref = readRawVarint();
+    if (ref == NULL_STRING) {
+      return null;
+    }
+    if (ref == NEW_STRING) {
+      int length = length();
+      String value;
+      if (buffer.hasArray()) {
+        value =
+            new String(
+                buffer.array(),
+                buffer.arrayOffset() + buffer.position(),
+                length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+      } else {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        value = new String(bytes, StandardCharsets.UTF_8);
+      }
+      strings.add(value);
+      return value;
+    }
+    long index = ref - STRING_REF_OFFSET;
+    if (index >= strings.size()) {
+      throw new IllegalArgumentException("Unknown string reference " + ref);
+    }
+    return strings.get((int) index);
+  }
+
+  private long readRawVarint() {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+}
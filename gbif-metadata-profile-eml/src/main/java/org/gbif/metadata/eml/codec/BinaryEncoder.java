@@ -0,0 +1,243 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes records of tagged fields into a growing {@link ByteBuffer}.
+ * <p>
+ * Every field starts with a varint key combining the field number and the wire type, so a reader can skip fields
+ * it does not know and new fields can be added without breaking older readers. A record is a sequence of fields
+ * terminated by a zero key and a message is a header followed by the root record. Null values are not written at
+ * all, except as list elements.
+ * <p>
+ * Numbers are written as (zigzag) varints. Strings are kept in a table: the first occurrence is written in UTF-8,
+ * later occurrences only refer to their index in the table.
+ * <p>
+ * Instances are not thread safe and are meant to encode a single message.
+ */
+public class BinaryEncoder {
+
+  static final int VARINT = 0;
+  static final int FIXED64 = 1;
+  static final int STRING = 2;
+  static final int RECORD = 3;
+  static final int BYTES = 4;
+  static final int WIRE_TYPE_BITS = 3;
+  static final int WIRE_TYPE_MASK = (1 << WIRE_TYPE_BITS) - 1;
+
+  // string references: 0 is null, 1 a new string follows, anything else an index into the table plus 2
+  static final int NULL_STRING = 0;
+  static final int NEW_STRING = 1;
+  static final int STRING_REF_OFFSET = 2;
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private final Map<String, Integer> strings = new HashMap<>();
+  private ByteBuffer buffer;
+  private int depth;
+
+  public BinaryEncoder() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public BinaryEncoder(int initialCapacity) {
+    buffer = ByteBuffer.allocate(Math.max(16, initialCapacity));
+  }
+
+  /**
+   * Writes a message header of a magic byte, a type byte and the format version. The header opens the root record,
+   * which like any other record is closed with {@link #endRecord()}.
+   */
+  public void writeHeader(int magic, int type, int version) {
+    ensureCapacity(2);
+    buffer.put((byte) magic);
+    buffer.put((byte) type);
+    writeRawVarint(version);
+    depth++;
+  }
+
+  public void writeVarint(int field, long value) {
+    writeKey(field, VARINT);
+    writeRawVarint(value);
+  }
+
+  public void writeSignedVarint(int field, long value) {
+    writeKey(field, VARINT);
+    writeRawVarint((value << 1) ^ (value >> 63));
+  }
+
+  public void writeInt(int field, Integer value) {
+    if (value != null) {
+      writeSignedVarint(field, value);
+    }
+  }
+
+  public void writeBoolean(int field, boolean value) {
+    writeVarint(field, value ? 1 : 0);
+  }
+
+  public void writeDouble(int field, Double value) {
+    if (value != null) {
+      writeKey(field, FIXED64);
+      ensureCapacity(8);
+      buffer.putLong(Double.doubleToLongBits(value));
+    }
+  }
+
+  /**
+   * Writes a date as signed milliseconds since the epoch.
+   */
+  public void writeDate(int field, Date value) {
+    if (value != null) {
+      writeSignedVarint(field, value.getTime());
+    }
+  }
+
+  /**
+   * Writes the ordinal of an enumeration. Only use this for enumerations that only ever get constants appended,
+   * {@link #writeEnumName(int, Enum)} is the safe choice for enumerations of other libraries.
+   */
+  public void writeEnum(int field, Enum<?> value) {
+    if (value != null) {
+      writeVarint(field, value.ordinal());
+    }
+  }
+
+  /**
+   * Writes the name of an enumeration, which survives reordering of its constants.
+   */
+  public void writeEnumName(int field, Enum<?> value) {
+    if (value != null) {
+      writeString(field, value.name());
+    }
+  }
+
+  public void writeString(int field, String value) {
+    if (value != null) {
+      writeKey(field, STRING);
+      writeRawString(value);
+    }
+  }
+
+  /**
+   * Writes every element of the collection as a field of its own, null elements included.
+   */
+  public void writeStrings(int field, Collection<String> values) {
+    if (values != null) {
+      for (String value : values) {
+        writeKey(field, STRING);
+        writeRawString(value);
+      }
+    }
+  }
+
+  public void writeBytes(int field, byte[] value) {
+    if (value != null) {
+      writeKey(field, BYTES);
+      writeRawVarint(value.length);
+      ensureCapacity(value.length);
+      buffer.put(value);
+    }
+  }
+
+  public void writeUuid(int field, UUID value) {
+    if (value != null) {
+      writeKey(field, BYTES);
+      writeRawVarint(16);
+      ensureCapacity(16);
+      buffer.putLong(value.getMostSignificantBits());
+      buffer.putLong(value.getLeastSignificantBits());
+    }
+  }
+
+  /**
+   * Starts a nested record, which must be closed with {@link #endRecord()}.
+   */
+  public void startRecord(int field) {
+    writeKey(field, RECORD);
+    depth++;
+  }
+
+  public void endRecord() {
+    if (depth == 0) {
+      throw new IllegalStateException("No record to end");
+    }
+    depth--;
+    writeRawVarint(0);
+  }
+
+  /**
+   * @return the encoded message, positioned at its start and limited to its end
+   */
+  public ByteBuffer toByteBuffer() {
+    if (depth != 0) {
+      throw new IllegalStateException(depth + " records have not been ended");
+    }
+    ByteBuffer result = buffer.duplicate();
+    result.flip();
+    return result;
+  }
+
+  private void writeKey(int field, int wireType) {
+    if (field <= 0) {
+      throw new IllegalArgumentException("Field numbers must be positive: " + field);
+    }
+    writeRawVarint(((long) field << WIRE_TYPE_BITS) | wireType);
+  }
+
+  private void writeRawString(String value) {
+    if (value == null) {
+      writeRawVarint(NULL_STRING);
+      return;
+    }
+    Integer index = strings.get(value);
+    if (index != null) {
+      writeRawVarint(index + STRING_REF_OFFSET);
+      return;
+    }
+    strings.put(value, strings.size());
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeRawVarint(NEW_STRING);
+    writeRawVarint(bytes.length);
+    ensureCapacity(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private void writeRawVarint(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (buffer.remaining() < bytes) {
+      int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+      ByteBuffer grown = ByteBuffer.allocate(capacity);
+      buffer.flip();
+      grown.put(buffer);
+      buffer = grown;
+    }
+  }
+}
@@ -0,0 +1,1022 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import org.gbif.api.model.common.DOI;
+import org.gbif.api.model.common.InterpretedEnum;
+import org.gbif.api.model.registry.Citation;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.eml.Collection;
+import org.gbif.api.model.registry.eml.DataDescription;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.model.registry.eml.Project;
+import org.gbif.api.model.registry.eml.ProjectAward;
+import org.gbif.api.model.registry.eml.RelatedProject;
+import org.gbif.api.model.registry.eml.SamplingDescription;
+import org.gbif.api.model.registry.eml.TaxonomicCoverage;
+import org.gbif.api.model.registry.eml.TaxonomicCoverages;
+import org.gbif.api.model.registry.eml.curatorial.CuratorialUnitComposite;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.TemporalCoverage;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriod;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriodType;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.DatasetSubtype;
+import org.gbif.api.vocabulary.DatasetType;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.api.vocabulary.Language;
+import org.gbif.api.vocabulary.License;
+import org.gbif.api.vocabulary.MaintenanceUpdateFrequency;
+import org.gbif.api.vocabulary.PreservationMethodType;
+import org.gbif.api.vocabulary.Rank;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Compact binary form of the {@link Dataset} metadata produced by
+ * {@link org.gbif.metadata.eml.parse.DatasetEmlParser}, meant for caching parsed metadata. Registry bookkeeping such
+ * as endpoints, machine tags or creation dates is not part of EML and therefore not encoded.
+ * <p>
+ * Like {@link EmlCodec} it tolerates model changes in both directions. Vocabularies of the GBIF API are written by
+ * name as their ordinals are not guaranteed to be stable between API versions, the string table keeps them small.
+ */
+public final class DatasetCodec {
+
+  private static final int TYPE = 'D';
+  public static final int VERSION = 1;
+
+  private DatasetCodec() {}
+
+  /**
+   * @return the encoded dataset, positioned at its start
+   */
+  public static ByteBuffer encode(Dataset dataset) {
+    BinaryEncoder out = new BinaryEncoder();
+    out.writeHeader(EmlCodec.MAGIC, TYPE, VERSION);
+    writeDataset(out, dataset);
+    out.endRecord();
+    return out.toByteBuffer();
+  }
+
+  /**
+   * Decodes a dataset from the current position of the buffer, leaving the position after the message.
+   *
+   * @throws IllegalArgumentException if the buffer holds no encoded dataset or one of a newer, incompatible version
+   */
+  public static Dataset decode(ByteBuffer buffer) {
+    BinaryDecoder in = new BinaryDecoder(buffer);
+    int version = in.readHeader(EmlCodec.MAGIC, TYPE);
+    if (version > VERSION) {
+      throw new IllegalArgumentException("Unsupported dataset codec version " + version);
+    }
+    return readDataset(in);
+  }
+
+  private static void writeDataset(BinaryEncoder out, Dataset dataset) {
+    out.writeUuid(1, dataset.getKey());
+    if (dataset.getDoi() != null) {
+      out.writeString(2, dataset.getDoi().getDoiName());
+    }
+    out.writeString(3, dataset.getVersion());
+    out.writeEnumName(4, dataset.getType());
+    out.writeEnumName(5, dataset.getSubtype());
+    out.writeString(6, dataset.getTitle());
+    out.writeString(7, dataset.getShortName());
+    out.writeString(8, dataset.getDescription());
+    out.writeEnumName(9, dataset.getLanguage());
+    out.writeEnumName(10, dataset.getDataLanguage());
+    writeUri(out, 11, dataset.getHomepage());
+    writeUri(out, 12, dataset.getLogoUrl());
+    if (dataset.getCitation() != null) {
+      out.startRecord(13);
+      writeCitation(out, dataset.getCitation());
+      out.endRecord();
+    }
+    out.writeString(14, dataset.getRights());
+    out.writeEnumName(15, dataset.getLicense());
+    writeContacts(out, 16, dataset.getContacts());
+    if (dataset.getIdentifiers() != null) {
+      for (Identifier identifier : dataset.getIdentifiers()) {
+        if (identifier != null) {
+          out.startRecord(17);
+          out.writeString(1, identifier.getIdentifier());
+          out.writeEnumName(2, identifier.getType());
+          out.endRecord();
+        }
+      }
+    }
+    if (dataset.getBibliographicCitations() != null) {
+      for (Citation citation : dataset.getBibliographicCitations()) {
+        if (citation != null) {
+          out.startRecord(18);
+          writeCitation(out, citation);
+          out.endRecord();
+        }
+      }
+    }
+    writeCuratorialUnits(out, 19, dataset.getCuratorialUnits());
+    if (dataset.getTaxonomicCoverages() != null) {
+      for (TaxonomicCoverages coverages : dataset.getTaxonomicCoverages()) {
+        if (coverages != null) {
+          out.startRecord(20);
+          writeTaxonomicCoverages(out, coverages);
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(21, dataset.getGeographicCoverageDescription());
+    if (dataset.getGeographicCoverages() != null) {
+      for (GeospatialCoverage coverage : dataset.getGeographicCoverages()) {
+        if (coverage != null) {
+          out.startRecord(22);
+          writeGeospatialCoverage(out, coverage);
+          out.endRecord();
+        }
+      }
+    }
+    if (dataset.getTemporalCoverages() != null) {
+      for (TemporalCoverage coverage : dataset.getTemporalCoverages()) {
+        writeTemporalCoverage(out, 23, coverage);
+      }
+    }
+    if (dataset.getKeywordCollections() != null) {
+      for (KeywordCollection collection : dataset.getKeywordCollections()) {
+        if (collection != null) {
+          out.startRecord(24);
+          out.writeString(1, collection.getThesaurus());
+          out.writeStrings(2, collection.getKeywords());
+          out.endRecord();
+        }
+      }
+    }
+    if (dataset.getProject() != null) {
+      out.startRecord(25);
+      writeProject(out, dataset.getProject());
+      out.endRecord();
+    }
+    SamplingDescription sampling = dataset.getSamplingDescription();
+    if (sampling != null) {
+      out.startRecord(26);
+      out.writeString(1, sampling.getStudyExtent());
+      out.writeString(2, sampling.getSampling());
+      out.writeString(3, sampling.getQualityControl());
+      out.writeStrings(4, sampling.getMethodSteps());
+      out.endRecord();
+    }
+    if (dataset.getCountryCoverage() != null) {
+      for (Country country : dataset.getCountryCoverage()) {
+        out.writeEnumName(27, country);
+      }
+    }
+    if (dataset.getCollections() != null) {
+      for (Collection collection : dataset.getCollections()) {
+        if (collection != null) {
+          out.startRecord(28);
+          writeCollection(out, collection);
+          out.endRecord();
+        }
+      }
+    }
+    if (dataset.getDataDescriptions() != null) {
+      for (DataDescription description : dataset.getDataDescriptions()) {
+        if (description != null) {
+          out.startRecord(29);
+          out.writeString(1, description.getName());
+          out.writeString(2, description.getFormat());
+          out.writeString(3, description.getFormatVersion());
+          writeUri(out, 4, description.getUrl());
+          out.writeString(5, description.getCharset());
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(30, dataset.getPurpose());
+    out.writeString(31, dataset.getAdditionalInfo());
+    out.writeDate(32, dataset.getPubDate());
+    out.writeEnumName(33, dataset.getMaintenanceUpdateFrequency());
+    out.writeString(34, dataset.getMaintenanceDescription());
+    out.writeUuid(35, dataset.getPublishingOrganizationKey());
+    out.writeString(36, dataset.getPublishingOrganizationName());
+    out.writeUuid(37, dataset.getInstallationKey());
+    out.writeString(38, dataset.getIntroduction());
+    out.writeString(39, dataset.getGettingStarted());
+    out.writeString(40, dataset.getAcknowledgements());
+  }
+
+  private static Dataset readDataset(BinaryDecoder in) {
+    Dataset dataset = new Dataset();
+    // the constructor defaults are only kept for fields missing from the message
+    dataset.setCitation(null);
+    dataset.setSamplingDescription(null);
+    dataset.setProject(null);
+
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          dataset.setKey(in.readUuid());
+          break;
+        case 2:
+          dataset.setDoi(new DOI(in.readString()));
+          break;
+        case 3:
+          dataset.setVersion(in.readString());
+          break;
+        case 4:
+          dataset.setType(in.readEnumName(DatasetType.class));
+          break;
+        case 5:
+          dataset.setSubtype(in.readEnumName(DatasetSubtype.class));
+          break;
+        case 6:
+          dataset.setTitle(in.readString());
+          break;
+        case 7:
+          dataset.setShortName(in.readString());
+          break;
+        case 8:
+          dataset.setDescription(in.readString());
+          break;
+        case 9:
+          dataset.setLanguage(in.readEnumName(Language.class));
+          break;
+        case 10:
+          dataset.setDataLanguage(in.readEnumName(Language.class));
+          break;
+        case 11:
+          dataset.setHomepage(readUri(in));
+          break;
+        case 12:
+          dataset.setLogoUrl(readUri(in));
+          break;
+        case 13:
+          in.readRecord();
+          dataset.setCitation(readCitation(in));
+          break;
+        case 14:
+          dataset.setRights(in.readString());
+          break;
+        case 15:
+          dataset.setLicense(in.readEnumName(License.class));
+          break;
+        case 16:
+          in.readRecord();
+          dataset.getContacts().add(readContact(in));
+          break;
+        case 17:
+          in.readRecord();
+          dataset.getIdentifiers().add(readIdentifier(in));
+          break;
+        case 18:
+          in.readRecord();
+          dataset.getBibliographicCitations().add(readCitation(in));
+          break;
+        case 19:
+          in.readRecord();
+          dataset.getCuratorialUnits().add(readCuratorialUnit(in));
+          break;
+        case 20:
+          in.readRecord();
+          dataset.getTaxonomicCoverages().add(readTaxonomicCoverages(in));
+          break;
+        case 21:
+          dataset.setGeographicCoverageDescription(in.readString());
+          break;
+        case 22:
+          in.readRecord();
+          dataset.getGeographicCoverages().add(readGeospatialCoverage(in));
+          break;
+        case 23:
+          in.readRecord();
+          TemporalCoverage coverage = readTemporalCoverage(in);
+          if (coverage != null) {
+            dataset.getTemporalCoverages().add(coverage);
+          }
+          break;
+        case 24:
+          in.readRecord();
+          dataset.getKeywordCollections().add(readKeywordCollection(in));
+          break;
+        case 25:
+          in.readRecord();
+          dataset.setProject(readProject(in));
+          break;
+        case 26:
+          in.readRecord();
+          dataset.setSamplingDescription(readSamplingDescription(in));
+          break;
+        case 27:
+          Country country = in.readEnumName(Country.class);
+          if (country != null) {
+            if (dataset.getCountryCoverage() == null) {
+              dataset.setCountryCoverage(new HashSet<>());
+            }
+            dataset.getCountryCoverage().add(country);
+          }
+          break;
+        case 28:
+          in.readRecord();
+          dataset.getCollections().add(readCollection(in));
+          break;
+        case 29:
+          in.readRecord();
+          dataset.getDataDescriptions().add(readDataDescription(in));
+          break;
+        case 30:
+          dataset.setPurpose(in.readString());
+          break;
+        case 31:
+          dataset.setAdditionalInfo(in.readString());
+          break;
+        case 32:
+          dataset.setPubDate(in.readDate());
+          break;
+        case 33:
+          dataset.setMaintenanceUpdateFrequency(
+              in.readEnumName(MaintenanceUpdateFrequency.class));
+          break;
+        case 34:
+          dataset.setMaintenanceDescription(in.readString());
+          break;
+        case 35:
+          dataset.setPublishingOrganizationKey(in.readUuid());
+          break;
+        case 36:
+          dataset.setPublishingOrganizationName(in.readString());
+          break;
+        case 37:
+          dataset.setInstallationKey(in.readUuid());
+          break;
+        case 38:
+          dataset.setIntroduction(in.readString());
+          break;
+        case 39:
+          dataset.setGettingStarted(in.readString());
+          break;
+        case 40:
+          dataset.setAcknowledgements(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return dataset;
+  }
+
+  private static void writeUri(BinaryEncoder out, int field, URI uri) {
+    if (uri != null) {
+      out.writeString(field, uri.toString());
+    }
+  }
+
+  private static URI readUri(BinaryDecoder in) {
+    String uri = in.readString();
+    return uri == null ? null : URI.create(uri);
+  }
+
+  private static void writeCitation(BinaryEncoder out, Citation citation) {
+    out.writeString(1, citation.getText());
+    out.writeString(2, citation.getIdentifier());
+  }
+
+  private static Citation readCitation(BinaryDecoder in) {
+    Citation citation = new Citation();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          citation.setText(in.readString());
+          break;
+        case 2:
+          citation.setIdentifier(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return citation;
+  }
+
+  private static Identifier readIdentifier(BinaryDecoder in) {
+    Identifier identifier = new Identifier();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          identifier.setIdentifier(in.readString());
+          break;
+        case 2:
+          identifier.setType(in.readEnumName(IdentifierType.class));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return identifier;
+  }
+
+  private static void writeContacts(BinaryEncoder out, int field, List<Contact> contacts) {
+    if (contacts != null) {
+      for (Contact contact : contacts) {
+        if (contact != null) {
+          out.startRecord(field);
+          writeContact(out, contact);
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static void writeContact(BinaryEncoder out, Contact contact) {
+    out.writeEnumName(1, contact.getType());
+    out.writeBoolean(2, contact.isPrimary());
+    out.writeString(3, contact.getSalutation());
+    out.writeString(4, contact.getFirstName());
+    out.writeString(5, contact.getLastName());
+    out.writeStrings(6, contact.getPosition());
+    out.writeString(7, contact.getOrganization());
+    out.writeStrings(8, contact.getAddress());
+    out.writeString(9, contact.getCity());
+    out.writeString(10, contact.getProvince());
+    out.writeEnumName(11, contact.getCountry());
+    out.writeString(12, contact.getPostalCode());
+    out.writeStrings(13, contact.getEmail());
+    out.writeStrings(14, contact.getPhone());
+    if (contact.getHomepage() != null) {
+      for (URI homepage : contact.getHomepage()) {
+        writeUri(out, 15, homepage);
+      }
+    }
+    out.writeStrings(16, contact.getUserId());
+  }
+
+  private static Contact readContact(BinaryDecoder in) {
+    Contact contact = new Contact();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          contact.setType(in.readEnumName(ContactType.class));
+          break;
+        case 2:
+          contact.setPrimary(in.readBoolean());
+          break;
+        case 3:
+          contact.setSalutation(in.readString());
+          break;
+        case 4:
+          contact.setFirstName(in.readString());
+          break;
+        case 5:
+          contact.setLastName(in.readString());
+          break;
+        case 6:
+          contact.getPosition().add(in.readString());
+          break;
+        case 7:
+          contact.setOrganization(in.readString());
+          break;
+        case 8:
+          contact.getAddress().add(in.readString());
+          break;
+        case 9:
+          contact.setCity(in.readString());
+          break;
+        case 10:
+          contact.setProvince(in.readString());
+          break;
+        case 11:
+          contact.setCountry(in.readEnumName(Country.class));
+          break;
+        case 12:
+          contact.setPostalCode(in.readString());
+          break;
+        case 13:
+          contact.getEmail().add(in.readString());
+          break;
+        case 14:
+          contact.getPhone().add(in.readString());
+          break;
+        case 15:
+          contact.getHomepage().add(readUri(in));
+          break;
+        case 16:
+          contact.getUserId().add(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return contact;
+  }
+
+  private static void writeCuratorialUnits(
+      BinaryEncoder out, int field, List<CuratorialUnitComposite> units) {
+    if (units != null) {
+      for (CuratorialUnitComposite unit : units) {
+        if (unit != null) {
+          out.startRecord(field);
+          out.writeString(1, unit.getTypeVerbatim());
+          out.writeInt(2, unit.getLower());
+          out.writeInt(3, unit.getUpper());
+          out.writeInt(4, unit.getCount());
+          out.writeInt(5, unit.getDeviation());
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static CuratorialUnitComposite readCuratorialUnit(BinaryDecoder in) {
+    CuratorialUnitComposite unit = new CuratorialUnitComposite();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          unit.setTypeVerbatim(in.readString());
+          break;
+        case 2:
+          unit.setLower(in.readInt());
+          break;
+        case 3:
+          unit.setUpper(in.readInt());
+          break;
+        case 4:
+          unit.setCount(in.readInt());
+          break;
+        case 5:
+          unit.setDeviation(in.readInt());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return unit;
+  }
+
+  private static void writeTaxonomicCoverages(BinaryEncoder out, TaxonomicCoverages coverages) {
+    out.writeString(1, coverages.getDescription());
+    if (coverages.getCoverages() != null) {
+      for (TaxonomicCoverage coverage : coverages.getCoverages()) {
+        if (coverage != null) {
+          out.startRecord(2);
+          out.writeString(1, coverage.getScientificName());
+          out.writeString(2, coverage.getCommonName());
+          if (coverage.getRank() != null) {
+            out.writeString(3, coverage.getRank().getVerbatim());
+            out.writeEnumName(4, coverage.getRank().getInterpreted());
+          }
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static TaxonomicCoverages readTaxonomicCoverages(BinaryDecoder in) {
+    TaxonomicCoverages coverages = new TaxonomicCoverages();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          coverages.setDescription(in.readString());
+          break;
+        case 2:
+          in.readRecord();
+          coverages.addCoverages(readTaxonomicCoverage(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverages;
+  }
+
+  private static TaxonomicCoverage readTaxonomicCoverage(BinaryDecoder in) {
+    TaxonomicCoverage coverage = new TaxonomicCoverage();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          coverage.setScientificName(in.readString());
+          break;
+        case 2:
+          coverage.setCommonName(in.readString());
+          break;
+        case 3:
+          rank(coverage).setVerbatim(in.readString());
+          break;
+        case 4:
+          rank(coverage).setInterpreted(in.readEnumName(Rank.class));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverage;
+  }
+
+  private static InterpretedEnum<String, Rank> rank(TaxonomicCoverage coverage) {
+    if (coverage.getRank() == null) {
+      coverage.setRank(new InterpretedEnum<>());
+    }
+    return coverage.getRank();
+  }
+
+  private static void writeGeospatialCoverage(BinaryEncoder out, GeospatialCoverage coverage) {
+    out.writeString(1, coverage.getDescription());
+    BoundingBox bbox = coverage.getBoundingBox();
+    if (bbox != null) {
+      out.startRecord(2);
+      out.writeDouble(1, bbox.getMinLatitude());
+      out.writeDouble(2, bbox.getMinLongitude());
+      out.writeDouble(3, bbox.getMaxLatitude());
+      out.writeDouble(4, bbox.getMaxLongitude());
+      out.endRecord();
+    }
+  }
+
+  private static GeospatialCoverage readGeospatialCoverage(BinaryDecoder in) {
+    GeospatialCoverage coverage = new GeospatialCoverage();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          coverage.setDescription(in.readString());
+          break;
+        case 2:
+          in.readRecord();
+          coverage.setBoundingBox(readBoundingBox(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverage;
+  }
+
+  private static BoundingBox readBoundingBox(BinaryDecoder in) {
+    BoundingBox bbox = new BoundingBox();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          bbox.setMinLatitude(in.readDouble());
+          break;
+        case 2:
+          bbox.setMinLongitude(in.readDouble());
+          break;
+        case 3:
+          bbox.setMaxLatitude(in.readDouble());
+          break;
+        case 4:
+          bbox.setMaxLongitude(in.readDouble());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return bbox;
+  }
+
+  /**
+   * Temporal coverages are a record with the kind of coverage as its first field, followed by the fields of that
+   * kind.
+   */
+  private static void writeTemporalCoverage(
+      BinaryEncoder out, int field, TemporalCoverage coverage) {
+    if (coverage instanceof SingleDate) {
+      out.startRecord(field);
+      out.writeVarint(1, 1);
+      out.writeDate(2, ((SingleDate) coverage).getDate());
+      out.endRecord();
+    } else if (coverage instanceof DateRange) {
+      out.startRecord(field);
+      out.writeVarint(1, 2);
+      out.writeDate(3, ((DateRange) coverage).getStart());
+      out.writeDate(4, ((DateRange) coverage).getEnd());
+      out.endRecord();
+    } else if (coverage instanceof VerbatimTimePeriod) {
+      out.startRecord(field);
+      out.writeVarint(1, 3);
+      out.writeString(5, ((VerbatimTimePeriod) coverage).getPeriod());
+      out.writeEnumName(6, ((VerbatimTimePeriod) coverage).getType());
+      out.endRecord();
+    }
+  }
+
+  /**
+   * @return the coverage or null if the kind of coverage is unknown to this version
+   */
+  private static TemporalCoverage readTemporalCoverage(BinaryDecoder in) {
+    TemporalCoverage coverage = null;
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          long kind = in.readVarint();
+          if (kind == 1) {
+            coverage = new SingleDate();
+          } else if (kind == 2) {
+            coverage = new DateRange();
+          } else if (kind == 3) {
+            coverage = new VerbatimTimePeriod();
+          }
+          break;
+        case 2:
+          if (coverage instanceof SingleDate) {
+            ((SingleDate) coverage).setDate(in.readDate());
+          } else {
+            in.skip();
+          }
+          break;
+        case 3:
+          if (coverage instanceof DateRange) {
+            ((DateRange) coverage).setStart(in.readDate());
+          } else {
+            in.skip();
+          }
+          break;
+        case 4:
+          if (coverage instanceof DateRange) {
+            ((DateRange) coverage).setEnd(in.readDate());
+          } else {
+            in.skip();
+          }
+          break;
+        case 5:
+          if (coverage instanceof VerbatimTimePeriod) {
+            ((VerbatimTimePeriod) coverage).setPeriod(in.readString());
+          } else {
+            in.skip();
+          }
+          break;
+        case 6:
+          if (coverage instanceof VerbatimTimePeriod) {
+            ((VerbatimTimePeriod) coverage)
+                .setType(in.readEnumName(VerbatimTimePeriodType.class));
+          } else {
+            in.skip();
+          }
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverage;
+  }
+
+  private static KeywordCollection readKeywordCollection(BinaryDecoder in) {
+    KeywordCollection collection = new KeywordCollection();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          collection.setThesaurus(in.readString());
+          break;
+        case 2:
+          collection.addKeyword(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return collection;
+  }
+
+  private static void writeProject(BinaryEncoder out, Project project) {
+    out.writeString(1, project.getTitle());
+    out.writeString(2, project.getIdentifier());
+    writeContacts(out, 3, project.getContacts());
+    out.writeString(4, project.getAbstract());
+    out.writeString(5, project.getFunding());
+    if (project.getAwards() != null) {
+      for (ProjectAward award : project.getAwards()) {
+        if (award != null) {
+          out.startRecord(6);
+          out.writeString(1, award.getTitle());
+          out.writeString(2, award.getFunderName());
+          out.writeStrings(3, award.getFunderIdentifiers());
+          out.writeString(4, award.getAwardNumber());
+          out.writeString(5, award.getAwardUrl());
+          out.endRecord();
+        }
+      }
+    }
+    if (project.getRelatedProjects() != null) {
+      for (RelatedProject related : project.getRelatedProjects()) {
+        if (related != null) {
+          out.startRecord(7);
+          out.writeString(1, related.getTitle());
+          out.writeString(2, related.getIdentifier());
+          out.writeString(3, related.getAbstract());
+          writeContacts(out, 4, related.getContacts());
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(8, project.getStudyAreaDescription());
+    out.writeString(9, project.getDesignDescription());
+  }
+
+  private static Project readProject(BinaryDecoder in) {
+    Project project = new Project();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          project.setTitle(in.readString());
+          break;
+        case 2:
+          project.setIdentifier(in.readString());
+          break;
+        case 3:
+          in.readRecord();
+          project.addContact(readContact(in));
+          break;
+        case 4:
+          project.setAbstract(in.readString());
+          break;
+        case 5:
+          project.setFunding(in.readString());
+          break;
+        case 6:
+          in.readRecord();
+          project.addAward(readAward(in));
+          break;
+        case 7:
+          in.readRecord();
+          project.addRelatedProject(readRelatedProject(in));
+          break;
+        case 8:
+          project.setStudyAreaDescription(in.readString());
+          break;
+        case 9:
+          project.setDesignDescription(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return project;
+  }
+
+  private static ProjectAward readAward(BinaryDecoder in) {
+    ProjectAward award = new ProjectAward();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          award.setTitle(in.readString());
+          break;
+        case 2:
+          award.setFunderName(in.readString());
+          break;
+        case 3:
+          award.addFunderIdentifier(in.readString());
+          break;
+        case 4:
+          award.setAwardNumber(in.readString());
+          break;
+        case 5:
+          award.setAwardUrl(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return award;
+  }
+
+  private static RelatedProject readRelatedProject(BinaryDecoder in) {
+    RelatedProject related = new RelatedProject();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          related.setTitle(in.readString());
+          break;
+        case 2:
+          related.setIdentifier(in.readString());
+          break;
+        case 3:
+          related.setAbstract(in.readString());
+          break;
+        case 4:
+          in.readRecord();
+          related.addContact(readContact(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return related;
+  }
+
+  private static SamplingDescription readSamplingDescription(BinaryDecoder in) {
+    SamplingDescription sampling = new SamplingDescription();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          sampling.setStudyExtent(in.readString());
+          break;
+        case 2:
+          sampling.setSampling(in.readString());
+          break;
+        case 3:
+          sampling.setQualityControl(in.readString());
+          break;
+        case 4:
+          sampling.getMethodSteps().add(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return sampling;
+  }
+
+  private static void writeCollection(BinaryEncoder out, Collection collection) {
+    out.writeString(1, collection.getName());
+    out.writeString(2, collection.getIdentifier());
+    out.writeString(3, collection.getParentIdentifier());
+    out.writeEnumName(4, collection.getSpecimenPreservationMethod());
+    writeCuratorialUnits(out, 5, collection.getCuratorialUnits());
+  }
+
+  private static Collection readCollection(BinaryDecoder in) {
+    Collection collection = new Collection();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          collection.setName(in.readString());
+          break;
+        case 2:
+          collection.setIdentifier(in.readString());
+          break;
+        case 3:
+          collection.setParentIdentifier(in.readString());
+          break;
+        case 4:
+          collection.setSpecimenPreservationMethod(
+              in.readEnumName(PreservationMethodType.class));
+          break;
+        case 5:
+          in.readRecord();
+          collection.addCuratorialUnitComposite(readCuratorialUnit(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return collection;
+  }
+
+  private static DataDescription readDataDescription(BinaryDecoder in) {
+    DataDescription description = new DataDescription();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          description.setName(in.readString());
+          break;
+        case 2:
+          description.setFormat(in.readString());
+          break;
+        case 3:
+          description.setFormatVersion(in.readString());
+          break;
+        case 4:
+          description.setUrl(readUri(in));
+          break;
+        case 5:
+          description.setCharset(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return description;
+  }
+}
@@ -0,0 +1,991 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import org.gbif.metadata.eml.ipt.model.Address;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.BBox;
+import org.gbif.metadata.eml.ipt.model.Citation;
+import org.gbif.metadata.eml.ipt.model.Collection;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.GeospatialCoverage;
+import org.gbif.metadata.eml.ipt.model.JGTICuratorialUnit;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.metadata.eml.ipt.model.LocaleBundle;
+import org.gbif.metadata.eml.ipt.model.MaintenanceUpdateFrequency;
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.metadata.eml.ipt.model.ProjectAward;
+import org.gbif.metadata.eml.ipt.model.StudyAreaDescription;
+import org.gbif.metadata.eml.ipt.model.StudyAreaDescriptor;
+import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+import org.gbif.metadata.eml.ipt.model.UserId;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact binary form of an {@link Eml}, meant for caching parsed metadata. It is smaller and faster than Java
+ * serialization or the EML XML and tolerates model changes: fields added later are skipped by older readers and
+ * fields missing from older messages keep their defaults.
+ * <p>
+ * Strings are written as UTF-8 and not compressed, so the free text of the metadata sets the lower bound of the
+ * encoded size. On the test documents that is about a sixth of the XML and a third of the Java serialized form.
+ * <p>
+ * Field numbers must never be reused or change their type. Removed fields leave a gap, new fields get new numbers.
+ * Only the repository's own enumerations are written as ordinals, so their constants must only ever be appended.
+ */
+public final class EmlCodec {
+
+  static final int MAGIC = 'G';
+  private static final int TYPE = 'E';
+  public static final int VERSION = 1;
+
+  private static final MaintenanceUpdateFrequency[] FREQUENCIES =
+      MaintenanceUpdateFrequency.values();
+  private static final StudyAreaDescriptor[] DESCRIPTORS = StudyAreaDescriptor.values();
+
+  private EmlCodec() {}
+
+  /**
+   * @return the encoded eml, positioned at its start
+   */
+  public static ByteBuffer encode(Eml eml) {
+    BinaryEncoder out = new BinaryEncoder();
+    out.writeHeader(MAGIC, TYPE, VERSION);
+    writeEml(out, eml);
+    out.endRecord();
+    return out.toByteBuffer();
+  }
+
+  /**
+   * Decodes an eml from the current position of the buffer, leaving the position after the message.
+   *
+   * @throws IllegalArgumentException if the buffer holds no encoded eml or one of a newer, incompatible version
+   */
+  public static Eml decode(ByteBuffer buffer) {
+    BinaryDecoder in = new BinaryDecoder(buffer);
+    int version = in.readHeader(MAGIC, TYPE);
+    if (version > VERSION) {
+      throw new IllegalArgumentException("Unsupported EML codec version " + version);
+    }
+    return readEml(in);
+  }
+
+  private static void writeEml(BinaryEncoder out, Eml eml) {
+    out.writeString(1, eml.getTitle());
+    out.writeString(2, eml.getShortName());
+    out.writeString(3, eml.getGuid());
+    out.writeString(4, eml.getLink());
+    out.writeString(5, eml.getDescription());
+    out.writeString(6, eml.getAdditionalInfo());
+    out.writeStrings(7, eml.getAlternateIdentifiers());
+    writeAgents(out, 8, eml.getAssociatedParties());
+    if (eml.getBibliographicCitationSet() != null) {
+      writeCitations(out, 9, eml.getBibliographicCitations());
+    }
+    if (eml.getCitation() != null) {
+      out.startRecord(10);
+      writeCitation(out, eml.getCitation());
+      out.endRecord();
+    }
+    out.writeDate(11, eml.getDateStamp());
+    out.writeString(12, eml.getDistributionUrl());
+    out.writeString(13, eml.getDistributionDownloadUrl());
+    if (eml.getEmlVersion() != null) {
+      out.writeString(14, eml.getEmlVersion().toPlainString());
+    }
+    if (eml.getPreviousEmlVersion() != null) {
+      out.writeString(15, eml.getPreviousEmlVersion().toPlainString());
+    }
+    if (eml.getGeospatialCoverages() != null) {
+      for (GeospatialCoverage coverage : eml.getGeospatialCoverages()) {
+        if (coverage != null) {
+          out.startRecord(16);
+          writeGeospatialCoverage(out, coverage);
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(17, eml.getHierarchyLevel());
+    out.writeString(18, eml.getIntellectualRights());
+    if (eml.getJgtiCuratorialUnits() != null) {
+      for (JGTICuratorialUnit unit : eml.getJgtiCuratorialUnits()) {
+        if (unit != null) {
+          out.startRecord(19);
+          writeCuratorialUnit(out, unit);
+          out.endRecord();
+        }
+      }
+    }
+    if (eml.getKeywords() != null) {
+      for (KeywordSet keywordSet : eml.getKeywords()) {
+        if (keywordSet != null) {
+          out.startRecord(20);
+          out.writeString(1, keywordSet.getKeywordThesaurus());
+          out.writeStrings(2, keywordSet.getKeywords());
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(21, eml.getLanguage());
+    out.writeString(22, eml.getLogoUrl());
+    out.writeString(23, eml.getMetadataLanguage());
+    if (eml.getMetadataLocale() != null) {
+      out.startRecord(24);
+      out.writeString(1, eml.getMetadataLocale().getLanguage());
+      out.writeString(2, eml.getMetadataLocale().getCountry());
+      out.writeString(3, eml.getMetadataLocale().getCharset());
+      out.endRecord();
+    }
+    if (eml.getCollections() != null) {
+      for (Collection collection : eml.getCollections()) {
+        if (collection != null) {
+          out.startRecord(25);
+          out.writeString(1, collection.getCollectionName());
+          out.writeString(2, collection.getCollectionId());
+          out.writeString(3, collection.getParentCollectionId());
+          out.endRecord();
+        }
+      }
+    }
+    if (eml.getPhysicalData() != null) {
+      for (PhysicalData data : eml.getPhysicalData()) {
+        if (data != null) {
+          out.startRecord(26);
+          out.writeString(1, data.getCharset());
+          out.writeString(2, data.getDistributionUrl());
+          out.writeString(3, data.getFormat());
+          out.writeString(4, data.getFormatVersion());
+          out.writeString(5, data.getName());
+          if (data.getSize() != null) {
+            out.writeVarint(6, data.getSize());
+          }
+          out.writeString(7, data.getMd5());
+          out.writeString(8, data.getSha256());
+          out.endRecord();
+        }
+      }
+    }
+    if (eml.getProject() != null) {
+      out.startRecord(27);
+      writeProject(out, eml.getProject());
+      out.endRecord();
+    }
+    out.writeDate(28, eml.getPubDate());
+    out.writeString(29, eml.getPurpose());
+    out.writeString(30, eml.getIntroduction());
+    out.writeString(31, eml.getGettingStarted());
+    out.writeString(32, eml.getAcknowledgements());
+    out.writeString(33, eml.getUpdateFrequencyDescription());
+    out.writeEnum(34, eml.getUpdateFrequency());
+    writeAgents(out, 35, eml.getCreators());
+    writeAgents(out, 36, eml.getMetadataProviders());
+    writeAgents(out, 37, eml.getContacts());
+    out.writeString(38, eml.getPublisherId());
+    out.writeString(39, eml.getPublisherOrganizationName());
+    out.writeStrings(40, eml.getSpecimenPreservationMethods());
+    if (eml.getTaxonomicCoverages() != null) {
+      for (TaxonomicCoverage coverage : eml.getTaxonomicCoverages()) {
+        if (coverage != null) {
+          out.startRecord(41);
+          writeTaxonomicCoverage(out, coverage);
+          out.endRecord();
+        }
+      }
+    }
+    if (eml.getTemporalCoverages() != null) {
+      for (TemporalCoverage coverage : eml.getTemporalCoverages()) {
+        if (coverage != null) {
+          out.startRecord(42);
+          out.writeDate(1, coverage.getStartDate());
+          out.writeDate(2, coverage.getEndDate());
+          out.writeString(3, coverage.getFormationPeriod());
+          out.writeString(4, coverage.getLivingTimePeriod());
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(43, eml.getStudyExtent());
+    out.writeString(44, eml.getSampleDescription());
+    out.writeString(45, eml.getQualityControl());
+    out.writeStrings(46, eml.getMethodSteps());
+  }
+
+  private static Eml readEml(BinaryDecoder in) {
+    Eml eml = new Eml();
+    // the constructor defaults are only kept for fields missing from the message
+    eml.setHierarchyLevel(null);
+    eml.setLanguage(null);
+    eml.setMetadataLanguage(null);
+    eml.setDateStamp((Date) null);
+    eml.setPubDate(null);
+    eml.setUpdateFrequency((String) null);
+    eml.setProject(null);
+
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          eml.setTitle(in.readString());
+          break;
+        case 2:
+          eml.setShortName(in.readString());
+          break;
+        case 3:
+          eml.setGuid(in.readString());
+          break;
+        case 4:
+          eml.setLink(in.readString());
+          break;
+        case 5:
+          eml.setDescription(in.readString());
+          break;
+        case 6:
+          eml.setAdditionalInfo(in.readString());
+          break;
+        case 7:
+          eml.getAlternateIdentifiers().add(in.readString());
+          break;
+        case 8:
+          in.readRecord();
+          eml.getAssociatedParties().add(readAgent(in));
+          break;
+        case 9:
+          in.readRecord();
+          eml.getBibliographicCitations().add(readCitation(in));
+          break;
+        case 10:
+          in.readRecord();
+          eml.setCitation(readCitation(in));
+          break;
+        case 11:
+          eml.setDateStamp(in.readDate());
+          break;
+        case 12:
+          eml.setDistributionUrl(in.readString());
+          break;
+        case 13:
+          eml.setDistributionDownloadUrl(in.readString());
+          break;
+        case 14:
+          // also derives major and minor version
+          eml.setEmlVersion(new BigDecimal(in.readString()));
+          break;
+        case 15:
+          eml.setPreviousEmlVersion(new BigDecimal(in.readString()));
+          break;
+        case 16:
+          in.readRecord();
+          eml.getGeospatialCoverages().add(readGeospatialCoverage(in));
+          break;
+        case 17:
+          eml.setHierarchyLevel(in.readString());
+          break;
+        case 18:
+          eml.setIntellectualRights(in.readString());
+          break;
+        case 19:
+          in.readRecord();
+          eml.getJgtiCuratorialUnits().add(readCuratorialUnit(in));
+          break;
+        case 20:
+          in.readRecord();
+          eml.getKeywords().add(readKeywordSet(in));
+          break;
+        case 21:
+          eml.setLanguage(in.readString());
+          break;
+        case 22:
+          eml.setLogoUrl(in.readString());
+          break;
+        case 23:
+          eml.setMetadataLanguage(in.readString());
+          break;
+        case 24:
+          in.readRecord();
+          eml.setMetadataLocale(readLocaleBundle(in));
+          break;
+        case 25:
+          in.readRecord();
+          eml.getCollections().add(readCollection(in));
+          break;
+        case 26:
+          in.readRecord();
+          eml.getPhysicalData().add(readPhysicalData(in));
+          break;
+        case 27:
+          in.readRecord();
+          eml.setProject(readProject(in));
+          break;
+        case 28:
+          eml.setPubDate(in.readDate());
+          break;
+        case 29:
+          eml.setPurpose(in.readString());
+          break;
+        case 30:
+          eml.setIntroduction(in.readString());
+          break;
+        case 31:
+          eml.setGettingStarted(in.readString());
+          break;
+        case 32:
+          eml.setAcknowledgements(in.readString());
+          break;
+        case 33:
+          eml.setUpdateFrequencyDescription(in.readString());
+          break;
+        case 34:
+          MaintenanceUpdateFrequency frequency = in.readEnum(FREQUENCIES);
+          eml.setUpdateFrequency(frequency == null ? null : frequency.getIdentifier());
+          break;
+        case 35:
+          in.readRecord();
+          eml.getCreators().add(readAgent(in));
+          break;
+        case 36:
+          in.readRecord();
+          eml.getMetadataProviders().add(readAgent(in));
+          break;
+        case 37:
+          in.readRecord();
+          eml.getContacts().add(readAgent(in));
+          break;
+        case 38:
+          eml.setPublisherId(in.readString());
+          break;
+        case 39:
+          eml.setPublisherOrganizationName(in.readString());
+          break;
+        case 40:
+          eml.getSpecimenPreservationMethods().add(in.readString());
+          break;
+        case 41:
+          in.readRecord();
+          eml.getTaxonomicCoverages().add(readTaxonomicCoverage(in));
+          break;
+        case 42:
+          in.readRecord();
+          eml.getTemporalCoverages().add(readTemporalCoverage(in));
+          break;
+        case 43:
+          eml.setStudyExtent(in.readString());
+          break;
+        case 44:
+          eml.setSampleDescription(in.readString());
+          break;
+        case 45:
+          eml.setQualityControl(in.readString());
+          break;
+        case 46:
+          eml.getMethodSteps().add(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return eml;
+  }
+
+  private static void writeAgents(BinaryEncoder out, int field, List<Agent> agents) {
+    if (agents != null) {
+      for (Agent agent : agents) {
+        if (agent != null) {
+          out.startRecord(field);
+          writeAgent(out, agent);
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static void writeAgent(BinaryEncoder out, Agent agent) {
+    out.writeString(1, agent.getSalutation());
+    out.writeString(2, agent.getFirstName());
+    out.writeString(3, agent.getLastName());
+    out.writeString(4, agent.getOrganisation());
+    out.writeStrings(5, agent.getPosition());
+    Address address = agent.getAddress();
+    if (address != null) {
+      out.startRecord(6);
+      out.writeStrings(1, address.getAddress());
+      out.writeString(2, address.getCity());
+      out.writeString(3, address.getProvince());
+      out.writeString(4, address.getCountry());
+      out.writeString(5, address.getPostalCode());
+      out.endRecord();
+    }
+    out.writeStrings(7, agent.getPhone());
+    out.writeStrings(8, agent.getEmail());
+    out.writeString(9, agent.getRole());
+    out.writeStrings(10, agent.getHomepage());
+    if (agent.getUserIds() != null) {
+      for (UserId userId : agent.getUserIds()) {
+        if (userId != null) {
+          out.startRecord(11);
+          out.writeString(1, userId.getDirectory());
+          out.writeString(2, userId.getIdentifier());
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static Agent readAgent(BinaryDecoder in) {
+    Agent agent = new Agent();
+    agent.setAddress(null);
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          agent.setSalutation(in.readString());
+          break;
+        case 2:
+          agent.setFirstName(in.readString());
+          break;
+        case 3:
+          agent.setLastName(in.readString());
+          break;
+        case 4:
+          agent.setOrganisation(in.readString());
+          break;
+        case 5:
+          agent.addPosition(in.readString());
+          break;
+        case 6:
+          in.readRecord();
+          agent.setAddress(readAddress(in));
+          break;
+        case 7:
+          agent.addPhone(in.readString());
+          break;
+        case 8:
+          agent.addEmail(in.readString());
+          break;
+        case 9:
+          agent.setRole(in.readString());
+          break;
+        case 10:
+          agent.addHomepage(in.readString());
+          break;
+        case 11:
+          in.readRecord();
+          agent.addUserId(readUserId(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return agent;
+  }
+
+  private static Address readAddress(BinaryDecoder in) {
+    Address address = new Address();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          address.addAddress(in.readString());
+          break;
+        case 2:
+          address.setCity(in.readString());
+          break;
+        case 3:
+          address.setProvince(in.readString());
+          break;
+        case 4:
+          address.setCountry(in.readString());
+          break;
+        case 5:
+          address.setPostalCode(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return address;
+  }
+
+  private static UserId readUserId(BinaryDecoder in) {
+    UserId userId = new UserId();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          userId.setDirectory(in.readString());
+          break;
+        case 2:
+          userId.setIdentifier(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return userId;
+  }
+
+  private static void writeCitations(BinaryEncoder out, int field, List<Citation> citations) {
+    if (citations != null) {
+      for (Citation citation : citations) {
+        if (citation != null) {
+          out.startRecord(field);
+          writeCitation(out, citation);
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static void writeCitation(BinaryEncoder out, Citation citation) {
+    out.writeString(1, citation.getCitation());
+    out.writeString(2, citation.getIdentifier());
+  }
+
+  private static Citation readCitation(BinaryDecoder in) {
+    Citation citation = new Citation();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          citation.setCitation(in.readString());
+          break;
+        case 2:
+          citation.setIdentifier(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return citation;
+  }
+
+  private static void writeGeospatialCoverage(BinaryEncoder out, GeospatialCoverage coverage) {
+    out.writeString(1, coverage.getDescription());
+    out.writeStrings(2, coverage.getKeywords());
+    BBox bbox = coverage.getBoundingCoordinates();
+    if (bbox != null) {
+      out.startRecord(3);
+      if (bbox.getMin() != null) {
+        out.writeDouble(1, bbox.getMin().getLatitude());
+        out.writeDouble(2, bbox.getMin().getLongitude());
+      }
+      if (bbox.getMax() != null) {
+        out.writeDouble(3, bbox.getMax().getLatitude());
+        out.writeDouble(4, bbox.getMax().getLongitude());
+      }
+      out.endRecord();
+    }
+  }
+
+  private static GeospatialCoverage readGeospatialCoverage(BinaryDecoder in) {
+    GeospatialCoverage coverage = new GeospatialCoverage();
+    coverage.setBoundingCoordinates(null);
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          coverage.setDescription(in.readString());
+          break;
+        case 2:
+          coverage.getKeywords().add(in.readString());
+          break;
+        case 3:
+          in.readRecord();
+          coverage.setBoundingCoordinates(readBBox(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverage;
+  }
+
+  private static BBox readBBox(BinaryDecoder in) {
+    Double minLatitude = null;
+    Double minLongitude = null;
+    Double maxLatitude = null;
+    Double maxLongitude = null;
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          minLatitude = in.readDouble();
+          break;
+        case 2:
+          minLongitude = in.readDouble();
+          break;
+        case 3:
+          maxLatitude = in.readDouble();
+          break;
+        case 4:
+          maxLongitude = in.readDouble();
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return new BBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+  }
+
+  private static void writeCuratorialUnit(BinaryEncoder out, JGTICuratorialUnit unit) {
+    out.writeString(1, unit.getUnitType());
+    out.writeInt(2, unit.getRangeStart());
+    out.writeInt(3, unit.getRangeEnd());
+    out.writeInt(4, unit.getRangeMean());
+    out.writeInt(5, unit.getUncertaintyMeasure());
+  }
+
+  private static JGTICuratorialUnit readCuratorialUnit(BinaryDecoder in) {
+    JGTICuratorialUnit unit = new JGTICuratorialUnit();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          unit.setUnitType(in.readString());
+          break;
+        case 2:
+          unit.setRangeStart(in.readInt());
+          break;
+        case 3:
+          unit.setRangeEnd(in.readInt());
+          break;
+        case 4:
+          unit.setRangeMean(in.readInt());
+          break;
+        case 5:
+          unit.setUncertaintyMeasure(in.readInt());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return unit;
+  }
+
+  private static KeywordSet readKeywordSet(BinaryDecoder in) {
+    KeywordSet keywordSet = new KeywordSet();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          keywordSet.setKeywordThesaurus(in.readString());
+          break;
+        case 2:
+          keywordSet.add(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return keywordSet;
+  }
+
+  private static LocaleBundle readLocaleBundle(BinaryDecoder in) {
+    String language = null;
+    String country = null;
+    String charset = null;
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          language = in.readString();
+          break;
+        case 2:
+          country = in.readString();
+          break;
+        case 3:
+          charset = in.readString();
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return LocaleBundle.create(language, country, Charset.forName(charset));
+  }
+
+  private static Collection readCollection(BinaryDecoder in) {
+    Collection collection = new Collection();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          collection.setCollectionName(in.readString());
+          break;
+        case 2:
+          collection.setCollectionId(in.readString());
+          break;
+        case 3:
+          collection.setParentCollectionId(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return collection;
+  }
+
+  private static PhysicalData readPhysicalData(BinaryDecoder in) {
+    PhysicalData data = new PhysicalData();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          data.setCharset(in.readString());
+          break;
+        case 2:
+          data.setDistributionUrl(in.readString());
+          break;
+        case 3:
+          data.setFormat(in.readString());
+          break;
+        case 4:
+          data.setFormatVersion(in.readString());
+          break;
+        case 5:
+          data.setName(in.readString());
+          break;
+        case 6:
+          data.setSize(in.readVarint());
+          break;
+        case 7:
+          data.setMd5(in.readString());
+          break;
+        case 8:
+          data.setSha256(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return data;
+  }
+
+  private static void writeProject(BinaryEncoder out, Project project) {
+    out.writeString(1, project.getTitle());
+    out.writeString(2, project.getIdentifier());
+    out.writeString(3, project.getDescription());
+    writeAgents(out, 4, project.getPersonnel());
+    if (project.getRelatedProjects() != null) {
+      for (Project related : project.getRelatedProjects()) {
+        if (related != null) {
+          out.startRecord(5);
+          writeProject(out, related);
+          out.endRecord();
+        }
+      }
+    }
+    if (project.getAwards() != null) {
+      for (ProjectAward award : project.getAwards()) {
+        if (award != null) {
+          out.startRecord(6);
+          out.writeString(1, award.getFunderName());
+          out.writeStrings(2, award.getFunderIdentifiers());
+          out.writeString(3, award.getAwardNumber());
+          out.writeString(4, award.getTitle());
+          out.writeString(5, award.getAwardUrl());
+          out.endRecord();
+        }
+      }
+    }
+    out.writeString(7, project.getFunding());
+    StudyAreaDescription studyArea = project.getStudyAreaDescription();
+    if (studyArea != null) {
+      out.startRecord(8);
+      out.writeEnum(1, studyArea.getName());
+      out.writeString(2, studyArea.getCitableClassificationSystem());
+      out.writeString(3, studyArea.getDescriptorValue());
+      out.endRecord();
+    }
+    out.writeString(9, project.getDesignDescription());
+  }
+
+  private static Project readProject(BinaryDecoder in) {
+    Project project = new Project();
+    project.setStudyAreaDescription(null);
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          project.setTitle(in.readString());
+          break;
+        case 2:
+          project.setIdentifier(in.readString());
+          break;
+        case 3:
+          project.setDescription(in.readString());
+          break;
+        case 4:
+          in.readRecord();
+          project.getPersonnel().add(readAgent(in));
+          break;
+        case 5:
+          in.readRecord();
+          project.getRelatedProjects().add(readProject(in));
+          break;
+        case 6:
+          in.readRecord();
+          project.getAwards().add(readAward(in));
+          break;
+        case 7:
+          project.setFunding(in.readString());
+          break;
+        case 8:
+          in.readRecord();
+          project.setStudyAreaDescription(readStudyAreaDescription(in));
+          break;
+        case 9:
+          project.setDesignDescription(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return project;
+  }
+
+  private static ProjectAward readAward(BinaryDecoder in) {
+    ProjectAward award = new ProjectAward();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          award.setFunderName(in.readString());
+          break;
+        case 2:
+          award.getFunderIdentifiers().add(in.readString());
+          break;
+        case 3:
+          award.setAwardNumber(in.readString());
+          break;
+        case 4:
+          award.setTitle(in.readString());
+          break;
+        case 5:
+          award.setAwardUrl(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return award;
+  }
+
+  private static StudyAreaDescription readStudyAreaDescription(BinaryDecoder in) {
+    StudyAreaDescription studyArea = new StudyAreaDescription();
+    studyArea.setCitableClassificationSystem(null);
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          StudyAreaDescriptor descriptor = in.readEnum(DESCRIPTORS);
+          studyArea.setName(descriptor);
+          break;
+        case 2:
+          studyArea.setCitableClassificationSystem(in.readString());
+          break;
+        case 3:
+          studyArea.setDescriptorValue(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return studyArea;
+  }
+
+  private static void writeTaxonomicCoverage(BinaryEncoder out, TaxonomicCoverage coverage) {
+    out.writeString(1, coverage.getDescription());
+    if (coverage.getTaxonKeywords() != null) {
+      for (TaxonKeyword keyword : coverage.getTaxonKeywords()) {
+        if (keyword != null) {
+          out.startRecord(2);
+          out.writeString(1, keyword.getScientificName());
+          out.writeString(2, keyword.getRank());
+          out.writeString(3, keyword.getCommonName());
+          out.endRecord();
+        }
+      }
+    }
+  }
+
+  private static TaxonomicCoverage readTaxonomicCoverage(BinaryDecoder in) {
+    TaxonomicCoverage coverage = new TaxonomicCoverage();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          coverage.setDescription(in.readString());
+          break;
+        case 2:
+          in.readRecord();
+          coverage.addTaxonKeyword(readTaxonKeyword(in));
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverage;
+  }
+
+  private static TaxonKeyword readTaxonKeyword(BinaryDecoder in) {
+    TaxonKeyword keyword = new TaxonKeyword();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          keyword.setScientificName(in.readString());
+          break;
+        case 2:
+          keyword.setRank(in.readString());
+          break;
+        case 3:
+          keyword.setCommonName(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return keyword;
+  }
+
+  private static TemporalCoverage readTemporalCoverage(BinaryDecoder in) {
+    TemporalCoverage coverage = new TemporalCoverage();
+    int field;
+    while ((field = in.readField()) != 0) {
+      switch (field) {
+        case 1:
+          coverage.setStartDate(in.readDate());
+          break;
+        case 2:
+          coverage.setEndDate(in.readDate());
+          break;
+        case 3:
+          coverage.setFormationPeriod(in.readString());
+          break;
+        case 4:
+          coverage.setLivingTimePeriod(in.readString());
+          break;
+        default:
+          in.skip();
+      }
+    }
+    return coverage;
+  }
+}
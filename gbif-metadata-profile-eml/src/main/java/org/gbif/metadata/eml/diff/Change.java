@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.diff;
+
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * A single difference between two versions of a metadata document.
+ * <p>
+ * The path names the property as in the model, list elements are addressed by their identity key in brackets, e.g.
+ * {@code creators[email:jane@example.org]} or {@code taxonomicCoverages[#0].taxonKeywords[Puma concolor]}
+ * for the first coverage without a key.
+ */
+public class Change {
+
+  public enum Type {
+    ADDED,
+    REMOVED,
+    CHANGED
+  }
+
+  private final Type type;
+  private final String path;
+  private final Object oldValue;
+  private final Object newValue;
+
+  public Change(Type type, String path, Object oldValue, Object newValue) {
+    this.type = type;
+    this.path = path;
+    this.oldValue = oldValue;
+    this.newValue = newValue;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the top level property of the path, e.g. creators for {@code creators[email:jane@example.org]}
+   */
+  public String getField() {
+    int end = 0;
+    while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+      end++;
+    }
+    return path.substring(0, end);
+  }
+
+  /**
+   * @return the value before the change, null for added values
+   */
+  public Object getOldValue() {
+    return oldValue;
+  }
+
+  /**
+   * @return the value after the change, null for removed values
+   */
+  public Object getNewValue() {
+    return newValue;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    Change change = (Change) o;
+    return type == change.type
+        && Objects.equals(path, change.path)
+        && Objects.equals(oldValue, change.oldValue)
+        && Objects.equals(newValue, change.newValue);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(type, path, oldValue, newValue);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", Change.class.getSimpleName() + "[", "]")
+        .add("type=" + type)
+        .add("path='" + path + "'")
+        .add("oldValue=" + oldValue)
+        .add("newValue=" + newValue)
+        .toString();
+  }
+}
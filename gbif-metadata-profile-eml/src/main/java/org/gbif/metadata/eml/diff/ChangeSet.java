@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The differences between two versions of a metadata document in the order of the document.
+ * <p>
+ * Callers decide on the consequences, e.g. whether a new version is a major or a minor one, or which parts of an
+ * index to update, by the {@link #getFields() fields} that changed.
+ */
+public class ChangeSet implements Iterable<Change> {
+
+  private final List<Change> changes;
+
+  public ChangeSet(List<Change> changes) {
+    this.changes = Collections.unmodifiableList(new ArrayList<>(changes));
+  }
+
+  public List<Change> getChanges() {
+    return changes;
+  }
+
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+
+  public int size() {
+    return changes.size();
+  }
+
+  /**
+   * @return the top level properties that changed, in the order of the document
+   */
+  public Set<String> getFields() {
+    Set<String> fields = new LinkedHashSet<>();
+    for (Change change : changes) {
+      fields.add(change.getField());
+    }
+    return fields;
+  }
+
+  /**
+   * @return true if any of the given top level properties changed
+   */
+  public boolean affects(String... fields) {
+    Set<String> wanted = new HashSet<>(Arrays.asList(fields));
+    for (Change change : changes) {
+      if (wanted.contains(change.getField())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the changes except those of the given top level properties, e.g. to ignore the dateStamp
+   */
+  public ChangeSet without(String... fields) {
+    Set<String> ignored = new HashSet<>(Arrays.asList(fields));
+    List<Change> kept = new ArrayList<>();
+    for (Change change : changes) {
+      if (!ignored.contains(change.getField())) {
+        kept.add(change);
+      }
+    }
+    return new ChangeSet(kept);
+  }
+
+  @Override
+  public Iterator<Change> iterator() {
+    return changes.iterator();
+  }
+
+  @Override
+  public String toString() {
+    return changes.toString();
+  }
+}
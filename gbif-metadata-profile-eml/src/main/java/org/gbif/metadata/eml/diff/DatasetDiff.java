@@ -0,0 +1,253 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.diff;
+
+import org.gbif.api.model.registry.Citation;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.model.registry.eml.Project;
+import org.gbif.api.model.registry.eml.ProjectAward;
+import org.gbif.api.model.registry.eml.SamplingDescription;
+import org.gbif.api.model.registry.eml.TaxonomicCoverages;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Structural diff of the metadata of two {@link Dataset}s as produced by
+ * {@link org.gbif.metadata.eml.parse.DatasetEmlParser}, e.g. to compare re-crawled metadata with the stored one.
+ * Registry bookkeeping such as keys of endpoints or modification dates is ignored.
+ * <p>
+ * Like {@link EmlDiff} list elements are matched by their identity: contacts by ORCID, email or name, taxa by
+ * scientific name and geographic coverages by bounding box.
+ */
+public final class DatasetDiff {
+
+  private DatasetDiff() {}
+
+  /**
+   * @return the changes from the first to the second dataset, empty if their metadata is equal
+   */
+  public static ChangeSet diff(Dataset before, Dataset after) {
+    Differ differ = new Differ();
+    differ.value("doi", before.getDoi(), after.getDoi());
+    differ.value("version", before.getVersion(), after.getVersion());
+    differ.value("type", before.getType(), after.getType());
+    differ.value("subtype", before.getSubtype(), after.getSubtype());
+    differ.value("title", before.getTitle(), after.getTitle());
+    differ.value("shortName", before.getShortName(), after.getShortName());
+    differ.value("description", before.getDescription(), after.getDescription());
+    differ.value("language", before.getLanguage(), after.getLanguage());
+    differ.value("dataLanguage", before.getDataLanguage(), after.getDataLanguage());
+    differ.value("homepage", before.getHomepage(), after.getHomepage());
+    differ.value("logoUrl", before.getLogoUrl(), after.getLogoUrl());
+    differ.value("citation", before.getCitation(), after.getCitation());
+    differ.value("rights", before.getRights(), after.getRights());
+    differ.value("license", before.getLicense(), after.getLicense());
+    differ.list("contacts", before.getContacts(), after.getContacts(), DatasetDiff::contactKey);
+    differ.list(
+        "identifiers",
+        before.getIdentifiers(),
+        after.getIdentifiers(),
+        identifier -> identifier.getIdentifier());
+    differ.list(
+        "bibliographicCitations",
+        before.getBibliographicCitations(),
+        after.getBibliographicCitations(),
+        DatasetDiff::citationKey);
+    differ.list(
+        "curatorialUnits",
+        before.getCuratorialUnits(),
+        after.getCuratorialUnits(),
+        unit -> unit.getTypeVerbatim());
+    differ.list(
+        "taxonomicCoverages",
+        before.getTaxonomicCoverages(),
+        after.getTaxonomicCoverages(),
+        TaxonomicCoverages::getDescription,
+        DatasetDiff::taxonomicCoverages);
+    differ.value(
+        "geographicCoverageDescription",
+        before.getGeographicCoverageDescription(),
+        after.getGeographicCoverageDescription());
+    differ.list(
+        "geographicCoverages",
+        before.getGeographicCoverages(),
+        after.getGeographicCoverages(),
+        DatasetDiff::geospatialKey);
+    differ.list(
+        "temporalCoverages",
+        before.getTemporalCoverages(),
+        after.getTemporalCoverages(),
+        coverage -> coverage.getClass().getSimpleName());
+    differ.list(
+        "keywordCollections",
+        before.getKeywordCollections(),
+        after.getKeywordCollections(),
+        KeywordCollection::getThesaurus,
+        (d, path, b, a) ->
+            d.list(path + ".keywords", toList(b.getKeywords()), toList(a.getKeywords())));
+    project(differ, "project", before.getProject(), after.getProject());
+    samplingDescription(
+        differ,
+        "samplingDescription",
+        before.getSamplingDescription(),
+        after.getSamplingDescription());
+    differ.list(
+        "countryCoverage",
+        toList(before.getCountryCoverage()),
+        toList(after.getCountryCoverage()));
+    differ.list(
+        "collections",
+        before.getCollections(),
+        after.getCollections(),
+        collection -> StringUtils.defaultIfBlank(collection.getIdentifier(), collection.getName()));
+    differ.list(
+        "dataDescriptions",
+        before.getDataDescriptions(),
+        after.getDataDescriptions(),
+        description -> description.getUrl() == null ? null : description.getUrl().toString());
+    differ.value("purpose", before.getPurpose(), after.getPurpose());
+    differ.value("additionalInfo", before.getAdditionalInfo(), after.getAdditionalInfo());
+    differ.value("pubDate", before.getPubDate(), after.getPubDate());
+    differ.value(
+        "maintenanceUpdateFrequency",
+        before.getMaintenanceUpdateFrequency(),
+        after.getMaintenanceUpdateFrequency());
+    differ.value(
+        "maintenanceDescription",
+        before.getMaintenanceDescription(),
+        after.getMaintenanceDescription());
+    differ.value(
+        "publishingOrganizationKey",
+        before.getPublishingOrganizationKey(),
+        after.getPublishingOrganizationKey());
+    differ.value(
+        "publishingOrganizationName",
+        before.getPublishingOrganizationName(),
+        after.getPublishingOrganizationName());
+    differ.value("installationKey", before.getInstallationKey(), after.getInstallationKey());
+    differ.value("introduction", before.getIntroduction(), after.getIntroduction());
+    differ.value("gettingStarted", before.getGettingStarted(), after.getGettingStarted());
+    differ.value("acknowledgements", before.getAcknowledgements(), after.getAcknowledgements());
+    return differ.build();
+  }
+
+  private static void taxonomicCoverages(
+      Differ differ, String path, TaxonomicCoverages before, TaxonomicCoverages after) {
+    differ.list(
+        path + ".coverages",
+        before.getCoverages(),
+        after.getCoverages(),
+        coverage -> StringUtils.trimToNull(coverage.getScientificName()));
+  }
+
+  private static void project(Differ differ, String path, Project before, Project after) {
+    if (before == null || after == null) {
+      differ.value(path, before, after);
+      return;
+    }
+    differ.value(path + ".title", before.getTitle(), after.getTitle());
+    differ.value(path + ".identifier", before.getIdentifier(), after.getIdentifier());
+    differ.list(
+        path + ".contacts", before.getContacts(), after.getContacts(), DatasetDiff::contactKey);
+    differ.value(path + ".abstract", before.getAbstract(), after.getAbstract());
+    differ.value(path + ".funding", before.getFunding(), after.getFunding());
+    differ.list(path + ".awards", before.getAwards(), after.getAwards(), DatasetDiff::awardKey);
+    differ.list(
+        path + ".relatedProjects",
+        before.getRelatedProjects(),
+        after.getRelatedProjects(),
+        related -> StringUtils.defaultIfBlank(related.getIdentifier(), related.getTitle()));
+    differ.value(
+        path + ".studyAreaDescription",
+        before.getStudyAreaDescription(),
+        after.getStudyAreaDescription());
+    differ.value(
+        path + ".designDescription", before.getDesignDescription(), after.getDesignDescription());
+  }
+
+  private static void samplingDescription(
+      Differ differ, String path, SamplingDescription before, SamplingDescription after) {
+    if (before == null || after == null) {
+      differ.value(path, before, after);
+      return;
+    }
+    differ.value(path + ".studyExtent", before.getStudyExtent(), after.getStudyExtent());
+    differ.value(path + ".sampling", before.getSampling(), after.getSampling());
+    differ.value(path + ".qualityControl", before.getQualityControl(), after.getQualityControl());
+    differ.list(path + ".methodSteps", before.getMethodSteps(), after.getMethodSteps());
+  }
+
+  /**
+   * @return the ORCID, the first email or the name of the contact prefixed by the kind of key, null for anonymous
+   *     contacts
+   */
+  static String contactKey(Contact contact) {
+    if (contact.getUserId() != null) {
+      for (String userId : contact.getUserId()) {
+        if (StringUtils.containsIgnoreCase(userId, "orcid")) {
+          // accept both the plain ORCID and its URL
+          return "orcid:" + StringUtils.substringAfterLast("/" + userId.trim(), "/");
+        }
+      }
+    }
+    if (contact.getEmail() != null) {
+      for (String email : contact.getEmail()) {
+        if (StringUtils.isNotBlank(email)) {
+          return "email:" + email.trim().toLowerCase();
+        }
+      }
+    }
+    String name =
+        StringUtils.trimToNull(
+            StringUtils.joinWith(" ", contact.getFirstName(), contact.getLastName()));
+    if (name == null && contact.getOrganization() == null) {
+      return null;
+    }
+    return "name:" + StringUtils.joinWith("|", name, contact.getOrganization());
+  }
+
+  private static String citationKey(Citation citation) {
+    return StringUtils.defaultIfBlank(citation.getIdentifier(), citation.getText());
+  }
+
+  private static String awardKey(ProjectAward award) {
+    return StringUtils.defaultIfBlank(award.getAwardNumber(), award.getTitle());
+  }
+
+  private static String geospatialKey(GeospatialCoverage coverage) {
+    BoundingBox bbox = coverage.getBoundingBox();
+    if (bbox == null) {
+      return coverage.getDescription();
+    }
+    return bbox.getMinLongitude()
+        + ","
+        + bbox.getMinLatitude()
+        + ","
+        + bbox.getMaxLongitude()
+        + ","
+        + bbox.getMaxLatitude();
+  }
+
+  private static <T> List<T> toList(Set<T> set) {
+    return set == null ? null : new ArrayList<>(set);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.diff;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Collects the changes of a single walk over two documents.
+ * <p>
+ * Lists are matched by an identity key of their elements instead of their position, so reordering a list is no
+ * change and inserting an element only results in a single addition. Elements without a key are matched by their
+ * position among the other elements without a key, duplicate keys in the order they occur.
+ */
+class Differ {
+
+  /**
+   * Compares two elements of lists that were matched by their key.
+   */
+  interface ElementDiff<T> {
+    void diff(Differ differ, String path, T before, T after);
+  }
+
+  private final List<Change> changes = new ArrayList<>();
+
+  void value(String path, Object before, Object after) {
+    if (before == null && after != null) {
+      changes.add(new Change(Change.Type.ADDED, path, null, after));
+    } else if (before != null && after == null) {
+      changes.add(new Change(Change.Type.REMOVED, path, before, null));
+    } else if (!Objects.equals(before, after)) {
+      changes.add(new Change(Change.Type.CHANGED, path, before, after));
+    }
+  }
+
+  /**
+   * Compares lists whose elements are compared as a whole, using the elements themselves as their key.
+   */
+  <T> void list(String path, List<T> before, List<T> after) {
+    list(path, before, after, String::valueOf, Differ::wholeElement);
+  }
+
+  /**
+   * Compares lists whose elements are compared as a whole.
+   */
+  <T> void list(String path, List<T> before, List<T> after, Function<T, String> key) {
+    list(path, before, after, key, Differ::wholeElement);
+  }
+
+  /**
+   * Compares lists by matching their elements by the given key. Matched elements are compared by the element diff,
+   * null elements are ignored.
+   */
+  <T> void list(
+      String path,
+      List<T> before,
+      List<T> after,
+      Function<T, String> key,
+      ElementDiff<T> elementDiff) {
+    Map<String, Deque<Keyed<T>>> remaining = new HashMap<>();
+    List<Keyed<T>> added = new ArrayList<>();
+    if (after != null) {
+      int unkeyed = 0;
+      for (T element : after) {
+        if (element != null) {
+          Keyed<T> keyed = keyed(element, key, unkeyed);
+          if (keyed.unkeyed) {
+            unkeyed++;
+          }
+          remaining.computeIfAbsent(keyed.key, k -> new ArrayDeque<>()).add(keyed);
+          added.add(keyed);
+        }
+      }
+    }
+    if (before != null) {
+      int unkeyed = 0;
+      for (T element : before) {
+        if (element != null) {
+          Keyed<T> keyed = keyed(element, key, unkeyed);
+          if (keyed.unkeyed) {
+            unkeyed++;
+          }
+          String elementPath = path + "[" + keyed.key + "]";
+          Deque<Keyed<T>> candidates = remaining.get(keyed.key);
+          Keyed<T> match = candidates == null ? null : candidates.poll();
+          if (match == null) {
+            changes.add(new Change(Change.Type.REMOVED, elementPath, element, null));
+          } else {
+            match.matched = true;
+            elementDiff.diff(this, elementPath, element, match.element);
+          }
+        }
+      }
+    }
+    for (Keyed<T> keyed : added) {
+      if (!keyed.matched) {
+        changes.add(
+            new Change(Change.Type.ADDED, path + "[" + keyed.key + "]", null, keyed.element));
+      }
+    }
+  }
+
+  ChangeSet build() {
+    return new ChangeSet(changes);
+  }
+
+  private static <T> void wholeElement(Differ differ, String path, T before, T after) {
+    differ.value(path, before, after);
+  }
+
+  private static <T> Keyed<T> keyed(T element, Function<T, String> key, int unkeyed) {
+    String value = key.apply(element);
+    return value == null
+        ? new Keyed<>("#" + unkeyed, element, true)
+        : new Keyed<>(value, element, false);
+  }
+
+  private static class Keyed<T> {
+    private final String key;
+    private final T element;
+    private final boolean unkeyed;
+    private boolean matched;
+
+    private Keyed(String key, T element, boolean unkeyed) {
+      this.key = key;
+      this.element = element;
+      this.unkeyed = unkeyed;
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.diff;
+
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.Citation;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.GeospatialCoverage;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.metadata.eml.ipt.model.ProjectAward;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+import org.gbif.metadata.eml.ipt.model.UserId;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Structural diff of two {@link Eml} documents, e.g. to decide on the next eml version or on what to reindex.
+ * <p>
+ * The documents are walked once, list elements are matched by their identity instead of their position:
+ * <ul>
+ *   <li>agents by ORCID, email or name</li>
+ *   <li>taxon keywords by scientific name</li>
+ *   <li>geographic coverages by bounding box</li>
+ *   <li>keyword sets by thesaurus, citations by identifier and collections by id</li>
+ * </ul>
+ */
+public final class EmlDiff {
+
+  private EmlDiff() {}
+
+  /**
+   * @return the changes from the first to the second document, empty if both are equal
+   */
+  public static ChangeSet diff(Eml before, Eml after) {
+    Differ differ = new Differ();
+    differ.value("title", before.getTitle(), after.getTitle());
+    differ.value("shortName", before.getShortName(), after.getShortName());
+    differ.value("guid", before.getGuid(), after.getGuid());
+    differ.value("link", before.getLink(), after.getLink());
+    differ.value("description", before.getDescription(), after.getDescription());
+    differ.value("additionalInfo", before.getAdditionalInfo(), after.getAdditionalInfo());
+    differ.list(
+        "alternateIdentifiers", before.getAlternateIdentifiers(), after.getAlternateIdentifiers());
+    differ.list(
+        "associatedParties",
+        before.getAssociatedParties(),
+        after.getAssociatedParties(),
+        EmlDiff::agentKey);
+    differ.list(
+        "bibliographicCitations",
+        before.getBibliographicCitationSet() == null ? null : before.getBibliographicCitations(),
+        after.getBibliographicCitationSet() == null ? null : after.getBibliographicCitations(),
+        EmlDiff::citationKey);
+    differ.value("citation", before.getCitation(), after.getCitation());
+    differ.value("dateStamp", before.getDateStamp(), after.getDateStamp());
+    differ.value("distributionUrl", before.getDistributionUrl(), after.getDistributionUrl());
+    differ.value(
+        "distributionDownloadUrl",
+        before.getDistributionDownloadUrl(),
+        after.getDistributionDownloadUrl());
+    differ.value("emlVersion", before.getEmlVersion(), after.getEmlVersion());
+    differ.list(
+        "geospatialCoverages",
+        before.getGeospatialCoverages(),
+        after.getGeospatialCoverages(),
+        EmlDiff::geospatialKey);
+    differ.value("hierarchyLevel", before.getHierarchyLevel(), after.getHierarchyLevel());
+    differ.value(
+        "intellectualRights", before.getIntellectualRights(), after.getIntellectualRights());
+    differ.list(
+        "jgtiCuratorialUnits",
+        before.getJgtiCuratorialUnits(),
+        after.getJgtiCuratorialUnits(),
+        unit -> unit.getUnitType());
+    differ.list(
+        "keywords",
+        before.getKeywords(),
+        after.getKeywords(),
+        KeywordSet::getKeywordThesaurus,
+        (d, path, b, a) -> d.list(path + ".keywords", b.getKeywords(), a.getKeywords()));
+    differ.value("language", before.getLanguage(), after.getLanguage());
+    differ.value("logoUrl", before.getLogoUrl(), after.getLogoUrl());
+    differ.value("metadataLanguage", before.getMetadataLanguage(), after.getMetadataLanguage());
+    differ.value("metadataLocale", before.getMetadataLocale(), after.getMetadataLocale());
+    differ.list(
+        "collections",
+        before.getCollections(),
+        after.getCollections(),
+        collection -> collection.getCollectionId());
+    differ.list(
+        "physicalData",
+        before.getPhysicalData(),
+        after.getPhysicalData(),
+        data -> data.getDistributionUrl());
+    project(differ, "project", before.getProject(), after.getProject());
+    differ.value("pubDate", before.getPubDate(), after.getPubDate());
+    differ.value("purpose", before.getPurpose(), after.getPurpose());
+    differ.value("introduction", before.getIntroduction(), after.getIntroduction());
+    differ.value("gettingStarted", before.getGettingStarted(), after.getGettingStarted());
+    differ.value("acknowledgements", before.getAcknowledgements(), after.getAcknowledgements());
+    differ.value(
+        "updateFrequencyDescription",
+        before.getUpdateFrequencyDescription(),
+        after.getUpdateFrequencyDescription());
+    differ.value("updateFrequency", before.getUpdateFrequency(), after.getUpdateFrequency());
+    differ.list("creators", before.getCreators(), after.getCreators(), EmlDiff::agentKey);
+    differ.list(
+        "metadataProviders",
+        before.getMetadataProviders(),
+        after.getMetadataProviders(),
+        EmlDiff::agentKey);
+    differ.list("contacts", before.getContacts(), after.getContacts(), EmlDiff::agentKey);
+    differ.value("publisherId", before.getPublisherId(), after.getPublisherId());
+    differ.value(
+        "publisherOrganizationName",
+        before.getPublisherOrganizationName(),
+        after.getPublisherOrganizationName());
+    differ.list(
+        "specimenPreservationMethods",
+        before.getSpecimenPreservationMethods(),
+        after.getSpecimenPreservationMethods());
+    differ.list(
+        "taxonomicCoverages",
+        before.getTaxonomicCoverages(),
+        after.getTaxonomicCoverages(),
+        TaxonomicCoverage::getDescription,
+        EmlDiff::taxonomicCoverage);
+    differ.list(
+        "temporalCoverages",
+        before.getTemporalCoverages(),
+        after.getTemporalCoverages(),
+        EmlDiff::temporalKey);
+    differ.value("studyExtent", before.getStudyExtent(), after.getStudyExtent());
+    differ.value(
+        "sampleDescription", before.getSampleDescription(), after.getSampleDescription());
+    differ.value("qualityControl", before.getQualityControl(), after.getQualityControl());
+    differ.list("methodSteps", before.getMethodSteps(), after.getMethodSteps());
+    return differ.build();
+  }
+
+  private static void taxonomicCoverage(
+      Differ differ, String path, TaxonomicCoverage before, TaxonomicCoverage after) {
+    differ.list(
+        path + ".taxonKeywords",
+        before.getTaxonKeywords(),
+        after.getTaxonKeywords(),
+        keyword -> StringUtils.trimToNull(keyword.getScientificName()));
+  }
+
+  private static void project(Differ differ, String path, Project before, Project after) {
+    if (before == null || after == null) {
+      differ.value(path, before, after);
+      return;
+    }
+    differ.value(path + ".title", before.getTitle(), after.getTitle());
+    differ.value(path + ".identifier", before.getIdentifier(), after.getIdentifier());
+    differ.value(path + ".description", before.getDescription(), after.getDescription());
+    differ.list(
+        path + ".personnel", before.getPersonnel(), after.getPersonnel(), EmlDiff::agentKey);
+    differ.list(
+        path + ".relatedProjects",
+        before.getRelatedProjects(),
+        after.getRelatedProjects(),
+        related -> StringUtils.defaultIfBlank(related.getIdentifier(), related.getTitle()),
+        EmlDiff::project);
+    differ.list(path + ".awards", before.getAwards(), after.getAwards(), EmlDiff::awardKey);
+    differ.value(path + ".funding", before.getFunding(), after.getFunding());
+    differ.value(
+        path + ".studyAreaDescription",
+        before.getStudyAreaDescription(),
+        after.getStudyAreaDescription());
+    differ.value(
+        path + ".designDescription", before.getDesignDescription(), after.getDesignDescription());
+  }
+
+  /**
+   * @return the ORCID, the first email or the name of the agent prefixed by the kind of key, null for anonymous
+   *     agents
+   */
+  static String agentKey(Agent agent) {
+    if (agent.getUserIds() != null) {
+      for (UserId userId : agent.getUserIds()) {
+        if (userId != null
+            && StringUtils.containsIgnoreCase(userId.getDirectory(), "orcid")
+            && StringUtils.isNotBlank(userId.getIdentifier())) {
+          // accept both the plain ORCID and its URL
+          String orcid = userId.getIdentifier().trim();
+          return "orcid:" + StringUtils.substringAfterLast("/" + orcid, "/");
+        }
+      }
+    }
+    if (agent.getEmail() != null) {
+      for (String email : agent.getEmail()) {
+        if (StringUtils.isNotBlank(email)) {
+          return "email:" + email.trim().toLowerCase();
+        }
+      }
+    }
+    if (agent.getFullName() == null && agent.getOrganisation() == null) {
+      return null;
+    }
+    return "name:" + StringUtils.joinWith("|", agent.getFullName(), agent.getOrganisation());
+  }
+
+  private static String citationKey(Citation citation) {
+    return StringUtils.defaultIfBlank(citation.getIdentifier(), citation.getCitation());
+  }
+
+  private static String awardKey(ProjectAward award) {
+    return StringUtils.defaultIfBlank(award.getAwardNumber(), award.getTitle());
+  }
+
+  private static String geospatialKey(GeospatialCoverage coverage) {
+    return coverage.getBoundingCoordinates() == null
+        ? coverage.getDescription()
+        : coverage.getBoundingCoordinates().toStringWMS();
+  }
+
+  private static String temporalKey(TemporalCoverage coverage) {
+    return coverage.getType() == null ? null : coverage.getType().name();
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.fingerprint;
+
+import org.gbif.metadata.common.fingerprint.Fingerprint;
+import org.gbif.metadata.common.fingerprint.Fingerprinter;
+import org.gbif.metadata.eml.ipt.model.Address;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.BBox;
+import org.gbif.metadata.eml.ipt.model.Citation;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.GeospatialCoverage;
+import org.gbif.metadata.eml.ipt.model.Point;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.metadata.eml.ipt.model.ProjectAward;
+import org.gbif.metadata.eml.ipt.model.StudyAreaDescription;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Canonical fingerprint of the content of an {@link Eml}, e.g. to skip documents that did not change. It is computed
+ * on every call, keep the result to compare it with the fingerprint of a later version of the document.
+ * <p>
+ * The volatile dateStamp is ignored, so is the order of coverages, keywords, identifiers and other lists whose order
+ * has no meaning, as well as whitespace in the DocBook texts. Agents keep their order as it is the order of
+ * authorship, method steps as they are a sequence.
+ */
+public final class EmlFingerprint {
+
+  private EmlFingerprint() {}
+
+  public static Fingerprint of(Eml eml) {
+    Fingerprinter f = new Fingerprinter();
+    f.putText(eml.getTitle());
+    f.putText(eml.getShortName());
+    f.putString(eml.getGuid());
+    f.putString(eml.getLink());
+    f.putText(eml.getDescription());
+    f.putText(eml.getAdditionalInfo());
+    f.putUnorderedStrings(eml.getAlternateIdentifiers());
+    putAgents(f, eml.getAssociatedParties());
+    f.putUnordered(
+        eml.getBibliographicCitationSet() == null ? null : eml.getBibliographicCitations(),
+        EmlFingerprint::putCitation);
+    f.putOrdered(
+        eml.getCitation() == null ? null : Collections.singletonList(eml.getCitation()),
+        EmlFingerprint::putCitation);
+    f.putString(eml.getDistributionUrl());
+    f.putString(eml.getDistributionDownloadUrl());
+    f.putDecimal(eml.getEmlVersion());
+    f.putDecimal(eml.getPreviousEmlVersion());
+    f.putUnordered(eml.getGeospatialCoverages(), EmlFingerprint::putGeospatialCoverage);
+    f.putString(eml.getHierarchyLevel());
+    f.putText(eml.getIntellectualRights());
+    f.putUnordered(
+        eml.getJgtiCuratorialUnits(),
+        (e, unit) -> {
+          e.putString(unit.getUnitType());
+          e.putInt(unit.getRangeStart());
+          e.putInt(unit.getRangeEnd());
+          e.putInt(unit.getRangeMean());
+          e.putInt(unit.getUncertaintyMeasure());
+        });
+    f.putUnordered(
+        eml.getKeywords(),
+        (e, keywords) ->
+            e.putString(keywords.getKeywordThesaurus())
+                .putUnorderedStrings(keywords.getKeywords()));
+    f.putString(eml.getLanguage());
+    f.putString(eml.getLogoUrl());
+    f.putString(eml.getMetadataLanguage());
+    if (eml.getMetadataLocale() == null) {
+      f.putString(null);
+    } else {
+      f.putString(eml.getMetadataLocale().getLanguage());
+      f.putString(eml.getMetadataLocale().getCountry());
+      f.putString(eml.getMetadataLocale().getCharset());
+    }
+    f.putUnordered(
+        eml.getCollections(),
+        (e, collection) ->
+            e.putString(collection.getCollectionName())
+                .putString(collection.getCollectionId())
+                .putString(collection.getParentCollectionId()));
+    f.putUnordered(
+        eml.getPhysicalData(),
+        (e, data) -> {
+          e.putString(data.getCharset())
+              .putString(data.getDistributionUrl())
+              .putString(data.getFormat())
+              .putString(data.getFormatVersion())
+              .putString(data.getName());
+          // only when computed, keeping the fingerprints of physical data without them
+          if (data.getSize() != null || data.getMd5() != null || data.getSha256() != null) {
+            e.putLong(data.getSize() == null ? -1 : data.getSize())
+                .putString(data.getMd5())
+                .putString(data.getSha256());
+          }
+        });
+    putProject(f, eml.getProject());
+    f.putDate(eml.getPubDate());
+    f.putText(eml.getPurpose());
+    f.putText(eml.getIntroduction());
+    f.putText(eml.getGettingStarted());
+    f.putText(eml.getAcknowledgements());
+    f.putText(eml.getUpdateFrequencyDescription());
+    f.putEnum(eml.getUpdateFrequency());
+    putAgents(f, eml.getCreators());
+    putAgents(f, eml.getMetadataProviders());
+    putAgents(f, eml.getContacts());
+    f.putString(eml.getPublisherId());
+    f.putString(eml.getPublisherOrganizationName());
+    f.putUnorderedStrings(eml.getSpecimenPreservationMethods());
+    f.putUnordered(eml.getTaxonomicCoverages(), EmlFingerprint::putTaxonomicCoverage);
+    f.putUnordered(eml.getTemporalCoverages(), EmlFingerprint::putTemporalCoverage);
+    f.putText(eml.getStudyExtent());
+    f.putText(eml.getSampleDescription());
+    f.putText(eml.getQualityControl());
+    f.putOrdered(eml.getMethodSteps(), Fingerprinter::putText);
+    return f.finish();
+  }
+
+  private static void putAgents(Fingerprinter f, List<Agent> agents) {
+    f.putOrdered(agents, EmlFingerprint::putAgent);
+  }
+
+  private static void putAgent(Fingerprinter f, Agent agent) {
+    f.putString(agent.getSalutation());
+    f.putString(agent.getFirstName());
+    f.putString(agent.getLastName());
+    f.putString(agent.getOrganisation());
+    f.putStrings(agent.getPosition());
+    Address address = agent.getAddress();
+    if (address == null) {
+      f.putString(null);
+    } else {
+      f.putStrings(address.getAddress());
+      f.putString(address.getCity());
+      f.putString(address.getProvince());
+      f.putString(address.getCountry());
+      f.putString(address.getPostalCode());
+    }
+    f.putUnorderedStrings(agent.getPhone());
+    f.putUnorderedStrings(agent.getEmail());
+    f.putString(agent.getRole());
+    f.putUnorderedStrings(agent.getHomepage());
+    f.putUnordered(
+        agent.getUserIds(),
+        (e, userId) -> e.putString(userId.getDirectory()).putString(userId.getIdentifier()));
+  }
+
+  private static void putCitation(Fingerprinter f, Citation citation) {
+    f.putText(citation.getCitation());
+    f.putString(citation.getIdentifier());
+  }
+
+  private static void putGeospatialCoverage(Fingerprinter f, GeospatialCoverage coverage) {
+    f.putText(coverage.getDescription());
+    f.putUnorderedStrings(coverage.getKeywords());
+    BBox bbox = coverage.getBoundingCoordinates();
+    putPoint(f, bbox == null ? null : bbox.getMin());
+    putPoint(f, bbox == null ? null : bbox.getMax());
+  }
+
+  private static void putPoint(Fingerprinter f, Point point) {
+    if (point == null) {
+      f.putDouble(null);
+    } else {
+      f.putDouble(point.getLatitude());
+      f.putDouble(point.getLongitude());
+    }
+  }
+
+  private static void putProject(Fingerprinter f, Project project) {
+    if (project == null) {
+      f.putString(null);
+      return;
+    }
+    f.putText(project.getTitle());
+    f.putString(project.getIdentifier());
+    f.putText(project.getDescription());
+    putAgents(f, project.getPersonnel());
+    f.putUnordered(project.getRelatedProjects(), EmlFingerprint::putProject);
+    f.putUnordered(project.getAwards(), EmlFingerprint::putAward);
+    f.putText(project.getFunding());
+    StudyAreaDescription studyArea = project.getStudyAreaDescription();
+    if (studyArea == null) {
+      f.putString(null);
+    } else {
+      f.putEnum(studyArea.getName());
+      f.putString(studyArea.getCitableClassificationSystem());
+      f.putText(studyArea.getDescriptorValue());
+    }
+    f.putText(project.getDesignDescription());
+  }
+
+  private static void putAward(Fingerprinter f, ProjectAward award) {
+    f.putString(award.getFunderName());
+    f.putUnorderedStrings(award.getFunderIdentifiers());
+    f.putString(award.getAwardNumber());
+    f.putText(award.getTitle());
+    f.putString(award.getAwardUrl());
+  }
+
+  private static void putTaxonomicCoverage(Fingerprinter f, TaxonomicCoverage coverage) {
+    f.putText(coverage.getDescription());
+    f.putUnordered(
+        coverage.getTaxonKeywords(),
+        (e, keyword) ->
+            e.putString(keyword.getScientificName())
+                .putString(keyword.getRank())
+                .putString(keyword.getCommonName()));
+  }
+
+  private static void putTemporalCoverage(Fingerprinter f, TemporalCoverage coverage) {
+    f.putDate(coverage.getStartDate());
+    f.putDate(coverage.getEndDate());
+    f.putString(coverage.getFormationPeriod());
+    f.putString(coverage.getLivingTimePeriod());
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.history;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Binary delta of two byte arrays as a sequence of copy and insert instructions, in the spirit of VCDIFF.
+ * <p>
+ * Every instruction starts with a varint of its length shifted left by one, the lowest bit set for a copy. A copy is
+ * followed by the varint offset in the source to copy from, an insert by the literal bytes. The delta starts with the
+ * varint length of the target.
+ * <p>
+ * Matches are found through a hash table of every {@link #WINDOW} bytes of the source, so encoding takes time linear
+ * in the size of source and target. Applying a delta is a sequence of array copies.
+ */
+final class ByteDelta {
+
+  /**
+   * Shortest match worth a copy instruction.
+   */
+  static final int WINDOW = 8;
+
+  private ByteDelta() {}
+
+  /**
+   * @return the delta that turns the source into the target
+   */
+  static byte[] encode(byte[] source, byte[] target) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+    writeVarint(out, target.length);
+
+    int[] index = index(source);
+    int mask = index.length - 1;
+    int pending = 0;
+    int i = 0;
+    while (i + WINDOW <= target.length) {
+      int candidate = index[hash(target, i) & mask] - 1;
+      if (candidate >= 0 && matches(source, candidate, target, i)) {
+        // extend the match backwards into pending literals and forwards as far as it goes
+        int start = candidate;
+        int at = i;
+        while (start > 0 && at > pending && source[start - 1] == target[at - 1]) {
+          start--;
+          at--;
+        }
+        int end = i + WINDOW;
+        int sourceEnd = candidate + WINDOW;
+        while (end < target.length
+            && sourceEnd < source.length
+            && source[sourceEnd] == target[end]) {
+          end++;
+          sourceEnd++;
+        }
+        insert(out, target, pending, at);
+        writeVarint(out, ((long) (end - at) << 1) | 1);
+        writeVarint(out, start);
+        i = end;
+        pending = end;
+      } else {
+        i++;
+      }
+    }
+    insert(out, target, pending, target.length);
+    return out.toByteArray();
+  }
+
+  /**
+   * @return the target restored from the source and the delta
+   * @throws IllegalArgumentException if the delta is corrupt or does not fit the source
+   */
+  static byte[] apply(byte[] source, byte[] delta) {
+    int[] pos = {0};
+    long length = readVarint(delta, pos);
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Corrupt delta");
+    }
+    byte[] target = new byte[(int) length];
+    int at = 0;
+    try {
+      while (pos[0] < delta.length) {
+        long instruction = readVarint(delta, pos);
+        int count = (int) (instruction >>> 1);
+        if ((instruction & 1) == 1) {
+          int offset = (int) readVarint(delta, pos);
+          System.arraycopy(source, offset, target, at, count);
+        } else {
+          System.arraycopy(delta, pos[0], target, at, count);
+          pos[0] += count;
+        }
+        at += count;
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Delta does not fit the source", e);
+    }
+    if (at != target.length) {
+      throw new IllegalArgumentException("Delta does not fit the source");
+    }
+    return target;
+  }
+
+  /**
+   * Hash table of the windows of the source, holding the offset plus one of the last window with each hash.
+   */
+  private static int[] index(byte[] source) {
+    int size = Integer.highestOneBit(Math.max(16, source.length) * 2 - 1);
+    int[] index = new int[size];
+    for (int i = 0; i + WINDOW <= source.length; i++) {
+      index[hash(source, i) & (size - 1)] = i + 1;
+    }
+    return index;
+  }
+
+  private static int hash(byte[] bytes, int from) {
+    int h = 0;
+    for (int i = from; i < from + WINDOW; i++) {
+      h = 31 * h + bytes[i];
+    }
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean matches(byte[] source, int from, byte[] target, int at) {
+    return Arrays.equals(source, from, from + WINDOW, target, at, at + WINDOW);
+  }
+
+  private static void insert(ByteArrayOutputStream out, byte[] target, int from, int to) {
+    if (to > from) {
+      writeVarint(out, (long) (to - from) << 1);
+      out.write(target, from, to - from);
+    }
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarint(byte[] bytes, int[] pos) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (pos[0] >= bytes.length) {
+        throw new IllegalArgumentException("Truncated delta");
+      }
+      byte b = bytes[pos[0]++];
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint in delta");
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.history;
+
+import org.gbif.metadata.eml.codec.EmlCodec;
+import org.gbif.metadata.eml.ipt.model.Eml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Version history of the {@link Eml} of a resource, holding its published versions keyed by
+ * {@link Eml#getEmlVersion()} in a fraction of the space of one eml.xml per version.
+ * <p>
+ * Versions are kept in their {@link EmlCodec} encoding. Every {@link #getCheckpointInterval() checkpoint interval}
+ * versions the full encoding is stored compressed, the versions in between only as a binary delta to their
+ * predecessor. Reading a version therefore applies at most interval - 1 deltas to the preceding checkpoint.
+ * Appending only encodes the new version and computes its delta, as the encoding of the latest version is kept.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class EmlHistory {
+
+  public static final int DEFAULT_CHECKPOINT_INTERVAL = 32;
+
+  private static final int FORMAT = 1;
+
+  private final int checkpointInterval;
+  private final List<BigDecimal> versions = new ArrayList<>();
+  // compressed full encoding at checkpoints, delta to the previous version otherwise
+  private final List<byte[]> entries = new ArrayList<>();
+  private byte[] latest;
+
+  public EmlHistory() {
+    this(DEFAULT_CHECKPOINT_INTERVAL);
+  }
+
+  /**
+   * @param checkpointInterval number of versions from one full encoding to the next, 1 to store every version in full
+   */
+  public EmlHistory(int checkpointInterval) {
+    if (checkpointInterval < 1) {
+      throw new IllegalArgumentException(
+          "Checkpoint interval must be positive: " + checkpointInterval);
+    }
+    this.checkpointInterval = checkpointInterval;
+  }
+
+  /**
+   * Appends a new version.
+   *
+   * @param eml the new version, whose eml version must follow the latest version held
+   * @throws IllegalArgumentException if the eml version is missing or does not follow the latest version
+   */
+  public void append(Eml eml) {
+    BigDecimal version = Objects.requireNonNull(eml.getEmlVersion(), "eml version");
+    if (!versions.isEmpty() && compare(version, latestVersion()) <= 0) {
+      throw new IllegalArgumentException(
+          "Version " + version + " is not after the latest version " + latestVersion());
+    }
+    ByteBuffer buffer = EmlCodec.encode(eml);
+    byte[] encoded = new byte[buffer.remaining()];
+    buffer.get(encoded);
+
+    if (versions.size() % checkpointInterval == 0) {
+      entries.add(deflate(encoded));
+    } else {
+      entries.add(ByteDelta.encode(latest, encoded));
+    }
+    versions.add(version);
+    latest = encoded;
+  }
+
+  /**
+   * Reconstructs a version.
+   *
+   * @param version the eml version
+   * @return a new instance of the version, or null if the version is not held
+   */
+  public Eml get(BigDecimal version) {
+    int index = indexOf(version);
+    return index < 0 ? null : EmlCodec.decode(ByteBuffer.wrap(encoded(index)));
+  }
+
+  /**
+   * @return a new instance of the latest version, or null if the history is empty
+   */
+  public Eml getLatest() {
+    return latest == null ? null : EmlCodec.decode(ByteBuffer.wrap(latest));
+  }
+
+  public boolean contains(BigDecimal version) {
+    return indexOf(version) >= 0;
+  }
+
+  /**
+   * @return the versions held, oldest first
+   */
+  public List<BigDecimal> getVersions() {
+    return Collections.unmodifiableList(versions);
+  }
+
+  /**
+   * @return the latest version, or null if the history is empty
+   */
+  public BigDecimal latestVersion() {
+    return versions.isEmpty() ? null : versions.get(versions.size() - 1);
+  }
+
+  public int size() {
+    return versions.size();
+  }
+
+  public int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  /**
+   * @return bytes used by the stored checkpoints and deltas, not counting the kept encoding of the latest version
+   */
+  public long getStoredSize() {
+    long size = 0;
+    for (byte[] entry : entries) {
+      size += entry.length;
+    }
+    return size;
+  }
+
+  /**
+   * Writes the history, which can be read back with {@link #readFrom(InputStream)}.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(FORMAT);
+    data.writeInt(checkpointInterval);
+    data.writeInt(versions.size());
+    for (int i = 0; i < versions.size(); i++) {
+      data.writeUTF(versions.get(i).toPlainString());
+      data.writeInt(entries.get(i).length);
+      data.write(entries.get(i));
+    }
+    data.flush();
+  }
+
+  /**
+   * Reads a history written by {@link #writeTo(OutputStream)}.
+   *
+   * @throws IOException if the stream cannot be read or holds no history
+   */
+  public static EmlHistory readFrom(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    int format = data.readInt();
+    if (format != FORMAT) {
+      throw new IOException("Unsupported eml history format " + format);
+    }
+    EmlHistory history = new EmlHistory(data.readInt());
+    int size = data.readInt();
+    for (int i = 0; i < size; i++) {
+      history.versions.add(new BigDecimal(data.readUTF()));
+      byte[] entry = new byte[data.readInt()];
+      data.readFully(entry);
+      history.entries.add(entry);
+    }
+    if (size > 0) {
+      try {
+        history.latest = history.encoded(size - 1);
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Corrupt eml history", e);
+      }
+    }
+    return history;
+  }
+
+  private int indexOf(BigDecimal version) {
+    int low = 0;
+    int high = versions.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(versions.get(mid), version);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Orders versions by major and then minor version, so that 1.10 follows 1.9 even though it is numerically smaller.
+   */
+  private static int compare(BigDecimal a, BigDecimal b) {
+    int major = a.toBigInteger().compareTo(b.toBigInteger());
+    return major != 0 ? major : minor(a).compareTo(minor(b));
+  }
+
+  private static BigDecimal minor(BigDecimal version) {
+    return version.remainder(BigDecimal.ONE).movePointRight(version.scale());
+  }
+
+  /**
+   * @return the encoding of the version at the index, restored from the preceding checkpoint
+   */
+  private byte[] encoded(int index) {
+    if (index == versions.size() - 1 && latest != null) {
+      return latest;
+    }
+    int checkpoint = index - index % checkpointInterval;
+    byte[] encoded = inflate(entries.get(checkpoint));
+    for (int i = checkpoint + 1; i <= index; i++) {
+      encoded = ByteDelta.apply(encoded, entries.get(i));
+    }
+    return encoded;
+  }
+
+  private static byte[] deflate(byte[] bytes) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+      byte[] chunk = new byte[4096];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static byte[] inflate(byte[] bytes) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+      byte[] chunk = new byte[4096];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(chunk);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new IllegalArgumentException("Truncated checkpoint");
+        }
+        out.write(chunk, 0, n);
+      }
+      return out.toByteArray();
+    } catch (DataFormatException e) {
+      throw new IllegalArgumentException("Corrupt checkpoint", e);
+    } finally {
+      inflater.end();
+    }
+  }
+}
@@ -0,0 +1,787 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.api.model.common.InterpretedEnum;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Endpoint;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.eml.DataDescription;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.model.registry.eml.RelatedProject;
+import org.gbif.api.model.registry.eml.SamplingDescription;
+import org.gbif.api.model.registry.eml.TaxonomicCoverages;
+import org.gbif.api.model.registry.eml.curatorial.CuratorialUnitComposite;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriod;
+import org.gbif.api.vocabulary.EndpointType;
+import org.gbif.api.vocabulary.License;
+import org.gbif.api.vocabulary.Rank;
+import org.gbif.metadata.common.util.DocBookConverter;
+import org.gbif.metadata.eml.EMLWriter;
+import org.gbif.metadata.eml.ipt.model.Address;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.BBox;
+import org.gbif.metadata.eml.ipt.model.BibliographicCitationSet;
+import org.gbif.metadata.eml.ipt.model.Collection;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.GeospatialCoverage;
+import org.gbif.metadata.eml.ipt.model.JGTICuratorialUnit;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.metadata.eml.ipt.model.ProjectAward;
+import org.gbif.metadata.eml.ipt.model.StudyAreaDescription;
+import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+import org.gbif.metadata.eml.ipt.model.UserId;
+import org.gbif.metadata.eml.ipt.util.DateUtils;
+
+import java.net.URI;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Maps a registry {@link Dataset} directly into an IPT {@link Eml}, without writing and parsing an
+ * EML document.
+ * <p>
+ * The result is the Eml {@link EmlFactory} builds from the document {@link EMLWriter} writes: the
+ * mapper reads the Dataset through the same {@link EMLWriter.EmlDatasetWrapper} the template uses
+ * and calls the setters the factory rules would call, with the values as they would be parsed from
+ * the written elements. Values the template leaves out, e.g. keyword collections without keywords
+ * or the salutation of contacts, are left out here too. The date stamp is the time of mapping.
+ * <p>
+ * Any change to the template or the factory rules must be reflected here, DatasetEmlMapperTest
+ * compares both paths on the test documents.
+ */
+public class DatasetEmlMapper {
+
+  private static final String YEAR_FORMAT = "yyyy";
+  private static final String DATE_FORMAT = "yyyy-MM-dd";
+  // year only dates carry one millisecond
+  private static final String MILLIS_FORMAT = "SSS";
+  // the template writes bounding coordinates with at most 6 decimals
+  private static final String COORDINATE_FORMAT = "0.######";
+
+  // user id directories known to the template, in the order they are tried
+  private static final String[] USER_ID_DIRECTORIES = {
+    "orcid.org/",
+    "researcherid.com/rid/",
+    "scholar.google.com/citations?user=",
+    "linkedin.com/profile/view?id=",
+    "linkedin.com/in/"
+  };
+
+  private static final String CC0_TEXT_START =
+      "To the extent possible under law, the publisher has waived all rights to these data and"
+          + " has dedicated them to the ";
+  private static final String CC0_TEXT_END =
+      ". Users may copy, modify, distribute and use the work, including for commercial purposes,"
+          + " without restriction.";
+  private static final String CC_BY_TEXT_START = "This work is licensed under a ";
+  private static final String CC_BY_TEXT_END = ".";
+
+  private DatasetEmlMapper() {
+    // static utility
+  }
+
+  /**
+   * Maps the Dataset into a new Eml, keeping the DOI among the alternate identifiers just like
+   * {@link EMLWriter#newInstance()} does.
+   *
+   * @param dataset the Dataset to map
+   * @return the Eml, never null
+   * @throws IllegalArgumentException if a DocBook field is not well-formed
+   */
+  public static Eml toEml(Dataset dataset) {
+    return toEml(dataset, false);
+  }
+
+  /**
+   * Maps the Dataset into a new Eml.
+   *
+   * @param dataset the Dataset to map
+   * @param useDoiAsIdentifier should the packageId be the dataset DOI, see
+   *     {@link EMLWriter#newInstance(boolean)}
+   * @return the Eml, never null
+   * @throws IllegalArgumentException if a DocBook field is not well-formed
+   */
+  public static Eml toEml(Dataset dataset, boolean useDoiAsIdentifier) {
+    EMLWriter.EmlDatasetWrapper wrapper = new EMLWriter.EmlDatasetWrapper(dataset);
+    Eml eml = new Eml();
+
+    if (dataset.getLanguage() != null) {
+      eml.setMetadataLanguage(dataset.getLanguage().getIso2LetterCode());
+    }
+    if (useDoiAsIdentifier && dataset.getDoi() != null) {
+      eml.setPackageId(dataset.getDoi().getDoiName());
+    } else {
+      eml.setPackageId(dataset.getKey() == null ? "" : dataset.getKey().toString());
+    }
+
+    mapDataset(dataset, wrapper, useDoiAsIdentifier, eml);
+    mapAdditionalMetadata(dataset, wrapper, eml);
+    return eml;
+  }
+
+  private static void mapDataset(
+      Dataset dataset, EMLWriter.EmlDatasetWrapper wrapper, boolean useDoiAsIdentifier, Eml eml) {
+    if (!useDoiAsIdentifier && dataset.getDoi() != null) {
+      eml.addAlternateIdentifier(text(dataset.getDoi().toString()));
+    }
+    if (dataset.getIdentifiers() != null) {
+      for (Identifier identifier : dataset.getIdentifiers()) {
+        if (StringUtils.isNotEmpty(identifier.getIdentifier())) {
+          eml.addAlternateIdentifier(text(identifier.getIdentifier()));
+        }
+      }
+    }
+    if (StringUtils.isNotEmpty(dataset.getShortName())) {
+      eml.setShortName(text(dataset.getShortName()));
+    }
+    eml.setTitle(text(dataset.getTitle()), null);
+
+    for (Contact creator : wrapper.getCreators()) {
+      eml.addCreator(toAgent(creator, false));
+    }
+    for (Contact provider : wrapper.getMetadataProviders()) {
+      eml.addMetadataProvider(toAgent(provider, false));
+    }
+    for (Contact party : wrapper.getAssociatedParties()) {
+      eml.addAssociatedParty(toAgent(party, true));
+    }
+
+    if (dataset.getPubDate() != null) {
+      eml.setPubDate(date(dataset.getPubDate()));
+    }
+    eml.setLanguage(
+        dataset.getDataLanguage() == null ? "en" : text(dataset.getDataLanguage().toString()));
+
+    if (!wrapper.getDescription().isEmpty()) {
+      eml.setDescription(
+          html(wrapper.getDocBookField("description"), "abstract"));
+    }
+
+    if (dataset.getKeywordCollections() != null) {
+      for (KeywordCollection collection : dataset.getKeywordCollections()) {
+        if (collection.getKeywords() != null && !collection.getKeywords().isEmpty()) {
+          KeywordSet keywordSet = new KeywordSet();
+          for (String keyword : collection.getKeywords()) {
+            keywordSet.add(text(keyword));
+          }
+          if (StringUtils.isNotEmpty(collection.getThesaurus())) {
+            keywordSet.setKeywordThesaurus(text(collection.getThesaurus()));
+          }
+          eml.addKeywordSet(keywordSet);
+        }
+      }
+    }
+
+    if (StringUtils.isNotEmpty(dataset.getAdditionalInfo())) {
+      eml.setAdditionalInfo(text(dataset.getAdditionalInfo()));
+    }
+    if (dataset.getLicense() != null) {
+      Element rights = intellectualRights(dataset.getLicense());
+      if (rights != null) {
+        eml.parseIntellectualRights(rights);
+      }
+    }
+    if (dataset.getHomepage() != null) {
+      eml.setDistribution(text(dataset.getHomepage().toString()), "information");
+    }
+    if (dataset.getEndpoints() != null) {
+      for (Endpoint endpoint : dataset.getEndpoints()) {
+        if (endpoint.getType() == EndpointType.DWC_ARCHIVE && endpoint.getUrl() != null) {
+          eml.setDistribution(text(endpoint.getUrl().toString()), "download");
+        }
+      }
+    }
+
+    mapGeographicCoverages(dataset, eml);
+    mapTemporalCoverages(wrapper, eml);
+    mapTaxonomicCoverages(dataset, eml);
+
+    if (StringUtils.isNotEmpty(dataset.getPurpose())) {
+      eml.setPurpose(html(wrapper.getDocBookField("purpose"), "purpose"));
+    }
+    if (StringUtils.isNotEmpty(dataset.getIntroduction())) {
+      eml.setIntroduction(
+          html(wrapper.getDocBookField("introduction"), "introduction"));
+    }
+    if (StringUtils.isNotEmpty(dataset.getGettingStarted())) {
+      eml.setGettingStarted(
+          html(wrapper.getDocBookField("gettingStarted"), "gettingStarted"));
+    }
+    if (StringUtils.isNotEmpty(dataset.getAcknowledgements())) {
+      eml.setAcknowledgements(
+          html(
+              wrapper.getDocBookField("acknowledgements"), "acknowledgements"));
+    }
+
+    String updateFrequency = updateFrequency(dataset);
+    if (!updateFrequency.isEmpty()) {
+      eml.setUpdateFrequencyDescription(text(dataset.getMaintenanceDescription()));
+      eml.setUpdateFrequency(updateFrequency);
+    }
+
+    for (Contact contact : wrapper.getContacts()) {
+      eml.addContact(toAgent(contact, false));
+    }
+
+    if (dataset.getPublishingOrganizationKey() != null
+        && dataset.getPublishingOrganizationName() != null) {
+      eml.setPublisher(
+          dataset.getPublishingOrganizationKey().toString(),
+          text(dataset.getPublishingOrganizationName()));
+    }
+
+    SamplingDescription sampling = dataset.getSamplingDescription();
+    if (sampling != null
+        && sampling.getMethodSteps() != null
+        && !sampling.getMethodSteps().isEmpty()) {
+      mapMethods(sampling, eml);
+    }
+
+    if (dataset.getProject() != null) {
+      eml.setProject(toProject(dataset.getProject()));
+    }
+  }
+
+  private static void mapGeographicCoverages(Dataset dataset, Eml eml) {
+    if (dataset.getGeographicCoverages() == null) {
+      return;
+    }
+    for (org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage coverage :
+        dataset.getGeographicCoverages()) {
+      GeospatialCoverage geo = new GeospatialCoverage();
+      geo.setDescription(
+          StringUtils.isNotEmpty(coverage.getDescription())
+              ? text(coverage.getDescription())
+              : "N/A");
+      BoundingBox box = coverage.getBoundingBox();
+      if (box != null) {
+        BBox bbox = new BBox();
+        bbox.setMinX(coordinate(box.getMinLongitude()));
+        bbox.setMaxX(coordinate(box.getMaxLongitude()));
+        bbox.setMaxY(coordinate(box.getMaxLatitude()));
+        bbox.setMinY(coordinate(box.getMinLatitude()));
+        geo.setBoundingCoordinates(bbox);
+      }
+      eml.addGeospatialCoverage(geo);
+    }
+  }
+
+  private static void mapTemporalCoverages(EMLWriter.EmlDatasetWrapper wrapper, Eml eml) {
+    for (org.gbif.api.model.registry.eml.temporal.TemporalCoverage coverage :
+        wrapper.getSingleDateAndDateRangeCoverages()) {
+      TemporalCoverage target = new TemporalCoverage();
+      if (coverage instanceof DateRange) {
+        DateRange range = (DateRange) coverage;
+        if (range.getStart() != null) {
+          target.setStartDate(date(range.getStart()));
+          if (range.getEnd() != null) {
+            target.setEndDate(date(range.getEnd()));
+          }
+        }
+      } else {
+        SingleDate single = (SingleDate) coverage;
+        if (single.getDate() != null) {
+          // a single date is parsed into both ends
+          target.setStartDate(date(single.getDate()));
+          target.setEndDate(date(single.getDate()));
+        }
+      }
+      eml.addTemporalCoverage(target);
+    }
+  }
+
+  private static void mapTaxonomicCoverages(Dataset dataset, Eml eml) {
+    if (dataset.getTaxonomicCoverages() == null) {
+      return;
+    }
+    for (TaxonomicCoverages coverages : dataset.getTaxonomicCoverages()) {
+      if (coverages.getCoverages() == null || coverages.getCoverages().isEmpty()) {
+        continue;
+      }
+      TaxonomicCoverage coverage = new TaxonomicCoverage();
+      if (StringUtils.isNotEmpty(coverages.getDescription())) {
+        coverage.setDescription(text(coverages.getDescription()));
+      }
+      for (org.gbif.api.model.registry.eml.TaxonomicCoverage taxon : coverages.getCoverages()) {
+        TaxonKeyword keyword = new TaxonKeyword();
+        if (taxon.getRank() != null) {
+          keyword.setRank(text(rank(taxon.getRank())));
+        }
+        keyword.setScientificName(text(taxon.getScientificName()));
+        if (StringUtils.isNotEmpty(taxon.getCommonName())) {
+          keyword.setCommonName(text(taxon.getCommonName()));
+        }
+        coverage.addTaxonKeyword(keyword);
+      }
+      eml.addTaxonomicCoverage(coverage);
+    }
+  }
+
+  private static void mapMethods(SamplingDescription sampling, Eml eml) {
+    for (String step : sampling.getMethodSteps()) {
+      eml.addMethodStep(text(step));
+    }
+    if (StringUtils.isNotEmpty(sampling.getStudyExtent())
+        && StringUtils.isNotEmpty(sampling.getSampling())) {
+      eml.setStudyExtent(text(sampling.getStudyExtent()));
+      eml.setSampleDescription(text(sampling.getSampling()));
+    }
+    if (StringUtils.isNotEmpty(sampling.getQualityControl())) {
+      eml.setQualityControl(text(sampling.getQualityControl()));
+    }
+  }
+
+  private static Project toProject(org.gbif.api.model.registry.eml.Project project) {
+    Project target = new Project();
+    if (StringUtils.isNotEmpty(project.getIdentifier())) {
+      target.setIdentifier(project.getIdentifier());
+    }
+    target.setTitle(text(project.getTitle()));
+    addPersonnel(target, project.getContacts());
+    target.setDescription(text(project.getAbstract()));
+    target.setFunding(text(project.getFunding()));
+    if (project.getAwards() != null) {
+      for (org.gbif.api.model.registry.eml.ProjectAward award : project.getAwards()) {
+        target.addAward(toAward(award));
+      }
+    }
+    if (StringUtils.isNotEmpty(project.getStudyAreaDescription())) {
+      StudyAreaDescription studyArea = new StudyAreaDescription();
+      studyArea.setName("generic");
+      studyArea.setCitableClassificationSystem("false");
+      studyArea.setDescriptorValue(text(project.getStudyAreaDescription()));
+      target.setStudyAreaDescription(studyArea);
+    }
+    if (StringUtils.isNotEmpty(project.getDesignDescription())) {
+      target.setDesignDescription(text(project.getDesignDescription()));
+    }
+    if (project.getRelatedProjects() != null) {
+      for (RelatedProject related : project.getRelatedProjects()) {
+        Project relatedProject = new Project();
+        if (StringUtils.isNotEmpty(related.getIdentifier())) {
+          relatedProject.setIdentifier(related.getIdentifier());
+        }
+        relatedProject.setTitle(text(related.getTitle()));
+        addPersonnel(relatedProject, related.getContacts());
+        if (StringUtils.isNotEmpty(related.getAbstract())) {
+          relatedProject.setDescription(text(related.getAbstract()));
+        }
+        target.addRelatedProject(relatedProject);
+      }
+    }
+    return target;
+  }
+
+  private static void addPersonnel(Project project, List<Contact> contacts) {
+    if (contacts != null) {
+      for (Contact contact : contacts) {
+        project.addProjectPersonnel(toAgent(contact, true));
+      }
+    }
+  }
+
+  private static ProjectAward toAward(org.gbif.api.model.registry.eml.ProjectAward award) {
+    ProjectAward target = new ProjectAward();
+    target.setFunderName(text(award.getFunderName()));
+    if (award.getFunderIdentifiers() != null) {
+      for (String funderIdentifier : award.getFunderIdentifiers()) {
+        if (StringUtils.isNotEmpty(funderIdentifier)) {
+          target.addFunderIdentifier(text(funderIdentifier));
+        }
+      }
+    }
+    if (StringUtils.isNotEmpty(award.getAwardNumber())) {
+      target.setAwardNumber(text(award.getAwardNumber()));
+    }
+    target.setTitle(text(award.getTitle()));
+    if (StringUtils.isNotEmpty(award.getAwardUrl())) {
+      target.setAwardUrl(text(award.getAwardUrl()));
+    }
+    return target;
+  }
+
+  private static void mapAdditionalMetadata(
+      Dataset dataset, EMLWriter.EmlDatasetWrapper wrapper, Eml eml) {
+    eml.setDateStamp(new Date());
+
+    org.gbif.api.model.registry.Citation citation = dataset.getCitation();
+    if (citation != null && StringUtils.isNotEmpty(citation.getText())) {
+      eml.setCitation(text(citation.getText()), identifier(citation));
+    }
+    if (dataset.getBibliographicCitations() != null
+        && !dataset.getBibliographicCitations().isEmpty()) {
+      BibliographicCitationSet citations = new BibliographicCitationSet();
+      for (org.gbif.api.model.registry.Citation bibliographicCitation :
+          dataset.getBibliographicCitations()) {
+        citations.add(citationText(bibliographicCitation), identifier(bibliographicCitation));
+      }
+      eml.setBibliographicCitationSet(citations);
+    }
+
+    if (dataset.getDataDescriptions() != null) {
+      for (DataDescription description : dataset.getDataDescriptions()) {
+        if (StringUtils.isNotEmpty(description.getName())
+            && StringUtils.isNotEmpty(description.getFormat())
+            && description.getUrl() != null) {
+          eml.addPhysicalData(toPhysicalData(description));
+        }
+      }
+    }
+
+    if (dataset.getLogoUrl() != null) {
+      eml.setLogoUrl(text(dataset.getLogoUrl().toString()));
+    }
+
+    List<org.gbif.api.model.registry.eml.Collection> collections = dataset.getCollections();
+    if (collections != null) {
+      for (org.gbif.api.model.registry.eml.Collection collection : collections) {
+        Collection target = new Collection();
+        if (StringUtils.isNotEmpty(collection.getParentIdentifier())) {
+          target.setParentCollectionId(text(collection.getParentIdentifier()));
+        }
+        if (StringUtils.isNotEmpty(collection.getIdentifier())) {
+          target.setCollectionId(text(collection.getIdentifier()));
+        }
+        target.setCollectionName(text(collection.getName()));
+        eml.addCollection(target);
+      }
+    }
+
+    // formation periods come before the preservation methods, living time periods after them
+    for (VerbatimTimePeriod period : wrapper.getFormationPeriods()) {
+      TemporalCoverage coverage = new TemporalCoverage();
+      coverage.setFormationPeriod(text(period.getPeriod()));
+      eml.addTemporalCoverage(coverage);
+    }
+    if (collections != null) {
+      for (org.gbif.api.model.registry.eml.Collection collection : collections) {
+        if (collection.getSpecimenPreservationMethod() != null) {
+          eml.addSpecimenPreservationMethod(
+              text(collection.getSpecimenPreservationMethod().toString()));
+        }
+      }
+    }
+    for (VerbatimTimePeriod period : wrapper.getLivingTimePeriods()) {
+      TemporalCoverage coverage = new TemporalCoverage();
+      coverage.setLivingTimePeriod(text(period.getPeriod()));
+      eml.addTemporalCoverage(coverage);
+    }
+
+    if (collections != null) {
+      for (org.gbif.api.model.registry.eml.Collection collection : collections) {
+        if (collection.getCuratorialUnits() != null) {
+          for (CuratorialUnitComposite unit : collection.getCuratorialUnits()) {
+            mapCuratorialUnit(unit, eml);
+          }
+        }
+      }
+    }
+  }
+
+  private static PhysicalData toPhysicalData(DataDescription description) {
+    PhysicalData data = new PhysicalData();
+    data.setName(text(description.getName()));
+    if (StringUtils.isNotEmpty(description.getCharset())) {
+      data.setCharset(text(description.getCharset()));
+    }
+    data.setFormat(text(description.getFormat()));
+    if (StringUtils.isNotEmpty(description.getFormatVersion())) {
+      data.setFormatVersion(text(description.getFormatVersion()));
+    }
+    data.setDistributionUrl(text(description.getUrl().toString()));
+    return data;
+  }
+
+  /**
+   * Adds the units the template writes for a curatorial unit: one for the count and one for the
+   * range, each only if it is set.
+   */
+  private static void mapCuratorialUnit(CuratorialUnitComposite unit, Eml eml) {
+    String type =
+        unit.getType() != null
+            ? unit.getType().toString()
+            : StringUtils.defaultString(unit.getTypeVerbatim());
+    if (unit.getCount() > 0) {
+      JGTICuratorialUnit count = new JGTICuratorialUnit();
+      count.setUnitType(text(type));
+      if (unit.getDeviation() > 0) {
+        count.setUncertaintyMeasure(unit.getDeviation());
+      }
+      count.setRangeMean(unit.getCount());
+      eml.addJgtiCuratorialUnit(count);
+    }
+    if (unit.getLower() > 0 || unit.getUpper() > 0) {
+      JGTICuratorialUnit range = new JGTICuratorialUnit();
+      range.setUnitType(text(type));
+      range.setRangeStart(unit.getLower());
+      range.setRangeEnd(unit.getUpper());
+      eml.addJgtiCuratorialUnit(range);
+    }
+  }
+
+  /**
+   * Creates the agent of a contact as written by the template. Only associated parties and project
+   * personnel have their role written.
+   */
+  private static Agent toAgent(Contact contact, boolean withRole) {
+    Agent agent = new Agent();
+    if (StringUtils.isNotEmpty(contact.computeCompleteName())) {
+      if (StringUtils.isNotEmpty(contact.getLastName())) {
+        if (StringUtils.isNotEmpty(contact.getFirstName())) {
+          agent.setFirstName(text(contact.getFirstName()));
+        }
+        agent.setLastName(text(contact.getLastName()));
+      } else {
+        // surName is mandatory in EML, the template falls back to the complete name
+        agent.setLastName(text(contact.computeCompleteName()));
+      }
+    }
+    if (StringUtils.isNotEmpty(contact.getOrganization())) {
+      agent.setOrganisation(text(contact.getOrganization()));
+    }
+    for (String position : nonEmpty(contact.getPosition())) {
+      agent.addPosition(text(position));
+    }
+    if (hasAddress(contact)) {
+      agent.setAddress(toAddress(contact));
+    }
+    for (String phone : nonEmpty(contact.getPhone())) {
+      agent.addPhone(text(phone));
+    }
+    for (String email : nonEmpty(contact.getEmail())) {
+      agent.addEmail(text(email));
+    }
+    if (contact.getHomepage() != null) {
+      for (URI homepage : contact.getHomepage()) {
+        if (homepage != null && !homepage.toString().isEmpty()) {
+          agent.addHomepage(text(homepage.toString()));
+        }
+      }
+    }
+    if (contact.getUserId() != null) {
+      for (String userId : contact.getUserId()) {
+        UserId target = toUserId(userId);
+        if (target != null) {
+          agent.addUserId(target);
+        }
+      }
+    }
+    if (withRole && contact.getType() != null) {
+      agent.setRole(text(contact.getType().toString()));
+    }
+    return agent;
+  }
+
+  private static boolean hasAddress(Contact contact) {
+    return (contact.getAddress() != null && !contact.getAddress().isEmpty())
+        || StringUtils.isNotEmpty(contact.getCity())
+        || StringUtils.isNotEmpty(contact.getProvince())
+        || StringUtils.isNotEmpty(contact.getPostalCode())
+        || contact.getCountry() != null;
+  }
+
+  private static Address toAddress(Contact contact) {
+    Address address = new Address();
+    for (String deliveryPoint : nonEmpty(contact.getAddress())) {
+      address.addAddress(text(deliveryPoint));
+    }
+    if (StringUtils.isNotEmpty(contact.getCity())) {
+      address.setCity(text(contact.getCity()));
+    }
+    if (StringUtils.isNotEmpty(contact.getProvince())) {
+      address.setProvince(text(contact.getProvince()));
+    }
+    if (StringUtils.isNotEmpty(contact.getPostalCode())) {
+      address.setPostalCode(text(contact.getPostalCode()));
+    }
+    if (contact.getCountry() != null) {
+      address.setCountry(text(contact.getCountry().toString()));
+    }
+    return address;
+  }
+
+  /**
+   * Splits a user id into directory and id like the template does, e.g. https://orcid.org/ and
+   * 0000-0002-1825-0097.
+   *
+   * @return the user id, or null for ids of unknown directories which the template leaves out
+   */
+  private static UserId toUserId(String userId) {
+    if (StringUtils.isEmpty(userId)) {
+      return null;
+    }
+    String lowerCase = userId.toLowerCase();
+    for (String directory : USER_ID_DIRECTORIES) {
+      if (lowerCase.contains(directory)) {
+        String id = StringUtils.substringAfter(userId, directory);
+        String prefix = id.isEmpty() ? "" : StringUtils.substringBefore(userId, id);
+        return prefix.isEmpty() ? null : new UserId(prefix, text(id));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Creates the para element of the intellectual rights the template writes for the license.
+   *
+   * @return the para element, or null for licenses the template writes no statement for
+   */
+  private static Element intellectualRights(License license) {
+    String start;
+    String title;
+    String end;
+    switch (license) {
+      case CC0_1_0:
+        start = CC0_TEXT_START;
+        title = license.getLicenseTitle();
+        end = CC0_TEXT_END;
+        break;
+      case CC_BY_4_0:
+      case CC_BY_NC_4_0:
+        start = CC_BY_TEXT_START;
+        title = license.getLicenseTitle() + " License";
+        end = CC_BY_TEXT_END;
+        break;
+      default:
+        return null;
+    }
+    try {
+      Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+      Element para = doc.createElement("para");
+      Element link = doc.createElement("ulink");
+      link.setAttribute("url", license.getLicenseUrl());
+      Element citeTitle = doc.createElement("citetitle");
+      citeTitle.setTextContent(title);
+      link.appendChild(citeTitle);
+      para.appendChild(doc.createTextNode(start));
+      para.appendChild(link);
+      para.appendChild(doc.createTextNode(end));
+      doc.appendChild(para);
+      return para;
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException("No XML document builder available", e);
+    }
+  }
+
+  /**
+   * @return the EML value of the update frequency as written by the template, empty if none
+   */
+  private static String updateFrequency(Dataset dataset) {
+    if (dataset.getMaintenanceUpdateFrequency() == null) {
+      return "";
+    }
+    switch (dataset.getMaintenanceUpdateFrequency().name()) {
+      case "AS_NEEDED":
+        return "asNeeded";
+      case "NOT_PLANNED":
+        return "notPlanned";
+      case "OTHER_MAINTENANCE_PERIOD":
+        return "otherMaintenancePeriod";
+      default:
+        return dataset.getMaintenanceUpdateFrequency().name().toLowerCase().trim();
+    }
+  }
+
+  /**
+   * @return the rank as written by the template: the capitalized interpreted rank, otherwise the
+   *     verbatim one
+   */
+  private static String rank(InterpretedEnum<String, Rank> rank) {
+    if (rank.getInterpreted() == null) {
+      return StringUtils.defaultString(rank.getVerbatim());
+    }
+    String[] words = rank.getInterpreted().name().toLowerCase().replace('_', ' ').split(" ", -1);
+    for (int i = 0; i < words.length; i++) {
+      words[i] = StringUtils.capitalize(words[i]);
+    }
+    return String.join(" ", words);
+  }
+
+  private static String citationText(org.gbif.api.model.registry.Citation citation) {
+    if (StringUtils.isNotEmpty(citation.getIdentifier()) && citation.getText() == null) {
+      return text(citation.getIdentifier());
+    }
+    return text(citation.getText());
+  }
+
+  private static String identifier(org.gbif.api.model.registry.Citation citation) {
+    return StringUtils.isNotEmpty(citation.getIdentifier()) ? citation.getIdentifier() : null;
+  }
+
+  private static Iterable<String> nonEmpty(List<String> values) {
+    List<String> result = new ArrayList<>();
+    if (values != null) {
+      for (String value : values) {
+        if (StringUtils.isNotEmpty(value)) {
+          result.add(value);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the value as the factory reads it from an element written with the value or nothing
+   */
+  // the factory trims the HTML it converts from DocBook
+  private static String html(String docBook, String wrapperElement) {
+    return DocBookConverter.docBookToHtml(docBook, wrapperElement).trim();
+  }
+
+  private static String text(String value) {
+    return value == null ? "" : value.trim();
+  }
+
+  /**
+   * @return the date as parsed from the calendar date the template writes, with year only dates
+   *     flagged by one millisecond
+   */
+  private static Date date(Date date) {
+    boolean yearOnly = "001".equals(new SimpleDateFormat(MILLIS_FORMAT).format(date));
+    String calendarDate = new SimpleDateFormat(yearOnly ? YEAR_FORMAT : DATE_FORMAT).format(date);
+    try {
+      return DateUtils.calendarDate(calendarDate);
+    } catch (ParseException e) {
+      throw new IllegalStateException("Unparsable calendar date " + calendarDate, e);
+    }
+  }
+
+  private static String coordinate(double value) {
+    DecimalFormat format =
+        new DecimalFormat(COORDINATE_FORMAT, new DecimalFormatSymbols(Locale.ROOT));
+    return format.format(value);
+  }
+}
@@ -0,0 +1,649 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.api.model.common.InterpretedEnum;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.eml.DataDescription;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.model.registry.eml.ProjectAward;
+import org.gbif.api.model.registry.eml.RelatedProject;
+import org.gbif.api.model.registry.eml.SamplingDescription;
+import org.gbif.api.model.registry.eml.TaxonomicCoverages;
+import org.gbif.api.model.registry.eml.curatorial.CuratorialUnitComposite;
+import org.gbif.api.model.registry.eml.geospatial.BoundingBox;
+import org.gbif.api.model.registry.eml.temporal.DateRange;
+import org.gbif.api.model.registry.eml.temporal.SingleDate;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriod;
+import org.gbif.api.model.registry.eml.temporal.VerbatimTimePeriodType;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.api.vocabulary.Language;
+import org.gbif.api.vocabulary.PreservationMethodType;
+import org.gbif.api.vocabulary.Rank;
+import org.gbif.metadata.common.parse.DatasetWrapper;
+import org.gbif.metadata.common.parse.ParagraphContainer;
+import org.gbif.metadata.common.parse.converter.GreedyUriConverter;
+import org.gbif.metadata.common.parse.converter.LanguageTypeConverter;
+import org.gbif.metadata.common.util.DocBookConverter;
+import org.gbif.metadata.eml.ipt.model.Address;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.BBox;
+import org.gbif.metadata.eml.ipt.model.Citation;
+import org.gbif.metadata.eml.ipt.model.Collection;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.GeospatialCoverage;
+import org.gbif.metadata.eml.ipt.model.JGTICuratorialUnit;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.metadata.eml.ipt.model.StudyAreaDescription;
+import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+import org.gbif.metadata.eml.ipt.model.UserId;
+import org.gbif.metadata.eml.parse.DatasetEmlParser;
+import org.gbif.metadata.eml.parse.EMLRuleSet;
+import org.gbif.metadata.eml.parse.converter.ContactTypeConverter;
+import org.gbif.metadata.eml.parse.converter.CountryTypeConverter;
+import org.gbif.metadata.eml.parse.converter.DateConverter;
+import org.gbif.metadata.eml.parse.converter.IdentifierTypeConverter;
+import org.gbif.metadata.eml.parse.converter.MaintenanceUpdateFrequencyConverter;
+import org.gbif.metadata.eml.parse.converter.PreservationMethodTypeConverter;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Maps an IPT {@link Eml} directly into the registry {@link Dataset}, without writing and parsing
+ * an EML document.
+ * <p>
+ * The result is the Dataset {@link DatasetEmlParser} builds from the document {@link IptEmlWriter}
+ * writes: the mapper feeds a {@link DatasetWrapper} with the values the {@link EMLRuleSet} rules
+ * would read, converted by the same converters, and applies the same post processing. Only values
+ * of the written document are taken into account, e.g. keyword sets without a thesaurus or
+ * taxonomic coverages without keywords are left out just like the template leaves them out.
+ * The abstract is trimmed, while the parser keeps the whitespace the template lays out around it.
+ * <p>
+ * Any change to the template or the rules must be reflected here, EmlDatasetMapperTest compares
+ * both paths on the test documents.
+ */
+public class EmlDatasetMapper {
+
+  private static final String YEAR_FORMAT = "yyyy";
+  private static final String DATE_FORMAT = "yyyy-MM-dd";
+  // year only dates carry one millisecond
+  private static final String MILLIS_FORMAT = "SSS";
+  // the template writes bounding coordinates with at most 6 decimals
+  private static final String COORDINATE_FORMAT = "0.######";
+
+  private static final GreedyUriConverter URI_CONVERTER = new GreedyUriConverter();
+  private static final LanguageTypeConverter LANGUAGE_CONVERTER = new LanguageTypeConverter();
+  private static final IdentifierTypeConverter IDENTIFIER_TYPE_CONVERTER =
+      new IdentifierTypeConverter(IdentifierType.UNKNOWN);
+  private static final DateConverter DATE_CONVERTER = new DateConverter();
+  private static final CountryTypeConverter COUNTRY_CONVERTER = new CountryTypeConverter();
+  private static final ContactTypeConverter CONTACT_TYPE_CONVERTER =
+      new ContactTypeConverter(ContactType.ADMINISTRATIVE_POINT_OF_CONTACT);
+  private static final PreservationMethodTypeConverter PRESERVATION_METHOD_CONVERTER =
+      new PreservationMethodTypeConverter(PreservationMethodType.OTHER);
+  private static final MaintenanceUpdateFrequencyConverter FREQUENCY_CONVERTER =
+      new MaintenanceUpdateFrequencyConverter();
+
+  private EmlDatasetMapper() {
+    // static utility
+  }
+
+  /**
+   * Maps the IPT Eml into a new Dataset.
+   *
+   * @param eml the Eml to map
+   * @return the Dataset, never null
+   * @throws IllegalArgumentException if a DocBook field is not well-formed
+   */
+  public static Dataset toDataset(Eml eml) {
+    DatasetWrapper wrapper = new DatasetWrapper();
+
+    if (eml.getMetadataLanguage() != null) {
+      wrapper.setLanguage(LANGUAGE_CONVERTER.convert(Language.class, eml.getMetadataLanguage()));
+    }
+    wrapper.setPackageId(eml.getPackageId());
+
+    mapDataset(eml, wrapper);
+    if (hasAdditionalMetadata(eml)) {
+      mapAdditionalMetadata(eml, wrapper);
+    }
+
+    wrapper.postProcess();
+    return wrapper.getTarget();
+  }
+
+  private static void mapDataset(Eml eml, DatasetWrapper wrapper) {
+    for (String alternateIdentifier : eml.getAlternateIdentifiers()) {
+      Identifier identifier = new Identifier();
+      identifier.setIdentifier(text(alternateIdentifier));
+      identifier.setType(
+          IDENTIFIER_TYPE_CONVERTER.convert(IdentifierType.class, text(alternateIdentifier)));
+      wrapper.addIdentifier(identifier);
+    }
+    if (StringUtils.isNotEmpty(eml.getShortName())) {
+      wrapper.setShortName(text(eml.getShortName()));
+    }
+    if (StringUtils.isNotEmpty(eml.getTitle())) {
+      wrapper.setTitle(text(eml.getTitle()));
+    }
+
+    for (Agent creator : eml.getCreators()) {
+      wrapper.addPreferredOriginatorContact(toContact(creator, false));
+    }
+    for (Agent provider : eml.getMetadataProviders()) {
+      wrapper.addPreferredMetadataContact(toContact(provider, false));
+    }
+    for (Agent party : eml.getAssociatedParties()) {
+      wrapper.addContact(toContact(party, true));
+    }
+
+    wrapper.setPubDateAsString(eml.getPubDate() == null ? "" : calendarDate(eml.getPubDate()));
+    wrapper.setDataLanguage(
+        LANGUAGE_CONVERTER.convert(
+            Language.class, eml.getLanguage() == null ? "en" : text(eml.getLanguage())));
+
+    if (StringUtils.isNotEmpty(eml.getAbstract())) {
+      wrapper.setDescription(
+          trim(DocBookConverter.docBookToHtml(eml.getDocBookField("description"), "abstract")));
+    }
+
+    for (KeywordSet keywordSet : eml.getKeywords()) {
+      if (StringUtils.isNotEmpty(keywordSet.getKeywordThesaurus())) {
+        KeywordCollection collection = new KeywordCollection();
+        for (String keyword : keywordSet.getKeywords()) {
+          collection.addKeyword(text(keyword));
+        }
+        collection.setThesaurus(text(keywordSet.getKeywordThesaurus()));
+        wrapper.addKeywordCollection(collection);
+      }
+    }
+
+    if (eml.getAdditionalInfo() != null) {
+      wrapper.setAdditionalInfo(text(eml.getAdditionalInfo()));
+    }
+    if (eml.getIntellectualRightsXml() != null) {
+      wrapper.setLicense(eml.parseLicenseUrl(), trim(eml.parseLicenseTitle()));
+    }
+    if (eml.getDistributionUrl() != null) {
+      wrapper.setDistribution(uri(eml.getDistributionUrl()), "information");
+    }
+
+    mapGeographicCoverages(eml, wrapper);
+    mapTemporalCoverages(eml, wrapper);
+    mapTaxonomicCoverages(eml, wrapper);
+
+    if (StringUtils.isNotEmpty(eml.getPurpose())) {
+      wrapper.setPurpose(DocBookConverter.docBookToHtml(eml.getDocBookField("purpose"), "purpose"));
+    }
+    if (StringUtils.isNotEmpty(eml.getIntroduction())) {
+      wrapper.setIntroduction(
+          DocBookConverter.docBookToHtml(eml.getDocBookField("introduction"), "introduction"));
+    }
+    if (StringUtils.isNotEmpty(eml.getGettingStarted())) {
+      wrapper.setGettingStarted(
+          DocBookConverter.docBookToHtml(
+              eml.getDocBookField("gettingStarted"), "gettingStarted"));
+    }
+    if (StringUtils.isNotEmpty(eml.getAcknowledgements())) {
+      wrapper.setAcknowledgements(
+          DocBookConverter.docBookToHtml(
+              eml.getDocBookField("acknowledgements"), "acknowledgements"));
+    }
+
+    if (eml.getUpdateFrequency() != null) {
+      wrapper.setMaintenanceDescription(text(eml.getUpdateFrequencyDescription()));
+      wrapper.setMaintenanceUpdateFrequency(
+          FREQUENCY_CONVERTER.convert(
+              org.gbif.api.vocabulary.MaintenanceUpdateFrequency.class,
+              text(eml.getUpdateFrequency().getIdentifier())));
+    }
+
+    for (Agent contact : eml.getContacts()) {
+      wrapper.addPreferredAdministrativeContact(toContact(contact, false));
+    }
+
+    if (eml.getPublisherId() != null && eml.getPublisherOrganizationName() != null) {
+      wrapper.setPublisher(eml.getPublisherId(), text(eml.getPublisherOrganizationName()));
+    }
+
+    if (!eml.getMethodSteps().isEmpty()) {
+      wrapper.setSamplingDescription(toSamplingDescription(eml, wrapper));
+    }
+
+    Project project = eml.getProject();
+    if (project != null && StringUtils.isNotEmpty(project.getTitle())) {
+      wrapper.setProject(toProject(project));
+    }
+  }
+
+  private static void mapGeographicCoverages(Eml eml, DatasetWrapper wrapper) {
+    for (GeospatialCoverage coverage : eml.getGeospatialCoverages()) {
+      org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage geo =
+          new org.gbif.api.model.registry.eml.geospatial.GeospatialCoverage();
+      geo.setDescription(
+          StringUtils.isNotEmpty(coverage.getDescription())
+              ? text(coverage.getDescription())
+              : "N/A");
+      BBox bbox = coverage.getBoundingCoordinates();
+      if (bbox != null && bbox.getMin() != null && bbox.getMax() != null) {
+        BoundingBox box = new BoundingBox();
+        if (bbox.getMin().getLongitude() != null) {
+          box.setMinLongitude(coordinate(bbox.getMin().getLongitude()));
+        }
+        if (bbox.getMax().getLongitude() != null) {
+          box.setMaxLongitude(coordinate(bbox.getMax().getLongitude()));
+        }
+        if (bbox.getMax().getLatitude() != null) {
+          box.setMaxLatitude(coordinate(bbox.getMax().getLatitude()));
+        }
+        if (bbox.getMin().getLatitude() != null) {
+          box.setMinLatitude(coordinate(bbox.getMin().getLatitude()));
+        }
+        geo.setBoundingBox(box);
+      }
+      wrapper.addGeographicCoverage(geo);
+    }
+  }
+
+  private static void mapTemporalCoverages(Eml eml, DatasetWrapper wrapper) {
+    for (TemporalCoverage coverage : eml.getTemporalCoverages()) {
+      if (coverage.getStartDate() != null) {
+        if (coverage.getEndDate() != null) {
+          DateRange range = new DateRange();
+          range.setStart(date(coverage.getStartDate()));
+          range.setEnd(date(coverage.getEndDate()));
+          wrapper.addTemporalCoverage(range);
+        } else {
+          SingleDate single = new SingleDate();
+          single.setDate(date(coverage.getStartDate()));
+          wrapper.addTemporalCoverage(single);
+        }
+      }
+    }
+  }
+
+  private static void mapTaxonomicCoverages(Eml eml, DatasetWrapper wrapper) {
+    for (TaxonomicCoverage coverage : eml.getTaxonomicCoverages()) {
+      if (coverage.getTaxonKeywords() == null || coverage.getTaxonKeywords().isEmpty()) {
+        continue;
+      }
+      TaxonomicCoverages coverages = new TaxonomicCoverages();
+      if (StringUtils.isNotEmpty(coverage.getDescription())) {
+        coverages.setDescription(text(coverage.getDescription()));
+      }
+      for (TaxonKeyword keyword : coverage.getTaxonKeywords()) {
+        org.gbif.api.model.registry.eml.TaxonomicCoverage taxon =
+            new org.gbif.api.model.registry.eml.TaxonomicCoverage();
+        if (StringUtils.isNotEmpty(keyword.getRank())) {
+          InterpretedEnum<String, Rank> rank = new InterpretedEnum<>();
+          rank.setVerbatim(text(keyword.getRank()));
+          taxon.setRank(rank);
+        }
+        taxon.setScientificName(text(keyword.getScientificName()));
+        if (StringUtils.isNotEmpty(keyword.getCommonName())) {
+          taxon.setCommonName(text(keyword.getCommonName()));
+        }
+        coverages.addCoverages(taxon);
+      }
+      wrapper.addTaxonomicCoverages(coverages);
+    }
+  }
+
+  private static SamplingDescription toSamplingDescription(Eml eml, DatasetWrapper wrapper) {
+    SamplingDescription sampling = new SamplingDescription();
+    // the rules set the description on the dataset before adding any method step to it
+    wrapper.setSamplingDescription(sampling);
+    for (String step : eml.getMethodSteps()) {
+      ParagraphContainer paragraphs = new ParagraphContainer();
+      paragraphs.appendParagraph(text(step));
+      wrapper.addMethodStep(paragraphs);
+    }
+    if (StringUtils.isNotEmpty(eml.getStudyExtent())
+        && StringUtils.isNotEmpty(eml.getSampleDescription())) {
+      sampling.setStudyExtent(text(eml.getStudyExtent()));
+      sampling.setSampling(text(eml.getSampleDescription()));
+    }
+    if (StringUtils.isNotEmpty(eml.getQualityControl())) {
+      sampling.setQualityControl(text(eml.getQualityControl()));
+    }
+    return sampling;
+  }
+
+  private static org.gbif.api.model.registry.eml.Project toProject(Project project) {
+    org.gbif.api.model.registry.eml.Project target = new org.gbif.api.model.registry.eml.Project();
+    if (StringUtils.isNotEmpty(project.getIdentifier())) {
+      target.setIdentifier(project.getIdentifier());
+    }
+    target.setTitle(text(project.getTitle()));
+    if (project.getPersonnel() != null) {
+      for (Agent personnel : project.getPersonnel()) {
+        target.addContact(toPersonnel(personnel));
+      }
+    }
+    if (StringUtils.isNotEmpty(project.getDescription())) {
+      target.setAbstract(text(project.getDescription()));
+    }
+    if (StringUtils.isNotEmpty(project.getFunding())) {
+      target.setFunding(text(project.getFunding()));
+    }
+    if (project.getAwards() != null) {
+      for (org.gbif.metadata.eml.ipt.model.ProjectAward award : project.getAwards()) {
+        target.addAward(toAward(award));
+      }
+    }
+    StudyAreaDescription studyArea = project.getStudyAreaDescription();
+    if (studyArea != null && StringUtils.isNotEmpty(studyArea.getDescriptorValue())) {
+      target.setStudyAreaDescription(text(studyArea.getDescriptorValue()));
+    }
+    if (StringUtils.isNotEmpty(project.getDesignDescription())) {
+      target.setDesignDescription(text(project.getDesignDescription()));
+    }
+    if (project.getRelatedProjects() != null) {
+      for (Project related : project.getRelatedProjects()) {
+        RelatedProject relatedProject = new RelatedProject();
+        if (StringUtils.isNotEmpty(related.getIdentifier())) {
+          relatedProject.setIdentifier(related.getIdentifier());
+        }
+        relatedProject.setTitle(text(related.getTitle()));
+        if (related.getPersonnel() != null) {
+          for (Agent personnel : related.getPersonnel()) {
+            relatedProject.addContact(toPersonnel(personnel));
+          }
+        }
+        target.addRelatedProject(relatedProject);
+      }
+    }
+    return target;
+  }
+
+  private static ProjectAward toAward(org.gbif.metadata.eml.ipt.model.ProjectAward award) {
+    ProjectAward target = new ProjectAward();
+    target.setFunderName(text(award.getFunderName()));
+    if (award.getFunderIdentifiers() != null) {
+      for (String funderIdentifier : award.getFunderIdentifiers()) {
+        if (StringUtils.isNotEmpty(funderIdentifier)) {
+          target.addFunderIdentifier(text(funderIdentifier));
+        }
+      }
+    }
+    if (StringUtils.isNotEmpty(award.getAwardNumber())) {
+      target.setAwardNumber(text(award.getAwardNumber()));
+    }
+    target.setTitle(text(award.getTitle()));
+    if (StringUtils.isNotEmpty(award.getAwardUrl())) {
+      target.setAwardUrl(text(award.getAwardUrl()));
+    }
+    return target;
+  }
+
+  private static boolean hasAdditionalMetadata(Eml eml) {
+    return eml.getCitation() != null
+        || !eml.getBibliographicCitations().isEmpty()
+        || eml.getMetadataLanguage() != null
+        || eml.getHierarchyLevel() != null
+        || !eml.getPhysicalData().isEmpty()
+        || !eml.getTemporalCoverages().isEmpty()
+        || eml.getLogoUrl() != null
+        || eml.getEmlVersion().compareTo(BigDecimal.ONE) > 0;
+  }
+
+  private static void mapAdditionalMetadata(Eml eml, DatasetWrapper wrapper) {
+    Citation citation = eml.getCitation();
+    if (citation != null && StringUtils.isNotEmpty(citation.getCitation())) {
+      wrapper.setCitation(toCitation(citation));
+    }
+    for (Citation bibliographicCitation : eml.getBibliographicCitations()) {
+      wrapper.addBibliographicCitation(toCitation(bibliographicCitation));
+    }
+
+    for (PhysicalData data : eml.getPhysicalData()) {
+      if (StringUtils.isNotEmpty(data.getName())
+          && StringUtils.isNotEmpty(data.getFormat())
+          && StringUtils.isNotEmpty(data.getDistributionUrl())) {
+        DataDescription description = new DataDescription();
+        description.setName(text(data.getName()));
+        if (StringUtils.isNotEmpty(data.getCharset())) {
+          description.setCharset(text(data.getCharset()));
+        }
+        description.setFormat(text(data.getFormat()));
+        if (StringUtils.isNotEmpty(data.getFormatVersion())) {
+          description.setFormatVersion(text(data.getFormatVersion()));
+        }
+        description.setUrl(uri(data.getDistributionUrl()));
+        wrapper.addDataDescription(description);
+      }
+    }
+
+    if (eml.getLogoUrl() != null) {
+      wrapper.setLogoURL(uri(eml.getLogoUrl()));
+    }
+
+    if (eml.getCollections() != null) {
+      for (Collection collection : eml.getCollections()) {
+        if (StringUtils.isNotEmpty(collection.getCollectionName())) {
+          org.gbif.api.model.registry.eml.Collection target =
+              new org.gbif.api.model.registry.eml.Collection();
+          if (StringUtils.isNotEmpty(collection.getParentCollectionId())) {
+            target.setParentIdentifier(text(collection.getParentCollectionId()));
+          }
+          if (StringUtils.isNotEmpty(collection.getCollectionId())) {
+            target.setIdentifier(text(collection.getCollectionId()));
+          }
+          target.setName(text(collection.getCollectionName()));
+          wrapper.addCollection(target);
+        }
+      }
+    }
+
+    // formation periods come before the preservation methods, living time periods after them
+    for (TemporalCoverage coverage : eml.getTemporalCoverages()) {
+      if (coverage.getFormationPeriod() != null) {
+        wrapper.addTemporalCoverage(
+            period(coverage.getFormationPeriod(), VerbatimTimePeriodType.FORMATION_PERIOD));
+      }
+    }
+    for (String method : eml.getSpecimenPreservationMethods()) {
+      if (StringUtils.isNotEmpty(method)) {
+        wrapper.setSpecimenPreservationMethod(
+            PRESERVATION_METHOD_CONVERTER.convert(PreservationMethodType.class, text(method)));
+      }
+    }
+    for (TemporalCoverage coverage : eml.getTemporalCoverages()) {
+      if (coverage.getLivingTimePeriod() != null) {
+        wrapper.addTemporalCoverage(
+            period(coverage.getLivingTimePeriod(), VerbatimTimePeriodType.LIVING_TIME_PERIOD));
+      }
+    }
+
+    for (JGTICuratorialUnit unit : eml.getJgtiCuratorialUnits()) {
+      // the rules only add units that have a type
+      if (unit.getUnitType() != null) {
+        wrapper.addCuratorial(toCuratorialUnit(unit));
+      }
+    }
+  }
+
+  private static CuratorialUnitComposite toCuratorialUnit(JGTICuratorialUnit unit) {
+    CuratorialUnitComposite target = new CuratorialUnitComposite();
+    target.setTypeVerbatim(text(unit.getUnitType()));
+    if (unit.getRangeEnd() != null) {
+      if (unit.getRangeStart() != null) {
+        target.setLower(unit.getRangeStart());
+      }
+      target.setUpper(unit.getRangeEnd());
+    } else {
+      if (unit.getUncertaintyMeasure() != null) {
+        target.setDeviation(unit.getUncertaintyMeasure());
+      }
+      if (unit.getRangeMean() != null) {
+        target.setCount(unit.getRangeMean());
+      }
+    }
+    return target;
+  }
+
+  private static org.gbif.api.model.registry.Citation toCitation(Citation citation) {
+    org.gbif.api.model.registry.Citation target = new org.gbif.api.model.registry.Citation();
+    target.setText(text(citation.getCitation()));
+    if (StringUtils.isNotEmpty(citation.getIdentifier())) {
+      target.setIdentifier(citation.getIdentifier());
+    }
+    return target;
+  }
+
+  private static VerbatimTimePeriod period(String period, VerbatimTimePeriodType type) {
+    VerbatimTimePeriod target = new VerbatimTimePeriod();
+    target.setPeriod(text(period));
+    target.setType(type);
+    return target;
+  }
+
+  /**
+   * Creates the contact of a creator, metadata provider, associated party or contact. Only
+   * associated parties have their role written.
+   */
+  private static Contact toContact(Agent agent, boolean withRole) {
+    Contact contact = new Contact();
+    if (agent.getLastName() != null) {
+      addName(contact, agent);
+    }
+    if (agent.getOrganisation() != null) {
+      contact.setOrganization(text(agent.getOrganisation()));
+    }
+    for (String position : agent.getPosition()) {
+      if (StringUtils.isNotEmpty(position)) {
+        contact.addPosition(text(position));
+      }
+    }
+    Address address = agent.getAddress();
+    if (address != null) {
+      for (String deliveryPoint : address.getAddress()) {
+        if (StringUtils.isNotEmpty(deliveryPoint)) {
+          contact.addAddress(text(deliveryPoint));
+        }
+      }
+      if (address.getCity() != null) {
+        contact.setCity(text(address.getCity()));
+      }
+      if (address.getProvince() != null) {
+        contact.setProvince(text(address.getProvince()));
+      }
+      if (address.getPostalCode() != null) {
+        contact.setPostalCode(text(address.getPostalCode()));
+      }
+      if (address.getCountry() != null) {
+        contact.setCountry(COUNTRY_CONVERTER.convert(Country.class, text(address.getCountry())));
+      }
+    }
+    for (String phone : agent.getPhone()) {
+      if (phone != null) {
+        contact.addPhone(text(phone));
+      }
+    }
+    for (String email : agent.getEmail()) {
+      if (email != null) {
+        contact.addEmail(text(email));
+      }
+    }
+    for (String homepage : agent.getHomepage()) {
+      if (homepage != null) {
+        contact.addHomepage(uri(homepage));
+      }
+    }
+    addUserIds(contact, agent);
+    if (withRole && agent.getRole() != null) {
+      contact.setType(CONTACT_TYPE_CONVERTER.convert(ContactType.class, text(agent.getRole())));
+    }
+    return contact;
+  }
+
+  /**
+   * Creates the contact of project personnel, which always has a name and a role.
+   */
+  private static Contact toPersonnel(Agent agent) {
+    Contact contact = new Contact();
+    addName(contact, agent);
+    addUserIds(contact, agent);
+    contact.setType(CONTACT_TYPE_CONVERTER.convert(ContactType.class, text(agent.getRole())));
+    return contact;
+  }
+
+  private static void addName(Contact contact, Agent agent) {
+    if (StringUtils.isNotEmpty(agent.getSalutation())) {
+      contact.setSalutation(text(agent.getSalutation()));
+    }
+    if (agent.getFirstName() != null) {
+      contact.setFirstName(text(agent.getFirstName()));
+    }
+    contact.setLastName(text(agent.getLastName()));
+  }
+
+  private static void addUserIds(Contact contact, Agent agent) {
+    for (UserId userId : agent.getUserIds()) {
+      if (StringUtils.isNotEmpty(userId.getIdentifier())
+          && StringUtils.isNotEmpty(userId.getDirectory())) {
+        contact.addUserId(userId.getDirectory(), text(userId.getIdentifier()));
+      }
+    }
+  }
+
+  /**
+   * @return the value as the parser reads it from an element written with the value or nothing
+   */
+  private static String text(String value) {
+    return value == null ? "" : value.trim();
+  }
+
+  private static String trim(String value) {
+    return value == null ? null : value.trim();
+  }
+
+  private static URI uri(String value) {
+    return URI_CONVERTER.convert(text(value));
+  }
+
+  /**
+   * @return the date as written by the template, just the year for dates flagged as year only
+   */
+  private static String calendarDate(Date date) {
+    boolean yearOnly = "001".equals(new SimpleDateFormat(MILLIS_FORMAT).format(date));
+    return new SimpleDateFormat(yearOnly ? YEAR_FORMAT : DATE_FORMAT).format(date);
+  }
+
+  private static Date date(Date date) {
+    return DATE_CONVERTER.convert(Date.class, calendarDate(date));
+  }
+
+  private static double coordinate(double value) {
+    DecimalFormat format =
+        new DecimalFormat(COORDINATE_FORMAT, new DecimalFormatSymbols(Locale.ROOT));
+    return Double.parseDouble(format.format(value));
+  }
+}
@@ -13,6 +13,8 @@
  */
 package org.gbif.metadata.eml.ipt;
 
+import org.gbif.metadata.common.util.DocBookConverter;
+import org.gbif.metadata.common.util.StringPool;
 import org.gbif.metadata.eml.ipt.model.Address;
 import org.gbif.metadata.eml.ipt.model.Agent;
 import org.gbif.metadata.eml.ipt.model.BBox;
@@ -30,25 +32,19 @@ import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
 import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
 import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
 import org.gbif.metadata.eml.ipt.model.UserId;
+import org.gbif.metadata.eml.parse.StringPoolSubstitutor;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.apache.commons.beanutils.MethodUtils;
 import org.apache.commons.digester3.Digester;
 import org.apache.commons.digester3.NodeCreateRule;
-import org.apache.commons.lang3.StringUtils;
-import org.w3c.dom.Document;
+import org.apache.commons.digester3.SetNextRule;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
@@ -59,38 +55,6 @@ import org.xml.sax.SAXException;
  */
 public class EmlFactory {
 
-  // Define pairs of DocBook tags. MUST MATCH HTML tags!
-  private static final String[] DOCBOOK_TAGS = {
-    "<section>", "</section>",
-    "<title>", "</title>",
-    "<para><itemizedlist>", "</itemizedlist></para>",
-    "<para><orderedlist>", "</orderedlist></para>",
-    "<listitem><para>", "</para></listitem>",
-    "<itemizedlist>", "</itemizedlist>",
-    "<orderedlist>", "</orderedlist>",
-    "<para>", "</para>",
-    "<emphasis>", "</emphasis>",
-    "<subscript>", "</subscript>",
-    "<superscript>", "</superscript>",
-    "<literalLayout>", "</literalLayout>"
-  };
-
-  // Define pairs of HTML tags. MUST MATCH DocBook tags!
-  private static final String[] HTML_TAGS = {
-    "<div>", "</div>",
-    "<h1>", "</h1>",
-    "<ul>", "</ul>",
-    "<ol>", "</ol>",
-    "<li>", "</li>",
-    "<ul>", "</ul>",
-    "<ol>", "</ol>",
-    "<p>", "</p>",
-    "<b>", "</b>",
-    "<sub>", "</sub>",
-    "<sup>", "</sup>",
-    "<pre>", "</pre>"
-  };
-
   /**
    * Uses rule based parsing to read the EML XML and build the EML model.
    * Note the following: - Metadata provider rules are omitted on the assumption that the provider is the same as the
@@ -107,8 +71,36 @@ public class EmlFactory {
    */
   public static Eml build(InputStream xml)
       throws IOException, SAXException, ParserConfigurationException {
+    return build(xml, null);
+  }
+
+  /**
+   * Builds the EML model like {@link #build(InputStream)}, deduplicating the parsed text values through a pool shared
+   * across the documents of a corpus.
+   * <p>
+   * With a pool agents equal in content, such as a person listed as creator, metadata provider and contact, are also
+   * held as a single instance, as are equal addresses and user ids of different agents. Parsing never modifies a
+   * shared instance. Replace rather than modify such an agent to change it in one role only, or edit the document
+   * through {@link org.gbif.metadata.eml.ipt.model.EmlSnapshots}, whose drafts copy each agent they hand out.
+   *
+   * @param xml  To read. Note this will be closed before returning
+   * @param pool deduplicates the text of all elements and attributes, or null
+   *
+   * @return The EML populated
+   *
+   * @throws IOException  If the Stream cannot be read from
+   * @throws SAXException If the XML is not well-formed
+   */
+  public static Eml build(InputStream xml, StringPool pool)
+      throws IOException, SAXException, ParserConfigurationException {
     Digester digester = new Digester();
     digester.setNamespaceAware(true);
+    if (pool != null) {
+      digester.setSubstitutor(new StringPoolSubstitutor(pool));
+    }
+
+    // equal agents, addresses and user ids of the document share one instance when pooling
+    Map<Object, Object> shared = pool == null ? null : new HashMap<>();
 
     // push the EML object onto the stack
     Eml eml = new Eml();
@@ -191,10 +183,15 @@ public class EmlFactory {
     digester.addCallParam("eml/dataset/publisher/", 0, "id");
     digester.addCallParam("eml/dataset/publisher/organizationName", 1);
 
-    addAgentRules(digester, "eml/dataset/creator", "addCreator");
-    addAgentRules(digester, "eml/dataset/metadataProvider", "addMetadataProvider");
-    addAgentRules(digester, "eml/dataset/contact", "addContact");
-    addAgentRules(digester, "eml/dataset/associatedParty", "addAssociatedParty");
+    addAgentRules(digester, "eml/dataset/creator", "addCreator", null, shared);
+    addAgentRules(digester, "eml/dataset/metadataProvider", "addMetadataProvider", null, shared);
+    addAgentRules(digester, "eml/dataset/contact", "addContact", null, shared);
+    addAgentRules(
+        digester,
+        "eml/dataset/associatedParty",
+        "addAssociatedParty",
+        Eml.ASSOCIATED_PARTY_ROLE,
+        shared);
     addKeywordRules(digester);
     addBibliographicCitations(digester);
     addGeographicCoverageRules(digester);
@@ -202,7 +199,7 @@ public class EmlFactory {
     addLivingTimePeriodRules(digester);
     addFormationPeriodRules(digester);
     addTaxonomicCoverageRules(digester);
-    addProjectRules(digester);
+    addProjectRules(digester, shared);
     addCollectionRules(digester);
     addPhysicalDataRules(digester);
     addJGTICuratorialIUnit(digester);
@@ -224,8 +221,15 @@ public class EmlFactory {
    * @param digester     to add the rules to
    * @param prefix       The XPath prefix to prepend for extracting the Agent information
    * @param parentMethod Of the previous stack object to call and add the Agent to
+   * @param defaultRole  The role the parent method gives an Agent without one, or null
+   * @param shared       Instances to share equal agents, addresses and user ids through, or null to keep them apart
    */
-  private static void addAgentRules(Digester digester, String prefix, String parentMethod) {
+  private static void addAgentRules(
+      Digester digester,
+      String prefix,
+      String parentMethod,
+      String defaultRole,
+      Map<Object, Object> shared) {
     digester.addObjectCreate(prefix, Agent.class);
     digester.addBeanPropertySetter(prefix + "/individualName/givenName", "firstName");
     digester.addBeanPropertySetter(prefix + "/individualName/surName", "lastName");
@@ -248,18 +252,38 @@ public class EmlFactory {
     digester.addBeanPropertySetter(prefix + "/address/country", "country");
     digester.addCallMethod(prefix + "/address/deliveryPoint", "addAddress", 1);
     digester.addCallParam(prefix + "/address/deliveryPoint", 0);
-    digester.addSetNext(
-        prefix + "/address", "setAddress"); // called on </address> to set on parent Agent
+    // called on </address> to set on parent Agent
+    addSetNext(digester, prefix + "/address", "setAddress", null, shared);
 
     digester.addObjectCreate(prefix + "/userId", UserId.class);
     digester.addCallMethod(prefix + "/userId", "setDirectory", 1);
     digester.addCallParam(prefix + "/userId", 0, "directory");
     digester.addBeanPropertySetter(prefix + "/userId", "identifier");
-    digester.addSetNext(
-        prefix + "/userId", "addUserId"); // called on </userId> to set on parent Agent
+    // called on </userId> to set on parent Agent
+    addSetNext(digester, prefix + "/userId", "addUserId", null, shared);
 
-    digester.addSetNext(
-        prefix, parentMethod); // method called on parent object which is the previous stack object
+    // method called on parent object which is the previous stack object
+    addSetNext(digester, prefix, parentMethod, defaultRole, shared);
+  }
+
+  /**
+   * Adds a rule calling the method of the parent object with the top object, or with an equal instance seen before if
+   * instances are shared.
+   *
+   * @param defaultRole the role the method gives an Agent without one, given before sharing so the method never
+   *                    modifies a shared Agent, or null
+   */
+  private static void addSetNext(
+      Digester digester,
+      String pattern,
+      String methodName,
+      String defaultRole,
+      Map<Object, Object> shared) {
+    if (shared == null) {
+      digester.addSetNext(pattern, methodName);
+    } else {
+      digester.addRule(pattern, new SharingSetNextRule(methodName, defaultRole, shared));
+    }
   }
 
   /**
@@ -417,17 +441,23 @@ public class EmlFactory {
    * Add rules for parsing the project details.
    *
    * @param digester to add the rules to
+   * @param shared   instances to share equal personnel through, or null
    */
-  private static void addProjectRules(Digester digester) {
+  private static void addProjectRules(Digester digester, Map<Object, Object> shared) {
     digester.addObjectCreate("eml/dataset/project", Project.class);
     digester.addCallMethod("eml/dataset/project", "setIdentifier", 1);
     digester.addCallParam("eml/dataset/project", 0, "id");
     digester.addBeanPropertySetter("eml/dataset/project/title", "title");
-    addAgentRules(digester, "eml/dataset/project/personnel", "addProjectPersonnel");
+    addAgentRules(
+        digester,
+        "eml/dataset/project/personnel",
+        "addProjectPersonnel",
+        Project.PERSONNEL_ROLE,
+        shared);
     digester.addBeanPropertySetter("eml/dataset/project/abstract/para", "description");
     digester.addBeanPropertySetter("eml/dataset/project/funding/para", "funding");
     addProjectAwardsRules(digester, "addAward");
-    addRelatedProjectsRules(digester, "addRelatedProject");
+    addRelatedProjectsRules(digester, "addRelatedProject", shared);
     addStudyAreaDescriptionRules(digester);
     digester.addBeanPropertySetter(
         "eml/dataset/project/designDescription/description/para", "designDescription");
@@ -445,13 +475,20 @@ public class EmlFactory {
     digester.addSetNext("eml/dataset/project/award", parentMethod);
   }
 
-  private static void addRelatedProjectsRules(Digester digester, String parentMethod) {
+  private static void addRelatedProjectsRules(
+      Digester digester, String parentMethod, Map<Object, Object> shared) {
     digester.addObjectCreate("eml/dataset/project/relatedProject", Project.class);
     digester.addCallMethod("eml/dataset/project/relatedProject", "setIdentifier", 1);
     digester.addCallParam("eml/dataset/project/relatedProject", 0, "id");
     digester.addBeanPropertySetter("eml/dataset/project/relatedProject/title", "title");
-    digester.addBeanPropertySetter("eml/dataset/project/relatedProject/abstract", "abstract");
-    addAgentRules(digester, "eml/dataset/project/relatedProject/personnel", "addProjectPersonnel");
+    digester.addBeanPropertySetter(
+        "eml/dataset/project/relatedProject/abstract", "description");
+    addAgentRules(
+        digester,
+        "eml/dataset/project/relatedProject/personnel",
+        "addProjectPersonnel",
+        Project.PERSONNEL_ROLE,
+        shared);
 
     digester.addSetNext("eml/dataset/project/relatedProject", parentMethod);
   }
@@ -496,6 +533,12 @@ public class EmlFactory {
         "eml/additionalMetadata/metadata/gbif/physical/objectName", "name");
     digester.addBeanPropertySetter(
         "eml/additionalMetadata/metadata/gbif/physical/characterEncoding", "charset");
+    digester.addBeanPropertySetter("eml/additionalMetadata/metadata/gbif/physical/size", "size");
+    digester.addCallMethod(
+        "eml/additionalMetadata/metadata/gbif/physical/authentication", "addAuthentication", 2);
+    digester.addCallParam("eml/additionalMetadata/metadata/gbif/physical/authentication", 0);
+    digester.addCallParam(
+        "eml/additionalMetadata/metadata/gbif/physical/authentication", 1, "method");
     digester.addBeanPropertySetter(
         "eml/additionalMetadata/metadata/gbif/physical/dataFormat/externallyDefinedFormat/formatName",
         "format");
@@ -555,6 +598,38 @@ public class EmlFactory {
     // EML
   }
 
+  /**
+   * {@link SetNextRule} handing the parent the first instance equal to the top object, so equal objects of a document
+   * share one instance. The parsed duplicate is dropped as soon as its element ends.
+   */
+  private static class SharingSetNextRule extends SetNextRule {
+
+    private final String defaultRole;
+    private final Map<Object, Object> shared;
+
+    SharingSetNextRule(String methodName, String defaultRole, Map<Object, Object> shared) {
+      super(methodName);
+      this.defaultRole = defaultRole;
+      this.shared = shared;
+    }
+
+    @Override
+    public void end(String namespace, String name) throws Exception {
+      Object child = getDigester().peek(0);
+      if (defaultRole != null && ((Agent) child).getRole() == null) {
+        // the role is part of the equality, and the parent would otherwise set it on the shared instance
+        ((Agent) child).setRole(defaultRole);
+      }
+      Object first = shared.putIfAbsent(child, child);
+      if (first != null && first != child) {
+        // the object create rule pops whatever is on top when its element ends
+        getDigester().pop();
+        getDigester().push(first);
+      }
+      super.end(namespace, name);
+    }
+  }
+
   // Converter to literal XML (DocBook) ant then to HTML
   public static class DocBookRule extends NodeCreateRule {
 
@@ -578,72 +653,7 @@ public class EmlFactory {
     }
 
     protected String serializeNode(Element nodeToSerialize) throws Exception {
-      String htmlOutput;
-
-      try (StringWriter writer = new StringWriter()) {
-        // Create a new Document to serialize the node
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.newDocument();
-
-        // Import the node to serialize into the new Document
-        Element importedNode = (Element) doc.importNode(nodeToSerialize, true);
-        doc.appendChild(importedNode);
-
-        // Set up the Transformer to handle XML serialization
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-
-        // Set Transformer output properties
-        transformer.setOutputProperty(OutputKeys.INDENT, "no"); // Disable indentation
-        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-
-        // Serialize the node to a string
-        DOMSource source = new DOMSource(importedNode);
-        StreamResult result = new StreamResult(writer);
-        transformer.transform(source, result);
-
-        // Get the serialized XML string
-        String serializedDocBookXml = writer.toString();
-
-        // Handle specific whitespace formatting for <pre> tags
-        serializedDocBookXml = preservePreformattedWhitespace(serializedDocBookXml);
-
-        // Unwrap the parent tag
-        String unwrappedDocBookXml = unwrapParentTag(serializedDocBookXml);
-
-        // Convert DocBook XML to HTML
-        htmlOutput = convertDocBookToHtml(unwrappedDocBookXml);
-      }
-
-      return htmlOutput;
-    }
-
-    private String preservePreformattedWhitespace(String xmlString) {
-      // This method preserves whitespace in <pre> tags by restoring line breaks and indentations
-      xmlString = xmlString.replaceAll("(<pre>)(.*?)(</pre>)", "$1\n$2\n$3");
-      return xmlString;
-    }
-
-    private String unwrapParentTag(String str) {
-      return StringUtils.replaceEach(
-          str,
-          new String[] {"<" + wrapperElement + ">", "</" + wrapperElement + ">"},
-          new String[] {"", ""});
-    }
-
-    private String convertDocBookToHtml(String docbookXmlString) {
-      // Replace links
-      String docBookXmlStringWithLinksReplaces =
-          docbookXmlString.replaceAll(
-              "<ulink\\s+url=\"(.*?)\">\\s*<citetitle>(.*?)</citetitle>\\s*</ulink>",
-              "<a href=\"$1\">$2</a>");
-
-      // Perform replacements
-      return StringUtils.replaceEach(docBookXmlStringWithLinksReplaces, DOCBOOK_TAGS, HTML_TAGS)
-          .trim();
+      return DocBookConverter.docBookToHtml(nodeToSerialize, wrapperElement).trim();
     }
 
     protected void invokeMethodOnTopOfStack(String methodName, String param) throws Exception {
@@ -0,0 +1,399 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Eml;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Holds the {@link Eml} of resources, loading them from their eml.xml file with {@link EmlFactory} on demand.
+ * <p>
+ * The most recently used documents are kept in a bounded LRU. Documents dropping out of it are only softly
+ * referenced, so they are served again without parsing until the garbage collector needs the memory. The heap used
+ * therefore follows the resources in use rather than the number of resources. Concurrent requests for a document that
+ * is not in memory share a single load.
+ * <p>
+ * Documents are handed out as is, not copied. After changing and writing a document, {@link #put} it so the
+ * repository holds the same instance, or {@link #invalidate} it to have it loaded again.
+ * <p>
+ * This class is thread safe.
+ */
+public class EmlRepository {
+
+  private final Function<String, File> locator;
+  private final int capacity;
+
+  // guarded by this
+  private final LinkedHashMap<String, Eml> hot;
+  private final Map<String, KeyedReference> soft = new HashMap<>();
+  private final ReferenceQueue<Eml> collectedQueue = new ReferenceQueue<>();
+
+  private final Map<String, CompletableFuture<Eml>> loading = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder softHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder collected = new LongAdder();
+
+  /**
+   * @param locator resolves the eml.xml file of a resource
+   * @param capacity number of most recently used documents held strongly
+   */
+  public EmlRepository(Function<String, File> locator, int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.locator = Objects.requireNonNull(locator, "locator");
+    this.capacity = capacity;
+    this.hot =
+        new LinkedHashMap<String, Eml>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Eml> eldest) {
+            if (size() > EmlRepository.this.capacity) {
+              evictions.increment();
+              soft.put(
+                  eldest.getKey(),
+                  new KeyedReference(eldest.getKey(), eldest.getValue(), collectedQueue));
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /**
+   * Repository of an IPT data directory, where the eml.xml of each resource lives in a folder named after it.
+   *
+   * @param resourcesDir the folder holding one folder per resource
+   * @param capacity number of most recently used documents held strongly
+   */
+  public static EmlRepository forResourcesDir(File resourcesDir, int capacity) {
+    return new EmlRepository(
+        resource -> new File(new File(resourcesDir, resource), "eml.xml"), capacity);
+  }
+
+  /**
+   * Returns the document of a resource, loading it if it is not in memory.
+   *
+   * @param resource the resource, as understood by the locator
+   * @return the document of the resource
+   * @throws MetadataException if the eml.xml file cannot be read or parsed
+   */
+  public Eml get(String resource) throws MetadataException {
+    Eml eml = cached(resource);
+    if (eml != null) {
+      return eml;
+    }
+    misses.increment();
+
+    CompletableFuture<Eml> load = new CompletableFuture<>();
+    CompletableFuture<Eml> running = loading.putIfAbsent(resource, load);
+    if (running != null) {
+      return await(resource, running);
+    }
+
+    try {
+      // another thread may have completed its load since the lookup above
+      eml = lookup(resource);
+      if (eml == null) {
+        eml = load(resource);
+      }
+      synchronized (this) {
+        // an invalidation during the load makes the document stale, do not cache it
+        if (loading.remove(resource, load)) {
+          hot.put(resource, eml);
+          soft.remove(resource);
+        }
+      }
+      load.complete(eml);
+      return eml;
+    } catch (MetadataException | RuntimeException e) {
+      loadFailures.increment();
+      loading.remove(resource, load);
+      load.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Holds the document of a resource, typically after it was changed and written to its eml.xml file.
+   *
+   * @param resource the resource
+   * @param eml the document of the resource
+   */
+  public synchronized void put(String resource, Eml eml) {
+    Objects.requireNonNull(eml, "eml");
+    loading.remove(resource);
+    soft.remove(resource);
+    hot.put(resource, eml);
+  }
+
+  /**
+   * Drops the document of a resource, so that it is loaded again on the next request.
+   *
+   * @param resource the resource
+   */
+  public synchronized void invalidate(String resource) {
+    loading.remove(resource);
+    hot.remove(resource);
+    soft.remove(resource);
+  }
+
+  /**
+   * Drops all documents.
+   */
+  public synchronized void clear() {
+    loading.clear();
+    hot.clear();
+    soft.clear();
+  }
+
+  /**
+   * @return the counters of this repository since it was created
+   */
+  public Stats stats() {
+    int hotSize;
+    int softSize;
+    synchronized (this) {
+      expunge();
+      hotSize = hot.size();
+      softSize = soft.size();
+    }
+    return new Stats(
+        hits.sum(),
+        softHits.sum(),
+        misses.sum(),
+        loads.sum(),
+        loadFailures.sum(),
+        evictions.sum(),
+        collected.sum(),
+        hotSize,
+        softSize);
+  }
+
+  private synchronized Eml cached(String resource) {
+    boolean wasHot = hot.containsKey(resource);
+    Eml eml = lookup(resource);
+    if (eml != null) {
+      hits.increment();
+      if (!wasHot) {
+        softHits.increment();
+      }
+    }
+    return eml;
+  }
+
+  private synchronized Eml lookup(String resource) {
+    expunge();
+    Eml eml = hot.get(resource);
+    if (eml == null) {
+      KeyedReference ref = soft.get(resource);
+      eml = ref == null ? null : ref.get();
+      if (eml != null) {
+        // promote back into the LRU, which may demote the eldest
+        soft.remove(resource);
+        hot.put(resource, eml);
+      }
+    }
+    return eml;
+  }
+
+  /**
+   * Removes the entries of documents that were garbage collected.
+   */
+  private void expunge() {
+    KeyedReference ref;
+    while ((ref = (KeyedReference) collectedQueue.poll()) != null) {
+      if (soft.remove(ref.key, ref)) {
+        collected.increment();
+      }
+    }
+  }
+
+  private Eml load(String resource) throws MetadataException {
+    loads.increment();
+    File file = locator.apply(resource);
+    if (file == null || !file.isFile()) {
+      throw new MetadataException(
+          "No eml.xml for resource " + resource,
+          new FileNotFoundException(String.valueOf(file)));
+    }
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      return EmlFactory.build(in);
+    } catch (Exception e) {
+      throw new MetadataException("Cannot load eml.xml of resource " + resource, e);
+    }
+  }
+
+  private static Eml await(String resource, CompletableFuture<Eml> load)
+      throws MetadataException {
+    try {
+      return load.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MetadataException("Interrupted while loading resource " + resource, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw new MetadataException(
+          "Cannot load eml.xml of resource " + resource,
+          cause instanceof Exception ? (Exception) cause : e);
+    }
+  }
+
+  private static class KeyedReference extends SoftReference<Eml> {
+
+    private final String key;
+
+    KeyedReference(String key, Eml eml, ReferenceQueue<Eml> queue) {
+      super(eml, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Snapshot of the counters of a repository.
+   */
+  public static class Stats {
+
+    private final long hits;
+    private final long softHits;
+    private final long misses;
+    private final long loads;
+    private final long loadFailures;
+    private final long evictions;
+    private final long collected;
+    private final int hotSize;
+    private final int softSize;
+
+    Stats(
+        long hits,
+        long softHits,
+        long misses,
+        long loads,
+        long loadFailures,
+        long evictions,
+        long collected,
+        int hotSize,
+        int softSize) {
+      this.hits = hits;
+      this.softHits = softHits;
+      this.misses = misses;
+      this.loads = loads;
+      this.loadFailures = loadFailures;
+      this.evictions = evictions;
+      this.collected = collected;
+      this.hotSize = hotSize;
+      this.softSize = softSize;
+    }
+
+    /**
+     * @return requests served from memory
+     */
+    public long getHits() {
+      return hits;
+    }
+
+    /**
+     * @return requests served from a softly referenced document, included in the hits
+     */
+    public long getSoftHits() {
+      return softHits;
+    }
+
+    /**
+     * @return requests for a document not in memory, including those waiting for a running load
+     */
+    public long getMisses() {
+      return misses;
+    }
+
+    /**
+     * @return eml.xml files loaded, including failed loads
+     */
+    public long getLoads() {
+      return loads;
+    }
+
+    public long getLoadFailures() {
+      return loadFailures;
+    }
+
+    /**
+     * @return documents demoted from the LRU to a soft reference
+     */
+    public long getEvictions() {
+      return evictions;
+    }
+
+    /**
+     * @return softly referenced documents cleared by the garbage collector
+     */
+    public long getCollected() {
+      return collected;
+    }
+
+    /**
+     * @return documents currently held strongly
+     */
+    public int getHotSize() {
+      return hotSize;
+    }
+
+    /**
+     * @return documents currently held softly, some of which may have been cleared already
+     */
+    public int getSoftSize() {
+      return softSize;
+    }
+
+    public double getHitRate() {
+      long requests = hits + misses;
+      return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+      return new StringJoiner(", ", Stats.class.getSimpleName() + "[", "]")
+          .add("hits=" + hits)
+          .add("softHits=" + softHits)
+          .add("misses=" + misses)
+          .add("loads=" + loads)
+          .add("loadFailures=" + loadFailures)
+          .add("evictions=" + evictions)
+          .add("collected=" + collected)
+          .add("hotSize=" + hotSize)
+          .add("softSize=" + softSize)
+          .toString();
+    }
+  }
+}
@@ -13,15 +13,32 @@
  */
 package org.gbif.metadata.eml.ipt;
 
+import org.gbif.metadata.common.util.MetadataObjectWrapper;
 import org.gbif.metadata.eml.ipt.model.Eml;
-import org.gbif.utils.file.FileUtils;
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.io.output.StringBuilderWriter;
 
 import freemarker.cache.ClassTemplateLoader;
 import freemarker.cache.TemplateLoader;
@@ -37,7 +54,8 @@ public class IptEmlWriter {
 
   private static String processTemplateIntoString(Template template, Object model)
       throws IOException, TemplateException {
-    StringWriter result = new StringWriter();
+    // unlike StringWriter not synchronized
+    StringBuilderWriter result = new StringBuilderWriter(16 * 1024);
     template.process(model, result);
     return result.toString();
   }
@@ -53,19 +71,69 @@ public class IptEmlWriter {
     Configuration fm = new Configuration(Configuration.VERSION_2_3_31);
     fm.setDefaultEncoding("utf8");
     fm.setTemplateLoader(tl);
+    fm.setObjectWrapper(new MetadataObjectWrapper(fm.getIncompatibleImprovements()));
 
     return fm;
   }
 
   /**
    * Writes a map of data to a utf8 encoded file using a Freemarker {@link Configuration}.
+   * <p>
+   * The template is rendered straight into a temporary file next to the target, which is then moved into place. The
+   * document is never held in memory as a whole, and the target is either left as it was or replaced completely.
    */
   public static void writeFile(File f, String template, Object data)
       throws IOException, TemplateException {
-    String result = processTemplateIntoString(FTL.getTemplate(template), data);
-    Writer out = FileUtils.startNewUtf8File(f);
-    out.write(result);
-    out.close();
+    writeFile(f, template, data, false);
+  }
+
+  /**
+   * Writes a map of data to a utf8 encoded file like {@link #writeFile(File, String, Object)}, optionally leaving an
+   * existing file untouched if its content would not change.
+   * <p>
+   * Contents are compared by a digest computed while rendering, and over the existing file as it is read. The content
+   * of dateStamp elements is left out of the comparison, as it changes on every save without changing the document.
+   *
+   * @param skipIfUnchanged if true an existing file with the same content apart from its dateStamp is kept
+   * @return true if the file was written, false if it was kept
+   */
+  public static boolean writeFile(File f, String template, Object data, boolean skipIfUnchanged)
+      throws IOException, TemplateException {
+    Template ftl = FTL.getTemplate(template);
+    Path target = f.toPath().toAbsolutePath();
+    Files.createDirectories(target.getParent());
+    ContentDigest digest =
+        skipIfUnchanged && Files.isRegularFile(target) ? new ContentDigest() : null;
+    // not Files.createTempFile, which would leave the target readable by its owner only
+    Path temp =
+        target.resolveSibling(
+            target.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+    try {
+      OutputStream file = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW);
+      try (Writer out =
+          new BufferedWriter(
+              new OutputStreamWriter(
+                  digest == null ? file : digest.tee(file), StandardCharsets.UTF_8),
+              64 * 1024)) {
+        ftl.process(data, out);
+      }
+      if (digest != null && Arrays.equals(digest.digest(), ContentDigest.of(target))) {
+        return false;
+      }
+      moveIntoPlace(temp, target);
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void moveIntoPlace(Path source, Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
   }
 
   /**
@@ -80,6 +148,36 @@ public class IptEmlWriter {
     writeFile(f, EML_TEMPLATE, map);
   }
 
+  /**
+   * Writes an {@link Eml} object to an XML file unless the file exists with the same content, ignoring the dateStamp.
+   * Keeping an unchanged file avoids triggering file watchers, backups and republishing for a save without changes.
+   *
+   * @param f               the XML file to write to
+   * @param eml             the EML object
+   * @param skipIfUnchanged if true an existing file with the same content apart from its dateStamp is kept
+   * @return true if the file was written, false if it was kept
+   */
+  public static boolean writeEmlFile(File f, Eml eml, boolean skipIfUnchanged)
+      throws IOException, TemplateException {
+    Map<String, Object> map = new HashMap<>();
+    map.put("eml", eml);
+    return writeFile(f, EML_TEMPLATE, map, skipIfUnchanged);
+  }
+
+  /**
+   * Writes an {@link Eml} object to an XML file, first recording size and checksums of its physical data files
+   * with {@link PhysicalDataChecksums}.
+   *
+   * @param f         the XML file to write to
+   * @param eml       the EML object
+   * @param dataFiles resolves the local file of a physical data entry, null if there is none
+   */
+  public static void writeEmlFile(File f, Eml eml, Function<PhysicalData, File> dataFiles)
+      throws IOException, TemplateException {
+    PhysicalDataChecksums.computeAll(eml.getPhysicalData(), dataFiles);
+    writeEmlFile(f, eml);
+  }
+
   /**
    * Writes an {@link Eml} object to a string using a Freemarker {@link Configuration}.
    *
@@ -91,4 +189,90 @@ public class IptEmlWriter {
     map.put("eml", eml);
     return processTemplateIntoString(FTL.getTemplate(EML_TEMPLATE), map);
   }
+
+  /**
+   * SHA-256 digest of a document, leaving out the content of its dateStamp elements.
+   */
+  private static final class ContentDigest {
+
+    private static final byte[] OPEN = "<dateStamp>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE = "</dateStamp>".getBytes(StandardCharsets.US_ASCII);
+
+    private final MessageDigest digest;
+    private boolean inside;
+    private int matched;
+
+    private ContentDigest() {
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        // every Java platform is required to support SHA-256
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /**
+     * @return the digest of the content of a file
+     */
+    static byte[] of(Path file) throws IOException {
+      ContentDigest digest = new ContentDigest();
+      byte[] buffer = new byte[64 * 1024];
+      try (InputStream in = Files.newInputStream(file)) {
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+          digest.update(buffer, 0, n);
+        }
+      }
+      return digest.digest();
+    }
+
+    /**
+     * @return a stream writing to the given stream and updating this digest
+     */
+    OutputStream tee(OutputStream out) {
+      return new FilterOutputStream(out) {
+        @Override
+        public void write(int b) throws IOException {
+          out.write(b);
+          update(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+          out.write(b, off, len);
+          update(b, off, len);
+        }
+      };
+    }
+
+    byte[] digest() {
+      return digest.digest();
+    }
+
+    private void update(byte[] bytes, int off, int len) {
+      int from = off;
+      for (int i = off; i < off + len; i++) {
+        byte[] tag = inside ? CLOSE : OPEN;
+        if (bytes[i] == tag[matched]) {
+          matched++;
+        } else {
+          matched = bytes[i] == tag[0] ? 1 : 0;
+        }
+        if (matched == tag.length) {
+          matched = 0;
+          if (inside) {
+            // resume with the closing tag
+            digest.update(CLOSE);
+            from = i + 1;
+          } else {
+            digest.update(bytes, from, i + 1 - from);
+          }
+          inside = !inside;
+        }
+      }
+      if (!inside) {
+        digest.update(bytes, from, off + len - from);
+      }
+    }
+  }
 }
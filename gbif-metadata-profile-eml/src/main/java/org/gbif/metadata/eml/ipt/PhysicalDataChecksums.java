@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Computes the size and the MD5 and SHA-256 checksums of the data files behind {@link PhysicalData} entries, so
+ * {@link IptEmlWriter} can publish them with the EML.
+ * <p>
+ * Files are read once, memory mapped in chunks. A single digest is inherently sequential, so the parallelism is
+ * across what is independent: both digests of a chunk are updated concurrently, and the files of several entries
+ * are hashed concurrently. Hashing a file therefore takes about as long as its slower digest alone.
+ * <p>
+ * This class is thread safe.
+ */
+public final class PhysicalDataChecksums {
+
+  /**
+   * Bytes mapped at a time.
+   */
+  static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  // tasks block on file I/O and on each other, so the pool must not be bounded
+  private static final ExecutorService WORKERS =
+      Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "physical-data-checksums");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private PhysicalDataChecksums() {}
+
+  /**
+   * Computes size and checksums of a file and records them on the physical data.
+   *
+   * @param data the physical data describing the file
+   * @param file the data file
+   * @throws IOException if the file cannot be read
+   */
+  public static void compute(PhysicalData data, File file) throws IOException {
+    compute(data, file, CHUNK_SIZE);
+  }
+
+  /**
+   * Computes size and checksums for all physical data entries whose file is found, hashing the files concurrently.
+   * Entries without a file are left unchanged.
+   *
+   * @param entries the physical data entries, e.g. {@link org.gbif.metadata.eml.ipt.model.Eml#getPhysicalData()}
+   * @param locator resolves the local data file of an entry, returning null if there is none
+   * @return number of entries updated
+   * @throws IOException if any of the files cannot be read, in which case no entry is updated
+   */
+  public static int computeAll(List<PhysicalData> entries, Function<PhysicalData, File> locator)
+      throws IOException {
+    List<PhysicalData> found = new ArrayList<>();
+    List<CompletableFuture<Checksums>> pending = new ArrayList<>();
+    for (PhysicalData data : entries) {
+      File file = data == null ? null : locator.apply(data);
+      if (file != null && file.isFile()) {
+        found.add(data);
+        pending.add(
+            CompletableFuture.supplyAsync(() -> hashUnchecked(file, CHUNK_SIZE), WORKERS));
+      }
+    }
+    List<Checksums> results = new ArrayList<>(pending.size());
+    for (CompletableFuture<Checksums> future : pending) {
+      results.add(join(future));
+    }
+    for (int i = 0; i < found.size(); i++) {
+      results.get(i).applyTo(found.get(i));
+    }
+    return found.size();
+  }
+
+  static void compute(PhysicalData data, File file, int chunkSize) throws IOException {
+    hash(file, chunkSize).applyTo(data);
+  }
+
+  private static Checksums hash(File file, int chunkSize) throws IOException {
+    MessageDigest md5 = digest("MD5");
+    MessageDigest sha256 = digest("SHA-256");
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += chunkSize) {
+        ByteBuffer chunk =
+            channel.map(
+                FileChannel.MapMode.READ_ONLY, position, Math.min(chunkSize, size - position));
+        // each digest reads the chunk through its own view
+        ByteBuffer view = chunk.duplicate();
+        CompletableFuture<Void> other =
+            CompletableFuture.runAsync(() -> sha256.update(view), WORKERS);
+        md5.update(chunk);
+        join(other);
+      }
+      return new Checksums(size, hex(md5.digest()), hex(sha256.digest()));
+    }
+  }
+
+  private static Checksums hashUnchecked(File file, int chunkSize) {
+    try {
+      return hash(file, chunkSize);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static <T> T join(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static MessageDigest digest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support MD5 and SHA-256
+      throw new IllegalStateException(algorithm + " not supported", e);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+    }
+    return new String(chars);
+  }
+
+  private static final class Checksums {
+    private final long size;
+    private final String md5;
+    private final String sha256;
+
+    private Checksums(long size, String md5, String sha256) {
+      this.size = size;
+      this.md5 = md5;
+      this.sha256 = sha256;
+    }
+
+    private void applyTo(PhysicalData data) {
+      data.setSize(size);
+      data.setMd5(md5);
+      data.setSha256(sha256);
+    }
+  }
+}
@@ -28,13 +28,16 @@ import org.apache.commons.lang3.StringUtils;
 public class Address implements Serializable {
 
   private static final long serialVersionUID = 3617859655330969141L;
-  private List<String> address = new ArrayList<>();
+  private List<String> address;
   private String city;
   private String province;
   private String country;
   private String postalCode;
 
   public List<String> getAddress() {
+    if (address == null) {
+      address = new ArrayList<>();
+    }
     return address;
   }
 
@@ -43,7 +46,7 @@ public class Address implements Serializable {
   }
 
   public void addAddress(String address) {
-    this.address.add(address);
+    getAddress().add(address);
   }
 
   public String getCity() {
@@ -91,7 +94,21 @@ public class Address implements Serializable {
   }
 
   public boolean isEmpty() {
-    return address.isEmpty() && StringUtils.isAllBlank(city, province, postalCode, country);
+    return Lists.orEmpty(address).isEmpty()
+        && StringUtils.isAllBlank(city, province, postalCode, country);
+  }
+
+  /**
+   * @return a deep copy of this address
+   */
+  public Address deepCopy() {
+    Address copy = new Address();
+    copy.address = Copies.copy(address);
+    copy.city = city;
+    copy.province = province;
+    copy.country = country;
+    copy.postalCode = postalCode;
+    return copy;
   }
 
   @Override
@@ -99,7 +116,7 @@ public class Address implements Serializable {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     Address address1 = (Address) o;
-    return java.util.Objects.equals(address, address1.address)
+    return Lists.orEmpty(address).equals(Lists.orEmpty(address1.address))
         && java.util.Objects.equals(city, address1.city)
         && java.util.Objects.equals(province, address1.province)
         && java.util.Objects.equals(country, address1.country)
@@ -108,7 +125,7 @@ public class Address implements Serializable {
 
   @Override
   public int hashCode() {
-    return java.util.Objects.hash(address, city, province, country, postalCode);
+    return java.util.Objects.hash(Lists.orEmpty(address), city, province, country, postalCode);
   }
 
   /**
@@ -119,7 +136,7 @@ public class Address implements Serializable {
   @Override
   public String toString() {
     return new StringJoiner(", ", Address.class.getSimpleName() + "[", "]")
-        .add("address='" + address + "'")
+        .add("address='" + Lists.orEmpty(address) + "'")
         .add("city='" + city + "'")
         .add("province='" + province + "'")
         .add("country='" + country + "'")
@@ -137,7 +154,7 @@ public class Address implements Serializable {
     String formattedAddress = null;
 
     // TODO: only the first address? what can we do with the rest?
-    if (!address.isEmpty()) {
+    if (address != null && !address.isEmpty()) {
       formattedAddress = address.get(0);
     }
     if (StringUtils.isNotBlank(city)) {
@@ -29,7 +29,7 @@ import lombok.ToString;
  */
 @Setter
 @EqualsAndHashCode
-@ToString
+@ToString(doNotUseGetters = true)
 public class Agent implements Serializable {
 
   private static final long serialVersionUID = 7028536657833651816L;
@@ -38,20 +38,55 @@ public class Agent implements Serializable {
   private String firstName;
   private String lastName;
   private String organisation;
-  @Getter private List<String> position = new ArrayList<>();
+  private List<String> position;
   @Getter private Address address = new Address();
-  @Getter private List<String> phone = new ArrayList<>();
-  @Getter private List<String> email = new ArrayList<>();
+  private List<String> phone;
+  private List<String> email;
   @Getter private String role;
-  @Getter private List<String> homepage = new ArrayList<>();
-  @Getter private List<UserId> userIds = new ArrayList<>();
+  private List<String> homepage;
+  private List<UserId> userIds;
+
+  public List<String> getPosition() {
+    if (position == null) {
+      position = new ArrayList<>();
+    }
+    return position;
+  }
+
+  public List<String> getPhone() {
+    if (phone == null) {
+      phone = new ArrayList<>();
+    }
+    return phone;
+  }
+
+  public List<String> getEmail() {
+    if (email == null) {
+      email = new ArrayList<>();
+    }
+    return email;
+  }
+
+  public List<String> getHomepage() {
+    if (homepage == null) {
+      homepage = new ArrayList<>();
+    }
+    return homepage;
+  }
+
+  public List<UserId> getUserIds() {
+    if (userIds == null) {
+      userIds = new ArrayList<>();
+    }
+    return userIds;
+  }
 
   public void addPosition(String position) {
-    this.position.add(position);
+    getPosition().add(position);
   }
 
   public void addEmail(String email) {
-    this.email.add(email);
+    getEmail().add(email);
   }
 
   public String getFirstName() {
@@ -62,7 +97,7 @@ public class Agent implements Serializable {
   }
 
   public void addHomepage(String homepage) {
-    this.homepage.add(homepage);
+    getHomepage().add(homepage);
   }
 
   public String getLastName() {
@@ -80,7 +115,7 @@ public class Agent implements Serializable {
   }
 
   public void addPhone(String phone) {
-    this.phone.add(phone);
+    getPhone().add(phone);
   }
 
   public String getFullName() {
@@ -100,16 +135,62 @@ public class Agent implements Serializable {
    * @param userId to add
    */
   public void addUserId(UserId userId) {
-    userIds.add(userId);
+    getUserIds().add(userId);
   }
 
   public boolean isEmpty() {
     return StringUtils.isAllBlank(firstName, lastName, organisation, role)
-        && position.isEmpty()
-        && phone.isEmpty()
-        && email.isEmpty()
-        && homepage.isEmpty()
-        && address.isEmpty()
-        && userIds.isEmpty();
+        && Lists.orEmpty(position).isEmpty()
+        && Lists.orEmpty(phone).isEmpty()
+        && Lists.orEmpty(email).isEmpty()
+        && Lists.orEmpty(homepage).isEmpty()
+        && (address == null || address.isEmpty())
+        && Lists.orEmpty(userIds).isEmpty();
+  }
+
+  // equals and hashCode read lists that have not been allocated as empty ones, without allocating them
+
+  @EqualsAndHashCode.Include(replaces = "position")
+  private List<String> positionOrEmpty() {
+    return Lists.orEmpty(position);
+  }
+
+  @EqualsAndHashCode.Include(replaces = "phone")
+  private List<String> phoneOrEmpty() {
+    return Lists.orEmpty(phone);
+  }
+
+  @EqualsAndHashCode.Include(replaces = "email")
+  private List<String> emailOrEmpty() {
+    return Lists.orEmpty(email);
+  }
+
+  @EqualsAndHashCode.Include(replaces = "homepage")
+  private List<String> homepageOrEmpty() {
+    return Lists.orEmpty(homepage);
+  }
+
+  @EqualsAndHashCode.Include(replaces = "userIds")
+  private List<UserId> userIdsOrEmpty() {
+    return Lists.orEmpty(userIds);
+  }
+
+  /**
+   * @return a deep copy of this agent, including address and user ids
+   */
+  public Agent deepCopy() {
+    Agent copy = new Agent();
+    copy.salutation = salutation;
+    copy.firstName = firstName;
+    copy.lastName = lastName;
+    copy.organisation = organisation;
+    copy.position = Copies.copy(position);
+    copy.address = address == null ? null : address.deepCopy();
+    copy.phone = Copies.copy(phone);
+    copy.email = Copies.copy(email);
+    copy.role = role;
+    copy.homepage = Copies.copy(homepage);
+    copy.userIds = Copies.copy(userIds, UserId::deepCopy);
+    return copy;
   }
 }
@@ -394,6 +394,16 @@ public class BBox implements Serializable {
     return max.getX() - min.getX();
   }
 
+  /**
+   * @return a deep copy of this bounding box
+   */
+  public BBox deepCopy() {
+    BBox copy = new BBox();
+    copy.min = min == null ? null : new Point(min);
+    copy.max = max == null ? null : new Point(max);
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
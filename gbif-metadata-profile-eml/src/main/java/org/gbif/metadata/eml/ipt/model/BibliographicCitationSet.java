@@ -57,6 +57,15 @@ public class BibliographicCitationSet implements Serializable {
     bibliographicCitations.add(new Citation(citation, identifier));
   }
 
+  /**
+   * @return a deep copy of this set and its citations
+   */
+  public BibliographicCitationSet deepCopy() {
+    BibliographicCitationSet copy = new BibliographicCitationSet();
+    copy.bibliographicCitations = Copies.copy(bibliographicCitations, Citation::deepCopy);
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -60,6 +60,13 @@ public class Citation implements Serializable {
     this.identifier = identifier;
   }
 
+  /**
+   * @return a copy of this citation
+   */
+  public Citation deepCopy() {
+    return new Citation(citation, identifier);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -88,6 +88,17 @@ public class Collection implements Serializable {
     this.parentCollectionId = parentCollectionId;
   }
 
+  /**
+   * @return a copy of this collection
+   */
+  public Collection deepCopy() {
+    Collection copy = new Collection();
+    copy.collectionName = collectionName;
+    copy.collectionId = collectionId;
+    copy.parentCollectionId = parentCollectionId;
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
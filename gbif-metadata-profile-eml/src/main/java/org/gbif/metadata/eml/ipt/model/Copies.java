@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Helpers for the deep copies of the model. Strings, numbers, enumerations and other immutable values are shared,
+ * mutable values like dates and lists are copied.
+ */
+final class Copies {
+
+  private Copies() {}
+
+  static Date copy(Date date) {
+    return date == null ? null : new Date(date.getTime());
+  }
+
+  static List<String> copy(List<String> values) {
+    return values == null ? null : new ArrayList<>(values);
+  }
+
+  /**
+   * Copies the list and each of its elements, keeping null elements.
+   */
+  static <T> List<T> copy(List<T> values, UnaryOperator<T> copier) {
+    if (values == null) {
+      return null;
+    }
+    List<T> copy = new ArrayList<>(values.size());
+    for (T value : values) {
+      copy.add(value == null ? null : copier.apply(value));
+    }
+    return copy;
+  }
+}
@@ -13,6 +13,7 @@
  */
 package org.gbif.metadata.eml.ipt.model;
 
+import org.gbif.metadata.common.util.DocBookConverter;
 import org.gbif.metadata.eml.ipt.EmlFactory;
 import org.gbif.metadata.eml.ipt.util.DateUtils;
 
@@ -21,6 +22,7 @@ import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -45,6 +47,8 @@ import org.jsoup.nodes.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.gbif.metadata.eml.ipt.model.Lists.orEmpty;
+
 /**
  * The EML model is a POJO representing the GBIF Extended Metadata Profile for the IPT.
  * In addition to standard Bean encapsulation,
@@ -57,58 +61,6 @@ public class Eml implements Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(Eml.class);
 
-  // Define pairs of DocBook tags. MUST MATCH HTML tags!
-  private static final String[] DOCBOOK_TAGS = {
-    "<section>", "</section>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<title>", "</title>",
-    "<para><itemizedlist>", "</itemizedlist></para>",
-    "<para><orderedlist>", "</orderedlist></para>",
-    "<listitem><para>", "</para></listitem>",
-    "<para>", "</para>",
-    "<emphasis>", "</emphasis>",
-    "<subscript>", "</subscript>",
-    "<superscript>", "</superscript>",
-    "<literalLayout>", "</literalLayout>"
-  };
-
-  // Define pairs of HTML tags. MUST MATCH DocBook tags!
-  private static final String[] HTML_TAGS = {
-    "<div>", "</div>",
-    "<h1>", "</h1>",
-    "<h2>", "</h2>",
-    "<h3>", "</h3>",
-    "<h4>", "</h4>",
-    "<h5>", "</h5>",
-    "<ul>", "</ul>",
-    "<ol>", "</ol>",
-    "<li>", "</li>",
-    "<p>", "</p>",
-    "<b>", "</b>",
-    "<sub>", "</sub>",
-    "<sup>", "</sup>",
-    "<pre>", "</pre>"
-  };
-
-  // List of allowed DocBook tags
-  private static final String[] ALLOWED_DOCBOOK_TAGS = {
-    "section",
-    "title",
-    "para",
-    "itemizedlist",
-    "orderedlist",
-    "listitem",
-    "emphasis",
-    "subscript",
-    "superscript",
-    "literalLayout",
-    "ulink",
-    "citetitle"
-  };
-
   private static final Pattern PACKAGED_ID_PATTERN = Pattern.compile("/v([0-9]+(\\.\\d+)?)$");
   private static final char SEMICOLON = ';';
   private static final char COMMA = ',';
@@ -127,6 +79,17 @@ public class Eml implements Serializable {
 
   private static final long serialVersionUID = 770733523572837495L;
 
+  /**
+   * Role given to an associated party added without one.
+   */
+  public static final String ASSOCIATED_PARTY_ROLE = "AssociatedParty";
+
+  // BigDecimal is immutable, all new documents share the initial version
+  private static final BigDecimal FIRST_VERSION = new BigDecimal("1.0");
+  // stand-ins for a project or bibliography that has not been allocated yet, unlike null which a setter stores
+  private static final Project NO_PROJECT = new Project();
+  private static final BibliographicCitationSet NO_BIBLIOGRAPHY = new BibliographicCitationSet();
+
   /**
    * Description, composed of one or more paragraphs.
    */
@@ -138,16 +101,16 @@ public class Eml implements Serializable {
    */
   private String additionalInfo;
 
-  private List<String> alternateIdentifiers = new ArrayList<>();
+  private List<String> alternateIdentifiers;
 
   /**
    * The 'associatedParty' element provides the full name of other people, organizations, or positions who should be
    * associated with the resource. These parties might play various roles in the creation or maintenance of the
    * resource, and these roles should be indicated in the "role" element.
    */
-  private List<Agent> associatedParties = new ArrayList<>();
+  private List<Agent> associatedParties;
 
-  private BibliographicCitationSet bibliographicCitationSet = new BibliographicCitationSet();
+  private BibliographicCitationSet bibliographicCitationSet = NO_BIBLIOGRAPHY;
 
   /**
    * A resource that describes a literature citation for the resource, one that might be found in a bibliography. We
@@ -172,12 +135,12 @@ public class Eml implements Serializable {
   /**
    * Serialised data
    */
-  private BigDecimal emlVersion = new BigDecimal("1.0");
+  private BigDecimal emlVersion = FIRST_VERSION;
 
-  private BigDecimal previousEmlVersion = new BigDecimal("1.0");
+  private BigDecimal previousEmlVersion = FIRST_VERSION;
   private int majorVersion = 1;
   private int minorVersion = 0;
-  private List<GeospatialCoverage> geospatialCoverages = new ArrayList<>();
+  private List<GeospatialCoverage> geospatialCoverages;
 
   /**
    * Dataset level to which the metadata applies. The default value for GBIF is "dataset"
@@ -198,20 +161,33 @@ public class Eml implements Serializable {
    */
   private String intellectualRights;
 
+  /**
+   * License url and title of the first link in the intellectualRights, extracted whenever the intellectualRights are
+   * set.
+   */
+  private String licenseUrl;
+
+  private String licenseTitle;
+
+  /**
+   * False for instances deserialized from a form without the license fields, these extract the license on first use.
+   */
+  private boolean licenseExtracted;
+
   /**
    * A quantitative descriptor (number of specimens, samples or batches). The actual quantification could be covered by
    * 1) an exact number of �JGI-units� in the collection plus a measure of uncertainty (+/- x); 2) a range of numbers
    * (x
    * to x), with the lower value representing an exact number, when the higher value is omitted.
    */
-  private List<JGTICuratorialUnit> jgtiCuratorialUnits = new ArrayList<>();
+  private List<JGTICuratorialUnit> jgtiCuratorialUnits;
 
   // Note that while Sets would be fine, to ease testing, Lists are
   // used to preserve ordering. A Set implementation that respect ordering
   // would also suffice
   // please refer to typed classes for descriptions of the properties and how
   // they map to EML
-  private List<KeywordSet> keywords = new ArrayList<>();
+  private List<KeywordSet> keywords;
 
   /**
    * The language in which the resource is written. This can be a well-known language name, or one of the ISO language
@@ -241,14 +217,14 @@ public class Eml implements Serializable {
    */
   private LocaleBundle metadataLocale;
 
-  private List<Collection> collections = new ArrayList<>();
+  private List<Collection> collections;
 
-  private List<PhysicalData> physicalData = new ArrayList<>();
+  private List<PhysicalData> physicalData;
 
   /**
    * The project this resource is associated with
    */
-  private Project project = new Project();
+  private Project project = NO_PROJECT;
 
   /**
    * The date that the resource was published. The format should be represented as: CCYY, which represents a 4 digit
@@ -300,7 +276,7 @@ public class Eml implements Serializable {
    *
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-resource_xsd.html#ResourceGroup_creator">EML Resource creator</a>
    */
-  private List<Agent> creators = new ArrayList<>();
+  private List<Agent> creators;
 
   /**
    * The 'metadataProvider' element provides the full name of the person, organization, or position who created
@@ -308,7 +284,7 @@ public class Eml implements Serializable {
    *
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-resource_xsd.html#ResourceGroup_metadataProvider">EML Resource metadataProvider</a>
    */
-  private List<Agent> metadataProviders = new ArrayList<>();
+  private List<Agent> metadataProviders;
 
   /**
    * The 'contact' field contains contact information for this dataset. This is the person or institution to contact
@@ -316,7 +292,7 @@ public class Eml implements Serializable {
    *
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-dataset_xsd.html#DatasetType_contact">EML Dataset contact</a>
    */
-  private List<Agent> contacts = new ArrayList<>();
+  private List<Agent> contacts;
 
   /**
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-dataset_xsd.html#DatasetType_publisher">EML Dataset publisher</a>
@@ -335,11 +311,11 @@ public class Eml implements Serializable {
    * @see <a href="http://rs.tdwg.org/ontology/voc/Collection#specimenPreservationMethod">TDWG Natural Collection
    *      Description</a>
    */
-  private List<String> specimenPreservationMethods = new ArrayList<>();
+  private List<String> specimenPreservationMethods;
 
-  private List<TaxonomicCoverage> taxonomicCoverages = new ArrayList<>();
+  private List<TaxonomicCoverage> taxonomicCoverages;
 
-  private List<TemporalCoverage> temporalCoverages = new ArrayList<>();
+  private List<TemporalCoverage> temporalCoverages;
 
   /**
    * URL linking to the resource homepage
@@ -390,7 +366,18 @@ public class Eml implements Serializable {
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-methods_xsd.html#MethodsType_methodStep">EML Methods
    *      methodStep keyword</a>
    */
-  private List<String> methodSteps = new ArrayList<>();
+  private List<String> methodSteps;
+
+  /**
+   * Snapshot this copy-on-write copy was taken from. Lists that are still the same instances as in the snapshot are
+   * copied once they are modified, the project, bibliography, citation and list elements once they are handed out.
+   */
+  private transient Eml sharedWith;
+
+  /**
+   * Set on sealed snapshots, whose lists reject modifications and whose getters store nothing.
+   */
+  private transient boolean readOnly;
 
   /**
    * Default constructor needed by Struts2
@@ -399,6 +386,148 @@ public class Eml implements Serializable {
     this.pubDate = new Date();
   }
 
+  // Lists, the bibliography and the project are only allocated once they are modified or handed out, as most of them
+  // stay empty. The getters allocate through the methods below and hand out the same instance on every later call, an
+  // ArrayList without elements shares the empty array of the JDK. equals, hashCode, toString and the other reads within
+  // this class never allocate.
+
+  private List<String> alternateIdentifiers() {
+    if (alternateIdentifiers == null) {
+      alternateIdentifiers = new ArrayList<>();
+    } else if (sharedWith != null && alternateIdentifiers == sharedWith.alternateIdentifiers) {
+      alternateIdentifiers = SnapshotList.draft(alternateIdentifiers);
+    }
+    return alternateIdentifiers;
+  }
+
+  private List<Agent> associatedParties() {
+    if (associatedParties == null) {
+      associatedParties = new ArrayList<>();
+    } else if (sharedWith != null && associatedParties == sharedWith.associatedParties) {
+      associatedParties = SnapshotList.draft(associatedParties, Agent::deepCopy);
+    }
+    return associatedParties;
+  }
+
+  private List<GeospatialCoverage> geospatialCoverages() {
+    if (geospatialCoverages == null) {
+      geospatialCoverages = new ArrayList<>();
+    } else if (sharedWith != null && geospatialCoverages == sharedWith.geospatialCoverages) {
+      geospatialCoverages = SnapshotList.draft(geospatialCoverages, GeospatialCoverage::deepCopy);
+    }
+    return geospatialCoverages;
+  }
+
+  private List<JGTICuratorialUnit> jgtiCuratorialUnits() {
+    if (jgtiCuratorialUnits == null) {
+      jgtiCuratorialUnits = new ArrayList<>();
+    } else if (sharedWith != null && jgtiCuratorialUnits == sharedWith.jgtiCuratorialUnits) {
+      jgtiCuratorialUnits = SnapshotList.draft(jgtiCuratorialUnits, JGTICuratorialUnit::deepCopy);
+    }
+    return jgtiCuratorialUnits;
+  }
+
+  private List<KeywordSet> keywords() {
+    if (keywords == null) {
+      keywords = new ArrayList<>();
+    } else if (sharedWith != null && keywords == sharedWith.keywords) {
+      keywords = SnapshotList.draft(keywords, KeywordSet::deepCopy);
+    }
+    return keywords;
+  }
+
+  private List<Collection> collections() {
+    if (collections == null) {
+      collections = new ArrayList<>();
+    } else if (sharedWith != null && collections == sharedWith.collections) {
+      collections = SnapshotList.draft(collections, Collection::deepCopy);
+    }
+    return collections;
+  }
+
+  private List<PhysicalData> physicalData() {
+    if (physicalData == null) {
+      physicalData = new ArrayList<>();
+    } else if (sharedWith != null && physicalData == sharedWith.physicalData) {
+      physicalData = SnapshotList.draft(physicalData, PhysicalData::deepCopy);
+    }
+    return physicalData;
+  }
+
+  private List<Agent> creators() {
+    if (creators == null) {
+      creators = new ArrayList<>();
+    } else if (sharedWith != null && creators == sharedWith.creators) {
+      creators = SnapshotList.draft(creators, Agent::deepCopy);
+    }
+    return creators;
+  }
+
+  private List<Agent> metadataProviders() {
+    if (metadataProviders == null) {
+      metadataProviders = new ArrayList<>();
+    } else if (sharedWith != null && metadataProviders == sharedWith.metadataProviders) {
+      metadataProviders = SnapshotList.draft(metadataProviders, Agent::deepCopy);
+    }
+    return metadataProviders;
+  }
+
+  private List<Agent> contacts() {
+    if (contacts == null) {
+      contacts = new ArrayList<>();
+    } else if (sharedWith != null && contacts == sharedWith.contacts) {
+      contacts = SnapshotList.draft(contacts, Agent::deepCopy);
+    }
+    return contacts;
+  }
+
+  private List<String> specimenPreservationMethods() {
+    if (specimenPreservationMethods == null) {
+      specimenPreservationMethods = new ArrayList<>();
+    } else if (sharedWith != null
+        && specimenPreservationMethods == sharedWith.specimenPreservationMethods) {
+      specimenPreservationMethods = SnapshotList.draft(specimenPreservationMethods);
+    }
+    return specimenPreservationMethods;
+  }
+
+  private List<TaxonomicCoverage> taxonomicCoverages() {
+    if (taxonomicCoverages == null) {
+      taxonomicCoverages = new ArrayList<>();
+    } else if (sharedWith != null && taxonomicCoverages == sharedWith.taxonomicCoverages) {
+      taxonomicCoverages = SnapshotList.draft(taxonomicCoverages, TaxonomicCoverage::deepCopy);
+    }
+    return taxonomicCoverages;
+  }
+
+  private List<TemporalCoverage> temporalCoverages() {
+    if (temporalCoverages == null) {
+      temporalCoverages = new ArrayList<>();
+    } else if (sharedWith != null && temporalCoverages == sharedWith.temporalCoverages) {
+      temporalCoverages = SnapshotList.draft(temporalCoverages, TemporalCoverage::deepCopy);
+    }
+    return temporalCoverages;
+  }
+
+  private List<String> methodSteps() {
+    if (methodSteps == null) {
+      methodSteps = new ArrayList<>();
+    } else if (sharedWith != null && methodSteps == sharedWith.methodSteps) {
+      methodSteps = SnapshotList.draft(methodSteps);
+    }
+    return methodSteps;
+  }
+
+  private BibliographicCitationSet bibliographicCitationSet() {
+    if (bibliographicCitationSet == null || bibliographicCitationSet == NO_BIBLIOGRAPHY) {
+      bibliographicCitationSet = new BibliographicCitationSet();
+    } else if (sharedWith != null
+        && bibliographicCitationSet == sharedWith.bibliographicCitationSet) {
+      bibliographicCitationSet = bibliographicCitationSet.deepCopy();
+    }
+    return bibliographicCitationSet;
+  }
+
   public String getAdditionalInfo() {
     if (additionalInfo == null || additionalInfo.isEmpty()) {
       return null;
@@ -411,7 +540,7 @@ public class Eml implements Serializable {
   }
 
   public List<String> getAlternateIdentifiers() {
-    return alternateIdentifiers;
+    return readOnly ? orEmpty(alternateIdentifiers) : alternateIdentifiers();
   }
 
   public void setAlternateIdentifiers(List<String> alternateIdentifiers) {
@@ -419,7 +548,7 @@ public class Eml implements Serializable {
   }
 
   public List<Agent> getAssociatedParties() {
-    return associatedParties;
+    return readOnly ? orEmpty(associatedParties) : associatedParties();
   }
 
   public void setAssociatedParties(List<Agent> associatedParties) {
@@ -427,7 +556,15 @@ public class Eml implements Serializable {
   }
 
   public BibliographicCitationSet getBibliographicCitationSet() {
-    return bibliographicCitationSet;
+    if (bibliographicCitationSet == null) {
+      return null;
+    } else if (readOnly) {
+      // never hand out the stand-in shared by all documents
+      return bibliographicCitationSet == NO_BIBLIOGRAPHY
+          ? new BibliographicCitationSet()
+          : bibliographicCitationSet;
+    }
+    return bibliographicCitationSet();
   }
 
   public void setBibliographicCitationSet(BibliographicCitationSet val) {
@@ -435,6 +572,9 @@ public class Eml implements Serializable {
   }
 
   public Citation getCitation() {
+    if (sharedWith != null && citation != null && citation == sharedWith.citation) {
+      citation = citation.deepCopy();
+    }
     return citation;
   }
 
@@ -449,10 +589,10 @@ public class Eml implements Serializable {
    * @return the creator, or null if no creators or contacts exist
    */
   private Agent getCreator() {
-    if (!creators.isEmpty()) {
+    if (creators != null && !creators.isEmpty()) {
       return creators.get(0);
     }
-    if (!contacts.isEmpty()) {
+    if (contacts != null && !contacts.isEmpty()) {
       return contacts.get(0);
     }
     return null;
@@ -465,17 +605,17 @@ public class Eml implements Serializable {
    * @return the metadataProvider, or null if no metadataProviders or contacts exist
    */
   private Agent getPublisher() {
-    if (!metadataProviders.isEmpty()) {
+    if (metadataProviders != null && !metadataProviders.isEmpty()) {
       return metadataProviders.get(0);
     }
-    if (!contacts.isEmpty()) {
+    if (contacts != null && !contacts.isEmpty()) {
       return contacts.get(0);
     }
     return null;
   }
 
   public Date getDateStamp() {
-    return dateStamp;
+    return readOnly ? Copies.copy(dateStamp) : dateStamp;
   }
 
   public void setDateStamp(Date dateStamp) {
@@ -528,7 +668,7 @@ public class Eml implements Serializable {
   }
 
   public List<GeospatialCoverage> getGeospatialCoverages() {
-    return geospatialCoverages;
+    return readOnly ? orEmpty(geospatialCoverages) : geospatialCoverages();
   }
 
   public void setGeospatialCoverages(List<GeospatialCoverage> geospatialCoverages) {
@@ -580,7 +720,11 @@ public class Eml implements Serializable {
    * Converts XML/EML ulink into HTML anchor, and then sets the intellectualRights.
    */
   public void setIntellectualRights(String intellectualRights) {
-    this.intellectualRights = paraXmlToHtml(shortLicenseToFull(intellectualRights));
+    String html = paraXmlToHtml(shortLicenseToFull(intellectualRights));
+    if (!licenseExtracted || !Objects.equals(html, this.intellectualRights)) {
+      this.intellectualRights = html;
+      extractLicense();
+    }
   }
 
   /**
@@ -620,13 +764,7 @@ public class Eml implements Serializable {
    * @return paragraph string, but with XML/EML ulink converted into an HTML link.
    */
   private static String paraXmlToHtml(String xml) {
-    if (StringUtils.isNotEmpty(xml)) {
-      return xml.replaceAll("<citetitle>", "")
-          .replaceAll("</citetitle>", "")
-          .replaceAll("<ulink url=", "<a href=")
-          .replaceAll("</ulink>", "</a>");
-    }
-    return xml;
+    return DocBookConverter.ulinksToAnchors(xml);
   }
 
   /**
@@ -635,16 +773,11 @@ public class Eml implements Serializable {
    * @return paragraph string, but with HTML anchors converted back into XML/EML ulink.
    */
   private static String paraHtmToXml(String html) {
-    if (StringUtils.isNotEmpty(html)) {
-      return html.replaceAll("\">", "\"><citetitle>")
-          .replaceAll("<a href=", "<ulink url=")
-          .replaceAll("</a>", "</citetitle></ulink>");
-    }
-    return html;
+    return DocBookConverter.anchorsToUlinks(html);
   }
 
   public List<JGTICuratorialUnit> getJgtiCuratorialUnits() {
-    return jgtiCuratorialUnits;
+    return readOnly ? orEmpty(jgtiCuratorialUnits) : jgtiCuratorialUnits();
   }
 
   public void setJgtiCuratorialUnits(List<JGTICuratorialUnit> jgtiCuratorialUnit) {
@@ -652,7 +785,7 @@ public class Eml implements Serializable {
   }
 
   public List<KeywordSet> getKeywords() {
-    return keywords;
+    return readOnly ? orEmpty(keywords) : keywords();
   }
 
   public void setKeywords(List<KeywordSet> keywords) {
@@ -709,7 +842,7 @@ public class Eml implements Serializable {
   }
 
   public List<String> getMethodSteps() {
-    return methodSteps;
+    return readOnly ? orEmpty(methodSteps) : methodSteps();
   }
 
   public void setMethodSteps(List<String> methodSteps) {
@@ -717,7 +850,7 @@ public class Eml implements Serializable {
   }
 
   public List<Collection> getCollections() {
-    return collections;
+    return readOnly ? orEmpty(collections) : collections();
   }
 
   public void setCollections(List<Collection> collections) {
@@ -725,7 +858,7 @@ public class Eml implements Serializable {
   }
 
   public List<PhysicalData> getPhysicalData() {
-    return physicalData;
+    return readOnly ? orEmpty(physicalData) : physicalData();
   }
 
   public void setPhysicalData(List<PhysicalData> physicalData) {
@@ -733,6 +866,15 @@ public class Eml implements Serializable {
   }
 
   public Project getProject() {
+    if (project == NO_PROJECT) {
+      // never hand out the stand-in shared by all documents
+      if (readOnly) {
+        return new Project();
+      }
+      project = new Project();
+    } else if (sharedWith != null && project != null && project == sharedWith.project) {
+      project = project.deepCopy();
+    }
     return project;
   }
 
@@ -741,7 +883,7 @@ public class Eml implements Serializable {
   }
 
   public Date getPubDate() {
-    return pubDate;
+    return readOnly ? Copies.copy(pubDate) : pubDate;
   }
 
   public void setPubDate(Date pubDate) {
@@ -809,7 +951,7 @@ public class Eml implements Serializable {
   }
 
   public List<Agent> getCreators() {
-    return creators;
+    return readOnly ? orEmpty(creators) : creators();
   }
 
   public void setCreators(List<Agent> creators) {
@@ -817,7 +959,7 @@ public class Eml implements Serializable {
   }
 
   public List<Agent> getMetadataProviders() {
-    return metadataProviders;
+    return readOnly ? orEmpty(metadataProviders) : metadataProviders();
   }
 
   public void setMetadataProviders(List<Agent> metadataProviders) {
@@ -825,7 +967,7 @@ public class Eml implements Serializable {
   }
 
   public List<Agent> getContacts() {
-    return contacts;
+    return readOnly ? orEmpty(contacts) : contacts();
   }
 
   public void setContacts(List<Agent> contacts) {
@@ -873,7 +1015,7 @@ public class Eml implements Serializable {
   }
 
   public List<String> getSpecimenPreservationMethods() {
-    return specimenPreservationMethods;
+    return readOnly ? orEmpty(specimenPreservationMethods) : specimenPreservationMethods();
   }
 
   public void setSpecimenPreservationMethods(List<String> specimenPreservationMethods) {
@@ -881,7 +1023,7 @@ public class Eml implements Serializable {
   }
 
   public List<TaxonomicCoverage> getTaxonomicCoverages() {
-    return taxonomicCoverages;
+    return readOnly ? orEmpty(taxonomicCoverages) : taxonomicCoverages();
   }
 
   public void setTaxonomicCoverages(List<TaxonomicCoverage> taxonomicCoverages) {
@@ -889,7 +1031,7 @@ public class Eml implements Serializable {
   }
 
   public List<TemporalCoverage> getTemporalCoverages() {
-    return temporalCoverages;
+    return readOnly ? orEmpty(temporalCoverages) : temporalCoverages();
   }
 
   public void setTemporalCoverages(List<TemporalCoverage> temporalCoverages) {
@@ -953,7 +1095,7 @@ public class Eml implements Serializable {
   }
 
   public Date getPublished() {
-    return pubDate;
+    return readOnly ? Copies.copy(pubDate) : pubDate;
   }
 
   public String getPublisherEmail() {
@@ -977,14 +1119,14 @@ public class Eml implements Serializable {
   }
 
   public String getSubject() {
-    return keywords.stream()
+    return orEmpty(keywords).stream()
         .flatMap(set -> set.getKeywords().stream())
         .map(StringUtils::trimToEmpty)
         .collect(Collectors.joining("; "));
   }
 
   public void addAlternateIdentifier(String alternateIdentifier) {
-    alternateIdentifiers.add(alternateIdentifier);
+    alternateIdentifiers().add(alternateIdentifier);
   }
 
   /**
@@ -994,7 +1136,7 @@ public class Eml implements Serializable {
    * @param agent to add
    */
   public void addCreator(Agent agent) {
-    creators.add(agent);
+    creators().add(agent);
   }
 
   /**
@@ -1004,7 +1146,7 @@ public class Eml implements Serializable {
    * @param agent to add
    */
   public void addMetadataProvider(Agent agent) {
-    metadataProviders.add(agent);
+    metadataProviders().add(agent);
   }
 
   /**
@@ -1014,7 +1156,7 @@ public class Eml implements Serializable {
    * @param agent to add
    */
   public void addContact(Agent agent) {
-    contacts.add(agent);
+    contacts().add(agent);
   }
 
   /**
@@ -1025,9 +1167,9 @@ public class Eml implements Serializable {
    */
   public void addAssociatedParty(Agent agent) {
     if (agent.getRole() == null) {
-      agent.setRole("AssociatedParty");
+      agent.setRole(ASSOCIATED_PARTY_ROLE);
     }
-    associatedParties.add(agent);
+    associatedParties().add(agent);
   }
 
   /**
@@ -1037,7 +1179,7 @@ public class Eml implements Serializable {
    * @param citations to add
    */
   public void addBibliographicCitations(List<Citation> citations) {
-    bibliographicCitationSet.getBibliographicCitations().addAll(citations);
+    bibliographicCitationSet().getBibliographicCitations().addAll(citations);
   }
 
   /**
@@ -1047,7 +1189,7 @@ public class Eml implements Serializable {
    * @param geospatialCoverage to add
    */
   public void addGeospatialCoverage(GeospatialCoverage geospatialCoverage) {
-    geospatialCoverages.add(geospatialCoverage);
+    geospatialCoverages().add(geospatialCoverage);
   }
 
   /**
@@ -1057,7 +1199,7 @@ public class Eml implements Serializable {
    * @param unit to add
    */
   public void addJgtiCuratorialUnit(JGTICuratorialUnit unit) {
-    jgtiCuratorialUnits.add(unit);
+    jgtiCuratorialUnits().add(unit);
   }
 
   /**
@@ -1067,7 +1209,7 @@ public class Eml implements Serializable {
    * @param keywordSet to add
    */
   public void addKeywordSet(KeywordSet keywordSet) {
-    keywords.add(keywordSet);
+    keywords().add(keywordSet);
   }
 
   /**
@@ -1077,7 +1219,7 @@ public class Eml implements Serializable {
    * @param step to add
    */
   public void addMethodStep(String step) {
-    methodSteps.add(step);
+    methodSteps().add(step);
   }
 
   /**
@@ -1087,7 +1229,7 @@ public class Eml implements Serializable {
    * @param preservationMethod to add
    */
   public void addSpecimenPreservationMethod(String preservationMethod) {
-    specimenPreservationMethods.add(preservationMethod);
+    specimenPreservationMethods().add(preservationMethod);
   }
 
   /**
@@ -1097,7 +1239,7 @@ public class Eml implements Serializable {
    * @param physicalData to add
    */
   public void addPhysicalData(PhysicalData physicalData) {
-    this.physicalData.add(physicalData);
+    physicalData().add(physicalData);
   }
 
   /**
@@ -1107,7 +1249,7 @@ public class Eml implements Serializable {
    * @param collection to add
    */
   public void addCollection(Collection collection) {
-    this.collections.add(collection);
+    collections().add(collection);
   }
 
   /**
@@ -1117,7 +1259,7 @@ public class Eml implements Serializable {
    * @param coverage to add
    */
   public void addTaxonomicCoverage(TaxonomicCoverage coverage) {
-    taxonomicCoverages.add(coverage);
+    taxonomicCoverages().add(coverage);
   }
 
   /**
@@ -1127,7 +1269,7 @@ public class Eml implements Serializable {
    * @param coverage to add
    */
   public void addTemporalCoverage(TemporalCoverage coverage) {
-    temporalCoverages.add(coverage);
+    temporalCoverages().add(coverage);
   }
 
   /**
@@ -1137,8 +1279,24 @@ public class Eml implements Serializable {
    * @param element in an XML document
    */
   public void parseIntellectualRights(org.w3c.dom.Element element) {
-    String xmlStr = shortLicenseToFull(rawXmlToString(element));
+    String rawXml = rawXmlToString(element);
+    String xmlStr = shortLicenseToFull(rawXml);
     this.intellectualRights = paraXmlToHtml(xmlStr);
+    if (intellectualRights != null && Objects.equals(xmlStr, rawXml)) {
+      // take the license from the parsed ulink instead of parsing the HTML again
+      org.w3c.dom.NodeList links = element.getElementsByTagName("ulink");
+      if (links.getLength() > 0) {
+        org.w3c.dom.Element link = (org.w3c.dom.Element) links.item(0);
+        licenseUrl = link.getAttribute("url");
+        licenseTitle = StringUtils.normalizeSpace(link.getTextContent());
+      } else {
+        licenseUrl = null;
+        licenseTitle = null;
+      }
+      licenseExtracted = true;
+    } else {
+      extractLicense();
+    }
   }
 
   public String getAbstract() {
@@ -1146,7 +1304,10 @@ public class Eml implements Serializable {
   }
 
   public List<Citation> getBibliographicCitations() {
-    return bibliographicCitationSet.getBibliographicCitations();
+    if (bibliographicCitationSet == null) {
+      return Collections.emptyList();
+    }
+    return getBibliographicCitationSet().getBibliographicCitations();
   }
 
   public String getPackageId() {
@@ -1158,7 +1319,7 @@ public class Eml implements Serializable {
   }
 
   public void setBibliographicCitations(List<Citation> val) {
-    bibliographicCitationSet.setBibliographicCitations(val);
+    bibliographicCitationSet().setBibliographicCitations(val);
   }
 
   public void setCitation(String citation, String identifier) {
@@ -1272,6 +1433,177 @@ public class Eml implements Serializable {
     return str;
   }
 
+  /**
+   * Copies this document and all of its children without serialization, e.g. to edit a working copy while readers
+   * keep the published one. Strings, numbers and other immutable values are shared, dates and lists are copied.
+   *
+   * @return a deep copy of this document
+   */
+  public Eml deepCopy() {
+    Eml copy = new Eml();
+    copy.description = description;
+    copy.additionalInfo = additionalInfo;
+    copy.alternateIdentifiers = Copies.copy(alternateIdentifiers);
+    copy.associatedParties = Copies.copy(associatedParties, Agent::deepCopy);
+    copy.bibliographicCitationSet =
+        bibliographicCitationSet == null || bibliographicCitationSet == NO_BIBLIOGRAPHY
+            ? bibliographicCitationSet
+            : bibliographicCitationSet.deepCopy();
+    copy.citation = citation == null ? null : citation.deepCopy();
+    copy.dateStamp = Copies.copy(dateStamp);
+    copy.distributionUrl = distributionUrl;
+    copy.distributionDownloadUrl = distributionDownloadUrl;
+    copy.emlVersion = emlVersion;
+    copy.previousEmlVersion = previousEmlVersion;
+    copy.majorVersion = majorVersion;
+    copy.minorVersion = minorVersion;
+    copy.geospatialCoverages = Copies.copy(geospatialCoverages, GeospatialCoverage::deepCopy);
+    copy.hierarchyLevel = hierarchyLevel;
+    copy.intellectualRights = intellectualRights;
+    copy.licenseUrl = licenseUrl;
+    copy.licenseTitle = licenseTitle;
+    copy.licenseExtracted = licenseExtracted;
+    copy.jgtiCuratorialUnits = Copies.copy(jgtiCuratorialUnits, JGTICuratorialUnit::deepCopy);
+    copy.keywords = Copies.copy(keywords, KeywordSet::deepCopy);
+    copy.language = language;
+    copy.logoUrl = logoUrl;
+    copy.metadataLanguage = metadataLanguage;
+    // immutable
+    copy.metadataLocale = metadataLocale;
+    copy.collections = Copies.copy(collections, Collection::deepCopy);
+    copy.physicalData = Copies.copy(physicalData, PhysicalData::deepCopy);
+    copy.project = project == null || project == NO_PROJECT ? project : project.deepCopy();
+    copy.pubDate = Copies.copy(pubDate);
+    copy.purpose = purpose;
+    copy.introduction = introduction;
+    copy.gettingStarted = gettingStarted;
+    copy.acknowledgements = acknowledgements;
+    copy.updateFrequencyDescription = updateFrequencyDescription;
+    copy.updateFrequency = updateFrequency;
+    copy.creators = Copies.copy(creators, Agent::deepCopy);
+    copy.metadataProviders = Copies.copy(metadataProviders, Agent::deepCopy);
+    copy.contacts = Copies.copy(contacts, Agent::deepCopy);
+    copy.publisherId = publisherId;
+    copy.publisherOrganizationName = publisherOrganizationName;
+    copy.specimenPreservationMethods = Copies.copy(specimenPreservationMethods);
+    copy.taxonomicCoverages = Copies.copy(taxonomicCoverages, TaxonomicCoverage::deepCopy);
+    copy.temporalCoverages = Copies.copy(temporalCoverages, TemporalCoverage::deepCopy);
+    copy.link = link;
+    copy.guid = guid;
+    copy.title = title;
+    copy.shortName = shortName;
+    copy.studyExtent = studyExtent;
+    copy.sampleDescription = sampleDescription;
+    copy.qualityControl = qualityControl;
+    copy.methodSteps = Copies.copy(methodSteps);
+    return copy;
+  }
+
+  /**
+   * Copies this sealed snapshot for editing, sharing its lists and children with the copy. Unlike a
+   * {@link #deepCopy()} this takes constant time: a shared list is only copied when the copy modifies it, and a shared
+   * child when the copy hands it out.
+   *
+   * @return a copy-on-write copy of this document
+   * @see EmlSnapshots#edit()
+   */
+  Eml copyOnWrite() {
+    if (!readOnly) {
+      throw new IllegalStateException("Not a snapshot");
+    }
+    Eml copy = new Eml();
+    copy.description = description;
+    copy.additionalInfo = additionalInfo;
+    copy.alternateIdentifiers = alternateIdentifiers;
+    copy.associatedParties = associatedParties;
+    copy.bibliographicCitationSet = bibliographicCitationSet;
+    copy.citation = citation;
+    copy.dateStamp = Copies.copy(dateStamp);
+    copy.distributionUrl = distributionUrl;
+    copy.distributionDownloadUrl = distributionDownloadUrl;
+    copy.emlVersion = emlVersion;
+    copy.previousEmlVersion = previousEmlVersion;
+    copy.majorVersion = majorVersion;
+    copy.minorVersion = minorVersion;
+    copy.geospatialCoverages = geospatialCoverages;
+    copy.hierarchyLevel = hierarchyLevel;
+    copy.intellectualRights = intellectualRights;
+    copy.licenseUrl = licenseUrl;
+    copy.licenseTitle = licenseTitle;
+    copy.licenseExtracted = licenseExtracted;
+    copy.jgtiCuratorialUnits = jgtiCuratorialUnits;
+    copy.keywords = keywords;
+    copy.language = language;
+    copy.logoUrl = logoUrl;
+    copy.metadataLanguage = metadataLanguage;
+    // immutable
+    copy.metadataLocale = metadataLocale;
+    copy.collections = collections;
+    copy.physicalData = physicalData;
+    copy.project = project;
+    copy.pubDate = Copies.copy(pubDate);
+    copy.purpose = purpose;
+    copy.introduction = introduction;
+    copy.gettingStarted = gettingStarted;
+    copy.acknowledgements = acknowledgements;
+    copy.updateFrequencyDescription = updateFrequencyDescription;
+    copy.updateFrequency = updateFrequency;
+    copy.creators = creators;
+    copy.metadataProviders = metadataProviders;
+    copy.contacts = contacts;
+    copy.publisherId = publisherId;
+    copy.publisherOrganizationName = publisherOrganizationName;
+    copy.specimenPreservationMethods = specimenPreservationMethods;
+    copy.taxonomicCoverages = taxonomicCoverages;
+    copy.temporalCoverages = temporalCoverages;
+    copy.link = link;
+    copy.guid = guid;
+    copy.title = title;
+    copy.shortName = shortName;
+    copy.studyExtent = studyExtent;
+    copy.sampleDescription = sampleDescription;
+    copy.qualityControl = qualityControl;
+    copy.methodSteps = methodSteps;
+    copy.sharedWith = this;
+    return copy;
+  }
+
+  /**
+   * Turns this document into a read only snapshot, its children must no longer be modified either. Lists a
+   * copy-on-write copy did not modify are given back to the snapshot it was taken from.
+   */
+  void seal() {
+    if (readOnly) {
+      return;
+    }
+    if (!licenseExtracted) {
+      extractLicense();
+    }
+    alternateIdentifiers = SnapshotList.seal(alternateIdentifiers);
+    associatedParties = SnapshotList.seal(associatedParties);
+    geospatialCoverages = SnapshotList.seal(geospatialCoverages);
+    jgtiCuratorialUnits = SnapshotList.seal(jgtiCuratorialUnits);
+    keywords = SnapshotList.seal(keywords);
+    collections = SnapshotList.seal(collections);
+    physicalData = SnapshotList.seal(physicalData);
+    creators = SnapshotList.seal(creators);
+    metadataProviders = SnapshotList.seal(metadataProviders);
+    contacts = SnapshotList.seal(contacts);
+    specimenPreservationMethods = SnapshotList.seal(specimenPreservationMethods);
+    taxonomicCoverages = SnapshotList.seal(taxonomicCoverages);
+    temporalCoverages = SnapshotList.seal(temporalCoverages);
+    methodSteps = SnapshotList.seal(methodSteps);
+    sharedWith = null;
+    readOnly = true;
+  }
+
+  /**
+   * @return the snapshot this is a copy-on-write copy of, or null
+   */
+  Eml sharedWith() {
+    return sharedWith;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -1281,8 +1613,8 @@ public class Eml implements Serializable {
         && minorVersion == eml.minorVersion
         && Objects.equals(description, eml.description)
         && Objects.equals(additionalInfo, eml.additionalInfo)
-        && Objects.equals(alternateIdentifiers, eml.alternateIdentifiers)
-        && Objects.equals(associatedParties, eml.associatedParties)
+        && orEmpty(alternateIdentifiers).equals(orEmpty(eml.alternateIdentifiers))
+        && orEmpty(associatedParties).equals(orEmpty(eml.associatedParties))
         && Objects.equals(bibliographicCitationSet, eml.bibliographicCitationSet)
         && Objects.equals(citation, eml.citation)
         && Objects.equals(dateStamp, eml.dateStamp)
@@ -1290,30 +1622,30 @@ public class Eml implements Serializable {
         && Objects.equals(distributionDownloadUrl, eml.distributionDownloadUrl)
         && Objects.equals(emlVersion, eml.emlVersion)
         && Objects.equals(previousEmlVersion, eml.previousEmlVersion)
-        && Objects.equals(geospatialCoverages, eml.geospatialCoverages)
+        && orEmpty(geospatialCoverages).equals(orEmpty(eml.geospatialCoverages))
         && Objects.equals(hierarchyLevel, eml.hierarchyLevel)
         && Objects.equals(intellectualRights, eml.intellectualRights)
-        && Objects.equals(jgtiCuratorialUnits, eml.jgtiCuratorialUnits)
-        && Objects.equals(keywords, eml.keywords)
+        && orEmpty(jgtiCuratorialUnits).equals(orEmpty(eml.jgtiCuratorialUnits))
+        && orEmpty(keywords).equals(orEmpty(eml.keywords))
         && Objects.equals(language, eml.language)
         && Objects.equals(logoUrl, eml.logoUrl)
         && Objects.equals(metadataLanguage, eml.metadataLanguage)
         && Objects.equals(metadataLocale, eml.metadataLocale)
-        && Objects.equals(collections, eml.collections)
-        && Objects.equals(physicalData, eml.physicalData)
+        && orEmpty(collections).equals(orEmpty(eml.collections))
+        && orEmpty(physicalData).equals(orEmpty(eml.physicalData))
         && Objects.equals(project, eml.project)
         && Objects.equals(pubDate, eml.pubDate)
         && Objects.equals(purpose, eml.purpose)
         && Objects.equals(updateFrequencyDescription, eml.updateFrequencyDescription)
         && updateFrequency == eml.updateFrequency
-        && Objects.equals(creators, eml.creators)
-        && Objects.equals(metadataProviders, eml.metadataProviders)
-        && Objects.equals(contacts, eml.contacts)
+        && orEmpty(creators).equals(orEmpty(eml.creators))
+        && orEmpty(metadataProviders).equals(orEmpty(eml.metadataProviders))
+        && orEmpty(contacts).equals(orEmpty(eml.contacts))
         && Objects.equals(publisherId, eml.publisherId)
         && Objects.equals(publisherOrganizationName, eml.publisherOrganizationName)
-        && Objects.equals(specimenPreservationMethods, eml.specimenPreservationMethods)
-        && Objects.equals(taxonomicCoverages, eml.taxonomicCoverages)
-        && Objects.equals(temporalCoverages, eml.temporalCoverages)
+        && orEmpty(specimenPreservationMethods).equals(orEmpty(eml.specimenPreservationMethods))
+        && orEmpty(taxonomicCoverages).equals(orEmpty(eml.taxonomicCoverages))
+        && orEmpty(temporalCoverages).equals(orEmpty(eml.temporalCoverages))
         && Objects.equals(link, eml.link)
         && Objects.equals(guid, eml.guid)
         && Objects.equals(title, eml.title)
@@ -1321,7 +1653,7 @@ public class Eml implements Serializable {
         && Objects.equals(studyExtent, eml.studyExtent)
         && Objects.equals(sampleDescription, eml.sampleDescription)
         && Objects.equals(qualityControl, eml.qualityControl)
-        && Objects.equals(methodSteps, eml.methodSteps);
+        && orEmpty(methodSteps).equals(orEmpty(eml.methodSteps));
   }
 
   @Override
@@ -1329,8 +1661,8 @@ public class Eml implements Serializable {
     return Objects.hash(
         description,
         additionalInfo,
-        alternateIdentifiers,
-        associatedParties,
+        orEmpty(alternateIdentifiers),
+        orEmpty(associatedParties),
         bibliographicCitationSet,
         citation,
         dateStamp,
@@ -1340,30 +1672,30 @@ public class Eml implements Serializable {
         previousEmlVersion,
         majorVersion,
         minorVersion,
-        geospatialCoverages,
+        orEmpty(geospatialCoverages),
         hierarchyLevel,
         intellectualRights,
-        jgtiCuratorialUnits,
-        keywords,
+        orEmpty(jgtiCuratorialUnits),
+        orEmpty(keywords),
         language,
         logoUrl,
         metadataLanguage,
         metadataLocale,
-        collections,
-        physicalData,
+        orEmpty(collections),
+        orEmpty(physicalData),
         project,
         pubDate,
         purpose,
         updateFrequencyDescription,
         updateFrequency,
-        creators,
-        metadataProviders,
-        contacts,
+        orEmpty(creators),
+        orEmpty(metadataProviders),
+        orEmpty(contacts),
         publisherId,
         publisherOrganizationName,
-        specimenPreservationMethods,
-        taxonomicCoverages,
-        temporalCoverages,
+        orEmpty(specimenPreservationMethods),
+        orEmpty(taxonomicCoverages),
+        orEmpty(temporalCoverages),
         link,
         guid,
         title,
@@ -1371,7 +1703,7 @@ public class Eml implements Serializable {
         studyExtent,
         sampleDescription,
         qualityControl,
-        methodSteps);
+        orEmpty(methodSteps));
   }
 
   @Override
@@ -1379,8 +1711,8 @@ public class Eml implements Serializable {
     return new StringJoiner(", ", Eml.class.getSimpleName() + "[", "]")
         .add("description=" + description)
         .add("additionalInfo='" + additionalInfo + "'")
-        .add("alternateIdentifiers=" + alternateIdentifiers)
-        .add("associatedParties=" + associatedParties)
+        .add("alternateIdentifiers=" + orEmpty(alternateIdentifiers))
+        .add("associatedParties=" + orEmpty(associatedParties))
         .add("bibliographicCitationSet=" + bibliographicCitationSet)
         .add("citation=" + citation)
         .add("dateStamp=" + dateStamp)
@@ -1390,30 +1722,30 @@ public class Eml implements Serializable {
         .add("previousEmlVersion=" + previousEmlVersion)
         .add("majorVersion=" + majorVersion)
         .add("minorVersion=" + minorVersion)
-        .add("geospatialCoverages=" + geospatialCoverages)
+        .add("geospatialCoverages=" + orEmpty(geospatialCoverages))
         .add("hierarchyLevel='" + hierarchyLevel + "'")
         .add("intellectualRights='" + intellectualRights + "'")
-        .add("jgtiCuratorialUnits=" + jgtiCuratorialUnits)
-        .add("keywords=" + keywords)
+        .add("jgtiCuratorialUnits=" + orEmpty(jgtiCuratorialUnits))
+        .add("keywords=" + orEmpty(keywords))
         .add("language='" + language + "'")
         .add("logoUrl='" + logoUrl + "'")
         .add("metadataLanguage='" + metadataLanguage + "'")
         .add("metadataLocale=" + metadataLocale)
-        .add("collections=" + collections)
-        .add("physicalData=" + physicalData)
+        .add("collections=" + orEmpty(collections))
+        .add("physicalData=" + orEmpty(physicalData))
         .add("project=" + project)
         .add("pubDate=" + pubDate)
         .add("purpose='" + purpose + "'")
         .add("updateFrequencyDescription='" + updateFrequencyDescription + "'")
         .add("updateFrequency=" + updateFrequency)
-        .add("creators=" + creators)
-        .add("metadataProviders=" + metadataProviders)
-        .add("contacts=" + contacts)
+        .add("creators=" + orEmpty(creators))
+        .add("metadataProviders=" + orEmpty(metadataProviders))
+        .add("contacts=" + orEmpty(contacts))
         .add("publisherId='" + publisherId + "'")
         .add("publisherOrganizationName='" + publisherOrganizationName + "'")
-        .add("specimenPreservationMethods=" + specimenPreservationMethods)
-        .add("taxonomicCoverages=" + taxonomicCoverages)
-        .add("temporalCoverages=" + temporalCoverages)
+        .add("specimenPreservationMethods=" + orEmpty(specimenPreservationMethods))
+        .add("taxonomicCoverages=" + orEmpty(taxonomicCoverages))
+        .add("temporalCoverages=" + orEmpty(temporalCoverages))
         .add("link='" + link + "'")
         .add("guid='" + guid + "'")
         .add("title='" + title + "'")
@@ -1421,7 +1753,7 @@ public class Eml implements Serializable {
         .add("studyExtent='" + studyExtent + "'")
         .add("sampleDescription='" + sampleDescription + "'")
         .add("qualityControl='" + qualityControl + "'")
-        .add("methodSteps=" + methodSteps)
+        .add("methodSteps=" + orEmpty(methodSteps))
         .toString();
   }
 
@@ -1504,13 +1836,8 @@ public class Eml implements Serializable {
    * @return license url from para embedded inside rights statement, or null if none found.
    */
   public String parseLicenseUrl() {
-    String licenseUrl = null;
-    if (intellectualRights != null) {
-      Document doc = Jsoup.parse(intellectualRights);
-      Element link = doc.select("a").first();
-      if (link != null) {
-        licenseUrl = link.attr("href");
-      }
+    if (!licenseExtracted) {
+      extractLicense();
     }
     return licenseUrl;
   }
@@ -1526,15 +1853,27 @@ public class Eml implements Serializable {
    * @return license title from para embedded inside rights statement, or null if none found.
    */
   public String parseLicenseTitle() {
-    String licenseUrl = null;
+    if (!licenseExtracted) {
+      extractLicense();
+    }
+    return licenseTitle;
+  }
+
+  /**
+   * Extracts license url and title from the first HTML anchor of the intellectualRights.
+   */
+  private void extractLicense() {
+    licenseUrl = null;
+    licenseTitle = null;
     if (intellectualRights != null) {
       Document doc = Jsoup.parse(intellectualRights);
       Element link = doc.select("a").first();
       if (link != null) {
-        licenseUrl = link.text();
+        licenseUrl = link.attr("href");
+        licenseTitle = link.text();
       }
     }
-    return licenseUrl;
+    licenseExtracted = true;
   }
 
   // Value with all HTML tags replaced by DocBook analogues
@@ -1542,10 +1881,10 @@ public class Eml implements Serializable {
     String result = null;
 
     try {
-      String value = BeanUtils.getProperty(this, fieldName);
+      String value = getField(fieldName);
 
       if (value != null) {
-        result = replaceDocBookElements(value.trim());
+        result = DocBookConverter.htmlToDocBook(value.trim());
       }
     } catch (Exception e) {
       LOG.error("Error parsing field: {}", fieldName, e);
@@ -1554,115 +1893,21 @@ public class Eml implements Serializable {
     return result;
   }
 
-  private String replaceDocBookElements(String value) {
-    // Handle <a> to <ulink> conversion
-    String htmlStringWithLinksReplaced =
-        value.replaceAll(
-            "<a\\s+href=\"(.*?)\">\\s*(.*?)\\s*</a>",
-            "<ulink url=\"$1\"><citetitle>$2</citetitle></ulink>");
-
-    // Perform replacements
-    String docBookString =
-        StringUtils.replaceEach(htmlStringWithLinksReplaced, HTML_TAGS, DOCBOOK_TAGS);
-
-    // Escape special characters except for allowed DocBook tags
-    return escapeExceptAllowedTags(docBookString);
-  }
-
-  private String escapeExceptAllowedTags(String input) {
-    StringBuilder output = new StringBuilder();
-
-    // Use regex to split input into tags and text segments
-    String[] parts = input.split("(?=<[^>]+>)|(?<=>)");
-
-    for (String part : parts) {
-      // No need to trim whitespace here to preserve leading/trailing spaces
-      if (part.matches("^<[^>]+>$")) {
-        // If it's a tag, check if it's an allowed HTML tag
-        String tagName = getTagName(part);
-        if (isAllowedDocBookTag(tagName) || isDocBookLink(part)) {
-          // Preserve allowed tags as-is
-          output.append(part);
-        } else {
-          // Escape non-allowed tags
-          output.append(customEscape(part));
-        }
-      } else {
-        // Escape special characters in text
-        output.append(customEscape(part));
-      }
-    }
-
-    return output.toString();
-  }
-
-  // Helper method to extract the tag name (without <>)
-  private String getTagName(String tag) {
-    return tag.replaceAll("[<>/]", "").split("\\s+")[0];
-  }
-
-  // Helper method to check if a tag is an allowed DocBook tag
-  private boolean isAllowedDocBookTag(String tagName) {
-    for (String allowedTag : ALLOWED_DOCBOOK_TAGS) {
-      if (allowedTag.equalsIgnoreCase(tagName)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  // Helper method to check if a tag is an DocBook ulink
-  private boolean isDocBookLink(String tag) {
-    return tag.matches("^<ulink\\s+url=\".*?\">.*?</ulink>$");
-  }
-
-  private String customEscape(String input) {
-    StringBuilder escaped = new StringBuilder();
-    int length = input.length();
-
-    for (int i = 0; i < length; i++) {
-      char c = input.charAt(i);
-
-      // Check for '&' to identify potential escaped entities
-      if (c == '&' && i + 3 < length) {
-        // Extract the next few characters after '&' to check if it's a known escaped entity
-        String potentialEntity =
-            input.substring(i, Math.min(i + 6, length)); // "&nbsp;" is 6 characters
-
-        if (potentialEntity.startsWith("&nbsp;")) {
-          // Replace &nbsp; with &#160;
-          escaped.append("&#160;");
-          i += 5; // Skip the characters of "&nbsp;"
-          continue;
-        } else if (potentialEntity.startsWith("&amp;")
-            || potentialEntity.startsWith("&lt;")
-            || potentialEntity.startsWith("&gt;")
-            || potentialEntity.startsWith("&quot;")
-            || potentialEntity.startsWith("&apos;")) {
-          // If it's an already escaped entity, append it as-is and skip ahead
-          escaped.append(potentialEntity);
-          i += potentialEntity.length() - 1; // Skip the already escaped entity
-          continue;
-        }
-      }
-
-      // Now escape only unescaped characters
-      switch (c) {
-        case '&':
-          escaped.append("&amp;");
-          break;
-        case '<':
-          escaped.append("&lt;");
-          break;
-        case '>':
-          escaped.append("&gt;");
-          break;
-        default:
-          // Preserve other characters (including Unicode characters)
-          escaped.append(c);
-      }
+  // the fields used by the templates are read directly, any other through reflection
+  private String getField(String fieldName) throws Exception {
+    switch (fieldName) {
+      case "description":
+        return getDescription();
+      case "purpose":
+        return getPurpose();
+      case "introduction":
+        return getIntroduction();
+      case "gettingStarted":
+        return getGettingStarted();
+      case "acknowledgements":
+        return getAcknowledgements();
+      default:
+        return BeanUtils.getProperty(this, fieldName);
     }
-
-    return escaped.toString();
   }
 }
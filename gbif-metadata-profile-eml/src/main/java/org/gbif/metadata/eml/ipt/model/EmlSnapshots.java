@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt.model;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the {@link Eml} of a resource as read only snapshots, so it can be rendered and edited concurrently without
+ * locking the resource.
+ * <p>
+ * Readers take the current {@link #snapshot()}, which is never modified again: its lists reject modifications with an
+ * {@link UnsupportedOperationException}, and neither it nor its children must be modified otherwise. Writers
+ * {@link #edit()} a copy-on-write copy of the current snapshot and {@link #publish} the copy once done. The copy shares
+ * all lists and children with the snapshot, a list is copied on its first modification and a child, like the project
+ * or an element of a list, the first time the copy hands it out.
+ * <pre>
+ * Eml draft = snapshots.edit();
+ * draft.setTitle("New title");
+ * draft.getCreators().add(agent);
+ * draft.getContacts().get(0).setLastName("Smith");
+ * if (!snapshots.publish(draft)) {
+ *   // someone else published in the meantime, edit again
+ * }
+ * </pre>
+ * This class is thread safe.
+ */
+public class EmlSnapshots {
+
+  private volatile Eml current;
+
+  /**
+   * @param eml the initial document, which is sealed and must no longer be modified
+   */
+  public EmlSnapshots(Eml eml) {
+    Objects.requireNonNull(eml, "eml");
+    eml.seal();
+    this.current = eml;
+  }
+
+  /**
+   * @return the current snapshot, which is read only
+   */
+  public Eml snapshot() {
+    return current;
+  }
+
+  /**
+   * @return a copy of the current snapshot to edit and publish
+   */
+  public Eml edit() {
+    return current.copyOnWrite();
+  }
+
+  /**
+   * Publishes an edited copy, unless another copy was published since it was taken. The copy becomes a read only
+   * snapshot and must no longer be modified.
+   *
+   * @param draft a copy obtained from {@link #edit()}
+   * @return true if the copy was published, false if it was taken from an older snapshot
+   */
+  public synchronized boolean publish(Eml draft) {
+    Eml origin = draft.sharedWith();
+    if (origin == null) {
+      throw new IllegalArgumentException("Not an edited copy of a snapshot");
+    }
+    if (origin != current) {
+      return false;
+    }
+    draft.seal();
+    current = draft;
+    return true;
+  }
+
+  /**
+   * Rejects a modification of a list that is part of a snapshot.
+   */
+  static void checkWritable(boolean readOnly) {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Read only snapshot");
+    }
+  }
+
+  /**
+   * Edits and publishes a copy of the current snapshot, repeating the edit on a fresh copy if another one was
+   * published concurrently.
+   *
+   * @param editor modifies the copy
+   * @return the published snapshot
+   */
+  public Eml update(Consumer<Eml> editor) {
+    while (true) {
+      Eml draft = edit();
+      editor.accept(draft);
+      if (publish(draft)) {
+        return draft;
+      }
+    }
+  }
+}
@@ -89,6 +89,17 @@ public class GeospatialCoverage implements Serializable {
     this.keywords = keywords;
   }
 
+  /**
+   * @return a deep copy of this coverage
+   */
+  public GeospatialCoverage deepCopy() {
+    GeospatialCoverage copy = new GeospatialCoverage();
+    copy.description = description;
+    copy.keywords = Copies.copy(keywords);
+    copy.boundingCoordinates = boundingCoordinates == null ? null : boundingCoordinates.deepCopy();
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -85,6 +85,19 @@ public class JGTICuratorialUnit implements Serializable {
     return JGTICuratorialUnitType.COUNT_RANGE;
   }
 
+  /**
+   * @return a copy of this curatorial unit
+   */
+  public JGTICuratorialUnit deepCopy() {
+    JGTICuratorialUnit copy = new JGTICuratorialUnit();
+    copy.unitType = unitType;
+    copy.rangeStart = rangeStart;
+    copy.rangeEnd = rangeEnd;
+    copy.rangeMean = rangeMean;
+    copy.uncertaintyMeasure = uncertaintyMeasure;
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
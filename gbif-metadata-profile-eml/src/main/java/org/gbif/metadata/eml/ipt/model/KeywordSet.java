@@ -16,6 +16,8 @@ package org.gbif.metadata.eml.ipt.model;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -137,4 +139,36 @@ public class KeywordSet implements Serializable {
     }
     return sb.toString();
   }
+
+  /**
+   * @return a deep copy of this keyword set
+   */
+  public KeywordSet deepCopy() {
+    KeywordSet copy = new KeywordSet();
+    copy.keywordThesaurus = keywordThesaurus;
+    copy.keywords = Copies.copy(keywords);
+    return copy;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    KeywordSet that = (KeywordSet) o;
+    return Objects.equals(keywordThesaurus, that.keywordThesaurus)
+        && Objects.equals(keywords, that.keywords);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(keywordThesaurus, keywords);
+  }
+
+  @Override
+  public String toString() {
+    return new StringJoiner(", ", KeywordSet.class.getSimpleName() + "[", "]")
+        .add("keywordThesaurus='" + keywordThesaurus + "'")
+        .add("keywords=" + keywords)
+        .toString();
+  }
 }
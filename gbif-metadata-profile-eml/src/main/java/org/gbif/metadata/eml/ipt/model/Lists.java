@@ -0,0 +1,32 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for the list properties of the model, which stay null until they are modified or handed out.
+ */
+final class Lists {
+
+  private Lists() {}
+
+  /**
+   * @return the list, or the shared empty list if it has not been allocated
+   */
+  static <T> List<T> orEmpty(List<T> list) {
+    return list == null ? Collections.emptyList() : list;
+  }
+}
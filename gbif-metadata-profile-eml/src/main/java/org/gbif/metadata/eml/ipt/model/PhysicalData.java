@@ -14,6 +14,7 @@
 package org.gbif.metadata.eml.ipt.model;
 
 import java.io.Serializable;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.StringJoiner;
 
@@ -65,6 +66,30 @@ public class PhysicalData implements Serializable {
    */
   private String name;
 
+  /**
+   * Size of the data object in bytes.
+   *
+   * @see <a href="https://eml.ecoinformatics.org/schema/eml-physical_xsd.html">EML Physical
+   *      size keyword</a>
+   */
+  private Long size;
+
+  /**
+   * Hex encoded MD5 checksum of the data object.
+   *
+   * @see <a href="https://eml.ecoinformatics.org/schema/eml-physical_xsd.html">EML Physical
+   *      authentication keyword</a>
+   */
+  private String md5;
+
+  /**
+   * Hex encoded SHA-256 checksum of the data object.
+   *
+   * @see <a href="https://eml.ecoinformatics.org/schema/eml-physical_xsd.html">EML Physical
+   *      authentication keyword</a>
+   */
+  private String sha256;
+
   /**
    * Required by Struts2
    */
@@ -90,6 +115,18 @@ public class PhysicalData implements Serializable {
     return name;
   }
 
+  public Long getSize() {
+    return size;
+  }
+
+  public String getMd5() {
+    return md5;
+  }
+
+  public String getSha256() {
+    return sha256;
+  }
+
   public void setCharset(String charset) {
     this.charset = charset;
   }
@@ -110,6 +147,52 @@ public class PhysicalData implements Serializable {
     this.name = name;
   }
 
+  public void setSize(Long size) {
+    this.size = size;
+  }
+
+  public void setMd5(String md5) {
+    this.md5 = md5;
+  }
+
+  public void setSha256(String sha256) {
+    this.sha256 = sha256;
+  }
+
+  /**
+   * Sets the checksum of an EML authentication element, ignoring methods other than MD5 and SHA-256.
+   *
+   * @param checksum the checksum
+   * @param method   the name of the checksum algorithm
+   */
+  public void addAuthentication(String checksum, String method) {
+    if (method == null || checksum == null || checksum.trim().isEmpty()) {
+      return;
+    }
+    String normalised = method.trim().replace("-", "").toUpperCase(Locale.ENGLISH);
+    if (normalised.equals("MD5")) {
+      md5 = checksum.trim();
+    } else if (normalised.equals("SHA256")) {
+      sha256 = checksum.trim();
+    }
+  }
+
+  /**
+   * @return a copy of this physical data
+   */
+  public PhysicalData deepCopy() {
+    PhysicalData copy = new PhysicalData();
+    copy.charset = charset;
+    copy.distributionUrl = distributionUrl;
+    copy.format = format;
+    copy.formatVersion = formatVersion;
+    copy.name = name;
+    copy.size = size;
+    copy.md5 = md5;
+    copy.sha256 = sha256;
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -119,12 +202,16 @@ public class PhysicalData implements Serializable {
         && Objects.equals(distributionUrl, that.distributionUrl)
         && Objects.equals(format, that.format)
         && Objects.equals(formatVersion, that.formatVersion)
-        && Objects.equals(name, that.name);
+        && Objects.equals(name, that.name)
+        && Objects.equals(size, that.size)
+        && Objects.equals(md5, that.md5)
+        && Objects.equals(sha256, that.sha256);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(charset, distributionUrl, format, formatVersion, name);
+    return Objects.hash(
+        charset, distributionUrl, format, formatVersion, name, size, md5, sha256);
   }
 
   @Override
@@ -135,6 +222,9 @@ public class PhysicalData implements Serializable {
         .add("format='" + format + "'")
         .add("formatVersion='" + formatVersion + "'")
         .add("name='" + name + "'")
+        .add("size=" + size)
+        .add("md5='" + md5 + "'")
+        .add("sha256='" + sha256 + "'")
         .toString();
   }
 }
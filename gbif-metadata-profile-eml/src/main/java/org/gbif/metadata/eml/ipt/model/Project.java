@@ -28,11 +28,16 @@ import lombok.ToString;
 @Setter
 @Getter
 @EqualsAndHashCode
-@ToString
+@ToString(doNotUseGetters = true)
 public class Project implements Serializable {
 
   private static final long serialVersionUID = 2224956553560612242L;
 
+  /**
+   * Role given to project personnel added without one.
+   */
+  public static final String PERSONNEL_ROLE = "pointOfContact";
+
   /**
    * A descriptive title for the research project.
    *
@@ -62,7 +67,7 @@ public class Project implements Serializable {
    *      personnel
    *      keyword</a>
    */
-  private List<Agent> personnel = new ArrayList<>();
+  private List<Agent> personnel;
 
   /**
    * Links to other projects.
@@ -70,7 +75,7 @@ public class Project implements Serializable {
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-project_xsd.html#ResearchProjectType_relatedProject">
    *      EML Related Project</a>
    */
-  private List<Project> relatedProjects = new ArrayList<>();
+  private List<Project> relatedProjects;
 
   /**
    * The award field is used to provide specific information about the funding awards for a project in a structured
@@ -79,7 +84,7 @@ public class Project implements Serializable {
    * @see <a href="https://eml.ecoinformatics.org/schema/eml-project_xsd.html#ResearchProjectType_award">
    *       EML Project Award</a>
    */
-  private List<ProjectAward> awards = new ArrayList<>();
+  private List<ProjectAward> awards;
 
   /**
    * The funding field is used to provide information about funding sources for the project such as: grant and contract
@@ -111,10 +116,27 @@ public class Project implements Serializable {
   /**
    * Required by Struts2
    */
-  public Project() {
-    for (Agent agent : personnel) {
-      agent.setRole("pointOfContact");
+  public Project() {}
+
+  public List<Agent> getPersonnel() {
+    if (personnel == null) {
+      personnel = new ArrayList<>();
     }
+    return personnel;
+  }
+
+  public List<Project> getRelatedProjects() {
+    if (relatedProjects == null) {
+      relatedProjects = new ArrayList<>();
+    }
+    return relatedProjects;
+  }
+
+  public List<ProjectAward> getAwards() {
+    if (awards == null) {
+      awards = new ArrayList<>();
+    }
+    return awards;
   }
 
   /**
@@ -125,7 +147,7 @@ public class Project implements Serializable {
    */
   public void addProjectPersonnel(Agent agent) {
     if (agent.getRole() == null) {
-      agent.setRole("pointOfContact");
+      agent.setRole(PERSONNEL_ROLE);
     }
     getPersonnel().add(agent);
   }
@@ -141,4 +163,39 @@ public class Project implements Serializable {
       getAwards().add(projectAward);
     }
   }
+
+  // equals and hashCode read lists that have not been allocated as empty ones, without allocating them
+
+  @EqualsAndHashCode.Include(replaces = "personnel")
+  private List<Agent> personnelOrEmpty() {
+    return Lists.orEmpty(personnel);
+  }
+
+  @EqualsAndHashCode.Include(replaces = "relatedProjects")
+  private List<Project> relatedProjectsOrEmpty() {
+    return Lists.orEmpty(relatedProjects);
+  }
+
+  @EqualsAndHashCode.Include(replaces = "awards")
+  private List<ProjectAward> awardsOrEmpty() {
+    return Lists.orEmpty(awards);
+  }
+
+  /**
+   * @return a deep copy of this project, including its personnel and related projects
+   */
+  public Project deepCopy() {
+    Project copy = new Project();
+    copy.title = title;
+    copy.identifier = identifier;
+    copy.description = description;
+    copy.personnel = Copies.copy(personnel, Agent::deepCopy);
+    copy.relatedProjects = Copies.copy(relatedProjects, Project::deepCopy);
+    copy.awards = Copies.copy(awards, ProjectAward::deepCopy);
+    copy.funding = funding;
+    copy.studyAreaDescription =
+        studyAreaDescription == null ? null : studyAreaDescription.deepCopy();
+    copy.designDescription = designDescription;
+    return copy;
+  }
 }
@@ -74,4 +74,17 @@ public class ProjectAward {
       funderIdentifiers.add(funderIdentifier);
     }
   }
+
+  /**
+   * @return a deep copy of this award
+   */
+  public ProjectAward deepCopy() {
+    ProjectAward copy = new ProjectAward();
+    copy.funderName = funderName;
+    copy.funderIdentifiers = Copies.copy(funderIdentifiers);
+    copy.awardNumber = awardNumber;
+    copy.title = title;
+    copy.awardUrl = awardUrl;
+    return copy;
+  }
 }
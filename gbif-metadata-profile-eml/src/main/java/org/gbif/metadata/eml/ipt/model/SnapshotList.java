@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * List property of a read only snapshot, or of a draft edited from it, see {@link EmlSnapshots}.
+ * <p>
+ * A sealed list rejects all modifications. A draft list reads through to the sealed list it was taken from and
+ * copies it on the first modification only. An element of the snapshot is copied the first time the draft hands it
+ * out, so it can be edited in place, while the size, equals, hashCode and toString of the list copy nothing.
+ */
+final class SnapshotList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = 4126809472951083651L;
+
+  // the sealed list a draft was taken from, null for a sealed list
+  private final SnapshotList<E> origin;
+  // copies an element of the origin, null for immutable elements
+  private final UnaryOperator<E> copier;
+  private List<E> elements;
+  // the elements of the origin, mapped to their copy once handed out, so an element listed twice is copied once
+  private Map<E, E> copies;
+
+  private SnapshotList(SnapshotList<E> origin, List<E> elements, UnaryOperator<E> copier) {
+    this.origin = origin;
+    this.elements = elements;
+    this.copier = copier;
+  }
+
+  /**
+   * Returns a read only copy of a list, so lists handed out while editing can no longer reach the snapshot. A draft
+   * list that was never modified nor handed out an element gives back the sealed list it was taken from.
+   *
+   * @param list to seal, possibly null
+   * @return the sealed list, or null
+   */
+  static <E> List<E> seal(List<E> list) {
+    if (list == null) {
+      return null;
+    }
+    if (list instanceof SnapshotList) {
+      SnapshotList<E> snapshot = (SnapshotList<E>) list;
+      if (snapshot.origin == null) {
+        return snapshot;
+      } else if (snapshot.elements == snapshot.origin.elements) {
+        return snapshot.origin;
+      }
+      list = snapshot.elements;
+    }
+    return new SnapshotList<>(null, new ArrayList<>(list), null);
+  }
+
+  /**
+   * @param list a list of a snapshot, possibly null
+   * @return a draft of a sealed list of immutable elements, otherwise the list itself
+   */
+  static <E> List<E> draft(List<E> list) {
+    return draft(list, null);
+  }
+
+  /**
+   * @param list a list of a snapshot, possibly null
+   * @param copier copies an element the first time the draft hands it out
+   * @return a draft of a sealed list, otherwise the list itself
+   */
+  static <E> List<E> draft(List<E> list, UnaryOperator<E> copier) {
+    if (list instanceof SnapshotList && ((SnapshotList<E>) list).origin == null) {
+      SnapshotList<E> sealed = (SnapshotList<E>) list;
+      return new SnapshotList<>(sealed, sealed.elements, copier);
+    }
+    return list;
+  }
+
+  private List<E> modifiable() {
+    EmlSnapshots.checkWritable(origin == null);
+    if (elements == origin.elements) {
+      elements = new ArrayList<>(elements);
+    }
+    return elements;
+  }
+
+  @Override
+  public E get(int index) {
+    E element = elements.get(index);
+    if (origin == null || copier == null || element == null) {
+      return element;
+    }
+    if (copies == null) {
+      copies = new IdentityHashMap<>();
+      for (E shared : origin.elements) {
+        copies.put(shared, null);
+      }
+    }
+    if (!copies.containsKey(element)) {
+      return element;
+    }
+    E copy = copies.get(element);
+    if (copy == null) {
+      copy = copier.apply(element);
+      copies.put(element, copy);
+    }
+    modifiable().set(index, copy);
+    return copy;
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public E set(int index, E element) {
+    return modifiable().set(index, element);
+  }
+
+  @Override
+  public void add(int index, E element) {
+    modifiable().add(index, element);
+    modCount++;
+  }
+
+  @Override
+  public E remove(int index) {
+    E removed = modifiable().remove(index);
+    modCount++;
+    return removed;
+  }
+
+  // the elements of the snapshot equal their copies, reading them directly copies none
+
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof SnapshotList) {
+      o = ((SnapshotList<?>) o).elements;
+    }
+    return elements.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    return elements.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return elements.toString();
+  }
+
+  // deserialized documents are no snapshots
+  private Object writeReplace() {
+    return new ArrayList<>(elements);
+  }
+}
@@ -57,6 +57,17 @@ public class StudyAreaDescription implements Serializable {
     name = StudyAreaDescriptor.fromString(nameStr);
   }
 
+  /**
+   * @return a copy of this study area description
+   */
+  public StudyAreaDescription deepCopy() {
+    StudyAreaDescription copy = new StudyAreaDescription();
+    copy.name = name;
+    copy.citableClassificationSystem = citableClassificationSystem;
+    copy.descriptorValue = descriptorValue;
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -101,27 +101,35 @@ public class TaxonKeyword implements Serializable {
     this.scientificName = scientificName;
   }
 
+  /**
+   * @return a copy of this keyword
+   */
+  public TaxonKeyword deepCopy() {
+    return new TaxonKeyword(getScientificName(), getRank(), getCommonName());
+  }
+
+  // uses the getters, as the keywords of a TaxonKeywordList keep their values in the list
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
-    if (o == null || getClass() != o.getClass()) return false;
+    if (!(o instanceof TaxonKeyword)) return false;
     TaxonKeyword that = (TaxonKeyword) o;
-    return Objects.equals(scientificName, that.scientificName)
-        && Objects.equals(rank, that.rank)
-        && Objects.equals(commonName, that.commonName);
+    return Objects.equals(getScientificName(), that.getScientificName())
+        && Objects.equals(getRank(), that.getRank())
+        && Objects.equals(getCommonName(), that.getCommonName());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(scientificName, rank, commonName);
+    return Objects.hash(getScientificName(), getRank(), getCommonName());
   }
 
   @Override
   public String toString() {
     return new StringJoiner(", ", TaxonKeyword.class.getSimpleName() + "[", "]")
-        .add("scientificName='" + scientificName + "'")
-        .add("rank='" + rank + "'")
-        .add("commonName='" + commonName + "'")
+        .add("scientificName='" + getScientificName() + "'")
+        .add("rank='" + getRank() + "'")
+        .add("commonName='" + getCommonName() + "'")
         .toString();
   }
 }
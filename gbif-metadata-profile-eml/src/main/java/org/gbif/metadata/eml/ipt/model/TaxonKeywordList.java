@@ -0,0 +1,493 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt.model;
+
+import java.io.Serializable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.StringJoiner;
+
+/**
+ * A memory compact list of taxon keywords for checklists with tens of thousands of names.
+ * <p>
+ * Keywords are stored in columns instead of one object per keyword: scientific names are packed as UTF-8 into a
+ * single array, ranks and common names, which repeat a lot, are dictionary encoded.
+ * <p>
+ * Elements returned by {@link #get(int)} read and write the columns, so code setting the properties of a keyword, e.g.
+ * Struts2 form binding, keeps working. They are created on access and keep their identity like the elements of any
+ * other list: as long as an element is referenced {@link #get(int)} returns it until it is removed or replaced,
+ * insertions and removals move it along, and once removed it keeps its values on its own. The list only holds its
+ * elements weakly, so iterating over it, as the templates do, leaves no object per keyword behind. Null elements are
+ * kept, as Struts2 grows indexed lists with them.
+ */
+public class TaxonKeywordList extends AbstractList<TaxonKeyword>
+    implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = 5526417012245907412L;
+
+  private static final int NO_NAME = -1;
+  // dictionary id of null
+  private static final int NULL_ID = 0;
+  // rank id of a null element
+  private static final int NULL_ELEMENT = -1;
+  private static final int MIN_COMPACTION_BYTES = 4096;
+
+  private final List<String> dictionary = new ArrayList<>();
+  private final Map<String, Integer> dictionaryIds = new HashMap<>();
+
+  private byte[] names = new byte[0];
+  private int namesLength;
+  private int unusedNameBytes;
+
+  private int[] nameStarts = new int[0];
+  private int[] nameLengths = new int[0];
+  private int[] rankIds = new int[0];
+  private int[] commonNameIds = new int[0];
+  private int size;
+  // elements handed out by get and still referenced elsewhere, parallel to the columns and only allocated once one is
+  // requested
+  private transient EntryReference[] entries;
+  private transient ReferenceQueue<Entry> released;
+
+  public TaxonKeywordList() {
+    dictionary.add(null);
+  }
+
+  public TaxonKeywordList(Collection<? extends TaxonKeyword> keywords) {
+    this();
+    ensureCapacity(keywords.size());
+    if (keywords instanceof TaxonKeywordList) {
+      // copying reads the elements without creating them
+      TaxonKeywordList list = (TaxonKeywordList) keywords;
+      for (int i = 0; i < list.size; i++) {
+        add(size, list.peek(i));
+      }
+    } else {
+      addAll(keywords);
+    }
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public TaxonKeyword get(int index) {
+    checkIndex(index);
+    if (rankIds[index] == NULL_ELEMENT) {
+      return null;
+    }
+    if (entries == null) {
+      entries = new EntryReference[nameStarts.length];
+      released = new ReferenceQueue<>();
+    } else {
+      purge();
+    }
+    Entry entry = entry(index);
+    if (entry == null) {
+      entry = new Entry(index);
+      entries[index] = new EntryReference(entry, released);
+    }
+    return entry;
+  }
+
+  public String getScientificName(int index) {
+    checkIndex(index);
+    int length = nameLengths[index];
+    return length == NO_NAME
+        ? null
+        : new String(names, nameStarts[index], length, StandardCharsets.UTF_8);
+  }
+
+  public String getRank(int index) {
+    checkIndex(index);
+    return rankIds[index] == NULL_ELEMENT ? null : dictionary.get(rankIds[index]);
+  }
+
+  public String getCommonName(int index) {
+    checkIndex(index);
+    return dictionary.get(commonNameIds[index]);
+  }
+
+  /**
+   * Appends a keyword without creating a {@link TaxonKeyword}.
+   */
+  public void add(String scientificName, String rank, String commonName) {
+    ensureCapacity(size + 1);
+    nameLengths[size] = NO_NAME;
+    size++;
+    modCount++;
+    write(size - 1, scientificName, rank, commonName);
+  }
+
+  @Override
+  public void add(int index, TaxonKeyword keyword) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    // copy the values first, the keyword may be a view of this list
+    TaxonKeyword values =
+        keyword == null
+            ? null
+            : new TaxonKeyword(
+                keyword.getScientificName(), keyword.getRank(), keyword.getCommonName());
+    ensureCapacity(size + 1);
+    int moved = size - index;
+    System.arraycopy(nameStarts, index, nameStarts, index + 1, moved);
+    System.arraycopy(nameLengths, index, nameLengths, index + 1, moved);
+    System.arraycopy(rankIds, index, rankIds, index + 1, moved);
+    System.arraycopy(commonNameIds, index, commonNameIds, index + 1, moved);
+    if (entries != null) {
+      System.arraycopy(entries, index, entries, index + 1, moved);
+      entries[index] = null;
+      renumber(index + 1, size + 1);
+    }
+    nameLengths[index] = NO_NAME;
+    rankIds[index] = NULL_ELEMENT;
+    size++;
+    modCount++;
+    write(index, values);
+  }
+
+  @Override
+  public TaxonKeyword set(int index, TaxonKeyword keyword) {
+    checkIndex(index);
+    // copy the values first, the keyword may be the replaced element
+    TaxonKeyword values =
+        keyword == null
+            ? null
+            : new TaxonKeyword(
+                keyword.getScientificName(), keyword.getRank(), keyword.getCommonName());
+    TaxonKeyword previous = detach(index);
+    write(index, values);
+    return previous;
+  }
+
+  @Override
+  public TaxonKeyword remove(int index) {
+    checkIndex(index);
+    TaxonKeyword previous = detach(index);
+    if (nameLengths[index] != NO_NAME) {
+      unusedNameBytes += nameLengths[index];
+    }
+    int moved = size - index - 1;
+    System.arraycopy(nameStarts, index + 1, nameStarts, index, moved);
+    System.arraycopy(nameLengths, index + 1, nameLengths, index, moved);
+    System.arraycopy(rankIds, index + 1, rankIds, index, moved);
+    System.arraycopy(commonNameIds, index + 1, commonNameIds, index, moved);
+    if (entries != null) {
+      System.arraycopy(entries, index + 1, entries, index, moved);
+      entries[size - 1] = null;
+      renumber(index, size - 1);
+    }
+    size--;
+    modCount++;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      detach(i);
+    }
+    size = 0;
+    namesLength = 0;
+    unusedNameBytes = 0;
+    modCount++;
+  }
+
+  // equals, hashCode and toString do not create the elements they read, unlike the iterator of AbstractList
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) return true;
+    if (!(o instanceof List)) return false;
+    List<?> that = (List<?>) o;
+    if (that.size() != size) return false;
+    int i = 0;
+    for (Object element : that) {
+      if (i == size || !Objects.equals(peek(i++), element)) {
+        return false;
+      }
+    }
+    return i == size;
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 1;
+    for (int i = 0; i < size; i++) {
+      hashCode = 31 * hashCode + Objects.hashCode(peek(i));
+    }
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(", ", "[", "]");
+    for (int i = 0; i < size; i++) {
+      joiner.add(String.valueOf(peek(i)));
+    }
+    return joiner.toString();
+  }
+
+  private void write(int index, TaxonKeyword keyword) {
+    if (keyword == null) {
+      setScientificName(index, null);
+      rankIds[index] = NULL_ELEMENT;
+      commonNameIds[index] = NULL_ID;
+    } else {
+      write(index, keyword.getScientificName(), keyword.getRank(), keyword.getCommonName());
+    }
+  }
+
+  private void write(int index, String scientificName, String rank, String commonName) {
+    setScientificName(index, scientificName);
+    rankIds[index] = id(rank);
+    commonNameIds[index] = id(commonName);
+  }
+
+  private void setScientificName(int index, String scientificName) {
+    if (nameLengths[index] != NO_NAME) {
+      unusedNameBytes += nameLengths[index];
+    }
+    if (scientificName == null) {
+      nameStarts[index] = 0;
+      nameLengths[index] = NO_NAME;
+    } else {
+      byte[] bytes = scientificName.getBytes(StandardCharsets.UTF_8);
+      if (namesLength + bytes.length > names.length) {
+        names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + bytes.length));
+      }
+      System.arraycopy(bytes, 0, names, namesLength, bytes.length);
+      nameStarts[index] = namesLength;
+      nameLengths[index] = bytes.length;
+      namesLength += bytes.length;
+    }
+    // names are appended, replaced ones are dropped once they take up half of the array
+    if (unusedNameBytes > MIN_COMPACTION_BYTES && unusedNameBytes > namesLength / 2) {
+      compactNames();
+    }
+  }
+
+  private void compactNames() {
+    byte[] compacted = new byte[namesLength - unusedNameBytes];
+    int length = 0;
+    for (int i = 0; i < size; i++) {
+      if (nameLengths[i] != NO_NAME) {
+        System.arraycopy(names, nameStarts[i], compacted, length, nameLengths[i]);
+        nameStarts[i] = length;
+        length += nameLengths[i];
+      }
+    }
+    names = compacted;
+    namesLength = length;
+    unusedNameBytes = 0;
+  }
+
+  private int id(String value) {
+    if (value == null) {
+      return NULL_ID;
+    }
+    Integer id = dictionaryIds.get(value);
+    if (id == null) {
+      id = dictionary.size();
+      dictionary.add(value);
+      dictionaryIds.put(value, id);
+    }
+    return id;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > nameStarts.length) {
+      int grown = Math.max(capacity, nameStarts.length + (nameStarts.length >> 1) + 8);
+      nameStarts = Arrays.copyOf(nameStarts, grown);
+      nameLengths = Arrays.copyOf(nameLengths, grown);
+      rankIds = Arrays.copyOf(rankIds, grown);
+      commonNameIds = Arrays.copyOf(commonNameIds, grown);
+      if (entries != null) {
+        entries = Arrays.copyOf(entries, grown);
+      }
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Takes the element at an index out of the list, it keeps its current values on its own.
+   *
+   * @return the element, null for a null element
+   */
+  private TaxonKeyword detach(int index) {
+    if (rankIds[index] == NULL_ELEMENT) {
+      return null;
+    }
+    Entry entry = entry(index);
+    if (entries != null && entries[index] != null) {
+      entries[index].index = -1;
+      entries[index] = null;
+    }
+    if (entry == null) {
+      return new TaxonKeyword(getScientificName(index), getRank(index), getCommonName(index));
+    }
+    entry.detach();
+    return entry;
+  }
+
+  /**
+   * Reads the element at an index without creating an element that is kept.
+   */
+  private TaxonKeyword peek(int index) {
+    if (rankIds[index] == NULL_ELEMENT) {
+      return null;
+    }
+    Entry entry = entry(index);
+    return entry != null
+        ? entry
+        : new TaxonKeyword(getScientificName(index), getRank(index), getCommonName(index));
+  }
+
+  /**
+   * @return the element handed out for an index if it is still referenced, null otherwise
+   */
+  private Entry entry(int index) {
+    return entries == null || entries[index] == null ? null : entries[index].get();
+  }
+
+  private void renumber(int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (entries[i] != null) {
+        entries[i].index = i;
+        Entry entry = entries[i].get();
+        if (entry != null) {
+          entry.index = i;
+        }
+      }
+    }
+  }
+
+  /**
+   * Clears the slots of elements which are no longer referenced.
+   */
+  private void purge() {
+    for (Reference<? extends Entry> ref = released.poll(); ref != null; ref = released.poll()) {
+      int index = ((EntryReference) ref).index;
+      if (index >= 0 && entries[index] == ref) {
+        entries[index] = null;
+      }
+    }
+  }
+
+  /**
+   * Weak reference to an element, knowing the slot it is kept in.
+   */
+  private static final class EntryReference extends WeakReference<Entry> {
+
+    // position in the list, moved along with the element, -1 once removed from the list
+    private int index;
+
+    private EntryReference(Entry entry, ReferenceQueue<Entry> queue) {
+      super(entry, queue);
+      this.index = entry.index;
+    }
+  }
+
+  /**
+   * A keyword whose properties live in the columns of the list while it is part of it, and in its own fields once it
+   * is detached.
+   */
+  private final class Entry extends TaxonKeyword {
+
+    private static final long serialVersionUID = -2939485632183645127L;
+
+    // position in the list, moved by insertions and removals, -1 once detached
+    private int index;
+
+    private Entry(int index) {
+      this.index = index;
+    }
+
+    private void detach() {
+      super.setScientificName(getScientificName());
+      super.setRank(getRank());
+      super.setCommonName(getCommonName());
+      index = -1;
+    }
+
+    @Override
+    public String getScientificName() {
+      return index < 0
+          ? super.getScientificName()
+          : TaxonKeywordList.this.getScientificName(index);
+    }
+
+    @Override
+    public void setScientificName(String scientificName) {
+      if (index < 0) {
+        super.setScientificName(scientificName);
+      } else {
+        TaxonKeywordList.this.setScientificName(index, scientificName);
+      }
+    }
+
+    @Override
+    public String getRank() {
+      return index < 0 ? super.getRank() : TaxonKeywordList.this.getRank(index);
+    }
+
+    @Override
+    public void setRank(String rank) {
+      if (index < 0) {
+        super.setRank(rank);
+      } else {
+        rankIds[index] = id(rank);
+      }
+    }
+
+    @Override
+    public String getCommonName() {
+      return index < 0 ? super.getCommonName() : TaxonKeywordList.this.getCommonName(index);
+    }
+
+    @Override
+    public void setCommonName(String commonName) {
+      if (index < 0) {
+        super.setCommonName(commonName);
+      } else {
+        commonNameIds[index] = id(commonName);
+      }
+    }
+
+    // serialized as a plain keyword instead of together with the whole list
+    private Object writeReplace() {
+      return new TaxonKeyword(getScientificName(), getRank(), getCommonName());
+    }
+  }
+}
@@ -14,7 +14,6 @@
 package org.gbif.metadata.eml.ipt.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
@@ -37,9 +36,9 @@ public class TaxonomicCoverage implements Serializable {
   private String description;
 
   /**
-   * Structured keywords listing taxa names
+   * Structured keywords listing taxa names, stored compactly as checklists can list tens of thousands
    */
-  private List<TaxonKeyword> taxonKeywords = new ArrayList<TaxonKeyword>();
+  private TaxonKeywordList taxonKeywords = new TaxonKeywordList();
 
   /**
    * Required for struts2 params-interceptor, Digester and deserializing from XML
@@ -68,10 +67,18 @@ public class TaxonomicCoverage implements Serializable {
   }
 
   /**
+   * Sets the keywords. Unlike the other list setters of the model this only keeps a {@link TaxonKeywordList} itself:
+   * the values of any other list are copied into a new one, so later changes to that list or its elements are not
+   * seen by this coverage. Edit the list returned by {@link #getTaxonKeywords()} instead.
+   *
    * @param keywords the keywords to set
    */
   public void setTaxonKeywords(List<TaxonKeyword> keywords) {
-    taxonKeywords = keywords;
+    if (keywords == null || keywords instanceof TaxonKeywordList) {
+      taxonKeywords = (TaxonKeywordList) keywords;
+    } else {
+      taxonKeywords = new TaxonKeywordList(keywords);
+    }
   }
 
   public void addTaxonKeyword(TaxonKeyword keyword) {
@@ -96,13 +103,23 @@ public class TaxonomicCoverage implements Serializable {
     for (String sciname : StringUtils.split(scientificNames, delimiter)) {
       sciname = StringUtils.trimToNull(sciname);
       if (sciname != null) {
-        taxonKeywords.add(new TaxonKeyword(sciname, null, null));
+        taxonKeywords.add(sciname, null, null);
         count++;
       }
     }
     return count;
   }
 
+  /**
+   * @return a deep copy of this coverage and its keywords
+   */
+  public TaxonomicCoverage deepCopy() {
+    TaxonomicCoverage copy = new TaxonomicCoverage();
+    copy.description = description;
+    copy.taxonKeywords = taxonKeywords == null ? null : new TaxonKeywordList(taxonKeywords);
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
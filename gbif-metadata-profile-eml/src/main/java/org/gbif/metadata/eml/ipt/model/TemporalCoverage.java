@@ -155,6 +155,18 @@ public class TemporalCoverage implements Serializable {
     startDate = DateUtils.calendarDate(start);
   }
 
+  /**
+   * @return a deep copy of this coverage
+   */
+  public TemporalCoverage deepCopy() {
+    TemporalCoverage copy = new TemporalCoverage();
+    copy.startDate = Copies.copy(startDate);
+    copy.endDate = Copies.copy(endDate);
+    copy.formationPeriod = formationPeriod;
+    copy.livingTimePeriod = livingTimePeriod;
+    return copy;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
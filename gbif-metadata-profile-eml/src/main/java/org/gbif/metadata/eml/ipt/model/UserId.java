@@ -60,6 +60,13 @@ public class UserId implements Serializable {
     this.identifier = identifier;
   }
 
+  /**
+   * @return a copy of this user id
+   */
+  public UserId deepCopy() {
+    return new UserId(directory, identifier);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -17,6 +17,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -55,6 +56,24 @@ public class DateUtils {
     // ALL_DATE_FORMATS.add(new ThreadSafeSimpleDateFormat("MM/dd/yyyy"));  // 02/24/2010
   }
 
+  // the formats above in their original order, used to check the sniffer still applies
+  private static final ThreadSafeSimpleDateFormat[] DEFAULT_DATE_FORMATS =
+      ALL_DATE_FORMATS.toArray(new ThreadSafeSimpleDateFormat[0]);
+
+  // longest number the sniffer parses by hand, longer ones are left to the formats
+  private static final int MAX_DIGITS = 9;
+
+  // formats used by calendarDate and schemaDateTime, resolved in the current default time zone
+  private static final ThreadSafeSimpleDateFormat CALENDAR_DATE_FORMAT =
+      new ThreadSafeSimpleDateFormat("yyyy-MM-dd");
+  private static final ThreadSafeSimpleDateFormat YEAR_FORMAT =
+      new ThreadSafeSimpleDateFormat("yyyy");
+  private static final ThreadSafeSimpleDateFormat SCHEMA_DATE_TIME_MILLIS_FORMAT =
+      new ThreadSafeSimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss.SSSZ");
+  private static final ThreadSafeSimpleDateFormat SCHEMA_DATE_TIME_FORMAT =
+      new ThreadSafeSimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss");
+  private static final Pattern TIMEZONE = Pattern.compile("([+-]\\d\\d:\\d\\d)$");
+
   /**
    * Utility to parse an EML calendarDate in a textual format. Can be ISO date or just the year, ignoring whitespace
    *
@@ -70,17 +89,14 @@ public class DateUtils {
     if (dateString == null || StringUtils.isEmpty(dateString.trim())) {
       return null;
     }
-    // kill whitespace
-    dateString = dateString.replaceAll("\\s", "");
-    dateString = dateString.replaceAll("[\\,._#//]", "-");
+    dateString = normaliseCalendarDate(dateString);
+    TimeZone timeZone = TimeZone.getDefault();
     Date date;
     try {
-      ThreadSafeSimpleDateFormat sdf = new ThreadSafeSimpleDateFormat("yyyy-MM-dd");
-      date = sdf.parse(dateString);
+      date = CALENDAR_DATE_FORMAT.parse(dateString, timeZone);
     } catch (ParseException e) {
       if (dateString.length() == 4) {
-        ThreadSafeSimpleDateFormat sdf = new ThreadSafeSimpleDateFormat("yyyy");
-        date = sdf.parse(dateString);
+        date = YEAR_FORMAT.parse(dateString, timeZone);
         date = new Date(date.getTime() + 1);
       } else {
         throw e;
@@ -98,6 +114,14 @@ public class DateUtils {
     if (x == null || StringUtils.isEmpty(x.trim())) {
       return null;
     }
+    Date date = sniff(x);
+    return date != null ? date : parseWithFallback(x);
+  }
+
+  /**
+   * Tries all date formats in order and finally the schema date time.
+   */
+  static Date parseWithFallback(String x) {
     Date date = null;
     for (ThreadSafeSimpleDateFormat df : ALL_DATE_FORMATS) {
       try {
@@ -151,16 +175,15 @@ public class DateUtils {
    */
   public static Date schemaDateTime(String dateString) throws ParseException {
     dateString = StringUtils.trimToEmpty(dateString);
+    TimeZone timeZone = TimeZone.getDefault();
     Date date;
     try {
-      Pattern timezone = Pattern.compile("([+-]\\d\\d:\\d\\d)$");
-      dateString = timezone.matcher(dateString).replaceAll("GMT$1");
-      ThreadSafeSimpleDateFormat sdf = new ThreadSafeSimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss.SSSZ");
-      date = sdf.parse(dateString);
+      date =
+          SCHEMA_DATE_TIME_MILLIS_FORMAT.parse(
+              TIMEZONE.matcher(dateString).replaceAll("GMT$1"), timeZone);
     } catch (ParseException ignored) {
       try {
-        ThreadSafeSimpleDateFormat sdf = new ThreadSafeSimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss");
-        date = sdf.parse(dateString);
+        date = SCHEMA_DATE_TIME_FORMAT.parse(dateString, timeZone);
       } catch (ParseException e1) {
         date = calendarDate(dateString);
       }
@@ -168,6 +191,200 @@ public class DateUtils {
     return date;
   }
 
+  /**
+   * Recognises the most common numeric date shapes from the positions of digits and separators in a single pass and
+   * parses their fields directly, avoiding one failed parse per format tried. The result is the one the first
+   * matching format in {@link #ALL_DATE_FORMATS} would give.
+   *
+   * @return the date or null if the shape isn't recognised or the date formats have been changed
+   */
+  private static Date sniff(String x) {
+    if (!hasDefaultDateFormats()) {
+      return null;
+    }
+    int len = x.length();
+
+    int yearEnd = digitsEnd(x, 0);
+    if (yearEnd == len) {
+      if (len != 4) {
+        return null;
+      }
+      // a year alone falls through to calendarDate, which adds a millisecond
+      Date date =
+          ThreadSafeSimpleDateFormat.toDate(
+              TimeZone.getDefault(), number(x, 0, len), 1, 1, 0, 0, 0, 0, null);
+      return new Date(date.getTime() + 1);
+    }
+    char separator = x.charAt(yearEnd);
+    if (!isNumber(0, yearEnd) || (separator != '-' && separator != '.' && separator != '/')) {
+      return null;
+    }
+    int monthEnd = digitsEnd(x, yearEnd + 1);
+    if (!isNumber(yearEnd + 1, monthEnd) || monthEnd == len || x.charAt(monthEnd) != separator) {
+      return null;
+    }
+    int dayEnd = digitsEnd(x, monthEnd + 1);
+    if (!isNumber(monthEnd + 1, dayEnd)) {
+      return null;
+    }
+    int year = number(x, 0, yearEnd);
+    int month = number(x, yearEnd + 1, monthEnd);
+    int day = number(x, monthEnd + 1, dayEnd);
+
+    if (dayEnd == len) {
+      // yyyy-MM-dd, yyyy.MM.dd (which always wins over dd.MM.yyyy) or yyyy/MM/dd
+      int index = separator == '-' ? 8 : separator == '.' ? 9 : 11;
+      return ThreadSafeSimpleDateFormat.toDate(
+          DEFAULT_DATE_FORMATS[index].getTimeZone(), year, month, day, 0, 0, 0, 0, null);
+    }
+
+    char timeSeparator = x.charAt(dayEnd);
+    if (separator != '-' || (timeSeparator != 'T' && timeSeparator != ' ')) {
+      return null;
+    }
+    int hourEnd = digitsEnd(x, dayEnd + 1);
+    if (!isNumber(dayEnd + 1, hourEnd) || hourEnd == len || x.charAt(hourEnd) != ':') {
+      return null;
+    }
+    int minuteEnd = digitsEnd(x, hourEnd + 1);
+    if (!isNumber(hourEnd + 1, minuteEnd) || minuteEnd == len || x.charAt(minuteEnd) != ':') {
+      return null;
+    }
+    int secondEnd = digitsEnd(x, minuteEnd + 1);
+    if (!isNumber(minuteEnd + 1, secondEnd)) {
+      return null;
+    }
+    int hour = number(x, dayEnd + 1, hourEnd);
+    int minute = number(x, hourEnd + 1, minuteEnd);
+    int second = number(x, minuteEnd + 1, secondEnd);
+    // the space separated variant directly follows its T variant
+    int shift = timeSeparator == 'T' ? 0 : 1;
+
+    if (secondEnd == len) {
+      // yyyy-MM-dd'T'HH:mm:ss or yyyy-MM-dd HH:mm:ss
+      return ThreadSafeSimpleDateFormat.toDate(
+          DEFAULT_DATE_FORMATS[4 + shift].getTimeZone(),
+          year,
+          month,
+          day,
+          hour,
+          minute,
+          second,
+          0,
+          null);
+    }
+    if (x.charAt(secondEnd) != '.') {
+      return null;
+    }
+    int millisEnd = digitsEnd(x, secondEnd + 1);
+    if (!isNumber(secondEnd + 1, millisEnd)) {
+      return null;
+    }
+    int millis = number(x, secondEnd + 1, millisEnd);
+
+    if (millisEnd == len) {
+      // yyyy-MM-dd'T'HH:mm:ss.SSS or yyyy-MM-dd HH:mm:ss.SSS
+      return ThreadSafeSimpleDateFormat.toDate(
+          DEFAULT_DATE_FORMATS[2 + shift].getTimeZone(),
+          year,
+          month,
+          day,
+          hour,
+          minute,
+          second,
+          millis,
+          null);
+    }
+
+    // yyyy-MM-dd'T'HH:mm:ss.SSSZ or yyyy-MM-dd HH:mm:ss.SSSZ with an RFC 822 offset like -0700
+    char sign = x.charAt(millisEnd);
+    if ((sign != '+' && sign != '-')
+        || len != millisEnd + 5
+        || digitsEnd(x, millisEnd + 1) != len) {
+      return null;
+    }
+    int offsetHours = number(x, millisEnd + 1, millisEnd + 3);
+    int offsetMinutes = number(x, millisEnd + 3, len);
+    if (offsetHours > 23 || offsetMinutes > 59) {
+      return null;
+    }
+    int offset = (offsetHours * 60 + offsetMinutes) * 60_000;
+    return ThreadSafeSimpleDateFormat.toDate(
+        DEFAULT_DATE_FORMATS[shift].getTimeZone(),
+        year,
+        month,
+        day,
+        hour,
+        minute,
+        second,
+        millis,
+        sign == '-' ? -offset : offset);
+  }
+
+  private static boolean hasDefaultDateFormats() {
+    if (ALL_DATE_FORMATS.size() != DEFAULT_DATE_FORMATS.length) {
+      return false;
+    }
+    for (int i = 0; i < DEFAULT_DATE_FORMATS.length; i++) {
+      if (ALL_DATE_FORMATS.get(i) != DEFAULT_DATE_FORMATS[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the index after the run of ASCII digits starting at from
+   */
+  private static int digitsEnd(String x, int from) {
+    int i = from;
+    while (i < x.length() && x.charAt(i) >= '0' && x.charAt(i) <= '9') {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isNumber(int from, int to) {
+    return to > from && to - from <= MAX_DIGITS;
+  }
+
+  private static int number(String x, int from, int to) {
+    int value = 0;
+    for (int i = from; i < to; i++) {
+      value = value * 10 + (x.charAt(i) - '0');
+    }
+    return value;
+  }
+
+  /**
+   * Removes all whitespace and turns the alternative delimiters , . _ # and / into dashes.
+   */
+  private static String normaliseCalendarDate(String dateString) {
+    StringBuilder sb = new StringBuilder(dateString.length());
+    for (int i = 0; i < dateString.length(); i++) {
+      char c = dateString.charAt(i);
+      switch (c) {
+        case ' ':
+        case '\t':
+        case '\n':
+        case '\u000B':
+        case '\f':
+        case '\r':
+          break;
+        case ',':
+        case '.':
+        case '_':
+        case '#':
+        case '/':
+          sb.append('-');
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
   private DateUtils() {
     throw new UnsupportedOperationException("Can't initialize class");
   }
@@ -13,24 +13,342 @@
  */
 package org.gbif.metadata.eml.ipt.util;
 
-import java.text.DateFormat;
 import java.text.ParseException;
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
 
+/**
+ * Thread safe date format with the pattern syntax of {@link SimpleDateFormat}.
+ * <p>
+ * Patterns using the letters y (except yy), M, d, H, h, m, s, S, E and Z plus quoted and plain literals are parsed
+ * with a {@link DateTimeFormatter} and the parsed fields are resolved leniently through a {@link GregorianCalendar},
+ * so results are the same as those of a lenient {@link SimpleDateFormat} with the same pattern: out of range values
+ * roll over, trailing text is ignored and dates before the Gregorian cutover use the Julian calendar.
+ * <p>
+ * Other patterns are handled by a single {@link SimpleDateFormat} the threads take turns on, and so is text the
+ * formatter could not parse because of more whitespace in front of a field than it skips.
+ * Instances can be shared freely between threads.
+ */
 public class ThreadSafeSimpleDateFormat {
 
-  private DateFormat df;
+  private static final String GMT = "GMT";
+  private static final int MAX_SKIPPED_SPACES = 3;
+
+  private final String pattern;
+  private final TimeZone timeZone;
+  private final Locale locale;
+  // both null if the pattern is not supported by the formatters
+  private final DateTimeFormatter parser;
+  private final DateTimeFormatter printer;
+  private final boolean hasZone;
+  // guarded by itself
+  private final SimpleDateFormat fallback;
 
   public ThreadSafeSimpleDateFormat(String format) {
-    df = new SimpleDateFormat(format);
+    this.pattern = format;
+    this.timeZone = TimeZone.getDefault();
+    this.locale = Locale.getDefault(Locale.Category.FORMAT);
+    // rejects invalid patterns like the formatters do
+    this.fallback = new SimpleDateFormat(format, locale);
+    DateTimeFormatterBuilder parsing = compile(format, true);
+    if (parsing == null) {
+      this.parser = null;
+      this.printer = null;
+    } else {
+      this.parser = parsing.toFormatter(locale);
+      this.printer = compile(format, false).toFormatter(locale);
+    }
+    this.hasZone = uses(format, 'Z');
+  }
+
+  public String getPattern() {
+    return pattern;
+  }
+
+  TimeZone getTimeZone() {
+    return timeZone;
+  }
+
+  public String format(Date date) {
+    if (printer == null) {
+      synchronized (fallback) {
+        fallback.setTimeZone(timeZone);
+        return fallback.format(date);
+      }
+    }
+    return printer.format(date.toInstant().atZone(timeZone.toZoneId()));
+  }
+
+  public Date parse(String string) throws ParseException {
+    return parse(string, timeZone);
+  }
+
+  /**
+   * Parses the beginning of the given text, resolving fields without an explicit offset in the given time zone.
+   */
+  Date parse(String string, TimeZone zone) throws ParseException {
+    if (parser == null) {
+      return parseWithFallback(string, zone);
+    }
+    // leading whitespace is skipped by the first field
+    int start = 0;
+    while (start < string.length() && Character.isWhitespace(string.charAt(start))) {
+      start++;
+    }
+    ParsePosition pos = new ParsePosition(start);
+    TemporalAccessor parsed;
+    try {
+      parsed = parser.parseUnresolved(string, pos);
+    } catch (DateTimeException e) {
+      // offsets of 24 hours or more are rejected with an exception instead of an error index
+      parsed = null;
+    }
+    if (parsed == null || (hasZone && !parsed.isSupported(ChronoField.OFFSET_SECONDS))) {
+      if (hasUnskippedWhitespace(string)) {
+        return parseWithFallback(string, zone);
+      }
+      throw new ParseException(
+          "Unparseable date: \"" + string + "\"",
+          pos.getErrorIndex() < 0 ? pos.getIndex() : pos.getErrorIndex());
+    }
+
+    // only the parsed fields are set, everything else keeps the defaults of a cleared calendar
+    Calendar cal = new GregorianCalendar(zone, locale);
+    cal.clear();
+    set(cal, Calendar.YEAR, parsed, ChronoField.YEAR_OF_ERA, 0);
+    set(cal, Calendar.MONTH, parsed, ChronoField.MONTH_OF_YEAR, -1);
+    set(cal, Calendar.DAY_OF_MONTH, parsed, ChronoField.DAY_OF_MONTH, 0);
+    set(cal, Calendar.HOUR_OF_DAY, parsed, ChronoField.HOUR_OF_DAY, 0);
+    if (parsed.isSupported(ChronoField.CLOCK_HOUR_OF_AMPM)) {
+      // lenient SimpleDateFormat maps 12 o'clock of pattern letter h to 0
+      long hour = parsed.getLong(ChronoField.CLOCK_HOUR_OF_AMPM);
+      cal.set(Calendar.HOUR, hour == 12 ? 0 : (int) hour);
+    }
+    set(cal, Calendar.MINUTE, parsed, ChronoField.MINUTE_OF_HOUR, 0);
+    set(cal, Calendar.SECOND, parsed, ChronoField.SECOND_OF_MINUTE, 0);
+    set(cal, Calendar.MILLISECOND, parsed, ChronoField.MILLI_OF_SECOND, 0);
+    if (parsed.isSupported(ChronoField.OFFSET_SECONDS)) {
+      cal.set(Calendar.ZONE_OFFSET, (int) parsed.getLong(ChronoField.OFFSET_SECONDS) * 1000);
+      cal.set(Calendar.DST_OFFSET, 0);
+    }
+    return cal.getTime();
+  }
+
+  private Date parseWithFallback(String string, TimeZone zone) throws ParseException {
+    synchronized (fallback) {
+      // parsing a zone name changes the zone of the format, so it is set on every call
+      fallback.setTimeZone(zone);
+      return fallback.parse(string);
+    }
+  }
+
+  /**
+   * @return true if the text contains whitespace SimpleDateFormat skips in front of a field but the formatter does
+   *     not: tabs or more than {@link #MAX_SKIPPED_SPACES} spaces in a row
+   */
+  private static boolean hasUnskippedWhitespace(String string) {
+    int spaces = 0;
+    for (int i = 0; i < string.length(); i++) {
+      char c = string.charAt(i);
+      if (c == ' ') {
+        if (++spaces > MAX_SKIPPED_SPACES) {
+          return true;
+        }
+      } else if (c == '\t') {
+        return true;
+      } else {
+        spaces = 0;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Resolves date and time fields leniently like a parse with all fields present would do.
+   *
+   * @param offsetMillis the parsed zone offset or null to use the time zone
+   */
+  static Date toDate(
+      TimeZone zone,
+      int year,
+      int month,
+      int day,
+      int hour,
+      int minute,
+      int second,
+      int millis,
+      Integer offsetMillis) {
+    Calendar cal = new GregorianCalendar(zone);
+    cal.clear();
+    cal.set(year, month - 1, day, hour, minute, second);
+    cal.set(Calendar.MILLISECOND, millis);
+    if (offsetMillis != null) {
+      cal.set(Calendar.ZONE_OFFSET, offsetMillis);
+      cal.set(Calendar.DST_OFFSET, 0);
+    }
+    return cal.getTime();
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+
+  private static void set(
+      Calendar cal, int calendarField, TemporalAccessor parsed, ChronoField field, int shift) {
+    if (parsed.isSupported(field)) {
+      cal.set(calendarField, (int) parsed.getLong(field) + shift);
+    }
+  }
+
+  private static boolean uses(String pattern, char letter) {
+    boolean quoted = false;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      } else if (!quoted && c == letter) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Translates a SimpleDateFormat pattern into a formatter builder. Numbers are parsed with a variable width and an
+   * optional minus sign, texts case-insensitively in their short and long form and the zone either in RFC 822 form
+   * (-0800) or in general form (GMT-08:00).
+   *
+   * @return the builder, or null if the pattern uses letters or quoting the formatters do not support
+   */
+  private static DateTimeFormatterBuilder compile(String pattern, boolean forParsing) {
+    DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+    int i = 0;
+    while (i < pattern.length()) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        int end = pattern.indexOf('\'', i + 1);
+        if (end < 0) {
+          throw new IllegalArgumentException("Unterminated quote in pattern " + pattern);
+        }
+        if (end == i + 1) {
+          builder.appendLiteral('\'');
+        } else if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+          // a quote within quoted text
+          return null;
+        } else {
+          builder.appendLiteral(pattern.substring(i + 1, end));
+        }
+        i = end + 1;
+        continue;
+      }
+      if (!Character.isLetter(c)) {
+        builder.appendLiteral(c);
+        i++;
+        continue;
+      }
+
+      int count = 1;
+      while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+        count++;
+      }
+      if (forParsing && i > 0) {
+        // like SimpleDateFormat tolerate a few spaces in front of a field
+        for (int s = 0; s < MAX_SKIPPED_SPACES; s++) {
+          builder.optionalStart().appendLiteral(' ');
+        }
+        for (int s = 0; s < MAX_SKIPPED_SPACES; s++) {
+          builder.optionalEnd();
+        }
+      }
+      switch (c) {
+        case 'y':
+          if (count == 2) {
+            // two digit years are resolved relative to the current century
+            return null;
+          }
+          number(builder, ChronoField.YEAR_OF_ERA, count, forParsing);
+          break;
+        case 'M':
+          if (count >= 3) {
+            text(builder, ChronoField.MONTH_OF_YEAR, count);
+          } else {
+            number(builder, ChronoField.MONTH_OF_YEAR, count, forParsing);
+          }
+          break;
+        case 'd':
+          number(builder, ChronoField.DAY_OF_MONTH, count, forParsing);
+          break;
+        case 'H':
+          number(builder, ChronoField.HOUR_OF_DAY, count, forParsing);
+          break;
+        case 'h':
+          number(builder, ChronoField.CLOCK_HOUR_OF_AMPM, count, forParsing);
+          break;
+        case 'm':
+          number(builder, ChronoField.MINUTE_OF_HOUR, count, forParsing);
+          break;
+        case 's':
+          number(builder, ChronoField.SECOND_OF_MINUTE, count, forParsing);
+          break;
+        case 'S':
+          number(builder, ChronoField.MILLI_OF_SECOND, count, forParsing);
+          break;
+        case 'E':
+          text(builder, ChronoField.DAY_OF_WEEK, count);
+          break;
+        case 'Z':
+          if (forParsing) {
+            // both forms are optional, the presence of an offset is checked after parsing
+            builder
+                .optionalStart()
+                .appendOffset("+HHMM", "+0000")
+                .optionalEnd()
+                .parseCaseInsensitive()
+                .optionalStart()
+                .appendLiteral(GMT)
+                .appendOffset("+H:MM", "")
+                .optionalEnd()
+                .parseCaseSensitive();
+          } else {
+            builder.appendOffset("+HHMM", "+0000");
+          }
+          break;
+        default:
+          return null;
+      }
+      i += count;
+    }
+    return builder;
   }
 
-  public synchronized String format(Date date) {
-    return df.format(date);
+  private static void number(
+      DateTimeFormatterBuilder builder, ChronoField field, int count, boolean forParsing) {
+    if (forParsing) {
+      builder.appendValue(field, 1, 10, SignStyle.NORMAL);
+    } else {
+      builder.appendValue(field, count, 10, SignStyle.NORMAL);
+    }
   }
 
-  public synchronized Date parse(String string) throws ParseException {
-    return df.parse(string);
+  private static void text(DateTimeFormatterBuilder builder, ChronoField field, int count) {
+    builder
+        .parseCaseInsensitive()
+        .parseLenient()
+        .appendText(field, count >= 4 ? TextStyle.FULL : TextStyle.SHORT)
+        .parseStrict()
+        .parseCaseSensitive();
   }
 }
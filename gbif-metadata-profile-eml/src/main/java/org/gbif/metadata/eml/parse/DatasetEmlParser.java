@@ -17,6 +17,7 @@ import org.gbif.api.model.registry.Dataset;
 import org.gbif.api.vocabulary.MetadataType;
 import org.gbif.metadata.common.parse.DatasetWrapper;
 import org.gbif.metadata.common.util.MetadataUtils;
+import org.gbif.metadata.common.util.StringPool;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -56,6 +57,20 @@ public class DatasetEmlParser {
    * @throws IllegalArgumentException If the XML is not well-formed or is not understood
    */
   public static Dataset build(byte[] data) throws IOException {
+    return build(data, null);
+  }
+
+  /**
+   * Build from byte array like {@link #build(byte[])}, deduplicating the parsed text values through a pool shared
+   * across the documents of a corpus.
+   *
+   * @param data to read
+   * @param pool deduplicates the text values, or null
+   * @return The Dataset populated, never null
+   * @throws java.io.IOException If the Stream cannot be read from
+   * @throws IllegalArgumentException If the XML is not well-formed or is not understood
+   */
+  public static Dataset build(byte[] data, StringPool pool) throws IOException {
     try (InputStream streamToDetectMetadataType = new ByteArrayInputStream(data);
         InputStream mainStream = new ByteArrayInputStream(data)) {
       MetadataType metadataType = MetadataUtils.detectParserType(streamToDetectMetadataType);
@@ -63,19 +78,23 @@ public class DatasetEmlParser {
       if (metadataType != EML) {
         throw new IOException("Wrong metadata type " + metadataType + ", use proper parser!");
       }
-      return parse(mainStream);
+      return parse(mainStream, pool);
     }
   }
 
   static Dataset parse(InputStream xml) throws IOException {
+    return parse(xml, null);
+  }
+
+  static Dataset parse(InputStream xml, StringPool pool) throws IOException {
     LOG.debug("Parsing EML document");
     Digester digester = new Digester();
     digester.setNamespaceAware(true);
     // add digester rules based on parser type
-    digester.addRuleSet(new EMLRuleSet());
+    digester.addRuleSet(new EMLRuleSet(pool));
 
     // push the Delegating object onto the stack
-    DatasetWrapper delegator = new DatasetWrapper();
+    DatasetWrapper delegator = new DatasetWrapper(pool);
     digester.push(delegator);
 
     // now parse and return the dataset
@@ -0,0 +1,592 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.parse;
+
+import org.gbif.api.model.common.DOI;
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.DatasetSubtype;
+import org.gbif.api.vocabulary.DatasetType;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.api.vocabulary.Language;
+import org.gbif.api.vocabulary.License;
+import org.gbif.api.vocabulary.MaintenanceUpdateFrequency;
+import org.gbif.metadata.common.util.StringPool;
+import org.gbif.metadata.eml.codec.DatasetCodec;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Frozen, compact form of the {@link Dataset} metadata produced by {@link DatasetEmlParser}, meant to be held in memory
+ * by read heavy services.
+ * <p>
+ * The fields commonly read, such as titles, contacts, identifiers and keywords, are held in arrays without empty
+ * collections, with vocabulary like strings deduplicated through an optional {@link StringPool}. Coverages, the
+ * project and the other rarely read details are only kept in their {@link DatasetCodec} encoding and restored by
+ * {@link #toDataset()}. Like {@link DatasetCodec} registry bookkeeping such as endpoints, machine tags or creation
+ * dates is not kept.
+ * <p>
+ * Instances are immutable and thread safe.
+ */
+public final class DatasetSnapshot {
+
+  private static final String[] NO_STRINGS = new String[0];
+
+  private final UUID key;
+  private final DOI doi;
+  private final String version;
+  private final DatasetType type;
+  private final DatasetSubtype subtype;
+  private final String title;
+  private final String shortName;
+  private final String description;
+  private final Language language;
+  private final Language dataLanguage;
+  private final String homepage;
+  private final String logoUrl;
+  private final String rights;
+  private final License license;
+  private final long pubDate;
+  private final boolean hasPubDate;
+  private final MaintenanceUpdateFrequency maintenanceUpdateFrequency;
+  private final UUID publishingOrganizationKey;
+  private final String publishingOrganizationName;
+  private final UUID installationKey;
+  private final ContactSnapshot[] contacts;
+  private final String[] identifiers;
+  private final IdentifierType[] identifierTypes;
+  // keywords of all collections, the offsets mark where the keywords of each thesaurus start
+  private final String[] thesauri;
+  private final int[] keywordOffsets;
+  private final String[] keywords;
+  private final Country[] countryCoverage;
+  private final byte[] details;
+
+  private DatasetSnapshot(Dataset dataset, StringPool pool) {
+    key = dataset.getKey();
+    doi = dataset.getDoi();
+    version = dataset.getVersion();
+    type = dataset.getType();
+    subtype = dataset.getSubtype();
+    title = dataset.getTitle();
+    shortName = dataset.getShortName();
+    description = dataset.getDescription();
+    language = dataset.getLanguage();
+    dataLanguage = dataset.getDataLanguage();
+    homepage = dataset.getHomepage() == null ? null : dataset.getHomepage().toString();
+    logoUrl = dataset.getLogoUrl() == null ? null : dataset.getLogoUrl().toString();
+    rights = dataset.getRights();
+    license = dataset.getLicense();
+    hasPubDate = dataset.getPubDate() != null;
+    pubDate = hasPubDate ? dataset.getPubDate().getTime() : 0;
+    maintenanceUpdateFrequency = dataset.getMaintenanceUpdateFrequency();
+    publishingOrganizationKey = dataset.getPublishingOrganizationKey();
+    publishingOrganizationName = intern(pool, dataset.getPublishingOrganizationName());
+    installationKey = dataset.getInstallationKey();
+
+    List<ContactSnapshot> contactList = new ArrayList<>();
+    if (dataset.getContacts() != null) {
+      for (Contact contact : dataset.getContacts()) {
+        if (contact != null) {
+          contactList.add(new ContactSnapshot(contact, pool));
+        }
+      }
+    }
+    contacts = contactList.isEmpty() ? null : contactList.toArray(new ContactSnapshot[0]);
+
+    List<Identifier> identifierList = nonNull(dataset.getIdentifiers());
+    if (identifierList.isEmpty()) {
+      identifiers = null;
+      identifierTypes = null;
+    } else {
+      identifiers = new String[identifierList.size()];
+      identifierTypes = new IdentifierType[identifierList.size()];
+      for (int i = 0; i < identifierList.size(); i++) {
+        identifiers[i] = identifierList.get(i).getIdentifier();
+        identifierTypes[i] = identifierList.get(i).getType();
+      }
+    }
+
+    List<KeywordCollection> collections = nonNull(dataset.getKeywordCollections());
+    if (collections.isEmpty()) {
+      thesauri = null;
+      keywordOffsets = null;
+      keywords = null;
+    } else {
+      thesauri = new String[collections.size()];
+      keywordOffsets = new int[collections.size()];
+      List<String> all = new ArrayList<>();
+      for (int i = 0; i < collections.size(); i++) {
+        thesauri[i] = intern(pool, collections.get(i).getThesaurus());
+        keywordOffsets[i] = all.size();
+        if (collections.get(i).getKeywords() != null) {
+          for (String keyword : collections.get(i).getKeywords()) {
+            all.add(intern(pool, keyword));
+          }
+        }
+      }
+      keywords = all.toArray(NO_STRINGS);
+    }
+
+    countryCoverage =
+        dataset.getCountryCoverage() == null || dataset.getCountryCoverage().isEmpty()
+            ? null
+            : dataset.getCountryCoverage().toArray(new Country[0]);
+
+    Dataset rest = new Dataset();
+    rest.setCitation(dataset.getCitation());
+    rest.setBibliographicCitations(dataset.getBibliographicCitations());
+    rest.setCuratorialUnits(dataset.getCuratorialUnits());
+    rest.setTaxonomicCoverages(dataset.getTaxonomicCoverages());
+    rest.setGeographicCoverageDescription(dataset.getGeographicCoverageDescription());
+    rest.setGeographicCoverages(dataset.getGeographicCoverages());
+    rest.setTemporalCoverages(dataset.getTemporalCoverages());
+    rest.setProject(dataset.getProject());
+    rest.setSamplingDescription(dataset.getSamplingDescription());
+    rest.setCollections(dataset.getCollections());
+    rest.setDataDescriptions(dataset.getDataDescriptions());
+    rest.setPurpose(dataset.getPurpose());
+    rest.setAdditionalInfo(dataset.getAdditionalInfo());
+    rest.setMaintenanceDescription(dataset.getMaintenanceDescription());
+    rest.setIntroduction(dataset.getIntroduction());
+    rest.setGettingStarted(dataset.getGettingStarted());
+    rest.setAcknowledgements(dataset.getAcknowledgements());
+    ByteBuffer encoded = DatasetCodec.encode(rest);
+    details = new byte[encoded.remaining()];
+    encoded.get(details);
+  }
+
+  /**
+   * @param dataset the dataset to take a snapshot of, which is not referenced by the snapshot
+   * @return a snapshot of the metadata of the dataset
+   */
+  public static DatasetSnapshot of(Dataset dataset) {
+    return of(dataset, null);
+  }
+
+  /**
+   * Takes a snapshot like {@link #of(Dataset)}, deduplicating vocabulary like strings such as organisation names,
+   * roles or thesauri through a pool shared across the snapshots of a corpus.
+   *
+   * @param dataset the dataset to take a snapshot of, which is not referenced by the snapshot
+   * @param pool deduplicates the strings, or null
+   * @return a snapshot of the metadata of the dataset
+   */
+  public static DatasetSnapshot of(Dataset dataset, StringPool pool) {
+    return new DatasetSnapshot(dataset, pool);
+  }
+
+  /**
+   * @return a new, mutable dataset with the metadata of this snapshot
+   */
+  public Dataset toDataset() {
+    Dataset dataset = DatasetCodec.decode(ByteBuffer.wrap(details));
+    dataset.setKey(key);
+    dataset.setDoi(doi);
+    dataset.setVersion(version);
+    dataset.setType(type);
+    dataset.setSubtype(subtype);
+    dataset.setTitle(title);
+    dataset.setShortName(shortName);
+    dataset.setDescription(description);
+    dataset.setLanguage(language);
+    dataset.setDataLanguage(dataLanguage);
+    dataset.setHomepage(getHomepage());
+    dataset.setLogoUrl(getLogoUrl());
+    dataset.setRights(rights);
+    dataset.setLicense(license);
+    dataset.setPubDate(getPubDate());
+    dataset.setMaintenanceUpdateFrequency(maintenanceUpdateFrequency);
+    dataset.setPublishingOrganizationKey(publishingOrganizationKey);
+    dataset.setPublishingOrganizationName(publishingOrganizationName);
+    dataset.setInstallationKey(installationKey);
+    if (contacts != null) {
+      for (ContactSnapshot contact : contacts) {
+        dataset.getContacts().add(contact.toContact());
+      }
+    }
+    if (identifiers != null) {
+      for (int i = 0; i < identifiers.length; i++) {
+        Identifier identifier = new Identifier();
+        identifier.setIdentifier(identifiers[i]);
+        identifier.setType(identifierTypes[i]);
+        dataset.getIdentifiers().add(identifier);
+      }
+    }
+    if (thesauri != null) {
+      for (int i = 0; i < thesauri.length; i++) {
+        KeywordCollection collection = new KeywordCollection();
+        collection.setThesaurus(thesauri[i]);
+        for (String keyword : getKeywords(i)) {
+          collection.addKeyword(keyword);
+        }
+        dataset.getKeywordCollections().add(collection);
+      }
+    }
+    if (countryCoverage != null) {
+      dataset.setCountryCoverage(new HashSet<>(Arrays.asList(countryCoverage)));
+    }
+    return dataset;
+  }
+
+  public UUID getKey() {
+    return key;
+  }
+
+  public DOI getDoi() {
+    return doi;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public DatasetType getType() {
+    return type;
+  }
+
+  public DatasetSubtype getSubtype() {
+    return subtype;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getShortName() {
+    return shortName;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public Language getLanguage() {
+    return language;
+  }
+
+  public Language getDataLanguage() {
+    return dataLanguage;
+  }
+
+  public URI getHomepage() {
+    return homepage == null ? null : URI.create(homepage);
+  }
+
+  public URI getLogoUrl() {
+    return logoUrl == null ? null : URI.create(logoUrl);
+  }
+
+  public String getRights() {
+    return rights;
+  }
+
+  public License getLicense() {
+    return license;
+  }
+
+  /**
+   * @return a copy of the publication date, or null
+   */
+  public Date getPubDate() {
+    return hasPubDate ? new Date(pubDate) : null;
+  }
+
+  public MaintenanceUpdateFrequency getMaintenanceUpdateFrequency() {
+    return maintenanceUpdateFrequency;
+  }
+
+  public UUID getPublishingOrganizationKey() {
+    return publishingOrganizationKey;
+  }
+
+  public String getPublishingOrganizationName() {
+    return publishingOrganizationName;
+  }
+
+  public UUID getInstallationKey() {
+    return installationKey;
+  }
+
+  public List<ContactSnapshot> getContacts() {
+    return view(contacts);
+  }
+
+  /**
+   * @return the first primary contact of the given type, or if none is primary the first of the type, or null
+   */
+  public ContactSnapshot getPrimaryContact(ContactType type) {
+    ContactSnapshot first = null;
+    if (contacts != null) {
+      for (ContactSnapshot contact : contacts) {
+        if (contact.getType() == type) {
+          if (contact.isPrimary()) {
+            return contact;
+          }
+          if (first == null) {
+            first = contact;
+          }
+        }
+      }
+    }
+    return first;
+  }
+
+  /**
+   * @return the identifiers of the dataset, without their types
+   */
+  public List<String> getIdentifiers() {
+    return view(identifiers);
+  }
+
+  /**
+   * @return the identifiers of the given type
+   */
+  public List<String> getIdentifiers(IdentifierType type) {
+    List<String> matching = new ArrayList<>();
+    if (identifiers != null) {
+      for (int i = 0; i < identifiers.length; i++) {
+        if (identifierTypes[i] == type) {
+          matching.add(identifiers[i]);
+        }
+      }
+    }
+    return matching;
+  }
+
+  /**
+   * @return the thesauri of the keyword collections, in their order
+   */
+  public List<String> getThesauri() {
+    return view(thesauri);
+  }
+
+  /**
+   * @return the keywords of all keyword collections
+   */
+  public List<String> getKeywords() {
+    return view(keywords);
+  }
+
+  /**
+   * @param collection index of the keyword collection, see {@link #getThesauri()}
+   * @return the keywords of the keyword collection
+   */
+  public List<String> getKeywords(int collection) {
+    int end =
+        collection + 1 < keywordOffsets.length ? keywordOffsets[collection + 1] : keywords.length;
+    return Collections.unmodifiableList(
+        Arrays.asList(keywords).subList(keywordOffsets[collection], end));
+  }
+
+  public List<Country> getCountryCoverage() {
+    return view(countryCoverage);
+  }
+
+  /**
+   * @return the size of the encoded details, which are only restored by {@link #toDataset()}
+   */
+  public int getDetailsSize() {
+    return details.length;
+  }
+
+  private static <T> List<T> view(T[] values) {
+    return values == null
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  private static <T> List<T> nonNull(List<T> values) {
+    if (values == null) {
+      return Collections.emptyList();
+    }
+    List<T> nonNull = new ArrayList<>(values.size());
+    for (T value : values) {
+      if (value != null) {
+        nonNull.add(value);
+      }
+    }
+    return nonNull;
+  }
+
+  private static String[] strings(Collection<String> values, Function<String, String> mapper) {
+    if (values == null || values.isEmpty()) {
+      return null;
+    }
+    String[] strings = new String[values.size()];
+    int i = 0;
+    for (String value : values) {
+      strings[i++] = mapper.apply(value);
+    }
+    return strings;
+  }
+
+  private static String intern(StringPool pool, String value) {
+    return pool == null ? value : pool.intern(value);
+  }
+
+  /**
+   * Frozen contact of a {@link DatasetSnapshot}, with its lists flattened into arrays.
+   */
+  public static final class ContactSnapshot {
+
+    private final ContactType type;
+    private final boolean primary;
+    private final String salutation;
+    private final String firstName;
+    private final String lastName;
+    private final String[] position;
+    private final String organization;
+    private final String[] address;
+    private final String city;
+    private final String province;
+    private final Country country;
+    private final String postalCode;
+    private final String[] email;
+    private final String[] phone;
+    private final String[] homepage;
+    private final String[] userId;
+
+    private ContactSnapshot(Contact contact, StringPool pool) {
+      type = contact.getType();
+      primary = contact.isPrimary();
+      salutation = intern(pool, contact.getSalutation());
+      firstName = contact.getFirstName();
+      lastName = contact.getLastName();
+      position = strings(contact.getPosition(), value -> intern(pool, value));
+      organization = intern(pool, contact.getOrganization());
+      address = strings(contact.getAddress(), Function.identity());
+      city = intern(pool, contact.getCity());
+      province = intern(pool, contact.getProvince());
+      country = contact.getCountry();
+      postalCode = contact.getPostalCode();
+      email = strings(contact.getEmail(), Function.identity());
+      phone = strings(contact.getPhone(), Function.identity());
+      List<String> homepages = new ArrayList<>();
+      if (contact.getHomepage() != null) {
+        for (URI uri : contact.getHomepage()) {
+          homepages.add(uri == null ? null : uri.toString());
+        }
+      }
+      homepage = strings(homepages, Function.identity());
+      userId = strings(contact.getUserId(), Function.identity());
+    }
+
+    private Contact toContact() {
+      Contact contact = new Contact();
+      contact.setType(type);
+      contact.setPrimary(primary);
+      contact.setSalutation(salutation);
+      contact.setFirstName(firstName);
+      contact.setLastName(lastName);
+      contact.getPosition().addAll(getPosition());
+      contact.setOrganization(organization);
+      contact.getAddress().addAll(getAddress());
+      contact.setCity(city);
+      contact.setProvince(province);
+      contact.setCountry(country);
+      contact.setPostalCode(postalCode);
+      contact.getEmail().addAll(getEmail());
+      contact.getPhone().addAll(getPhone());
+      contact.getHomepage().addAll(getHomepage());
+      contact.getUserId().addAll(getUserId());
+      return contact;
+    }
+
+    public ContactType getType() {
+      return type;
+    }
+
+    public boolean isPrimary() {
+      return primary;
+    }
+
+    public String getSalutation() {
+      return salutation;
+    }
+
+    public String getFirstName() {
+      return firstName;
+    }
+
+    public String getLastName() {
+      return lastName;
+    }
+
+    public List<String> getPosition() {
+      return view(position);
+    }
+
+    public String getOrganization() {
+      return organization;
+    }
+
+    public List<String> getAddress() {
+      return view(address);
+    }
+
+    public String getCity() {
+      return city;
+    }
+
+    public String getProvince() {
+      return province;
+    }
+
+    public Country getCountry() {
+      return country;
+    }
+
+    public String getPostalCode() {
+      return postalCode;
+    }
+
+    public List<String> getEmail() {
+      return view(email);
+    }
+
+    public List<String> getPhone() {
+      return view(phone);
+    }
+
+    public List<URI> getHomepage() {
+      if (homepage == null) {
+        return Collections.emptyList();
+      }
+      List<URI> uris = new ArrayList<>(homepage.length);
+      for (String uri : homepage) {
+        uris.add(uri == null ? null : URI.create(uri));
+      }
+      return uris;
+    }
+
+    public List<String> getUserId() {
+      return view(userId);
+    }
+  }
+}
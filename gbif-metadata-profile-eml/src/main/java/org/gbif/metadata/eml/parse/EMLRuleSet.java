@@ -43,6 +43,8 @@ import org.gbif.api.vocabulary.Rank;
 import org.gbif.metadata.common.parse.ParagraphContainer;
 import org.gbif.metadata.common.parse.converter.GreedyUriConverter;
 import org.gbif.metadata.common.parse.converter.LanguageTypeConverter;
+import org.gbif.metadata.common.util.DocBookConverter;
+import org.gbif.metadata.common.util.StringPool;
 import org.gbif.metadata.eml.parse.converter.ContactTypeConverter;
 import org.gbif.metadata.eml.parse.converter.CountryTypeConverter;
 import org.gbif.metadata.eml.parse.converter.DateConverter;
@@ -50,18 +52,10 @@ import org.gbif.metadata.eml.parse.converter.IdentifierTypeConverter;
 import org.gbif.metadata.eml.parse.converter.MaintenanceUpdateFrequencyConverter;
 import org.gbif.metadata.eml.parse.converter.PreservationMethodTypeConverter;
 
-import java.io.StringWriter;
 import java.net.URI;
 import java.util.Date;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.apache.commons.beanutils.ConvertUtils;
 import org.apache.commons.beanutils.Converter;
@@ -73,8 +67,6 @@ import org.apache.commons.digester3.NodeCreateRule;
 import org.apache.commons.digester3.RuleSetBase;
 import org.apache.commons.digester3.SetNextRule;
 import org.apache.commons.digester3.SetRootRule;
-import org.apache.commons.lang3.StringUtils;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.Attributes;
@@ -85,37 +77,19 @@ import org.xml.sax.Attributes;
  */
 public class EMLRuleSet extends RuleSetBase {
 
-  // Define pairs of DocBook tags. MUST MATCH HTML tags!
-  private static final String[] DOCBOOK_TAGS = {
-    "<section>", "</section>",
-    "<title>", "</title>",
-    "<para><itemizedlist>", "</itemizedlist></para>",
-    "<para><orderedlist>", "</orderedlist></para>",
-    "<listitem><para>", "</para></listitem>",
-    "<itemizedlist>", "</itemizedlist>",
-    "<orderedlist>", "</orderedlist>",
-    "<para>", "</para>",
-    "<emphasis>", "</emphasis>",
-    "<subscript>", "</subscript>",
-    "<superscript>", "</superscript>",
-    "<literalLayout>", "</literalLayout>"
-  };
-
-  // Define pairs of HTML tags. MUST MATCH DocBook tags!
-  private static final String[] HTML_TAGS = {
-    "<div>", "</div>",
-    "<h1>", "</h1>",
-    "<ul>", "</ul>",
-    "<ol>", "</ol>",
-    "<li>", "</li>",
-    "<ul>", "</ul>",
-    "<ol>", "</ol>",
-    "<p>", "</p>",
-    "<b>", "</b>",
-    "<sub>", "</sub>",
-    "<sup>", "</sup>",
-    "<pre>", "</pre>"
-  };
+  // deduplicates the parsed text values, null for none
+  private final StringPool pool;
+
+  public EMLRuleSet() {
+    this(null);
+  }
+
+  /**
+   * @param pool deduplicates the text of all elements and attributes parsed, or null
+   */
+  public EMLRuleSet(StringPool pool) {
+    this.pool = pool;
+  }
 
   private void setupTypeConverters() {
 
@@ -160,6 +134,9 @@ public class EMLRuleSet extends RuleSetBase {
   public void addRuleInstances(Digester digester) {
 
     setupTypeConverters();
+    if (pool != null) {
+      digester.setSubstitutor(new StringPoolSubstitutor(pool));
+    }
 
     // language as xml:lang attribute
     digester.addCallMethod("eml", "setLanguage", 1, new Class[] {Language.class});
@@ -611,71 +588,7 @@ public class EMLRuleSet extends RuleSetBase {
     }
 
     protected String serializeNode(Element nodeToSerialize) throws Exception {
-      String htmlOutput;
-
-      try (StringWriter writer = new StringWriter()) {
-        // Create a new Document to serialize the node
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.newDocument();
-
-        // Import the node to serialize into the new Document
-        Element importedNode = (Element) doc.importNode(nodeToSerialize, true);
-        doc.appendChild(importedNode);
-
-        // Set up the Transformer to handle XML serialization
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
-
-        // Set Transformer output properties
-        transformer.setOutputProperty(OutputKeys.INDENT, "no"); // Disable indentation
-        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-
-        // Serialize the node to a string
-        DOMSource source = new DOMSource(importedNode);
-        StreamResult result = new StreamResult(writer);
-        transformer.transform(source, result);
-
-        // Get the serialized XML string
-        String serializedDocBookXml = writer.toString();
-
-        // Handle specific whitespace formatting for <pre> tags
-        serializedDocBookXml = preservePreformattedWhitespace(serializedDocBookXml);
-
-        // Unwrap the parent tag
-        String unwrappedDocBookXml = unwrapParentTag(serializedDocBookXml);
-
-        // Convert DocBook XML to HTML
-        htmlOutput = convertDocBookToHtml(unwrappedDocBookXml);
-      }
-
-      return htmlOutput;
-    }
-
-    private String preservePreformattedWhitespace(String xmlString) {
-      // This method preserves whitespace in <pre> tags by restoring line breaks and indentations
-      xmlString = xmlString.replaceAll("(<pre>)(.*?)(</pre>)", "$1\n$2\n$3");
-      return xmlString;
-    }
-
-    private String unwrapParentTag(String str) {
-      return StringUtils.replaceEach(
-          str,
-          new String[] {"<" + wrapperElement + ">", "</" + wrapperElement + ">"},
-          new String[] {"", ""});
-    }
-
-    private String convertDocBookToHtml(String docbookXmlString) {
-      // Replace links
-      String docBookXmlStringWithLinksReplaces =
-          docbookXmlString.replaceAll(
-              "<ulink\\s+url=\"(.*?)\">\\s*<citetitle>(.*?)</citetitle>\\s*</ulink>",
-              "<a href=\"$1\">$2</a>");
-
-      // Perform replacements
-      return StringUtils.replaceEach(docBookXmlStringWithLinksReplaces, DOCBOOK_TAGS, HTML_TAGS);
+      return DocBookConverter.docBookToHtml(nodeToSerialize, wrapperElement);
     }
 
     protected void invokeMethodOnTopOfStack(String methodName, String param) throws Exception {
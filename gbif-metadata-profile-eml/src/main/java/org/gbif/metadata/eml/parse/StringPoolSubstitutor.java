@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.parse;
+
+import org.gbif.metadata.common.util.StringPool;
+
+import java.util.Objects;
+
+import org.apache.commons.digester3.Substitutor;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Digester {@link Substitutor} routing the text of every element and attribute through a {@link StringPool}, so
+ * the values set by any rule are deduplicated.
+ * <p>
+ * Element text is trimmed before pooling, as the property setter and call param rules trim it anyway and would
+ * otherwise create a new string from the pooled one. DocBook rules build their DOM from the SAX events instead and are
+ * not affected.
+ */
+public class StringPoolSubstitutor extends Substitutor {
+
+  private final StringPool pool;
+
+  public StringPoolSubstitutor(StringPool pool) {
+    this.pool = Objects.requireNonNull(pool, "pool");
+  }
+
+  @Override
+  public Attributes substitute(Attributes attributes) {
+    if (attributes.getLength() == 0) {
+      return attributes;
+    }
+    AttributesImpl pooled = new AttributesImpl(attributes);
+    for (int i = 0; i < pooled.getLength(); i++) {
+      pooled.setValue(i, pool.intern(pooled.getValue(i)));
+    }
+    return pooled;
+  }
+
+  @Override
+  public String substitute(String bodyText) {
+    return pool.intern(bodyText.trim());
+  }
+}
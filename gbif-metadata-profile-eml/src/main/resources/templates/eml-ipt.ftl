@@ -677,6 +677,15 @@
                 <#if pdata.name?has_content && pdata.format?has_content && pdata.distributionUrl?has_content>
                 <physical>
                     <objectName>${pdata.name}</objectName>
+                    <#if pdata.size??>
+                    <size unit="byte">${pdata.size?c}</size>
+                    </#if>
+                    <#if pdata.md5?has_content>
+                    <authentication method="MD5">${pdata.md5}</authentication>
+                    </#if>
+                    <#if pdata.sha256?has_content>
+                    <authentication method="SHA-256">${pdata.sha256}</authentication>
+                    </#if>
                     <#if pdata.charset?has_content>
                     <characterEncoding>${pdata.charset}</characterEncoding>
                     </#if>
@@ -22,8 +22,14 @@ import org.gbif.metadata.eml.parse.DatasetEmlParser;
 import org.gbif.utils.file.FileUtils;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.xml.transform.stream.StreamSource;
 
@@ -31,7 +37,9 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class EMLWriterTest {
@@ -53,6 +61,19 @@ public class EMLWriterTest {
     assertTrue(StringUtils.startsWith(writer.toString().trim(), XML_DECLARATION));
   }
 
+  @Test
+  public void testWarmUp() throws Exception {
+    EMLWriter.warmUp();
+    Dataset d =
+        DatasetEmlParser.build(IOUtils.toByteArray(FileUtils.classpathStream(TEST_EML_FILE)));
+    d.setKey(UUID.randomUUID());
+    for (EMLProfileVersion version : EMLProfileVersion.values()) {
+      StringWriter writer = new StringWriter();
+      emlWriter.writeTo(d, writer, version);
+      assertTrue(writer.toString().contains(d.getTitle()), version.getVersion());
+    }
+  }
+
   @Test
   public void testWriteOmitXmlDeclaration() throws Exception {
     EMLWriter emlWriter = EMLWriter.newInstance(false, true);
@@ -142,4 +163,81 @@ public class EMLWriterTest {
     emlWriterDOI.writeTo(d, writer);
     assertTrue(writer.toString().contains("packageId=\"10.1234/5679\""));
   }
+
+  @Test
+  public void testWriteRenderModel() throws Exception {
+    Dataset d =
+        DatasetEmlParser.build(IOUtils.toByteArray(FileUtils.classpathStream(TEST_EML_FILE)));
+    d.setKey(UUID.randomUUID());
+    EmlRenderModel model = EmlRenderModel.of(d);
+
+    Map<EMLProfileVersion, StringWriter> sequential = new EnumMap<>(EMLProfileVersion.class);
+    Map<EMLProfileVersion, StringWriter> concurrent = new EnumMap<>(EMLProfileVersion.class);
+    for (EMLProfileVersion version : EMLProfileVersion.values()) {
+      sequential.put(version, new StringWriter());
+      concurrent.put(version, new StringWriter());
+    }
+    emlWriter.writeTo(model, sequential, null);
+    ExecutorService executor = Executors.newFixedThreadPool(EMLProfileVersion.values().length);
+    try {
+      emlWriter.writeTo(model, concurrent, executor);
+    } finally {
+      executor.shutdown();
+    }
+
+    for (EMLProfileVersion version : EMLProfileVersion.values()) {
+      StringWriter writer = new StringWriter();
+      emlWriter.writeTo(d, writer, version);
+      String expected = withoutDateStamp(writer.toString());
+      assertEquals(expected, withoutDateStamp(sequential.get(version).toString()), version.name());
+      assertEquals(expected, withoutDateStamp(concurrent.get(version).toString()), version.name());
+    }
+  }
+
+  @Test
+  public void testWriteRenderModelFailure() throws Exception {
+    Dataset d =
+        DatasetEmlParser.build(IOUtils.toByteArray(FileUtils.classpathStream(TEST_EML_FILE)));
+    d.setKey(UUID.randomUUID());
+    EmlRenderModel model = EmlRenderModel.of(d);
+
+    Map<EMLProfileVersion, Writer> writers = new EnumMap<>(EMLProfileVersion.class);
+    for (EMLProfileVersion version : EMLProfileVersion.values()) {
+      writers.put(version, new StringWriter());
+    }
+    writers.put(EMLProfileVersion.GBIF_1_1, new FailingWriter());
+    writers.put(EMLProfileVersion.GBIF_1_2, new FailingWriter());
+    ExecutorService executor = Executors.newFixedThreadPool(EMLProfileVersion.values().length);
+    try {
+      IOException e =
+          assertThrows(IOException.class, () -> emlWriter.writeTo(model, writers, executor));
+      assertEquals(1, e.getSuppressed().length);
+    } finally {
+      executor.shutdown();
+    }
+
+    // the other versions were completed before the failure was reported
+    StringWriter expected = new StringWriter();
+    emlWriter.writeTo(d, expected, EMLProfileVersion.GBIF_1_3);
+    assertEquals(
+        withoutDateStamp(expected.toString()),
+        withoutDateStamp(writers.get(EMLProfileVersion.GBIF_1_3).toString()));
+  }
+
+  private static final class FailingWriter extends Writer {
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      throw new IOException("disk full");
+    }
+
+    @Override
+    public void flush() {}
+
+    @Override
+    public void close() {}
+  }
+
+  private static String withoutDateStamp(String eml) {
+    return eml.replaceFirst("<dateStamp>[^<]*</dateStamp>", "<dateStamp/>");
+  }
 }
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.Endpoint;
+import org.gbif.api.vocabulary.EndpointType;
+import org.gbif.api.vocabulary.License;
+import org.gbif.metadata.eml.EMLWriter.Engine;
+import org.gbif.metadata.eml.parse.DatasetEmlParser;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EmlStreamingSerializerTest {
+
+  private static final String[] CORPUS = {
+    "eml-metadata-profile/sample1-v1.0.xml",
+    "eml-metadata-profile/sample2-v1.0.1.xml",
+    "eml-metadata-profile/sample3-v1.0.1.xml",
+    "eml-metadata-profile/sample4-v1.1.xml",
+    "eml-metadata-profile/sample5-v1.1.xml",
+    "eml-metadata-profile/sample6-v1.1.xml",
+    "eml-metadata-profile/sample7-v1.1.xml",
+    "eml-metadata-profile/sample8-v1.1.xml",
+    "eml-metadata-profile/sample9-v1.2.xml",
+    "eml-metadata-profile/sample10-v1.3.xml",
+    "eml/3920856d-4923-4276-ae0b-e8b3478df276.xml",
+    "eml/ipt_eml.xml",
+    "eml/multiple-paragraphs-html.xml",
+    "eml/temporalCoverageRange.xml",
+    "eml/wikipedia.xml"
+  };
+
+  private static final String BENCHMARK_EML = "eml-metadata-profile/sample10-v1.3.xml";
+
+  private static Dataset parse(String path) throws Exception {
+    try (InputStream in = FileUtils.classpathStream(path)) {
+      Dataset dataset = DatasetEmlParser.build(IOUtils.toByteArray(in));
+      dataset.setKey(UUID.fromString("bdd601cc-00a7-431c-9724-d5b03170fcb2"));
+      return dataset;
+    }
+  }
+
+  private static String write(EMLWriter writer, Dataset dataset) throws Exception {
+    StringWriter out = new StringWriter();
+    writer.writeTo(dataset, out, EMLProfileVersion.GBIF_1_3);
+    // the only part expected to differ between two writes
+    return out.toString().replaceFirst("<dateStamp>[^<]*</dateStamp>", "<dateStamp/>");
+  }
+
+  @Test
+  public void testSameOutputAsTemplate() throws Exception {
+    for (boolean useDoi : new boolean[] {false, true}) {
+      for (boolean omitXmlDeclaration : new boolean[] {false, true}) {
+        EMLWriter template = EMLWriter.newInstance(useDoi, omitXmlDeclaration, Engine.TEMPLATE);
+        EMLWriter streaming = EMLWriter.newInstance(useDoi, omitXmlDeclaration, Engine.STREAMING);
+        for (String path : CORPUS) {
+          Dataset dataset = parse(path);
+          assertEquals(write(template, dataset), write(streaming, dataset), path);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSameOutputForRegistryFields() throws Exception {
+    Dataset dataset = parse(BENCHMARK_EML);
+    Endpoint endpoint = new Endpoint();
+    endpoint.setType(EndpointType.DWC_ARCHIVE);
+    endpoint.setUrl(URI.create("https://ipt.gbif.org/archive.do?r=sample&v=1.3"));
+    dataset.getEndpoints().add(endpoint);
+    dataset.setDescription("Test & <p>more test</p> \" <div>Hello</div> <go> 'quoted'");
+
+    EMLWriter template = EMLWriter.newInstance(false, false, Engine.TEMPLATE);
+    EMLWriter streaming = EMLWriter.newInstance(false, false, Engine.STREAMING);
+    for (License license : License.values()) {
+      dataset.setLicense(license);
+      assertEquals(write(template, dataset), write(streaming, dataset), license.name());
+    }
+  }
+}
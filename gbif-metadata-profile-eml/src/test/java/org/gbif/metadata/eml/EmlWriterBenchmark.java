@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.metadata.eml.EMLWriter.Engine;
+import org.gbif.metadata.eml.parse.DatasetEmlParser;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullWriter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the throughput and allocation of the template and streaming engines of the
+ * {@link EMLWriter}.
+ * <p>
+ * Not part of the unit tests, run it with {@code mvn test -Pbenchmark}.
+ */
+public class EmlWriterBenchmark {
+
+  private static final String EML = "eml-metadata-profile/sample10-v1.3.xml";
+  private static final int WARM_UP = 2_000;
+  private static final int DOCUMENTS = 10_000;
+
+  @Test
+  public void benchmarkEngines() throws Exception {
+    Dataset dataset;
+    try (InputStream in = FileUtils.classpathStream(EML)) {
+      dataset = DatasetEmlParser.build(IOUtils.toByteArray(in));
+    }
+    dataset.setKey(UUID.fromString("bdd601cc-00a7-431c-9724-d5b03170fcb2"));
+
+    for (Engine engine : Engine.values()) {
+      EMLWriter writer = EMLWriter.newInstance(false, false, engine);
+      for (int i = 0; i < WARM_UP; i++) {
+        writer.writeTo(dataset, NullWriter.NULL_WRITER);
+      }
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      for (int i = 0; i < DOCUMENTS; i++) {
+        writer.writeTo(dataset, NullWriter.NULL_WRITER);
+      }
+      long nanos = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+      System.out.printf(
+          "%s: %.0f documents/s, %d bytes allocated per document%n",
+          engine, DOCUMENTS * 1e9 / nanos, allocated / DOCUMENTS);
+    }
+  }
+
+  static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.parse.DatasetEmlParser;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DatasetCodecTest {
+
+  private static final String[] CORPUS = {
+    "sample1-v1.0.xml",
+    "sample2-v1.0.1.xml",
+    "sample3-v1.0.1.xml",
+    "sample4-v1.1.xml",
+    "sample5-v1.1.xml",
+    "sample6-v1.1.xml",
+    "sample7-v1.1.xml",
+    "sample8-v1.1.xml",
+    "sample9-v1.2.xml",
+    "sample10-v1.3.xml"
+  };
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Dataset dataset;
+    try (InputStream is = FileUtils.classpathStream("eml-metadata-profile/sample3-v1.0.1.xml")) {
+      dataset = DatasetEmlParser.build(IOUtils.toByteArray(is));
+    }
+    ByteBuffer encoded = DatasetCodec.encode(dataset);
+    Dataset decoded = DatasetCodec.decode(encoded.duplicate());
+
+    assertEquals(dataset.getTitle(), decoded.getTitle());
+    assertEquals(dataset.getPubDate(), decoded.getPubDate());
+    assertEquals(dataset.getLanguage(), decoded.getLanguage());
+    assertEquals(dataset.getLicense(), decoded.getLicense());
+    assertEquals(dataset.getContacts(), decoded.getContacts());
+    assertEquals(dataset.getGeographicCoverages(), decoded.getGeographicCoverages());
+    assertEquals(dataset.getTaxonomicCoverages(), decoded.getTaxonomicCoverages());
+    assertEquals(dataset.getTemporalCoverages(), decoded.getTemporalCoverages());
+    assertEquals(dataset.getKeywordCollections(), decoded.getKeywordCollections());
+    assertEquals(dataset.getCollections(), decoded.getCollections());
+    assertEquals(dataset.getProject(), decoded.getProject());
+    assertEquals(dataset.getSamplingDescription(), decoded.getSamplingDescription());
+    assertEquals(dataset.getMaintenanceUpdateFrequency(), decoded.getMaintenanceUpdateFrequency());
+    // nothing got lost that is encoded
+    assertEquals(encoded, DatasetCodec.encode(decoded));
+  }
+
+  @Test
+  public void testEncodedSize() throws Exception {
+    long xmlBytes = 0;
+    long encodedBytes = 0;
+    for (String name : CORPUS) {
+      byte[] xml;
+      try (InputStream in = FileUtils.classpathStream("eml-metadata-profile/" + name)) {
+        xml = IOUtils.toByteArray(in);
+      }
+      xmlBytes += xml.length;
+      encodedBytes += DatasetCodec.encode(DatasetEmlParser.build(xml)).remaining();
+    }
+    // about 49% of the XML when this was written, these documents being mostly free text
+    assertTrue(
+        encodedBytes * 100 < xmlBytes * 55,
+        encodedBytes + " bytes encoded from " + xmlBytes + " bytes of XML");
+  }
+
+  @Test
+  public void testEmptyDataset() {
+    Dataset decoded = DatasetCodec.decode(DatasetCodec.encode(new Dataset()));
+
+    assertNull(decoded.getTitle());
+    assertNull(decoded.getProject());
+    assertEquals(0, decoded.getContacts().size());
+  }
+
+  @Test
+  public void testEmlIsRejected() {
+    ByteBuffer eml = EmlCodec.encode(new Eml());
+    assertThrows(IllegalArgumentException.class, () -> DatasetCodec.decode(eml));
+  }
+}
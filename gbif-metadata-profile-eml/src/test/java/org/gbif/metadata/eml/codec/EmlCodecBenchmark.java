@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import org.gbif.metadata.eml.ipt.EmlFactory;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares a round trip through the {@link EmlCodec} with one through Java serialization and
+ * with parsing the XML again.
+ * <p>
+ * Not part of the unit tests, run it with {@code mvn test -Pbenchmark}.
+ */
+public class EmlCodecBenchmark {
+
+  private static final String EML = "eml/ipt/sample.xml";
+  private static final int WARM_UP = 2_000;
+  private static final int ROUND_TRIPS = 10_000;
+
+  @Test
+  public void benchmarkRoundTrips() throws Exception {
+    byte[] xml;
+    try (InputStream in = FileUtils.classpathStream(EML)) {
+      xml = IOUtils.toByteArray(in);
+    }
+    Eml eml = EmlFactory.build(new ByteArrayInputStream(xml));
+
+    measure("codec", eml, e -> EmlCodec.decode(EmlCodec.encode(e)));
+    measure("serialization", eml, SerializationUtils::clone);
+    measure(
+        "xml",
+        eml,
+        e -> {
+          try {
+            return EmlFactory.build(new ByteArrayInputStream(xml));
+          } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+          }
+        });
+  }
+
+  private static void measure(String name, Eml eml, UnaryOperator<Eml> roundTrip) {
+    assertEquals(eml.getTitle(), roundTrip.apply(eml).getTitle());
+    for (int i = 0; i < WARM_UP; i++) {
+      roundTrip.apply(eml);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUND_TRIPS; i++) {
+      roundTrip.apply(eml);
+    }
+    long nanos = System.nanoTime() - start;
+    System.out.printf(
+        "%s: %.0f round trips/s, %.1f us each%n",
+        name, ROUND_TRIPS * 1e9 / nanos, nanos / 1e3 / ROUND_TRIPS);
+  }
+}
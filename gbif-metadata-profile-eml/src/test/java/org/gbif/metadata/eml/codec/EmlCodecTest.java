@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.codec;
+
+import org.gbif.metadata.eml.ipt.EmlFactory;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmlCodecTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    ByteBuffer encoded = EmlCodec.encode(eml);
+    Eml decoded = EmlCodec.decode(encoded.duplicate());
+
+    assertEquals(eml.getTitle(), decoded.getTitle());
+    assertEquals(eml.getDateStamp(), decoded.getDateStamp());
+    assertEquals(eml.getEmlVersion(), decoded.getEmlVersion());
+    assertEquals(eml.getCreators(), decoded.getCreators());
+    assertEquals(eml.getGeospatialCoverages(), decoded.getGeospatialCoverages());
+    assertEquals(eml.getTaxonomicCoverages(), decoded.getTaxonomicCoverages());
+    assertEquals(eml.getTemporalCoverages(), decoded.getTemporalCoverages());
+    assertEquals(eml.getProject(), decoded.getProject());
+    assertEquals(eml.getUpdateFrequency(), decoded.getUpdateFrequency());
+    assertEquals(eml.getKeywords().size(), decoded.getKeywords().size());
+    assertEquals(
+        eml.getKeywords().get(0).getKeywordsString(),
+        decoded.getKeywords().get(0).getKeywordsString());
+    // nothing got lost that is encoded
+    assertEquals(encoded, EmlCodec.encode(decoded));
+  }
+
+  @Test
+  public void testEncodedSize() throws Exception {
+    String[] corpus = {"sample.xml", "sample2.xml", "sample3.xml", "shared-agents.xml"};
+    long xmlBytes = 0;
+    long serializedBytes = 0;
+    long encodedBytes = 0;
+    for (String name : corpus) {
+      byte[] xml;
+      try (InputStream in = FileUtils.classpathStream("eml/ipt/" + name)) {
+        xml = IOUtils.toByteArray(in);
+      }
+      Eml eml = EmlFactory.build(new ByteArrayInputStream(xml));
+      xmlBytes += xml.length;
+      serializedBytes += SerializationUtils.serialize(eml).length;
+      encodedBytes += EmlCodec.encode(eml).remaining();
+    }
+    // about 17% of the XML and 29% of the serialized form when this was written
+    assertTrue(
+        encodedBytes * 100 < xmlBytes * 20,
+        encodedBytes + " bytes encoded from " + xmlBytes + " bytes of XML");
+    assertTrue(
+        encodedBytes * 100 < serializedBytes * 35,
+        encodedBytes + " bytes encoded, " + serializedBytes + " bytes serialized");
+  }
+
+  @Test
+  public void testEmptyEml() {
+    Eml eml = new Eml();
+    eml.setDateStamp((Date) null);
+    eml.setPubDate(null);
+    eml.setHierarchyLevel(null);
+    eml.setProject(null);
+    Eml decoded = EmlCodec.decode(EmlCodec.encode(eml));
+
+    assertNull(decoded.getDateStamp());
+    assertNull(decoded.getPubDate());
+    assertNull(decoded.getHierarchyLevel());
+    assertNull(decoded.getProject());
+  }
+
+  @Test
+  public void testUnknownFieldsAreSkipped() {
+    // a message of a future version of the codec with fields this version does not know
+    BinaryEncoder out = new BinaryEncoder();
+    out.writeHeader(EmlCodec.MAGIC, 'E', EmlCodec.VERSION);
+    out.writeString(1, "Title");
+    out.writeString(1000, "Title");
+    out.writeDouble(1001, 1.5);
+    out.writeUuid(1002, UUID.randomUUID());
+    out.startRecord(1003);
+    out.writeString(1, "Nested");
+    out.startRecord(2);
+    out.writeVarint(1, 42);
+    out.endRecord();
+    out.endRecord();
+    out.writeString(2, "Nested");
+    out.endRecord();
+
+    Eml decoded = EmlCodec.decode(out.toByteBuffer());
+    assertEquals("Title", decoded.getTitle());
+    // refers to a string only written in a skipped record
+    assertEquals("Nested", decoded.getShortName());
+  }
+
+  @Test
+  public void testNewerVersionIsRejected() {
+    BinaryEncoder out = new BinaryEncoder();
+    out.writeHeader(EmlCodec.MAGIC, 'E', EmlCodec.VERSION + 1);
+    out.endRecord();
+    assertThrows(IllegalArgumentException.class, () -> EmlCodec.decode(out.toByteBuffer()));
+  }
+
+  @Test
+  public void testWrongTypeIsRejected() {
+    BinaryEncoder out = new BinaryEncoder();
+    out.writeHeader(EmlCodec.MAGIC, 'D', 1);
+    out.endRecord();
+    assertThrows(IllegalArgumentException.class, () -> EmlCodec.decode(out.toByteBuffer()));
+  }
+
+  @Test
+  public void testVarints() {
+    BinaryEncoder out = new BinaryEncoder(16);
+    long[] values = {
+      0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE
+    };
+    out.writeHeader(EmlCodec.MAGIC, 'T', 1);
+    for (long value : values) {
+      out.writeSignedVarint(1, value);
+    }
+    out.endRecord();
+
+    BinaryDecoder in = new BinaryDecoder(out.toByteBuffer());
+    assertEquals(1, in.readHeader(EmlCodec.MAGIC, 'T'));
+    for (long value : values) {
+      assertEquals(1, in.readField());
+      assertEquals(value, in.readSignedVarint());
+    }
+    assertEquals(0, in.readField());
+  }
+}
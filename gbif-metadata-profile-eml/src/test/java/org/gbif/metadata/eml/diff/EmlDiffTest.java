@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.diff;
+
+import org.gbif.metadata.eml.ipt.EmlFactory;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.UserId;
+import org.gbif.utils.file.FileUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmlDiffTest {
+
+  @Test
+  public void testSameDocument() throws Exception {
+    Eml before = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    Eml after = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+
+    assertTrue(EmlDiff.diff(before, after).isEmpty());
+  }
+
+  @Test
+  public void testScalarChange() {
+    Eml before = eml();
+    Eml after = eml();
+    after.setTitle("New title");
+    after.setPurpose("Purpose");
+
+    ChangeSet changes = EmlDiff.diff(before, after);
+    assertEquals(2, changes.size());
+    assertEquals(
+        new Change(Change.Type.CHANGED, "title", "Title", "New title"),
+        changes.getChanges().get(0));
+    assertEquals(
+        new Change(Change.Type.ADDED, "purpose", null, "Purpose"), changes.getChanges().get(1));
+    assertTrue(changes.affects("title"));
+    assertTrue(changes.without("title", "purpose").isEmpty());
+  }
+
+  @Test
+  public void testAgentsMatchedByIdentity() {
+    Eml before = eml();
+    before.setCreators(
+        Arrays.asList(agent("Jane", "jane@example.org", null), agent("John", null, "0000-0001")));
+    Eml after = eml();
+    Agent john = agent("Johnny", null, "https://orcid.org/0000-0001");
+    after.setCreators(
+        Arrays.asList(
+            agent("Anna", "anna@example.org", null),
+            john,
+            agent("Jane", "jane@example.org", null)));
+
+    ChangeSet changes = EmlDiff.diff(before, after);
+    // reordering is no change, ORCIDs are matched with or without their directory
+    assertEquals(2, changes.size());
+    Change changed = changes.getChanges().get(0);
+    assertEquals(Change.Type.CHANGED, changed.getType());
+    assertEquals("creators[orcid:0000-0001]", changed.getPath());
+    assertEquals(john, changed.getNewValue());
+    Change added = changes.getChanges().get(1);
+    assertEquals(Change.Type.ADDED, added.getType());
+    assertEquals("creators[email:anna@example.org]", added.getPath());
+    assertEquals("creators", added.getField());
+  }
+
+  @Test
+  public void testTaxaMatchedByName() {
+    Eml before = eml();
+    before.addTaxonomicCoverage(coverage("Puma concolor", "Panthera leo"));
+    Eml after = eml();
+    after.addTaxonomicCoverage(coverage("Panthera leo", "Lynx lynx"));
+
+    ChangeSet changes = EmlDiff.diff(before, after);
+    assertEquals(2, changes.size());
+    assertEquals(Change.Type.REMOVED, changes.getChanges().get(0).getType());
+    assertEquals(
+        "taxonomicCoverages[#0].taxonKeywords[Puma concolor]",
+        changes.getChanges().get(0).getPath());
+    assertEquals(Change.Type.ADDED, changes.getChanges().get(1).getType());
+    assertEquals(
+        "taxonomicCoverages[#0].taxonKeywords[Lynx lynx]", changes.getChanges().get(1).getPath());
+    assertEquals(Collections.singleton("taxonomicCoverages"), changes.getFields());
+    assertFalse(changes.affects("creators"));
+  }
+
+  private static Eml eml() {
+    Eml eml = new Eml();
+    eml.setTitle("Title");
+    // fixed dates, the constructor sets the current time
+    eml.setDateStamp(new Date(0));
+    eml.setPubDate(new Date(0));
+    return eml;
+  }
+
+  private static Agent agent(String firstName, String email, String orcid) {
+    Agent agent = new Agent();
+    agent.setFirstName(firstName);
+    agent.setLastName("Doe");
+    if (email != null) {
+      agent.addEmail(email);
+    }
+    if (orcid != null) {
+      agent.addUserId(new UserId("https://orcid.org/", orcid));
+    }
+    return agent;
+  }
+
+  private static TaxonomicCoverage coverage(String... names) {
+    TaxonomicCoverage coverage = new TaxonomicCoverage();
+    for (String name : names) {
+      coverage.addTaxonKeyword(new TaxonKeyword(name, "species", null));
+    }
+    return coverage;
+  }
+}
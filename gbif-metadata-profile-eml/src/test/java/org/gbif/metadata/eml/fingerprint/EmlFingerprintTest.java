@@ -0,0 +1,59 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.fingerprint;
+
+import org.gbif.metadata.eml.ipt.EmlFactory;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.utils.file.FileUtils;
+
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class EmlFingerprintTest {
+
+  @Test
+  public void testStable() throws Exception {
+    Eml eml1 = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    Eml eml2 = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    eml2.setDateStamp(new Date(0));
+
+    assertEquals(EmlFingerprint.of(eml1), EmlFingerprint.of(eml2));
+  }
+
+  @Test
+  public void testCanonical() throws Exception {
+    Eml eml1 = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    Eml eml2 = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+
+    // keyword sets and their keywords have no meaningful order
+    Collections.reverse(eml2.getKeywords());
+    for (KeywordSet keywords : eml2.getKeywords()) {
+      Collections.reverse(keywords.getKeywords());
+    }
+    // nor has whitespace in DocBook
+    eml1.setDescription("<para>A  description</para><para>of two paragraphs</para>");
+    eml2.setDescription("\n  <para>A description</para>\n  <para>of two paragraphs </para>\n");
+
+    assertEquals(EmlFingerprint.of(eml1), EmlFingerprint.of(eml2));
+
+    eml2.setDescription("<para>A description of one paragraph</para>");
+    assertNotEquals(EmlFingerprint.of(eml1), EmlFingerprint.of(eml2));
+  }
+}
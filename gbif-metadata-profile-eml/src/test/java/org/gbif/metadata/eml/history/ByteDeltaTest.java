@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.history;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ByteDeltaTest {
+
+  @Test
+  public void testSmallEdit() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      text.append("Line ").append(i).append(" of a long description of the dataset.\n");
+    }
+    byte[] source = text.toString().getBytes(StandardCharsets.UTF_8);
+    byte[] target =
+        text.toString()
+            .replace("Line 250 ", "Line two hundred and fifty ")
+            .replace("Line 10 ", "")
+            .getBytes(StandardCharsets.UTF_8);
+
+    byte[] delta = ByteDelta.encode(source, target);
+    assertArrayEquals(target, ByteDelta.apply(source, delta));
+    assertTrue(delta.length < 100, "delta of " + delta.length + " bytes");
+  }
+
+  @Test
+  public void testEdgeCases() {
+    byte[] empty = new byte[0];
+    byte[] some = "abc".getBytes(StandardCharsets.UTF_8);
+    assertArrayEquals(empty, ByteDelta.apply(empty, ByteDelta.encode(empty, empty)));
+    assertArrayEquals(some, ByteDelta.apply(empty, ByteDelta.encode(empty, some)));
+    assertArrayEquals(empty, ByteDelta.apply(some, ByteDelta.encode(some, empty)));
+    assertArrayEquals(some, ByteDelta.apply(some, ByteDelta.encode(some, some)));
+  }
+
+  @Test
+  public void testRandom() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      byte[] source = new byte[random.nextInt(2000)];
+      random.nextBytes(source);
+      // a target sharing runs of the source in a different order, with some noise
+      byte[] target = new byte[random.nextInt(2000)];
+      for (int i = 0; i < target.length; ) {
+        if (source.length > 0 && random.nextBoolean()) {
+          int from = random.nextInt(source.length);
+          int length =
+              Math.min(random.nextInt(100), Math.min(source.length - from, target.length - i));
+          System.arraycopy(source, from, target, i, length);
+          i += Math.max(1, length);
+        } else {
+          target[i++] = (byte) random.nextInt();
+        }
+      }
+      assertArrayEquals(target, ByteDelta.apply(source, ByteDelta.encode(source, target)));
+    }
+  }
+
+  @Test
+  public void testDeltaOfOtherSource() {
+    byte[] source = "the quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+    byte[] target = "the quick brown cat jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+    byte[] delta = ByteDelta.encode(source, target);
+    assertThrows(IllegalArgumentException.class, () -> ByteDelta.apply(new byte[4], delta));
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.history;
+
+import org.gbif.metadata.eml.codec.EmlCodec;
+import org.gbif.metadata.eml.ipt.EmlFactory;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmlHistoryTest {
+
+  private static final int VERSIONS = 500;
+
+  /**
+   * Appends versions of the sample, each changing the title and every tenth adding a method step.
+   */
+  private static EmlHistory history(int checkpointInterval) throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    EmlHistory history = new EmlHistory(checkpointInterval);
+    for (int i = 1; i <= VERSIONS; i++) {
+      eml.setEmlVersion(1, i);
+      eml.setTitle("Tanzanian Entomological Collection, revision " + i);
+      if (i % 10 == 0) {
+        eml.addMethodStep("Step " + i);
+      }
+      history.append(eml);
+    }
+    return history;
+  }
+
+  @Test
+  public void testReconstruct() throws Exception {
+    EmlHistory history = history(EmlHistory.DEFAULT_CHECKPOINT_INTERVAL);
+    assertEquals(VERSIONS, history.size());
+    int steps = history.get(new BigDecimal("1.1")).getMethodSteps().size();
+
+    for (int i : new int[] {1, 2, 31, 32, 33, 250, 499, 500}) {
+      Eml eml = history.get(new BigDecimal("1." + i));
+      assertEquals(new BigDecimal("1." + i), eml.getEmlVersion());
+      assertEquals("Tanzanian Entomological Collection, revision " + i, eml.getTitle());
+      assertEquals(steps + i / 10, eml.getMethodSteps().size());
+    }
+    assertEquals(new BigDecimal("1.500"), history.latestVersion());
+    assertEquals(history.get(history.latestVersion()), history.getLatest());
+    // 1.10 is the tenth minor version, not the first
+    assertEquals(
+        "Tanzanian Entomological Collection, revision 10",
+        history.get(new BigDecimal("1.10")).getTitle());
+    assertNull(history.get(new BigDecimal("2.0")));
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    EmlHistory history = history(EmlHistory.DEFAULT_CHECKPOINT_INTERVAL);
+    int full = EmlCodec.encode(history.getLatest()).remaining();
+    long stored = history.getStoredSize();
+    // every version encoded in full would take VERSIONS times the size of one
+    assertTrue(
+        stored < (long) full * VERSIONS / 20,
+        VERSIONS + " versions of " + full + " bytes stored in " + stored + " bytes");
+  }
+
+  @Test
+  public void testWriteAndRead() throws Exception {
+    EmlHistory history = history(16);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    history.writeTo(out);
+
+    EmlHistory read = EmlHistory.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(history.getVersions(), read.getVersions());
+    assertEquals(16, read.getCheckpointInterval());
+    assertEquals(history.get(new BigDecimal("1.123")), read.get(new BigDecimal("1.123")));
+    assertEquals(history.getLatest(), read.getLatest());
+  }
+
+  @Test
+  public void testVersionsMustIncrease() throws Exception {
+    EmlHistory history = new EmlHistory();
+    Eml eml = new Eml();
+    eml.setEmlVersion(2, 0);
+    history.append(eml);
+    eml.setEmlVersion(1, 5);
+    assertThrows(IllegalArgumentException.class, () -> history.append(eml));
+    eml.setEmlVersion(2, 0);
+    assertThrows(IllegalArgumentException.class, () -> history.append(eml));
+    assertEquals(1, history.size());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.api.model.registry.Contact;
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.metadata.eml.EMLWriter;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.parse.DatasetEmlParser;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DatasetEmlMapperTest {
+
+  @Test
+  public void testSameAsWrittenAndBuilt() throws Exception {
+    for (String document :
+        new String[] {
+          "eml-metadata-profile/sample10-v1.3.xml",
+          "eml-metadata-profile/sample9-v1.2.xml",
+          "eml/ipt_eml.xml",
+          "eml/eml.xml"
+        }) {
+      Dataset dataset =
+          DatasetEmlParser.build(IOUtils.toByteArray(FileUtils.classpathStream(document)));
+      dataset.setKey(UUID.randomUUID());
+      assertSameAsWrittenAndBuilt(document, dataset);
+    }
+  }
+
+  @Test
+  public void testSparseDataset() throws Exception {
+    Dataset dataset = new Dataset();
+    dataset.setTitle("Sparse");
+    Contact contact = new Contact();
+    contact.setOrganization("GBIF");
+    contact.setType(ContactType.ADMINISTRATIVE_POINT_OF_CONTACT);
+    contact.setPrimary(true);
+    dataset.getContacts().add(contact);
+    assertSameAsWrittenAndBuilt("sparse", dataset);
+  }
+
+  private static void assertSameAsWrittenAndBuilt(String name, Dataset dataset) throws Exception {
+    StringWriter writer = new StringWriter();
+    EMLWriter.newInstance().writeTo(dataset, writer);
+    Eml expected =
+        EmlFactory.build(
+            new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8)));
+    Eml mapped = DatasetEmlMapper.toEml(dataset);
+    // the date stamp is the time of writing or mapping, the publication date without one in the dataset too
+    mapped.setDateStamp(expected.getDateStamp());
+    if (dataset.getPubDate() == null) {
+      mapped.setPubDate(expected.getPubDate());
+    }
+
+    // lists compare in order, a mapper changing the order of any of them differs from the parsed document
+    assertEquals(expected, mapped, name);
+  }
+}
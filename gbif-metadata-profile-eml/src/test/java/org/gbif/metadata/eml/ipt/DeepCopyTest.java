@@ -0,0 +1,217 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Address;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.BBox;
+import org.gbif.metadata.eml.ipt.model.BibliographicCitationSet;
+import org.gbif.metadata.eml.ipt.model.Citation;
+import org.gbif.metadata.eml.ipt.model.Collection;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.GeospatialCoverage;
+import org.gbif.metadata.eml.ipt.model.JGTICuratorialUnit;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.metadata.eml.ipt.model.LocaleBundle;
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.metadata.eml.ipt.model.ProjectAward;
+import org.gbif.metadata.eml.ipt.model.StudyAreaDescription;
+import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+import org.gbif.metadata.eml.ipt.model.UserId;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+/**
+ * Fills every field of a model class with a distinct value and checks that its hand written deepCopy() carries each
+ * of them over, so a field added to the model without a line in deepCopy() fails here.
+ */
+public class DeepCopyTest {
+
+  private static final String MODEL_PACKAGE = Eml.class.getPackage().getName();
+
+  private static final Class<?>[] COPIED = {
+    Address.class,
+    Agent.class,
+    BBox.class,
+    BibliographicCitationSet.class,
+    Citation.class,
+    Collection.class,
+    Eml.class,
+    GeospatialCoverage.class,
+    JGTICuratorialUnit.class,
+    KeywordSet.class,
+    PhysicalData.class,
+    Project.class,
+    ProjectAward.class,
+    StudyAreaDescription.class,
+    TaxonKeyword.class,
+    TaxonomicCoverage.class,
+    TemporalCoverage.class,
+    UserId.class
+  };
+
+  private int counter;
+
+  @Test
+  public void testEveryFieldCopied() throws Exception {
+    for (Class<?> type : COPIED) {
+      Object source = filled(type, 0);
+      Object copy = type.getMethod("deepCopy").invoke(source);
+      assertCopied(source, copy, type.getSimpleName());
+    }
+  }
+
+  private Object filled(Class<?> type, int depth) throws Exception {
+    Object bean = type.getConstructor().newInstance();
+    for (Field field : fields(type)) {
+      Object initial = field.get(bean);
+      Object value = value(field.getGenericType(), initial, depth);
+      if (depth == 0) {
+        assertNotEquals(initial, value, field.toString());
+      }
+      field.set(bean, value);
+    }
+    return bean;
+  }
+
+  private Object value(Type type, Object initial, int depth) throws Exception {
+    Class<?> raw = raw(type);
+    int n = ++counter;
+    if (raw == String.class) {
+      return "value " + n;
+    } else if (raw == int.class || raw == Integer.class) {
+      return n;
+    } else if (raw == long.class || raw == Long.class) {
+      return (long) n;
+    } else if (raw == double.class || raw == Double.class) {
+      // a valid latitude and longitude too
+      return n % 80 + 0.5;
+    } else if (raw == boolean.class || raw == Boolean.class) {
+      return !Boolean.TRUE.equals(initial);
+    } else if (raw == BigDecimal.class) {
+      return new BigDecimal(n + ".5");
+    } else if (raw == Date.class) {
+      return new Date(n);
+    } else if (raw == LocaleBundle.class) {
+      return LocaleBundle.create("da", "DK", StandardCharsets.UTF_8);
+    } else if (raw.isEnum()) {
+      for (Object constant : raw.getEnumConstants()) {
+        if (constant != initial) {
+          return constant;
+        }
+      }
+    } else if (List.class.isAssignableFrom(raw)) {
+      @SuppressWarnings("unchecked")
+      List<Object> list =
+          raw.isInterface() ? new ArrayList<>() : (List<Object>) raw.getConstructor().newInstance();
+      list.add(value(elementType(type), null, depth + 1));
+      list.add(value(elementType(type), null, depth + 1));
+      return list;
+    } else if (raw.getPackage().getName().equals(MODEL_PACKAGE)) {
+      // the nested classes are checked on their own, this stops e.g. the related projects of a project
+      return depth < 2 ? filled(raw, depth + 1) : initial;
+    }
+    throw new IllegalArgumentException("No test value for " + type);
+  }
+
+  private void assertCopied(Object source, Object copy, String path) throws Exception {
+    if (source == null) {
+      assertEquals(null, copy, path);
+      return;
+    }
+    assertNotNull(copy, path);
+    Class<?> type = source.getClass();
+    if (immutable(type)) {
+      assertEquals(source, copy, path);
+      return;
+    }
+    assertNotSame(source, copy, path);
+    if (source instanceof List) {
+      List<?> sources = (List<?>) source;
+      List<?> copies = (List<?>) copy;
+      assertEquals(sources.size(), copies.size(), path);
+      for (int i = 0; i < sources.size(); i++) {
+        assertCopied(sources.get(i), copies.get(i), path + "[" + i + "]");
+      }
+    } else if (source instanceof Date) {
+      assertEquals(source, copy, path);
+    } else {
+      assertEquals(type, copy.getClass(), path);
+      for (Field field : fields(type)) {
+        assertCopied(field.get(source), field.get(copy), path + "." + field.getName());
+      }
+      assertEquals(source, copy, path);
+    }
+  }
+
+  private static boolean immutable(Class<?> type) {
+    return type == String.class
+        || Number.class.isAssignableFrom(type)
+        || type == Boolean.class
+        || type.isEnum()
+        || type == LocaleBundle.class;
+  }
+
+  private static List<Field> fields(Class<?> type) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        // synthetic like the list an element of TaxonKeywordList belongs to
+        if (!Modifier.isStatic(modifiers)
+            && !Modifier.isTransient(modifiers)
+            && !field.isSynthetic()) {
+          field.setAccessible(true);
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  private static Class<?> raw(Type type) {
+    return type instanceof ParameterizedType
+        ? (Class<?>) ((ParameterizedType) type).getRawType()
+        : (Class<?>) type;
+  }
+
+  /**
+   * The element type of a List<E> field, or of a list class like TaxonKeywordList that extends AbstractList<E>.
+   */
+  private static Type elementType(Type type) {
+    if (type instanceof ParameterizedType) {
+      return ((ParameterizedType) type).getActualTypeArguments()[0];
+    }
+    return elementType(Objects.requireNonNull(((Class<?>) type).getGenericSuperclass()));
+  }
+}
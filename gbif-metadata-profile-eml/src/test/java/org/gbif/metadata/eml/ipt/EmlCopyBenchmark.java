@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.utils.file.FileUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares {@link Eml#deepCopy()} with a copy through Java serialization.
+ * <p>
+ * Not part of the unit tests, run it with {@code mvn test -Pbenchmark}.
+ */
+public class EmlCopyBenchmark {
+
+  private static final int WARM_UP = 5_000;
+  private static final int COPIES = 20_000;
+
+  @Test
+  public void benchmarkCopies() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    measure("deepCopy", eml, Eml::deepCopy);
+    measure("serialization", eml, SerializationUtils::clone);
+  }
+
+  private static void measure(String name, Eml eml, UnaryOperator<Eml> copier) {
+    assertEquals(eml, copier.apply(eml));
+    for (int i = 0; i < WARM_UP; i++) {
+      copier.apply(eml);
+    }
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < COPIES; i++) {
+      copier.apply(eml);
+    }
+    long nanos = System.nanoTime() - start;
+    allocated = allocatedBytes() - allocated;
+    System.out.printf(
+        "%s: %.0f copies/s, %d bytes allocated per copy%n",
+        name, COPIES * 1e9 / nanos, allocated / COPIES);
+  }
+
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+}
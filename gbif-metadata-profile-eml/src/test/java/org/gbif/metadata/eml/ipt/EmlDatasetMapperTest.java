@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.metadata.eml.diff.ChangeSet;
+import org.gbif.metadata.eml.diff.DatasetDiff;
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.TemporalCoverage;
+import org.gbif.metadata.eml.parse.DatasetEmlParser;
+import org.gbif.utils.file.FileUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmlDatasetMapperTest {
+
+  @Test
+  public void testSameAsWrittenAndParsed() throws Exception {
+    for (String document : new String[] {"sample.xml", "sample2.xml", "sample3.xml"}) {
+      Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/" + document));
+      assertSameAsWrittenAndParsed(document, eml);
+    }
+  }
+
+  @Test
+  public void testSparseEml() throws Exception {
+    Eml eml = new Eml();
+    eml.setTitle("Sparse");
+    Agent contact = new Agent();
+    contact.setOrganisation("GBIF");
+    eml.addContact(contact);
+    TemporalCoverage coverage = new TemporalCoverage();
+    coverage.setLivingTimePeriod("Jurassic");
+    eml.addTemporalCoverage(coverage);
+    assertSameAsWrittenAndParsed("sparse", eml);
+  }
+
+  private static void assertSameAsWrittenAndParsed(String name, Eml eml) throws Exception {
+    Dataset expected =
+        DatasetEmlParser.build(
+            IptEmlWriter.writeEmlAsString(eml).getBytes(StandardCharsets.UTF_8));
+    Dataset mapped = EmlDatasetMapper.toDataset(eml);
+    // the parser keeps the indentation of the template around the abstract
+    expected.setDescription(StringUtils.trim(expected.getDescription()));
+
+    ChangeSet changes = DatasetDiff.diff(expected, mapped);
+    assertTrue(changes.isEmpty(), name + ": " + changes);
+    assertEquals(expected, mapped, name);
+  }
+}
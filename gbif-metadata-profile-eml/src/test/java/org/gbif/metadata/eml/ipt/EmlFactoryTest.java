@@ -13,9 +13,11 @@
  */
 package org.gbif.metadata.eml.ipt;
 
+import org.gbif.metadata.common.util.StringPool;
 import org.gbif.metadata.eml.ipt.model.Agent;
 import org.gbif.metadata.eml.ipt.model.Eml;
 import org.gbif.metadata.eml.ipt.model.MaintenanceUpdateFrequency;
+import org.gbif.metadata.eml.ipt.model.Project;
 import org.gbif.metadata.eml.ipt.model.StudyAreaDescriptor;
 import org.gbif.utils.file.FileUtils;
 
@@ -28,8 +30,11 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -243,6 +248,9 @@ public class EmlFactoryTest {
       assertEquals(
           "This work is licensed under <a href=\"http://creativecommons.org/publicdomain/zero/1.0/legalcode\">Creative Commons CCZero 1.0 License</a>.",
           eml.getIntellectualRights());
+      assertEquals(
+          "http://creativecommons.org/publicdomain/zero/1.0/legalcode", eml.parseLicenseUrl());
+      assertEquals("Creative Commons CCZero 1.0 License", eml.parseLicenseTitle());
 
       // homepage URL, aka distributionUrl
       assertNotNull(eml.getDistributionUrl());
@@ -397,6 +405,8 @@ public class EmlFactoryTest {
       assertEquals("ASCII", eml.getPhysicalData().get(0).getCharset());
       assertEquals("shapefile", eml.getPhysicalData().get(0).getFormat());
       assertNull(eml.getPhysicalData().get(0).getFormatVersion());
+      assertNull(eml.getPhysicalData().get(0).getSize());
+      assertNull(eml.getPhysicalData().get(0).getMd5());
       assertEquals(
           "http://metacat.lternet.edu/knb/dataAccessServlet?docid=knb-lter-gce.109.10&urlTail=accession=INV-GCEM-0305a1&filename=INV-GCEM-0305a1_1_1.TXT",
           eml.getPhysicalData().get(0).getDistributionUrl());
@@ -404,6 +414,11 @@ public class EmlFactoryTest {
       assertEquals("ASCII", eml.getPhysicalData().get(1).getCharset());
       assertEquals("shapefile", eml.getPhysicalData().get(1).getFormat());
       assertEquals("2.0.97", eml.getPhysicalData().get(1).getFormatVersion());
+      assertEquals(Long.valueOf(4096), eml.getPhysicalData().get(1).getSize());
+      assertEquals("0cc175b9c0f1b6a831c399e269772661", eml.getPhysicalData().get(1).getMd5());
+      assertEquals(
+          "ca978112ca1bbdcafac231b39a23dc4da786eff8147c4e72b9807785afee48bb",
+          eml.getPhysicalData().get(1).getSha256());
       assertEquals(
           "http://metacat.lternet.edu/knb/dataAccessServlet?docid=knb-lter-gce.109.10&urlTail=accession=INV-GCEM-0305a1&filename=INV-GCEM-0305a1_1_2.TXT",
           eml.getPhysicalData().get(1).getDistributionUrl());
@@ -428,4 +443,39 @@ public class EmlFactoryTest {
       fail();
     }
   }
+
+  @Test
+  public void testSharedAgents() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/shared-agents.xml"));
+    Eml shared =
+        EmlFactory.build(FileUtils.classpathStream("eml/ipt/shared-agents.xml"), new StringPool());
+    // the document has no dates, both default to the time of parsing
+    shared.setDateStamp(eml.getDateStamp());
+    shared.setPubDate(eml.getPubDate());
+    assertEquals(eml, shared);
+
+    // without a pool every role holds its own instance
+    assertEquals(eml.getCreators().get(0), eml.getContacts().get(0));
+    assertNotSame(eml.getCreators().get(0), eml.getContacts().get(0));
+
+    Agent creator = shared.getCreators().get(0);
+    assertSame(creator, shared.getMetadataProviders().get(0));
+    assertSame(creator, shared.getContacts().get(0));
+    // a different person at the same address
+    Agent party = shared.getAssociatedParties().get(0);
+    assertNotEquals(creator, party);
+    assertSame(creator.getAddress(), party.getAddress());
+
+    // the creator again without a role, given the default role of its parent before it is shared
+    assertNull(creator.getRole());
+    Agent roleless = shared.getAssociatedParties().get(1);
+    assertEquals(Eml.ASSOCIATED_PARTY_ROLE, roleless.getRole());
+    assertNotSame(creator, roleless);
+    assertSame(creator.getAddress(), roleless.getAddress());
+    Agent personnel = shared.getProject().getPersonnel().get(0);
+    assertEquals(Project.PERSONNEL_ROLE, personnel.getRole());
+    assertNotSame(creator, personnel);
+    assertEquals(eml.getAssociatedParties(), shared.getAssociatedParties());
+    assertEquals(eml.getProject(), shared.getProject());
+  }
 }
@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.Project;
+import org.gbif.utils.file.FileUtils;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the heap retained by Eml instances. Sizes are estimated by walking the object graph, assuming compressed
+ * references and 8 byte alignment, which is close enough to compare the footprint of documents.
+ */
+public class EmlFootprintTest {
+
+  private static final String[] SAMPLES = {
+    "eml/ipt/sample.xml", "eml/ipt/sample2.xml", "eml/ipt/sample3.xml"
+  };
+  // the samples leave about 20 lists empty, 680 to 880 bytes when this was written
+  private static final long LEAST_SAVED = 512;
+
+  @Test
+  public void testNewEmlAllocatesNoLists() throws Exception {
+    Eml eml = new Eml();
+    long retained = retainedSize(eml);
+    assertTrue(retained < 512, "new Eml retains " + retained + " bytes");
+
+    // reading within the document does not allocate
+    assertEquals("", eml.getSubject());
+    assertEquals(eml, eml.deepCopy());
+    eml.hashCode();
+    eml.toString();
+    assertEquals(retained, retainedSize(eml));
+
+    // getters allocate once and hand out the same instance from then on
+    List<Agent> creators = eml.getCreators();
+    assertTrue(creators.isEmpty());
+    assertSame(creators, eml.getCreators());
+    assertSame(eml.getProject(), eml.getProject());
+    assertSame(eml.getBibliographicCitationSet(), eml.getBibliographicCitationSet());
+    assertSame(eml.getBibliographicCitations(), eml.getBibliographicCitations());
+  }
+
+  @Test
+  public void testWriteThroughGetters() {
+    Eml eml = new Eml();
+    List<Agent> creators = eml.getCreators();
+    Agent agent = new Agent();
+    agent.setLastName("Robertson");
+    creators.add(agent);
+    agent.getEmail().add("trobertson@gbif.org");
+
+    assertEquals(1, creators.size());
+    assertSame(agent, eml.getCreators().get(0));
+    assertSame(eml.getCreators(), eml.getCreators());
+    assertEquals(Collections.singletonList("trobertson@gbif.org"), agent.getEmail());
+
+    eml.getMethodSteps().add("Collect");
+    eml.getMethodSteps().add(0, "Plan");
+    assertEquals("Plan", eml.getMethodSteps().get(0));
+    assertEquals(2, eml.getMethodSteps().size());
+  }
+
+  @Test
+  public void testSampleFootprint() throws Exception {
+    for (String sample : SAMPLES) {
+      Eml eml = EmlFactory.build(FileUtils.classpathStream(sample));
+      long retained = retainedSize(eml);
+
+      assertEquals(eml, eml.deepCopy());
+      eml.hashCode();
+      eml.toString();
+      assertEquals(retained, retainedSize(eml), sample);
+
+      Eml eager = eml.deepCopy();
+      allocateAll(eager);
+      assertEquals(eml, eager);
+      long eagerRetained = retainedSize(eager);
+      assertTrue(
+          retained < eagerRetained - LEAST_SAVED,
+          sample + " retains " + retained + " bytes, " + eagerRetained + " when allocated eagerly");
+    }
+  }
+
+  /**
+   * Allocates the lists and children an Eml used to allocate when it was created.
+   */
+  private static void allocateAll(Eml eml) {
+    eml.getAlternateIdentifiers();
+    eml.getBibliographicCitationSet();
+    eml.getGeospatialCoverages();
+    eml.getJgtiCuratorialUnits();
+    eml.getKeywords();
+    eml.getMethodSteps();
+    eml.getCollections();
+    eml.getPhysicalData();
+    eml.getSpecimenPreservationMethods();
+    eml.getTaxonomicCoverages();
+    eml.getTemporalCoverages();
+    Project project = eml.getProject();
+    project.getRelatedProjects();
+    project.getAwards();
+    List<Agent> agents = new ArrayList<>();
+    agents.addAll(eml.getCreators());
+    agents.addAll(eml.getMetadataProviders());
+    agents.addAll(eml.getContacts());
+    agents.addAll(eml.getAssociatedParties());
+    agents.addAll(project.getPersonnel());
+    for (Agent agent : agents) {
+      agent.getPosition();
+      agent.getPhone();
+      agent.getEmail();
+      agent.getHomepage();
+      agent.getUserIds();
+      if (agent.getAddress() != null) {
+        agent.getAddress().getAddress();
+      }
+    }
+  }
+
+  /**
+   * Estimates the bytes retained by an object graph. String literals and enum constants are shared and not counted.
+   */
+  private static long retainedSize(Object root) throws IllegalAccessException {
+    Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Object> pending = new ArrayDeque<>();
+    pending.push(root);
+    long size = 0;
+    while (!pending.isEmpty()) {
+      Object o = pending.pop();
+      if (!seen.add(o)) {
+        continue;
+      }
+      Class<?> type = o.getClass();
+      if (o instanceof String) {
+        String s = (String) o;
+        if (s != s.intern()) {
+          size += 24 + align(16 + s.length());
+        }
+      } else if (type.isArray()) {
+        int length = Array.getLength(o);
+        Class<?> component = type.getComponentType();
+        size += align(16 + (long) length * slot(component));
+        if (!component.isPrimitive()) {
+          for (int i = 0; i < length; i++) {
+            push(pending, Array.get(o, i));
+          }
+        }
+      } else if (o instanceof Enum) {
+        continue;
+      } else if (o instanceof Reference) {
+        // the referent is not retained by the reference
+        size += 32;
+      } else if (o instanceof Iterable && type.getName().startsWith("java.")) {
+        // ArrayList and friends: the list and its backing array
+        int count = 0;
+        for (Object element : (Iterable<?>) o) {
+          push(pending, element);
+          count++;
+        }
+        size += 24 + align(16 + 4L * count);
+      } else if (o instanceof Map && type.getName().startsWith("java.")) {
+        // HashMap and friends: the map, its table and the entries
+        Map<?, ?> map = (Map<?, ?>) o;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          push(pending, entry.getKey());
+          push(pending, entry.getValue());
+        }
+        size += 48 + align(16 + 4L * map.size()) + 32L * map.size();
+      } else if (type.getName().startsWith("java.")) {
+        // dates, numbers, locales and URIs, which are small and hold no model objects
+        size += 32;
+      } else {
+        size += align(shallowSize(type));
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+          for (Field field : c.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+              field.setAccessible(true);
+              push(pending, field.get(o));
+            }
+          }
+        }
+      }
+    }
+    return size;
+  }
+
+  private static void push(Deque<Object> pending, Object o) {
+    if (o != null) {
+      pending.push(o);
+    }
+  }
+
+  private static long shallowSize(Class<?> type) {
+    long size = 12;
+    for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          size += slot(field.getType());
+        }
+      }
+    }
+    return size;
+  }
+
+  private static int slot(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == byte.class || type == boolean.class) {
+      return 1;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 4;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EmlRepositoryTest {
+
+  private static File locate(String resource) {
+    if (resource.equals("missing")) {
+      return new File("missing/eml.xml");
+    }
+    return FileUtils.getClasspathFile("eml/ipt/" + resource + ".xml");
+  }
+
+  @Test
+  public void testLoadOnce() throws Exception {
+    EmlRepository repository = new EmlRepository(EmlRepositoryTest::locate, 2);
+    Eml eml = repository.get("sample");
+    assertEquals("Tanzanian Entomological Collection", eml.getTitle());
+    assertSame(eml, repository.get("sample"));
+
+    EmlRepository.Stats stats = repository.stats();
+    assertEquals(1, stats.getHits());
+    assertEquals(1, stats.getMisses());
+    assertEquals(1, stats.getLoads());
+    assertEquals(1, stats.getHotSize());
+  }
+
+  @Test
+  public void testEvictToSoftReference() throws Exception {
+    EmlRepository repository = new EmlRepository(EmlRepositoryTest::locate, 1);
+    Eml sample = repository.get("sample");
+    repository.get("sample2");
+
+    EmlRepository.Stats stats = repository.stats();
+    assertEquals(1, stats.getEvictions());
+    assertEquals(1, stats.getHotSize());
+    assertEquals(1, stats.getSoftSize());
+
+    // strongly referenced here, so it cannot have been collected
+    assertSame(sample, repository.get("sample"));
+    stats = repository.stats();
+    assertEquals(1, stats.getSoftHits());
+    assertEquals(2, stats.getLoads());
+    assertEquals(2, stats.getEvictions());
+  }
+
+  @Test
+  public void testPutAndInvalidate() throws Exception {
+    EmlRepository repository = new EmlRepository(EmlRepositoryTest::locate, 2);
+    Eml loaded = repository.get("sample");
+    Eml changed = new Eml();
+    repository.put("sample", changed);
+    assertSame(changed, repository.get("sample"));
+
+    repository.invalidate("sample");
+    Eml reloaded = repository.get("sample");
+    assertNotSame(loaded, reloaded);
+    assertEquals(loaded.getTitle(), reloaded.getTitle());
+    assertEquals(2, repository.stats().getLoads());
+  }
+
+  @Test
+  public void testMissing() {
+    EmlRepository repository = new EmlRepository(EmlRepositoryTest::locate, 2);
+    assertThrows(MetadataException.class, () -> repository.get("missing"));
+    assertThrows(MetadataException.class, () -> repository.get("missing"));
+    assertEquals(2, repository.stats().getLoadFailures());
+  }
+
+  @Test
+  public void testSingleFlight() throws Exception {
+    EmlRepository repository = new EmlRepository(EmlRepositoryTest::locate, 2);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Eml>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return repository.get("sample3");
+                }));
+      }
+      start.countDown();
+
+      Eml eml = results.get(0).get(30, TimeUnit.SECONDS);
+      for (Future<Eml> result : results) {
+        assertSame(eml, result.get(30, TimeUnit.SECONDS));
+      }
+      assertEquals(1, repository.stats().getLoads());
+      assertEquals(threads, repository.stats().getHits() + repository.stats().getMisses());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
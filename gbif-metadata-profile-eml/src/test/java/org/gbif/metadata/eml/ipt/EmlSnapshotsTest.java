@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Agent;
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.EmlSnapshots;
+import org.gbif.utils.file.FileUtils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmlSnapshotsTest {
+
+  private Eml original;
+  private EmlSnapshots snapshots;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    original = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    snapshots = new EmlSnapshots(EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml")));
+  }
+
+  @Test
+  public void testSnapshotIsReadOnly() {
+    Eml snapshot = snapshots.snapshot();
+    assertEquals(original, snapshot);
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getCreators().clear());
+    assertThrows(
+        UnsupportedOperationException.class, () -> snapshot.getMethodSteps().add("step"));
+    assertSame(snapshot, snapshots.snapshot());
+  }
+
+  @Test
+  public void testDraftCopiesChildrenOnAccess() {
+    Eml snapshot = snapshots.snapshot();
+    Eml draft = snapshots.edit();
+    draft.getCreators().get(0).setLastName("Changed");
+    draft.getCreators().get(0).getAddress().setCity("Changed");
+    draft.getProject().setTitle("Changed");
+    draft.getProject().getPersonnel().clear();
+    draft.getTaxonomicCoverages().get(0).getTaxonKeywords().get(0).setRank("Changed");
+    draft.getGeospatialCoverages().get(0).getBoundingCoordinates().getMin().setLatitude(0d);
+    draft.getKeywords().get(0).add("changed");
+    draft.getBibliographicCitationSet().getBibliographicCitations().clear();
+    snapshot.getPubDate().setTime(0);
+
+    assertEquals(original, snapshot);
+    assertEquals(original.getPubDate(), snapshot.getPubDate());
+    assertEquals("Changed", draft.getCreators().get(0).getLastName());
+    assertEquals("Changed", draft.getProject().getTitle());
+    assertNotEquals(snapshot, draft);
+
+    assertTrue(snapshots.publish(draft));
+    assertEquals("Changed", snapshots.snapshot().getCreators().get(0).getAddress().getCity());
+    assertEquals(original, snapshot);
+  }
+
+  @Test
+  public void testDraftCopiesSharedElementOnce() {
+    Agent agent = new Agent();
+    agent.setLastName("Remsen");
+    Eml eml = new Eml();
+    eml.addCreator(agent);
+    eml.addCreator(agent);
+    EmlSnapshots shared = new EmlSnapshots(eml);
+
+    Eml draft = shared.edit();
+    Agent copy = draft.getCreators().get(0);
+    assertNotSame(agent, copy);
+    assertSame(copy, draft.getCreators().get(1));
+    copy.setLastName("Changed");
+    assertEquals("Remsen", agent.getLastName());
+  }
+
+  @Test
+  public void testEditSharesUntouchedChildren() {
+    Eml before = snapshots.snapshot();
+    Eml draft = snapshots.edit();
+    assertEquals(before, draft);
+
+    // reads of a list do not copy its elements, handing out an element copies that element only
+    assertEquals(before.getCreators(), draft.getCreators());
+    Agent creator = draft.getCreators().get(0);
+    assertNotSame(before.getCreators().get(0), creator);
+    assertSame(creator, draft.getCreators().get(0));
+    creator.setLastName("Changed");
+    draft.getKeywords().clear();
+    draft.setTitle("Changed");
+    assertEquals(original, before);
+    assertNotEquals(before, draft);
+
+    assertTrue(snapshots.publish(draft));
+    Eml after = snapshots.snapshot();
+    assertSame(draft, after);
+    assertEquals("Changed", after.getCreators().get(0).getLastName());
+    assertTrue(after.getKeywords().isEmpty());
+    assertFalse(before.getKeywords().isEmpty());
+    // untouched lists and children are the same instances
+    assertSame(before.getTaxonomicCoverages(), after.getTaxonomicCoverages());
+    assertSame(before.getContacts(), after.getContacts());
+    assertSame(before.getProject(), after.getProject());
+    assertSame(before.getMethodSteps(), after.getMethodSteps());
+  }
+
+  @Test
+  public void testConcurrentPublish() {
+    Eml first = snapshots.edit();
+    Eml second = snapshots.edit();
+    first.setTitle("First");
+    second.setTitle("Second");
+    assertTrue(snapshots.publish(first));
+    assertFalse(snapshots.publish(second));
+    assertEquals("First", snapshots.snapshot().getTitle());
+
+    Eml updated =
+        snapshots.update(
+            eml -> eml.getProject().setTitle("Updated"));
+    assertSame(updated, snapshots.snapshot());
+    assertEquals("First", updated.getTitle());
+    assertEquals("Updated", updated.getProject().getTitle());
+    assertNotEquals("Updated", first.getProject().getTitle());
+  }
+
+  @Test
+  public void testPublishRequiresEditedCopy() {
+    assertThrows(IllegalArgumentException.class, () -> snapshots.publish(new Eml()));
+  }
+}
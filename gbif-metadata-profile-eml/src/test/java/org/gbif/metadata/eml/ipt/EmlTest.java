@@ -13,13 +13,17 @@
  */
 package org.gbif.metadata.eml.ipt;
 
+import org.gbif.metadata.eml.fingerprint.EmlFingerprint;
 import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.utils.file.FileUtils;
 
 import java.math.BigDecimal;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class EmlTest {
@@ -146,4 +150,49 @@ public class EmlTest {
     assertEquals(
         "http://creativecommons.org/publicdomain/zero/1.0/legalcode", eml.parseLicenseUrl());
   }
+
+  @Test
+  public void testLicenseFollowsIntellectualRights() {
+    Eml eml = new Eml();
+    assertNull(eml.parseLicenseUrl());
+    assertNull(eml.parseLicenseTitle());
+
+    eml.setIntellectualRights(
+        "Licensed under <ulink url=\"https://creativecommons.org/licenses/by/4.0/legalcode\"><citetitle>CC-BY 4.0</citetitle></ulink>.");
+    assertEquals("https://creativecommons.org/licenses/by/4.0/legalcode", eml.parseLicenseUrl());
+    assertEquals("CC-BY 4.0", eml.parseLicenseTitle());
+
+    eml.setIntellectualRights(null);
+    assertNull(eml.parseLicenseUrl());
+    assertNull(eml.parseLicenseTitle());
+  }
+
+  @Test
+  public void testDeepCopy() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    Eml copy = eml.deepCopy();
+
+    assertEquals(EmlFingerprint.of(eml), EmlFingerprint.of(copy));
+    assertEquals(eml.getDateStamp(), copy.getDateStamp());
+    assertEquals(eml.getCreators(), copy.getCreators());
+    assertEquals(eml.getProject(), copy.getProject());
+    assertEquals(eml.getTaxonomicCoverages(), copy.getTaxonomicCoverages());
+    assertNotSame(eml.getCreators().get(0), copy.getCreators().get(0));
+    assertNotSame(eml.getPubDate(), copy.getPubDate());
+
+    // changes to the copy must not leak into the original
+    copy.getCreators().get(0).setFirstName("Changed");
+    copy.getCreators().get(0).getAddress().setCity("Changed");
+    copy.getKeywords().get(0).add("changed");
+    copy.getGeospatialCoverages().get(0).getBoundingCoordinates().getMin().setLatitude(1.5);
+    copy.getProject().getPersonnel().clear();
+    copy.getPubDate().setTime(0);
+
+    assertNotEquals("Changed", eml.getCreators().get(0).getFirstName());
+    assertNotEquals("Changed", eml.getCreators().get(0).getAddress().getCity());
+    assertNotEquals(0, eml.getPubDate().getTime());
+    assertNotEquals(EmlFingerprint.of(eml), EmlFingerprint.of(copy));
+    Eml original = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    assertEquals(EmlFingerprint.of(original), EmlFingerprint.of(eml));
+  }
 }
@@ -26,7 +26,9 @@ import org.gbif.utils.file.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Collections;
 import java.util.Date;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -36,10 +38,13 @@ import org.xml.sax.SAXException;
 
 import freemarker.template.TemplateException;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class EmlWriterTest {
@@ -570,4 +575,43 @@ public class EmlWriterTest {
 
     return a;
   }
+
+  @Test
+  public void testFailedWriteKeepsFile() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    File temp = File.createTempFile("eml", ".xml");
+    temp.deleteOnExit();
+    IptEmlWriter.writeEmlFile(temp, eml);
+    byte[] written = Files.readAllBytes(temp.toPath());
+
+    // the template fails without an eml in the model
+    assertThrows(
+        TemplateException.class,
+        () -> IptEmlWriter.writeFile(temp, "eml-ipt.ftl", Collections.emptyMap()));
+    assertArrayEquals(written, Files.readAllBytes(temp.toPath()));
+    File[] leftovers =
+        temp.getParentFile().listFiles((dir, name) -> name.startsWith(temp.getName() + "."));
+    assertEquals(0, leftovers.length);
+
+    assertEquals(new String(written, StandardCharsets.UTF_8), IptEmlWriter.writeEmlAsString(eml));
+  }
+
+  @Test
+  public void testSkipIfUnchanged() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    File temp = File.createTempFile("eml", ".xml");
+    temp.deleteOnExit();
+    assertTrue(IptEmlWriter.writeEmlFile(temp, eml, true));
+    byte[] written = Files.readAllBytes(temp.toPath());
+
+    // a new date stamp alone is no change
+    eml.setDateStamp(new Date(eml.getDateStamp().getTime() + 86_400_000L));
+    assertFalse(IptEmlWriter.writeEmlFile(temp, eml, true));
+    assertArrayEquals(written, Files.readAllBytes(temp.toPath()));
+    assertTrue(IptEmlWriter.writeEmlFile(temp, eml, false));
+
+    eml.setTitle("Tanzanian Entomological Collection, revised");
+    assertTrue(IptEmlWriter.writeEmlFile(temp, eml, true));
+    assertEquals(eml.getTitle(), EmlFactory.build(Files.newInputStream(temp.toPath())).getTitle());
+  }
 }
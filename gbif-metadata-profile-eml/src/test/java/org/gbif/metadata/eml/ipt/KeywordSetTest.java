@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.Eml;
+import org.gbif.metadata.eml.ipt.model.KeywordSet;
+import org.gbif.utils.file.FileUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class KeywordSetTest {
+
+  @Test
+  public void testEquals() {
+    KeywordSet set = new KeywordSet(new ArrayList<>(Arrays.asList("Birds", "Lakes")), "GBIF");
+    KeywordSet same = new KeywordSet(new ArrayList<>(Arrays.asList("Birds", "Lakes")), "GBIF");
+    assertEquals(set, same);
+    assertEquals(set.hashCode(), same.hashCode());
+    assertEquals(set, set.deepCopy());
+
+    assertNotEquals(set, new KeywordSet(new ArrayList<>(Arrays.asList("Lakes", "Birds")), "GBIF"));
+    assertNotEquals(set, new KeywordSet(new ArrayList<>(Arrays.asList("Birds", "Lakes")), null));
+    same.add("Rivers");
+    assertNotEquals(set, same);
+  }
+
+  @Test
+  public void testToString() {
+    KeywordSet set = new KeywordSet(new ArrayList<>(Arrays.asList("Birds", "Lakes")), "GBIF");
+    assertEquals("KeywordSet[keywordThesaurus='GBIF', keywords=[Birds, Lakes]]", set.toString());
+  }
+
+  /**
+   * Two parses of the same document must be equal, keyword sets compared by identity made any document with keywords
+   * unequal to everything but itself.
+   */
+  @Test
+  public void testEmlWithKeywordsEquals() throws Exception {
+    Eml eml = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    Eml same = EmlFactory.build(FileUtils.classpathStream("eml/ipt/sample.xml"));
+    assertFalse(eml.getKeywords().isEmpty());
+    assertEquals(eml, same);
+    assertEquals(eml.hashCode(), same.hashCode());
+    assertEquals(eml, eml.deepCopy());
+
+    same.getKeywords().get(0).add("changed");
+    assertNotEquals(eml, same);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.PhysicalData;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PhysicalDataChecksumsTest {
+
+  private static String hex(String algorithm, byte[] bytes) throws Exception {
+    byte[] digest = MessageDigest.getInstance(algorithm).digest(bytes);
+    return String.format("%0" + digest.length * 2 + "x", new BigInteger(1, digest));
+  }
+
+  private static File write(byte[] bytes) throws IOException {
+    File file = File.createTempFile("data", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), bytes);
+    return file;
+  }
+
+  @Test
+  public void testChunked() throws Exception {
+    byte[] bytes = new byte[100_003];
+    new Random(42).nextBytes(bytes);
+    File file = write(bytes);
+
+    // chunks smaller than the file, not dividing it evenly
+    PhysicalData data = new PhysicalData();
+    PhysicalDataChecksums.compute(data, file, 4096);
+    assertEquals(Long.valueOf(bytes.length), data.getSize());
+    assertEquals(hex("MD5", bytes), data.getMd5());
+    assertEquals(hex("SHA-256", bytes), data.getSha256());
+
+    PhysicalData whole = new PhysicalData();
+    PhysicalDataChecksums.compute(whole, file);
+    assertEquals(data, whole);
+  }
+
+  @Test
+  public void testEmptyFile() throws Exception {
+    PhysicalData data = new PhysicalData();
+    PhysicalDataChecksums.compute(data, write(new byte[0]));
+    assertEquals(Long.valueOf(0), data.getSize());
+    assertEquals("d41d8cd98f00b204e9800998ecf8427e", data.getMd5());
+    assertEquals(hex("SHA-256", new byte[0]), data.getSha256());
+  }
+
+  @Test
+  public void testComputeAll() throws Exception {
+    Map<String, File> files = new HashMap<>();
+    files.put("a.txt", write("a".getBytes()));
+    files.put("b.txt", write("bb".getBytes()));
+    List<PhysicalData> entries = Arrays.asList(entry("a.txt"), entry("b.txt"), entry("c.txt"));
+
+    int updated = PhysicalDataChecksums.computeAll(entries, d -> files.get(d.getName()));
+    assertEquals(2, updated);
+    assertEquals(Long.valueOf(1), entries.get(0).getSize());
+    assertEquals(hex("SHA-256", "bb".getBytes()), entries.get(1).getSha256());
+    assertNull(entries.get(2).getSize());
+  }
+
+  @Test
+  public void testUnreadableFile() {
+    PhysicalData data = new PhysicalData();
+    assertThrows(
+        IOException.class,
+        () -> PhysicalDataChecksums.compute(data, new File("missing-data-file.txt")));
+    assertNull(data.getMd5());
+  }
+
+  private static PhysicalData entry(String name) {
+    PhysicalData data = new PhysicalData();
+    data.setName(name);
+    return data;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.ipt;
+
+import org.gbif.metadata.eml.ipt.model.TaxonKeyword;
+import org.gbif.metadata.eml.ipt.model.TaxonKeywordList;
+import org.gbif.metadata.eml.ipt.model.TaxonomicCoverage;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaxonKeywordListTest {
+
+  @Test
+  public void testListContract() {
+    List<TaxonKeyword> expected =
+        new ArrayList<>(
+            Arrays.asList(
+                new TaxonKeyword("Puma concolor", "species", "Puma"),
+                new TaxonKeyword("Abies alba", "species", null),
+                null,
+                new TaxonKeyword("Félidae", "family", "Cats")));
+    TaxonKeywordList list = new TaxonKeywordList(expected);
+    assertEquals(expected, list);
+    assertEquals(list, expected);
+    assertEquals(expected.hashCode(), list.hashCode());
+
+    expected.remove(1);
+    list.remove(1);
+    expected.add(0, new TaxonKeyword("Aves", "class", "Birds"));
+    list.add(0, new TaxonKeyword("Aves", "class", "Birds"));
+    expected.set(3, null);
+    list.set(3, null);
+    assertEquals(expected, list);
+    assertNull(list.get(2));
+    assertEquals("Puma", list.getCommonName(1));
+  }
+
+  @Test
+  public void testWriteThrough() {
+    TaxonKeywordList list = new TaxonKeywordList();
+    list.add("Puma concolor", null, null);
+    // struts2 binds form fields through the list elements
+    TaxonKeyword keyword = list.get(0);
+    keyword.setRank("species");
+    keyword.setCommonName("Puma");
+    keyword.setScientificName("Puma concolor (Linnaeus, 1771)");
+    assertEquals(
+        new TaxonKeyword("Puma concolor (Linnaeus, 1771)", "species", "Puma"), list.get(0));
+
+    // adding a view of the same list
+    list.add(0, list.get(0));
+    assertEquals(2, list.size());
+    assertEquals(list.get(0), list.get(1));
+  }
+
+  @Test
+  public void testElementIdentity() {
+    TaxonKeywordList list = new TaxonKeywordList();
+    list.add("Puma concolor", "species", null);
+    list.add("Abies alba", "species", null);
+    TaxonKeyword abies = list.get(1);
+    assertSame(abies, list.get(1));
+
+    // insertions and removals move elements along
+    list.add(0, new TaxonKeyword("Aves", "class", "Birds"));
+    assertSame(abies, list.get(2));
+    TaxonKeyword puma = list.remove(1);
+    assertSame(abies, list.get(1));
+    abies.setCommonName("Silver fir");
+    assertEquals("Silver fir", list.getCommonName(1));
+
+    // removed and replaced elements keep their values on their own
+    puma.setRank("genus");
+    assertEquals(new TaxonKeyword("Puma concolor", "genus", null), puma);
+    assertFalse(list.contains(puma));
+    assertSame(abies, list.set(1, null));
+    assertEquals(new TaxonKeyword("Abies alba", "species", "Silver fir"), abies);
+    assertNull(list.get(1));
+    TaxonKeyword aves = list.get(0);
+    list.clear();
+    aves.setScientificName("Aves Linnaeus, 1758");
+    assertEquals(new TaxonKeyword("Aves Linnaeus, 1758", "class", "Birds"), aves);
+    assertTrue(list.isEmpty());
+  }
+
+  @Test
+  public void testElementsHeldWeakly() {
+    TaxonKeywordList list = new TaxonKeywordList();
+    list.add("Puma concolor", "species", null);
+    list.add("Abies alba", "species", null);
+    List<WeakReference<TaxonKeyword>> iterated = new ArrayList<>();
+    for (TaxonKeyword keyword : list) {
+      iterated.add(new WeakReference<>(keyword));
+    }
+    for (int i = 0; i < 100 && iterated.stream().anyMatch(ref -> ref.get() != null); i++) {
+      System.gc();
+    }
+    // the list keeps no element nobody else holds
+    assertTrue(iterated.stream().allMatch(ref -> ref.get() == null));
+    list.get(1).setCommonName("Silver fir");
+    list.remove(0);
+    assertEquals(new TaxonKeyword("Abies alba", "species", "Silver fir"), list.get(0));
+  }
+
+  @Test
+  public void testSetTaxonKeywords() {
+    TaxonomicCoverage coverage = new TaxonomicCoverage();
+    TaxonKeywordList keywords = new TaxonKeywordList();
+    coverage.setTaxonKeywords(keywords);
+    assertSame(keywords, coverage.getTaxonKeywords());
+
+    // other lists are copied
+    List<TaxonKeyword> plain = new ArrayList<>();
+    plain.add(new TaxonKeyword("Puma concolor", "species", null));
+    coverage.setTaxonKeywords(plain);
+    assertEquals(plain, coverage.getTaxonKeywords());
+    assertNotSame(plain.get(0), coverage.getTaxonKeywords().get(0));
+    plain.get(0).setRank("genus");
+    assertEquals("species", coverage.getTaxonKeywords().get(0).getRank());
+  }
+
+  @Test
+  public void testManyReplacedNames() {
+    TaxonKeywordList list = new TaxonKeywordList();
+    for (int i = 0; i < 1000; i++) {
+      list.add("Taxon " + i, "species", null);
+    }
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < list.size(); i++) {
+        list.get(i).setScientificName("Taxon " + i + " round " + round);
+      }
+    }
+    for (int i = 0; i < list.size(); i++) {
+      assertEquals("Taxon " + i + " round 9", list.getScientificName(i));
+      assertEquals("species", list.getRank(i));
+    }
+  }
+}
@@ -14,14 +14,23 @@
 package org.gbif.metadata.eml.ipt.util;
 
 import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
 import java.util.SimpleTimeZone;
 import java.util.TimeZone;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class DateUtilsTest {
@@ -133,4 +142,153 @@ public class DateUtilsTest {
 
     assertEquals(cal.getTimeInMillis(), cal2.getTimeInMillis());
   }
+
+  @Test
+  public void testParseWithOffsets() {
+    // 2001-07-04T19:08:56.235Z
+    long expected = 994273736235L;
+    assertEquals(expected, DateUtils.parse("2001-07-04T12:08:56.235-0700").getTime());
+    assertEquals(expected, DateUtils.parse("2001-07-04 12:08:56.235-0700").getTime());
+    assertEquals(expected, DateUtils.parse("2001-07-04T20:08:56.235GMT+01:00").getTime());
+  }
+
+  @Test
+  public void testParseLenient() {
+    Calendar cal = Calendar.getInstance();
+    cal.clear();
+    cal.set(2001, Calendar.MARCH, 2);
+    // day 30 of February rolls over into March
+    assertEquals(cal.getTime(), DateUtils.parse("2001-02-30"));
+    // trailing text is ignored
+    cal.set(2001, Calendar.JULY, 4);
+    assertEquals(cal.getTime(), DateUtils.parse("2001-7-4xyz"));
+    // leading whitespace is ignored
+    cal.set(2001, Calendar.JULY, 4, 12, 8, 56);
+    assertEquals(cal.getTime(), DateUtils.parse(" 2001-07-04T12:08:56"));
+  }
+
+  @Test
+  public void testFormat() throws ParseException {
+    Date date = DateUtils.ISO_DATE_FORMAT.parse("2010-02-22");
+    assertEquals("2010-02-22", DateUtils.ISO_DATE_FORMAT.format(date));
+    assertThrows(ParseException.class, () -> DateUtils.ISO_DATE_FORMAT.parse("22/02"));
+
+    ThreadSafeSimpleDateFormat rfc822 = new ThreadSafeSimpleDateFormat("EEE, d MMM yyyy HH:mm:ss Z");
+    assertEquals(date, rfc822.parse(rfc822.format(date)));
+  }
+
+  @Test
+  public void testFormatFallsBackToSimpleDateFormat() throws ParseException {
+    Date date = new Date(994248536235L);
+    String[] patterns = {
+      "yy-MM-dd", "h:mm a", "yyyy-MM-dd HH:mm z", "D yyyy", "k:mm", "yyyy-MM-dd'T'HH:mm:ssXXX",
+      "h 'o''clock' a, d MMM yyyy"
+    };
+    for (String pattern : patterns) {
+      SimpleDateFormat expected = new SimpleDateFormat(pattern);
+      ThreadSafeSimpleDateFormat format = new ThreadSafeSimpleDateFormat(pattern);
+      String text = expected.format(date);
+      assertEquals(text, format.format(date), pattern);
+      assertEquals(expected.parse(text), format.parse(text), pattern);
+    }
+    assertThrows(IllegalArgumentException.class, () -> new ThreadSafeSimpleDateFormat("yyyy-bb"));
+
+    // more whitespace in front of a field than the formatter skips
+    SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd");
+    for (String text : new String[] {"2010-     02-22", "2010-\t02-22", "2010- \t 02-22"}) {
+      assertEquals(iso.parse(text), DateUtils.ISO_DATE_FORMAT.parse(text), text);
+    }
+    assertThrows(ParseException.class, () -> DateUtils.ISO_DATE_FORMAT.parse("2010-     x"));
+  }
+
+  @Test
+  public void testParseConcurrently() {
+    Calendar cal = Calendar.getInstance();
+    cal.clear();
+    cal.set(1847, Calendar.DECEMBER, 24);
+    List<Date> dates =
+        IntStream.range(0, 10_000)
+            .parallel()
+            .mapToObj(i -> DateUtils.parse("1847-12-24"))
+            .distinct()
+            .collect(Collectors.toList());
+    assertEquals(1, dates.size());
+    assertEquals(cal.getTime(), dates.get(0));
+  }
+
+  /**
+   * The format sniffer in parse must give the same result as trying all formats in order.
+   */
+  @Test
+  public void testParseMatchesFallback() {
+    List<String> inputs =
+        new ArrayList<>(
+            Arrays.asList(
+                "2010-02-02",
+                "1847-12-24",
+                "1847 - 12 - 24",
+                "1847 / 12 / 24",
+                "1847.12.24",
+                "1947",
+                " 1847",
+                "123s2",
+                "2002-10-23T18:13:51.235+01:00",
+                "2002-10-23T10:43:51.235-06:30",
+                "2001-07-04T12:08:56.235-0700",
+                "2001-07-04 12:08:56.235-0700",
+                "2001-07-04T12:08:56.235+9999",
+                "2001-07-04T12:08:56.235+01000",
+                "2001-07-04T12:08:56.235",
+                "2001-07-04 12:08:56.235",
+                "2001-07-04T12:08:56",
+                "2001-07-04 12:08:56",
+                "2001-07-04T12:08",
+                "22.03.2010",
+                "2010/02/24",
+                "2010-02",
+                "1234567890-01-01",
+                "0000-00-00"));
+
+    Random random = new Random(20100222);
+    String[] separators = {"-", ".", "/"};
+    String[] offsets = {"", "+0100", "-0630", "+1800", "-2400", "+0099", "+01:00", "Z"};
+    for (int i = 0; i < 5_000; i++) {
+      String date =
+          String.format(
+              "%1$04d%3$s%2$d%3$s%4$02d",
+              random.nextInt(2500),
+              random.nextInt(15),
+              separators[random.nextInt(separators.length)],
+              random.nextInt(35));
+      String time =
+          String.format(
+              "%s%02d:%02d:%02d",
+              random.nextBoolean() ? "T" : " ",
+              random.nextInt(26),
+              random.nextInt(62),
+              random.nextInt(62));
+      String millis = "." + random.nextInt(10_000);
+      String offset = offsets[random.nextInt(offsets.length)];
+      switch (random.nextInt(5)) {
+        case 0:
+          inputs.add(date);
+          break;
+        case 1:
+          inputs.add(date + time);
+          break;
+        case 2:
+          inputs.add(date + time + millis);
+          break;
+        case 3:
+          inputs.add(date + time + millis + offset);
+          break;
+        default:
+          inputs.add(String.valueOf(random.nextInt(100_000)));
+      }
+    }
+
+    for (String input : inputs) {
+      assertEquals(DateUtils.parseWithFallback(input), DateUtils.parse(input), input);
+    }
+  }
 }
@@ -36,6 +36,7 @@ import org.gbif.api.vocabulary.License;
 import org.gbif.api.vocabulary.MaintenanceUpdateFrequency;
 import org.gbif.api.vocabulary.PreservationMethodType;
 import org.gbif.api.vocabulary.Rank;
+import org.gbif.metadata.common.util.StringPool;
 import org.gbif.metadata.eml.EMLProfileVersion;
 import org.gbif.metadata.eml.EMLWriter;
 import org.gbif.metadata.eml.EmlValidator;
@@ -65,7 +66,9 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -122,6 +125,53 @@ public class DatasetEmlParserTest {
     fail("Keyword" + tag + " missing");
   }
 
+  @Test
+  public void testStringPool() throws IOException {
+    byte[] xml;
+    try (InputStream is = FileUtils.classpathStream("eml-metadata-profile/sample3-v1.0.1.xml")) {
+      xml = IOUtils.toByteArray(is);
+    }
+    StringPool pool = new StringPool();
+    Dataset first = DatasetEmlParser.build(xml, pool);
+    Dataset second = DatasetEmlParser.build(xml, pool);
+
+    // pooling only deduplicates, the parsed content is the same
+    assertEquals(DatasetEmlParser.build(xml), first);
+    assertEquals(first, second);
+    assertSame(first.getTitle(), second.getTitle());
+    assertSame(
+        first.getContacts().get(0).getLastName(), second.getContacts().get(0).getLastName());
+    assertSame(
+        first.getKeywordCollections().get(0).getThesaurus(),
+        second.getKeywordCollections().get(0).getThesaurus());
+
+    StringPool.Stats stats = pool.stats();
+    assertTrue(stats.getHits() * 2 >= stats.getLookups(), stats.toString());
+  }
+
+  @Test
+  public void testSharedContactDetails() throws IOException {
+    byte[] xml;
+    try (InputStream is = FileUtils.classpathStream("eml/ipt/shared-agents.xml")) {
+      xml = IOUtils.toByteArray(is);
+    }
+    Dataset dataset = DatasetEmlParser.build(xml, new StringPool());
+    assertEquals(DatasetEmlParser.build(xml), dataset);
+
+    Contact originator = dataset.getContacts().get(0);
+    Contact administrative = dataset.getContacts().get(2);
+    assertEquals(ContactType.ORIGINATOR, originator.getType());
+    assertEquals(ContactType.ADMINISTRATIVE_POINT_OF_CONTACT, administrative.getType());
+    // the strings are shared, each contact keeps its own lists to edit
+    assertSame(originator.getEmail().get(0), administrative.getEmail().get(0));
+    assertSame(originator.getAddress().get(0), administrative.getAddress().get(0));
+    assertSame(originator.getUserId().get(0), administrative.getUserId().get(0));
+    assertNotSame(originator.getEmail(), administrative.getEmail());
+    assertNotSame(originator.getAddress(), administrative.getAddress());
+    administrative.getEmail().add("other@example.org");
+    assertEquals(1, originator.getEmail().size());
+  }
+
   @Test
   public void testEmlParsingBadEnum() {
     try (InputStream is = FileUtils.classpathStream("eml-metadata-profile/sample3-v1.0.1.xml")) {
@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gbif.metadata.eml.parse;
+
+import org.gbif.api.model.registry.Dataset;
+import org.gbif.api.model.registry.eml.KeywordCollection;
+import org.gbif.api.vocabulary.ContactType;
+import org.gbif.metadata.common.util.StringPool;
+import org.gbif.metadata.eml.codec.DatasetCodec;
+import org.gbif.metadata.eml.diff.DatasetDiff;
+import org.gbif.utils.file.FileUtils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DatasetSnapshotTest {
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    for (String document :
+        new String[] {
+          "eml-metadata-profile/sample3-v1.0.1.xml",
+          "eml-metadata-profile/sample10-v1.3.xml",
+          "eml/eml.xml"
+        }) {
+      Dataset dataset;
+      try (InputStream is = FileUtils.classpathStream(document)) {
+        dataset = DatasetEmlParser.build(IOUtils.toByteArray(is));
+      }
+      dataset.setKey(UUID.randomUUID());
+      DatasetSnapshot snapshot = DatasetSnapshot.of(dataset);
+      Dataset restored = snapshot.toDataset();
+
+      assertTrue(DatasetDiff.diff(dataset, restored).isEmpty(), document);
+      assertEquals(DatasetCodec.encode(dataset), DatasetCodec.encode(restored), document);
+      assertEquals(dataset.getKey(), restored.getKey());
+    }
+  }
+
+  @Test
+  public void testAccessors() throws Exception {
+    Dataset dataset;
+    try (InputStream is = FileUtils.classpathStream("eml-metadata-profile/sample3-v1.0.1.xml")) {
+      dataset = DatasetEmlParser.build(IOUtils.toByteArray(is));
+    }
+    DatasetSnapshot snapshot = DatasetSnapshot.of(dataset);
+
+    assertEquals(dataset.getTitle(), snapshot.getTitle());
+    assertEquals(dataset.getPubDate(), snapshot.getPubDate());
+    assertEquals(dataset.getLicense(), snapshot.getLicense());
+    assertEquals(dataset.getContacts().size(), snapshot.getContacts().size());
+    assertEquals(
+        dataset.getContacts().get(0).getLastName(), snapshot.getContacts().get(0).getLastName());
+    assertEquals(dataset.getContacts().get(0).getEmail(), snapshot.getContacts().get(0).getEmail());
+    assertNotNull(snapshot.getPrimaryContact(ContactType.ORIGINATOR));
+
+    List<String> keywords = new ArrayList<>();
+    for (KeywordCollection collection : dataset.getKeywordCollections()) {
+      keywords.addAll(collection.getKeywords());
+    }
+    assertEquals(keywords, snapshot.getKeywords());
+    assertEquals(dataset.getKeywordCollections().size(), snapshot.getThesauri().size());
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getKeywords().clear());
+  }
+
+  @Test
+  public void testPooledStrings() throws Exception {
+    StringPool pool = new StringPool();
+    List<DatasetSnapshot> snapshots = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      try (InputStream is = FileUtils.classpathStream("eml-metadata-profile/sample3-v1.0.1.xml")) {
+        Dataset dataset = DatasetEmlParser.build(IOUtils.toByteArray(is));
+        snapshots.add(DatasetSnapshot.of(dataset, pool));
+      }
+    }
+    DatasetSnapshot first = snapshots.get(0);
+    DatasetSnapshot second = snapshots.get(1);
+    assertEquals(first.getThesauri(), second.getThesauri());
+    assertSame(first.getThesauri().get(0), second.getThesauri().get(0));
+    assertSame(first.getKeywords().get(0), second.getKeywords().get(0));
+    assertTrue(pool.stats().getHits() > 0);
+  }
+
+  @Test
+  public void testEmptyDataset() {
+    DatasetSnapshot snapshot = DatasetSnapshot.of(new Dataset());
+    assertNull(snapshot.getTitle());
+    assertNull(snapshot.getPubDate());
+    assertTrue(snapshot.getContacts().isEmpty());
+    assertTrue(snapshot.getKeywords().isEmpty());
+    assertTrue(snapshot.getCountryCoverage().isEmpty());
+    assertNull(snapshot.getPrimaryContact(ContactType.ORIGINATOR));
+
+    Dataset restored = snapshot.toDataset();
+    assertNull(restored.getTitle());
+    assertTrue(restored.getContacts().isEmpty());
+  }
+}